@@ -0,0 +1,275 @@
+package gpv.chess;
+
+import java.util.*;
+import gpv.Piece;
+import gpv.util.*;
+
+/**
+ * Many 8x8 positions at once, as bit sets laid out structure-of-arrays: for
+ * each kind of piece and each side one long[] with a lane per position, plus
+ * the occupied and moved squares. Bit i is square i of Board.squareIndex, so
+ * bit 0 is a1 and moving up a row, which is forward for white, adds 8.
+ * <br/>
+ * The kernels compute the squares attacked from one set per lane for a whole
+ * batch per call: leapers by shifting, riders by Kogge-Stone fills through
+ * the empty squares. Their loops have no branches and touch the lanes in
+ * order, so the JIT unrolls them and can use SIMD instructions where it
+ * finds them. A square is attacked when a piece of the side could capture an
+ * enemy there by canMove, which in this variant means pawns capture along
+ * every diagonal at any distance and also forward: one square once moved,
+ * before that any distance forward or at least two squares back. Squares
+ * held by the side's own pieces count as attacked when they are defended.
+ * <br/>
+ * A batch reuses its arrays, so it must not be shared between threads.
+ *
+ * @version Oct 19, 2026
+ */
+public final class AttackBatch {
+
+	private static final int NAMES = PieceName.values().length;
+
+	private static final long NOT_A = 0xFEFEFEFEFEFEFEFEL, NOT_H = 0x7F7F7F7F7F7F7F7FL;
+	private static final long NOT_AB = 0xFCFCFCFCFCFCFCFCL, NOT_GH = 0x3F3F3F3F3F3F3F3FL;
+	private static final long NOT_ABC = 0xF8F8F8F8F8F8F8F8L, NOT_FGH = 0x1F1F1F1F1F1F1F1FL;
+
+	private final int capacity;
+	private final long[] occupied, moved;
+	private final long[][] pieces;
+	private final long[] leapers, orthogonal, diagonal, scratch;
+	private int size;
+
+	/**
+	 * @param capacity the most positions in the batch
+	 */
+	public AttackBatch(int capacity) {
+		this.capacity = capacity;
+		occupied = new long[capacity];
+		moved = new long[capacity];
+		pieces = new long[2 * NAMES][capacity];
+		leapers = new long[capacity];
+		orthogonal = new long[capacity];
+		diagonal = new long[capacity];
+		scratch = new long[capacity];
+	}
+
+	/**
+	 * Empty the batch.
+	 */
+	public void clear() {
+		Arrays.fill(occupied, 0, size, 0);
+		Arrays.fill(moved, 0, size, 0);
+		for (long[] lanes : pieces) { Arrays.fill(lanes, 0, size, 0); }
+		size = 0;
+	}
+
+	/**
+	 * Add a position as the next lane.
+	 * @param b an 8x8 board
+	 * @return the lane
+	 */
+	public int add(Board b) {
+		if (size == capacity) { throw new IllegalStateException("batch is full: " + capacity); }
+		if (b.getnRows() != 8 || b.getnColumns() != 8) {
+			throw new IllegalArgumentException("bit sets hold 8x8 boards, not " + b.getnRows() + "x" + b.getnColumns());
+		}
+		int lane = size++;
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			ChessPiece p = (ChessPiece) e.getValue();
+			long bit = 1L << b.squareIndex(e.getKey());
+			occupied[lane] |= bit;
+			if (p.hasMoved()) { moved[lane] |= bit; }
+			pieces[index(p.getColor(), p.getName())][lane] |= bit;
+		}
+		return lane;
+	}
+
+	/**
+	 * @return the number of positions
+	 */
+	public int size() { return size; }
+
+	/**
+	 * @param lane a lane
+	 * @return the occupied squares of its position
+	 */
+	public long occupied(int lane) { return occupied[lane]; }
+
+	/**
+	 * @param side a side
+	 * @param name a piece
+	 * @return the lanes of that side's pieces of that name; the batch's own array
+	 */
+	public long[] pieces(PlayerColor side, PieceName name) { return pieces[index(side, name)]; }
+
+	/**
+	 * Every square a side attacks, in every position.
+	 * @param side the attacking side
+	 * @param out receives one set per lane
+	 */
+	public void attacks(PlayerColor side, long[] out) {
+		int n = size;
+		long[] pawn = pieces(side, PieceName.PAWN), rook = pieces(side, PieceName.ROOK),
+				knight = pieces(side, PieceName.KNIGHT), bishop = pieces(side, PieceName.BISHOP),
+				queen = pieces(side, PieceName.QUEEN), king = pieces(side, PieceName.KING),
+				archbishop = pieces(side, PieceName.ARCHBISHOP), chancellor = pieces(side, PieceName.CHANCELLOR),
+				camel = pieces(side, PieceName.CAMEL);
+		for (int i = 0; i < n; i++) {
+			leapers[i] = knight[i] | archbishop[i] | chancellor[i];
+			orthogonal[i] = rook[i] | queen[i] | chancellor[i];
+			diagonal[i] = bishop[i] | queen[i] | archbishop[i] | pawn[i];
+		}
+		knightAttacks(leapers, out, n);
+		camelAttacks(camel, scratch, n);
+		or(out, scratch, n);
+		kingAttacks(king, scratch, n);
+		or(out, scratch, n);
+		rookAttacks(orthogonal, occupied, scratch, n);
+		or(out, scratch, n);
+		bishopAttacks(diagonal, occupied, scratch, n);
+		or(out, scratch, n);
+		pawnPushAttacks(pawn, moved, occupied, side, scratch, n);
+		or(out, scratch, n);
+	}
+
+	/**
+	 * @param from the knights of each lane
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void knightAttacks(long[] from, long[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			long b = from[i];
+			long one = ((b << 1) & NOT_A) | ((b >>> 1) & NOT_H);
+			long two = ((b << 2) & NOT_AB) | ((b >>> 2) & NOT_GH);
+			out[i] = (one << 16) | (one >>> 16) | (two << 8) | (two >>> 8);
+		}
+	}
+
+	/**
+	 * @param from the camels, (1, 3) leapers, of each lane
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void camelAttacks(long[] from, long[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			long b = from[i];
+			long one = ((b << 1) & NOT_A) | ((b >>> 1) & NOT_H);
+			long three = ((b << 3) & NOT_ABC) | ((b >>> 3) & NOT_FGH);
+			out[i] = (one << 24) | (one >>> 24) | (three << 8) | (three >>> 8);
+		}
+	}
+
+	/**
+	 * @param from the kings of each lane
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void kingAttacks(long[] from, long[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			long b = from[i];
+			long sides = ((b << 1) & NOT_A) | ((b >>> 1) & NOT_H), row = b | sides;
+			out[i] = sides | (row << 8) | (row >>> 8);
+		}
+	}
+
+	/**
+	 * @param from the rooks of each lane
+	 * @param occupied the occupied squares of each lane, which stop the rooks
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void rookAttacks(long[] from, long[] occupied, long[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			long b = from[i], empty = ~occupied[i];
+			out[i] = up(b, empty, 8, -1L) | down(b, empty, 8, -1L)
+					| up(b, empty, 1, NOT_A) | down(b, empty, 1, NOT_H);
+		}
+	}
+
+	/**
+	 * @param from the bishops of each lane
+	 * @param occupied the occupied squares of each lane, which stop the bishops
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void bishopAttacks(long[] from, long[] occupied, long[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			long b = from[i], empty = ~occupied[i];
+			out[i] = up(b, empty, 9, NOT_A) | up(b, empty, 7, NOT_H)
+					| down(b, empty, 7, NOT_A) | down(b, empty, 9, NOT_H);
+		}
+	}
+
+	/**
+	 * All the squares pawns attack: the diagonals and the squares ahead.
+	 * @param from the pawns of each lane
+	 * @param moved the squares of each lane holding pieces that have moved
+	 * @param occupied the occupied squares of each lane
+	 * @param side the color of the pawns
+	 * @param out receives the squares they attack
+	 * @param n the number of lanes
+	 */
+	public static void pawnAttacks(long[] from, long[] moved, long[] occupied, PlayerColor side, long[] out, int n) {
+		pawnPushAttacks(from, moved, occupied, side, out, n);
+		for (int i = 0; i < n; i++) {
+			long b = from[i], empty = ~occupied[i];
+			out[i] |= up(b, empty, 9, NOT_A) | up(b, empty, 7, NOT_H)
+					| down(b, empty, 7, NOT_A) | down(b, empty, 9, NOT_H);
+		}
+	}
+
+	/**
+	 * The squares pawns attack along their column: one square forward once
+	 * moved, and before that the whole way forward, or back from two squares
+	 * on when the square just behind is empty.
+	 */
+	private static void pawnPushAttacks(long[] from, long[] moved, long[] occupied, PlayerColor side, long[] out, int n) {
+		if (side == PlayerColor.WHITE) {
+			for (int i = 0; i < n; i++) {
+				long b = from[i], empty = ~occupied[i], never = b & ~moved[i];
+				out[i] = ((b & moved[i]) << 8) | up(never, empty, 8, -1L) | down((never >>> 8) & empty, empty, 8, -1L);
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				long b = from[i], empty = ~occupied[i], never = b & ~moved[i];
+				out[i] = ((b & moved[i]) >>> 8) | down(never, empty, 8, -1L) | up((never << 8) & empty, empty, 8, -1L);
+			}
+		}
+	}
+
+	/**
+	 * The squares reached from gen by shifting left step at a time through
+	 * empty squares, and the first blocker on each ray.
+	 * @param wrap the squares a shift may land on without wrapping round the board
+	 */
+	private static long up(long gen, long empty, int step, long wrap) {
+		empty &= wrap;
+		gen |= empty & (gen << step);
+		empty &= empty << step;
+		gen |= empty & (gen << 2 * step);
+		empty &= empty << 2 * step;
+		gen |= empty & (gen << 4 * step);
+		return (gen << step) & wrap;
+	}
+
+	/**
+	 * As up, shifting right.
+	 */
+	private static long down(long gen, long empty, int step, long wrap) {
+		empty &= wrap;
+		gen |= empty & (gen >>> step);
+		empty &= empty >>> step;
+		gen |= empty & (gen >>> 2 * step);
+		empty &= empty >>> 2 * step;
+		gen |= empty & (gen >>> 4 * step);
+		return (gen >>> step) & wrap;
+	}
+
+	private static void or(long[] into, long[] from, int n) {
+		for (int i = 0; i < n; i++) { into[i] |= from[i]; }
+	}
+
+	private static int index(PlayerColor side, PieceName name) {
+		return (side == PlayerColor.WHITE ? 0 : NAMES) + name.ordinal();
+	}
+}
@@ -59,52 +59,94 @@ public class ChessPiece implements Piece<ChessPieceDescriptor>
 	 */
 	@Override
 	public boolean canMove(Coordinate from, Coordinate to, Board b)
+	{
+		boolean metrics=MoveMetrics.isEnabled();
+		MoveValidationEvent event=new MoveValidationEvent();
+		if(!metrics && !event.isEnabled()) {return checkMove(from,to,b)==MoveRejection.NONE;}
+		
+		event.begin();
+		long start=System.nanoTime();
+		MoveRejection result=checkMove(from,to,b);
+		long nanos=System.nanoTime()-start;
+		if(metrics) {MoveMetrics.record(getName(),result,nanos);}
+		if(event.isEnabled() && FlightRecording.shouldCommit(event))
+		{
+			event.piece=descriptor.name();
+			event.from=from.toString();
+			event.to=to.toString();
+			event.pattern=identifyPattern(to.getColumn()-from.getColumn(),to.getRow()-from.getRow()).name();
+			event.pathLength=pathLength(from,to);
+			event.result=result.name();
+			event.commit();
+		}
+		return result==MoveRejection.NONE;
+	}
+	
+	/**
+	 * Runs the same checks as canMove but reports which check failed
+	 * @param from, the Coordinate the piece moves from
+	 * @param to, the Coordinate the piece moves to
+	 * @param b, the Board being used
+	 * @return MoveRejection.NONE if the move is valid, otherwise the reason it is not
+	 */
+	public MoveRejection checkMove(Coordinate from, Coordinate to, Board b)
 	{
 		//checks 'to' coordinates against board bounds
-		if(!b.validateBoundaries(to)) {return false;}
+		if(!b.validateBoundaries(to)) {return MoveRejection.OUT_OF_BOUNDS;}
+		
+		//fairy pieces are validated from their compiled MovementSpec
+		if(!this.getName().isStandard()) {return checkCompiledMove(from,to,b);}
 		
 		int yDiff=to.getRow()-from.getRow();
 		int xDiff=to.getColumn()-from.getColumn();
 		Pattern pattern = identifyPattern(xDiff,yDiff);
 
 		//checks that pattern is not unknown
-		if(pattern == Pattern.UNKNOWN) {return false;}
+		if(pattern == Pattern.UNKNOWN) {return MoveRejection.UNKNOWN_PATTERN;}
 		
 		//validates that a piece, this, can move in a given Pattern
 		Movement movement=new Movement(pattern,this);
-		if(!movement.getPPMatch()) {return false;}
+		if(!movement.getPPMatch()) {return MoveRejection.PATTERN_MISMATCH;}
 		
 		//checks for obstructions, allows for castling
-		if(!obstructionFree(pattern,from,to,b)) {return false;}
+		if(!obstructionFree(pattern,from,to,b)) {return MoveRejection.OBSTRUCTED;}
 		
 		//pawn diagonal check
 		if(this.getName()==PieceName.PAWN && pattern==Pattern.DIAGONAL)
 		{
 			ChessPiece pieceOnTarget=(ChessPiece) b.getPieceAt(to);
-			if(pieceOnTarget!=null) {
-				return canCapture(to,b);
-			}else {return false;}
+			if(pieceOnTarget!=null && canCapture(to,b)) {return MoveRejection.NONE;}
+			else {return MoveRejection.PAWN_CAPTURE;}
 		}
 		
 		if(this.getName()==PieceName.PAWN && pattern==Pattern.VERTICAL)
 		{
 			if(Math.abs(yDiff)>1)
 			{
-				if(this.hasMoved()==true) {return false;}
+				if(this.hasMoved()==true) {return MoveRejection.PAWN_DOUBLE_STEP;}
 			}
-			else if(yDiff<1 && this.getColor()==PlayerColor.WHITE) {return false;} //unidirectional
-			else if(yDiff>0 && this.getColor()==PlayerColor.BLACK) {return false;} //unidirectional
+			else if(yDiff<1 && this.getColor()==PlayerColor.WHITE) {return MoveRejection.PAWN_DIRECTION;} //unidirectional
+			else if(yDiff>0 && this.getColor()==PlayerColor.BLACK) {return MoveRejection.PAWN_DIRECTION;} //unidirectional
 		}
 		
 		if(this.getName()==PieceName.KING && ((Math.abs(yDiff)>1) || (Math.abs(xDiff)>1)))
 		{
-			System.out.println(from.toString());
-			System.out.println(to.toString());
-			System.out.println(xDiff);
-			System.out.println(yDiff);
-			return false;}
+			return MoveRejection.KING_RANGE;
+		}
 		
-		return true;
+		return MoveRejection.NONE;
+	}
+	
+	/**
+	 * Validates a move with the piece's CompiledMovement tables, reading the
+	 * board through a Mailbox attached to it or loaded for the call
+	 * @return MoveRejection.NONE if the move is valid, otherwise the reason it is not
+	 */
+	private MoveRejection checkCompiledMove(Coordinate from, Coordinate to, Board b)
+	{
+		if(!b.validateBoundaries(from)) {return MoveRejection.OUT_OF_BOUNDS;}
+		return CompiledRules.forBoard(b).get(descriptor)
+				.check(b.squareIndex(from),b.squareIndex(to),Occupancy.code(this),Mailbox.of(b));
 	}
 	
 	/**
@@ -116,6 +158,28 @@ public class ChessPiece implements Piece<ChessPieceDescriptor>
 	 * @return true for no obstructions, false for existing obstructions
 	 */
 	public boolean obstructionFree(Pattern pattern,Coordinate from,Coordinate to,Board b)
+	{
+		PathScanEvent event=new PathScanEvent();
+		if(!event.isEnabled()) {return scanPath(pattern,from,to,b);}
+		
+		event.begin();
+		boolean result=scanPath(pattern,from,to,b);
+		if(FlightRecording.shouldCommit(event))
+		{
+			event.piece=descriptor.name();
+			event.pattern=pattern.name();
+			event.pathLength=pathLength(from,to);
+			event.result=result;
+			event.commit();
+		}
+		return result;
+	}
+	
+	/**
+	 * The obstruction check behind obstructionFree
+	 * @return true for no obstructions, false for existing obstructions
+	 */
+	private boolean scanPath(Pattern pattern,Coordinate from,Coordinate to,Board b)
 	{
 		int fRow=from.getRow(),tRow=to.getRow();
 		int fCol=from.getColumn(),tCol=to.getColumn();
@@ -261,6 +325,8 @@ public class ChessPiece implements Piece<ChessPieceDescriptor>
 	public boolean canCastle(Coordinate to, Board b)
 	{
 		ChessPiece target =(ChessPiece) b.getPieceAt(to);
+		//only an unmoved piece of the same color can be castled with
+		if(target==null || target.getColor()!=this.getColor()) {return false;}
 		if(this.hasMoved() || target.hasMoved()) {return false;}
 		
 		boolean tIsKing = (target.getName() == PieceName.KING);
@@ -303,6 +369,14 @@ public class ChessPiece implements Piece<ChessPieceDescriptor>
 	}
 
 
+	/**
+	 * @return the number of squares between from and to along the move,
+	 * counting 'to' but not 'from'
+	 */
+	static int pathLength(Coordinate from, Coordinate to) {
+		return Math.max(Math.abs(to.getRow()-from.getRow()), Math.abs(to.getColumn()-from.getColumn()));
+	}
+
 	/**
 	 * @return the hasMoved
 	 */
@@ -35,10 +35,19 @@ public enum ChessPieceDescriptor implements PieceDescriptor
 	BLACKKNIGHT(BLACK, KNIGHT), 
 	BLACKBISHOP(BLACK, BISHOP), 
 	BLACKQUEEN(BLACK, QUEEN), 
-	BLACKKING(BLACK, KING);
+	BLACKKING(BLACK, KING),
+	WHITEARCHBISHOP(WHITE, ARCHBISHOP),
+	WHITECHANCELLOR(WHITE, CHANCELLOR),
+	WHITECAMEL(WHITE, CAMEL),
+	BLACKARCHBISHOP(BLACK, ARCHBISHOP),
+	BLACKCHANCELLOR(BLACK, CHANCELLOR),
+	BLACKCAMEL(BLACK, CAMEL);
 	
 	private PlayerColor color;
 	private PieceName name;
+	private MovementSpec movement;
+	
+	private static final ChessPieceDescriptor[] VALUES = values();
 	
 	/**
 	 * Private constructor to set the color and name in the instance.
@@ -49,6 +58,7 @@ public enum ChessPieceDescriptor implements PieceDescriptor
 	{
 		this.color = color;
 		this.name = name;
+		this.movement = MovementSpec.forPiece(color, name);
 	}
 
 	/**
@@ -66,4 +76,22 @@ public enum ChessPieceDescriptor implements PieceDescriptor
 	{
 		return name;
 	}
+
+	/**
+	 * @return how the piece moves
+	 */
+	public MovementSpec getMovementSpec()
+	{
+		return movement;
+	}
+
+	/**
+	 * Like values()[ordinal], without copying the array.
+	 * @param ordinal
+	 * @return the descriptor with that ordinal
+	 */
+	public static ChessPieceDescriptor ofOrdinal(int ordinal)
+	{
+		return VALUES[ordinal];
+	}
 }
@@ -0,0 +1,253 @@
+package gpv.chess;
+
+import gpv.chess.MovementSpec.*;
+import static gpv.chess.Occupancy.EMPTY;
+
+/**
+ * A MovementSpec compiled for one board size. Two tables are built once:
+ * <ul>
+ * <li>for every (from, to) pair, the steps that reach 'to' from 'from' and
+ * 	after how many repetitions, so validating a move is one table lookup
+ * 	plus a walk over the squares in between;</li>
+ * <li>for every (from, step) pair, the squares the step visits in order
+ * 	until it leaves the board, so targets can be enumerated or counted by
+ * 	walking rays until they are blocked.</li>
+ * </ul>
+ * Squares are Board.squareIndex numbers. Instances are immutable and are
+ * shared through CompiledRules.
+ *
+ * @version Oct 19, 2026
+ */
+public final class CompiledMovement {
+
+	/**
+	 * The largest board the pair table is built for.
+	 */
+	public static final int MAX_SQUARES = 1024;
+
+	private final MovementSpec spec;
+	private final int rows, columns, squares, steps;
+	private final int[] delta, minRange;
+	private final Mode[] mode;
+	private final Condition[] condition;
+	private final int[] pairStart, pairs;	// pairs: step << 16 | distance
+	private final int[] rayStart, rays;
+
+	/**
+	 * Compile a spec.
+	 * @param spec the movement
+	 * @param rows the number of rows of the board
+	 * @param columns the number of columns of the board
+	 */
+	public CompiledMovement(MovementSpec spec, int rows, int columns) {
+		if (rows < 1 || columns < 1 || rows * columns > MAX_SQUARES) {
+			throw new IllegalArgumentException("unsupported board " + rows + "x" + columns);
+		}
+		this.spec = spec;
+		this.rows = rows;
+		this.columns = columns;
+		this.squares = rows * columns;
+		this.steps = spec.getSteps().size();
+		delta = new int[steps];
+		minRange = new int[steps];
+		mode = new Mode[steps];
+		condition = new Condition[steps];
+		for (int s = 0; s < steps; s++) {
+			Step step = spec.getSteps().get(s);
+			delta[s] = step.getdRow() * columns + step.getdColumn();
+			minRange[s] = step.getMinRange();
+			mode[s] = step.getMode();
+			condition[s] = step.getCondition();
+		}
+
+		rayStart = new int[squares * steps + 1];
+		pairStart = new int[squares * squares + 1];
+		int total = 0;
+		for (int from = 0; from < squares; from++) {
+			for (int s = 0; s < steps; s++) {
+				int length = rayLength(from, spec.getSteps().get(s));
+				rayStart[from * steps + s + 1] = length;
+				total += length;
+				for (int d = minRange[s]; d <= length; d++) {
+					pairStart[from * squares + from + d * delta[s] + 1]++;
+				}
+			}
+		}
+		for (int i = 1; i < rayStart.length; i++) { rayStart[i] += rayStart[i - 1]; }
+		for (int i = 1; i < pairStart.length; i++) { pairStart[i] += pairStart[i - 1]; }
+
+		rays = new int[total];
+		pairs = new int[pairStart[pairStart.length - 1]];
+		int[] fill = new int[squares * squares];
+		for (int from = 0; from < squares; from++) {
+			for (int s = 0; s < steps; s++) {
+				int begin = rayStart[from * steps + s], length = rayStart[from * steps + s + 1] - begin;
+				for (int d = 1; d <= length; d++) {
+					int to = from + d * delta[s];
+					rays[begin + d - 1] = to;
+					if (d >= minRange[s]) {
+						int pair = from * squares + to;
+						pairs[pairStart[pair] + fill[pair]++] = s << 16 | d;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return how many times the step can be repeated from 'from' without
+	 * 	leaving the board, capped at its maxRange
+	 */
+	private int rayLength(int from, Step step) {
+		int row = from / columns, column = from % columns, length = 0;
+		while (length < step.getMaxRange()) {
+			row += step.getdRow();
+			column += step.getdColumn();
+			if (row < 0 || row >= rows || column < 0 || column >= columns) { break; }
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Validate a move.
+	 * @param from the square the piece moves from
+	 * @param to the square it moves to
+	 * @param mover the Occupancy code of the moving piece
+	 * @param board what stands on each square
+	 * @return MoveRejection.NONE if the move is valid, otherwise the reason it is not
+	 */
+	public MoveRejection check(int from, int to, int mover, Occupancy board) {
+		if (from < 0 || from >= squares || to < 0 || to >= squares) { return MoveRejection.OUT_OF_BOUNDS; }
+		int pair = from * squares + to;
+		int begin = pairStart[pair], end = pairStart[pair + 1];
+		if (begin == end) { return MoveRejection.UNKNOWN_PATTERN; }
+		int target = board.codeAt(to);
+		if (target != EMPTY && Occupancy.sameColor(mover, target)) { return MoveRejection.OBSTRUCTED; }
+		boolean moved = Occupancy.hasMoved(mover);
+		MoveRejection result = MoveRejection.PATTERN_MISMATCH;
+		for (int i = begin; i < end; i++) {
+			int s = pairs[i] >>> 16, distance = pairs[i] & 0xFFFF;
+			if (!allows(s, moved, target != EMPTY)) { continue; }
+			if (isClear(from, delta[s], distance, board)) { return MoveRejection.NONE; }
+			result = MoveRejection.OBSTRUCTED;
+		}
+		return result;
+	}
+
+	/**
+	 * @param from a square
+	 * @param to a square
+	 * @return true if some step leads from 'from' to 'to' on an empty board,
+	 * 	whatever its mode and condition
+	 */
+	public boolean reaches(int from, int to) {
+		int pair = from * squares + to;
+		return pairStart[pair] != pairStart[pair + 1];
+	}
+
+	/**
+	 * Whether the piece could capture an enemy standing on 'to'. The piece on
+	 * 'to' itself is not looked at.
+	 * @param from the square of the piece
+	 * @param to the square attacked
+	 * @param mover the Occupancy code of the piece
+	 * @param board what stands on each square
+	 * @return true if a capture step reaches 'to' over empty squares
+	 */
+	public boolean attacks(int from, int to, int mover, Occupancy board) {
+		int pair = from * squares + to;
+		boolean moved = Occupancy.hasMoved(mover);
+		for (int i = pairStart[pair], end = pairStart[pair + 1]; i < end; i++) {
+			int s = pairs[i] >>> 16;
+			if (allows(s, moved, true) && isClear(from, delta[s], pairs[i] & 0xFFFF, board)) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * Every square the piece can move to, as a bit set. Only for boards of
+	 * at most 64 squares.
+	 * @param from the square of the piece
+	 * @param mover the Occupancy code of the piece
+	 * @param board what stands on each square
+	 * @return a set with bit 'to' set for every target that check accepts
+	 */
+	public long targets(int from, int mover, Occupancy board) {
+		if (squares > 64) { throw new IllegalStateException("bit sets hold 64 squares, not " + squares); }
+		boolean moved = Occupancy.hasMoved(mover);
+		long set = 0;
+		for (int s = 0; s < steps; s++) {
+			int min = minRange[s];
+			for (int i = rayStart[from * steps + s], end = rayStart[from * steps + s + 1], d = 1; i < end; i++, d++) {
+				int to = rays[i], code = board.codeAt(to);
+				if (code != EMPTY && Occupancy.sameColor(mover, code)) { break; }
+				if (d >= min && allows(s, moved, code != EMPTY)) { set |= 1L << to; }
+				if (code != EMPTY) { break; }
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * @return true if the step may be used by a piece in that state onto a
+	 * 	target that is empty or holds an enemy
+	 */
+	boolean allows(int step, boolean moved, boolean capture) {
+		switch (condition[step]) {
+			case UNMOVED: if (moved) { return false; } break;
+			case MOVED: if (!moved) { return false; } break;
+			default: break;
+		}
+		switch (mode[step]) {
+			case MOVE_ONLY: return !capture;
+			case CAPTURE_ONLY: return capture;
+			default: return true;
+		}
+	}
+
+	private static boolean isClear(int from, int delta, int distance, Occupancy board) {
+		int square = from;
+		for (int d = 1; d < distance; d++) {
+			square += delta;
+			if (board.codeAt(square) != EMPTY) { return false; }
+		}
+		return true;
+	}
+
+	/**
+	 * @return the compiled spec
+	 */
+	public MovementSpec getSpec() { return spec; }
+
+	/**
+	 * @return the number of squares of the board it was compiled for
+	 */
+	public int getSquares() { return squares; }
+
+	/**
+	 * @return the number of steps, and so of rays from each square
+	 */
+	public int getSteps() { return steps; }
+
+	/**
+	 * @return the index in rays() of the first square of a ray
+	 */
+	public int rayStart(int from, int step) { return rayStart[from * steps + step]; }
+
+	/**
+	 * @return the index in rays() just past the last square of a ray
+	 */
+	public int rayEnd(int from, int step) { return rayStart[from * steps + step + 1]; }
+
+	/**
+	 * @return the squares of every ray, laid out back to back; not a copy,
+	 * 	so it must not be modified
+	 */
+	int[] rays() { return rays; }
+
+	/**
+	 * @return the fewest repetitions of a step that count as a move
+	 */
+	public int minRange(int step) { return minRange[step]; }
+}
@@ -0,0 +1,82 @@
+package gpv.chess;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import gpv.util.Board;
+
+/**
+ * The CompiledMovement of every ChessPieceDescriptor for one board size.
+ * Rules are compiled the first time a size is asked for and then shared;
+ * the 8x8 rules are compiled when this class loads. Descriptors with the
+ * same spec (a white and a black rook) share one table.
+ *
+ * @version Oct 19, 2026
+ */
+public final class CompiledRules {
+
+	private static final Map<Long, CompiledRules> CACHE = new ConcurrentHashMap<>();
+
+	public static final CompiledRules STANDARD = forBoard(8, 8);
+
+	private final int rows, columns;
+	private final CompiledMovement[] byDescriptor;
+
+	private CompiledRules(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		Map<MovementSpec, CompiledMovement> compiled = new IdentityHashMap<>();
+		ChessPieceDescriptor[] descriptors = ChessPieceDescriptor.values();
+		byDescriptor = new CompiledMovement[descriptors.length];
+		for (ChessPieceDescriptor d : descriptors) {
+			MovementSpec spec = d.getMovementSpec();
+			CompiledMovement m = compiled.get(spec);
+			if (m == null) {
+				m = new CompiledMovement(spec, rows, columns);
+				compiled.put(spec, m);
+			}
+			byDescriptor[d.ordinal()] = m;
+		}
+	}
+
+	/**
+	 * @param rows the number of rows
+	 * @param columns the number of columns
+	 * @return the rules for a board of that size
+	 */
+	public static CompiledRules forBoard(int rows, int columns) {
+		CompiledRules standard = STANDARD;
+		if (standard != null && rows == 8 && columns == 8) { return standard; }
+		return CACHE.computeIfAbsent(((long) rows << 32) | columns, k -> new CompiledRules(rows, columns));
+	}
+
+	/**
+	 * @param b a board
+	 * @return the rules for a board of its size
+	 */
+	public static CompiledRules forBoard(Board b) {
+		return forBoard(b.getnRows(), b.getnColumns());
+	}
+
+	/**
+	 * @param d a descriptor
+	 * @return its compiled movement
+	 */
+	public CompiledMovement get(ChessPieceDescriptor d) { return byDescriptor[d.ordinal()]; }
+
+	/**
+	 * Validate a move against the compiled tables.
+	 * @param mover the Occupancy code of the moving piece
+	 * @param from the square it moves from
+	 * @param to the square it moves to
+	 * @param board what stands on each square
+	 * @return MoveRejection.NONE if the move is valid, otherwise the reason it is not
+	 */
+	public MoveRejection check(int mover, int from, int to, Occupancy board) {
+		return byDescriptor[Occupancy.descriptor(mover).ordinal()].check(from, to, mover, board);
+	}
+
+	public int getRows() { return rows; }
+
+	public int getColumns() { return columns; }
+}
@@ -0,0 +1,117 @@
+package gpv.chess;
+
+import java.util.Arrays;
+import java.util.Map;
+import gpv.Piece;
+import gpv.util.*;
+
+/**
+ * A Board copied into one Occupancy code per square, so that move tables can
+ * be walked with array reads instead of Coordinate lookups. A mailbox is
+ * either loaded from a board once, or attached to it as a BoardListener and
+ * kept current as pieces are placed and removed. The moved flag of a piece
+ * is read when it is placed, so mark pieces as moved before putting them on
+ * their new square.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Mailbox implements Occupancy, BoardListener {
+
+	private static final ThreadLocal<Mailbox> SCRATCH = ThreadLocal.withInitial(Mailbox::new);
+
+	private int rows, columns;
+	private int[] cells = new int[0];
+
+	public Mailbox() { }
+
+	/**
+	 * @param b the board to copy
+	 */
+	public Mailbox(Board b) { load(b); }
+
+	/**
+	 * Replace the contents with a copy of the board.
+	 * @param b the board
+	 * @return this mailbox
+	 */
+	public Mailbox load(Board b) {
+		boardCleared(b);
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			cells[b.squareIndex(e.getKey())] = Occupancy.code((ChessPiece) e.getValue());
+		}
+		return this;
+	}
+
+	/**
+	 * Load the board and follow its changes.
+	 * @param b the board
+	 */
+	public void attach(Board b) {
+		load(b);
+		b.addBoardListener(this);
+	}
+
+	/**
+	 * A mailbox holding the board as it is now, found without changing the
+	 * board: one already attached to it, or else this thread's scratch
+	 * mailbox loaded from it. The next call on the same thread may reload the
+	 * scratch mailbox, so use the result before calling again.
+	 * @param b the board
+	 * @return a mailbox with b's contents
+	 */
+	public static Mailbox of(Board b) {
+		Mailbox m = b.getBoardListener(Mailbox.class);
+		return m != null && !m.resized(b) ? m : SCRATCH.get().load(b);
+	}
+
+	/**
+	 * Stop following a board.
+	 * @param b the board
+	 */
+	public void detach(Board b) {
+		b.removeBoardListener(this);
+	}
+
+	@Override
+	public int codeAt(int square) { return cells[square]; }
+
+	/**
+	 * Change one square without touching the board it was loaded from.
+	 * @param square the square index
+	 * @param code the new Occupancy code
+	 */
+	public void set(int square, int code) { cells[square] = code; }
+
+	public int getRows() { return rows; }
+
+	public int getColumns() { return columns; }
+
+	public int getSquares() { return rows * columns; }
+
+	@Override
+	public void piecePlaced(Board b, Piece p, Coordinate c) {
+		if (resized(b)) { load(b); }
+		else { cells[b.squareIndex(c)] = Occupancy.code((ChessPiece) p); }
+	}
+
+	@Override
+	public void pieceRemoved(Board b, Piece p, Coordinate c) {
+		if (resized(b)) { load(b); }
+		else { cells[b.squareIndex(c)] = EMPTY; }
+	}
+
+	/**
+	 * @return true if the board's dimensions were changed without a reset
+	 */
+	private boolean resized(Board b) {
+		return rows != b.getnRows() || columns != b.getnColumns();
+	}
+
+	@Override
+	public void boardCleared(Board b) {
+		rows = b.getnRows();
+		columns = b.getnColumns();
+		if (cells.length != rows * columns) { cells = new int[rows * columns]; }
+		else { Arrays.fill(cells, EMPTY); }
+	}
+}
@@ -0,0 +1,144 @@
+package gpv.chess;
+
+import gpv.util.*;
+import static gpv.chess.Occupancy.EMPTY;
+
+/**
+ * Counts of moves and attacks, without building move lists. Counts walk the
+ * compiled rays of each piece and stop at the first piece in the way, and
+ * are exactly the number of targets ChessPiece.canMove accepts.
+ * <br/>
+ * Queries on a Board copy it into a Mailbox first; callers that ask many
+ * questions about one position can load a Mailbox once and use the
+ * Mailbox overloads. An instance reuses its buffers, so it must not be
+ * shared between threads.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Mobility {
+
+	private final Mailbox mailbox = new Mailbox();
+	private int[] seen = new int[0];
+	private int generation;
+
+	/**
+	 * @param b the board
+	 * @param square the square of a piece
+	 * @return the number of squares the piece can move to, 0 if the square is empty
+	 */
+	public int mobility(Board b, Coordinate square) {
+		return mobility(mailbox.load(b), b.squareIndex(square));
+	}
+
+	/**
+	 * @param b the board
+	 * @param side a side
+	 * @return the number of moves that side has
+	 */
+	public int mobility(Board b, PlayerColor side) {
+		return mobility(mailbox.load(b), side);
+	}
+
+	/**
+	 * @param b the board
+	 * @param side a side
+	 * @return the number of moves of that side's pieces, indexed by PieceName ordinal
+	 */
+	public int[] mobilityByName(Board b, PlayerColor side) {
+		return mobilityByName(mailbox.load(b), side);
+	}
+
+	/**
+	 * @param b the board
+	 * @param square any square
+	 * @param side the attacking side
+	 * @return how many pieces of that side could capture an enemy on the square
+	 */
+	public int attackers(Board b, Coordinate square, PlayerColor side) {
+		return attackers(mailbox.load(b), b.squareIndex(square), side);
+	}
+
+	/**
+	 * @param m a loaded mailbox
+	 * @param from a square
+	 * @return the number of squares the piece on it can move to
+	 */
+	public int mobility(Mailbox m, int from) {
+		int mover = m.codeAt(from);
+		if (mover == EMPTY) { return 0; }
+		CompiledMovement movement = rules(m).get(Occupancy.descriptor(mover));
+		boolean moved = Occupancy.hasMoved(mover);
+		int[] rays = movement.rays();
+		if (seen.length < m.getSquares()) { seen = new int[m.getSquares()]; }
+		if (++generation == 0) {
+			java.util.Arrays.fill(seen, 0);
+			generation = 1;
+		}
+		int count = 0;
+		for (int s = 0; s < movement.getSteps(); s++) {
+			int min = movement.minRange(s);
+			for (int i = movement.rayStart(from, s), end = movement.rayEnd(from, s), d = 1; i < end; i++, d++) {
+				int to = rays[i], code = m.codeAt(to);
+				if (code != EMPTY && Occupancy.sameColor(mover, code)) { break; }
+				if (d >= min && seen[to] != generation && movement.allows(s, moved, code != EMPTY)) {
+					seen[to] = generation;
+					count++;
+				}
+				if (code != EMPTY) { break; }
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param m a loaded mailbox
+	 * @param side a side
+	 * @return the number of moves that side has
+	 */
+	public int mobility(Mailbox m, PlayerColor side) {
+		int total = 0;
+		for (int square = 0; square < m.getSquares(); square++) {
+			int code = m.codeAt(square);
+			if (code != EMPTY && Occupancy.descriptor(code).getColor() == side) { total += mobility(m, square); }
+		}
+		return total;
+	}
+
+	/**
+	 * @param m a loaded mailbox
+	 * @param side a side
+	 * @return the number of moves of that side's pieces, indexed by PieceName ordinal
+	 */
+	public int[] mobilityByName(Mailbox m, PlayerColor side) {
+		int[] counts = new int[PieceName.values().length];
+		for (int square = 0; square < m.getSquares(); square++) {
+			int code = m.codeAt(square);
+			if (code == EMPTY) { continue; }
+			ChessPieceDescriptor d = Occupancy.descriptor(code);
+			if (d.getColor() == side) { counts[d.getName().ordinal()] += mobility(m, square); }
+		}
+		return counts;
+	}
+
+	/**
+	 * @param m a loaded mailbox
+	 * @param target any square
+	 * @param side the attacking side
+	 * @return how many pieces of that side could capture an enemy on the square
+	 */
+	public int attackers(Mailbox m, int target, PlayerColor side) {
+		CompiledRules rules = rules(m);
+		int count = 0;
+		for (int square = 0; square < m.getSquares(); square++) {
+			int code = m.codeAt(square);
+			if (code == EMPTY || square == target) { continue; }
+			ChessPieceDescriptor d = Occupancy.descriptor(code);
+			if (d.getColor() == side && rules.get(d).attacks(square, target, code, m)) { count++; }
+		}
+		return count;
+	}
+
+	private static CompiledRules rules(Mailbox m) {
+		return CompiledRules.forBoard(m.getRows(), m.getColumns());
+	}
+}
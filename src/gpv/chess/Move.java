@@ -0,0 +1,129 @@
+package gpv.chess;
+
+import gpv.util.*;
+
+/**
+ * A move packed into the low 16 bits of an int, for boards of up to 64
+ * squares:
+ * <pre>
+ * bits  0-5   to square (see Board.squareIndex)
+ * bits  6-11  from square
+ * bits 12-15  flags: CAPTURE, CASTLE, DOUBLE_PUSH, PROMOTION
+ * </pre>
+ * Moves are plain ints (or shorts) so that they can be kept in MoveLists,
+ * tables and files without boxing. NONE is never a valid move.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Move {
+
+	public static final int NONE = 0;
+	public static final int MAX_SQUARES = 64;
+
+	public static final int CAPTURE = 1 << 12;
+	public static final int CASTLE = 1 << 13;
+	public static final int DOUBLE_PUSH = 1 << 14;
+	public static final int PROMOTION = 1 << 15;
+
+	private Move() { }
+
+	/**
+	 * @param from the from square
+	 * @param to the to square
+	 * @param flags any of the flag bits
+	 * @return the move
+	 * @throws IllegalArgumentException if a square is not in [0, MAX_SQUARES)
+	 */
+	public static int make(int from, int to, int flags) {
+		if (((from | to) & -MAX_SQUARES) != 0) {
+			throw new IllegalArgumentException("square out of range in move " + from + "-" + to);
+		}
+		return flags | from << 6 | to;
+	}
+
+	/**
+	 * Make a move and set its flags from the position it is played in: a
+	 * capture if 'to' holds a piece, a double push for a pawn moving two or
+	 * more rows, and a promotion for a pawn reaching its last row.
+	 * @param b the board before the move
+	 * @param from the from square
+	 * @param to the to square
+	 * @return the move
+	 * @throws IllegalArgumentException if a square is not in [0, MAX_SQUARES)
+	 */
+	public static int of(Board b, int from, int to) {
+		int flags = 0;
+		ChessPiece p = (ChessPiece) b.getPieceAt(b.coordinateOf(from));
+		if (b.getPieceAt(b.coordinateOf(to)) != null) { flags |= CAPTURE; }
+		if (p != null && p.getName() == PieceName.PAWN) {
+			int columns = b.getnColumns();
+			int fromRow = from / columns, toRow = to / columns;
+			if (from % columns == to % columns && Math.abs(toRow - fromRow) > 1) { flags |= DOUBLE_PUSH; }
+			int lastRow = p.getColor() == PlayerColor.WHITE ? b.getnRows() - 1 : 0;
+			if (toRow == lastRow) { flags |= PROMOTION; }
+		}
+		return make(from, to, flags);
+	}
+
+	/**
+	 * Pack a move, setting the same flags as of(Board, int, int).
+	 * @param m the position before the move
+	 * @param from the from square
+	 * @param to the to square
+	 * @return the packed move
+	 */
+	public static int of(Mailbox m, int from, int to) {
+		int flags = 0;
+		int mover = m.codeAt(from);
+		if (m.codeAt(to) != Occupancy.EMPTY) { flags |= CAPTURE; }
+		if (mover != Occupancy.EMPTY && Occupancy.descriptor(mover).getName() == PieceName.PAWN) {
+			int columns = m.getColumns();
+			int fromRow = from / columns, toRow = to / columns;
+			if (from % columns == to % columns && Math.abs(toRow - fromRow) > 1) { flags |= DOUBLE_PUSH; }
+			int lastRow = Occupancy.descriptor(mover).getColor() == PlayerColor.WHITE ? m.getRows() - 1 : 0;
+			if (toRow == lastRow) { flags |= PROMOTION; }
+		}
+		return make(from, to, flags);
+	}
+
+	/**
+	 * @return the from square
+	 */
+	public static int from(int move) { return move >>> 6 & 63; }
+
+	/**
+	 * @return the to square
+	 */
+	public static int to(int move) { return move & 63; }
+
+	/**
+	 * @return the move without its flags
+	 */
+	public static int squares(int move) { return move & 0xFFF; }
+
+	public static boolean isCapture(int move) { return (move & CAPTURE) != 0; }
+
+	public static boolean isCastle(int move) { return (move & CASTLE) != 0; }
+
+	public static boolean isDoublePush(int move) { return (move & DOUBLE_PUSH) != 0; }
+
+	public static boolean isPromotion(int move) { return (move & PROMOTION) != 0; }
+
+	/**
+	 * @return the move as square names, for example "e2e4"
+	 */
+	public static String toString(int move, int columns) {
+		return Notation.name(from(move), columns) + Notation.name(to(move), columns);
+	}
+
+	/**
+	 * @param name a move as square names, for example "e2e4"
+	 * @param b the board it is played on, used for the flags
+	 * @return the move
+	 */
+	public static int parse(String name, Board b) {
+		if (name.length() != 4) { throw new IllegalArgumentException("bad move " + name); }
+		return of(b, Notation.square(name.substring(0, 2), b.getnColumns()),
+				Notation.square(name.substring(2), b.getnColumns()));
+	}
+}
@@ -0,0 +1,91 @@
+package gpv.chess;
+
+import java.util.*;
+import gpv.Piece;
+import gpv.util.*;
+
+/**
+ * Lists the moves that ChessPiece.canMove accepts for one side. The Board
+ * generator tries every square of the board as a target for every piece of
+ * that color, so its answers are exactly canMove's. The Mailbox generator
+ * gives the same moves, possibly in another order, from the CompiledRules
+ * ray tables, and is much faster. Moves are packed as described in Move, so
+ * boards of at most Move.MAX_SQUARES squares are supported.
+ *
+ * @version Oct 19, 2026
+ */
+public class MoveGenerator {
+
+	/**
+	 * @param b the board
+	 * @param color the side to move
+	 * @param moves receives every accepted move; it is cleared first
+	 * @return moves
+	 */
+	public static MoveList generate(Board b, PlayerColor color, MoveList moves) {
+		if (b.getnSquares() > Move.MAX_SQUARES) {
+			throw new IllegalArgumentException("moves cannot be packed for " + b.getnSquares() + " squares");
+		}
+		moves.clear();
+		Coordinate[] targets = squares(b);
+		for (Map.Entry<Coordinate, Piece> e : snapshot(b)) {
+			ChessPiece p = (ChessPiece) e.getValue();
+			if (p.getColor() != color) { continue; }
+			int from = b.squareIndex(e.getKey());
+			for (int to = 0; to < targets.length; to++) {
+				if (p.canMove(e.getKey(), targets[to], b)) { moves.add(Move.of(b, from, to)); }
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * @param b the board
+	 * @param color the side to move
+	 * @return a new list of every accepted move
+	 */
+	public static MoveList generate(Board b, PlayerColor color) {
+		return generate(b, color, new MoveList());
+	}
+
+	/**
+	 * @param m the position
+	 * @param color the side to move
+	 * @param moves receives every accepted move; it is cleared first
+	 * @return moves
+	 */
+	public static MoveList generate(Mailbox m, PlayerColor color, MoveList moves) {
+		if (m.getSquares() > Move.MAX_SQUARES) {
+			throw new IllegalArgumentException("moves cannot be packed for " + m.getSquares() + " squares");
+		}
+		moves.clear();
+		CompiledRules rules = CompiledRules.forBoard(m.getRows(), m.getColumns());
+		for (int from = 0; from < m.getSquares(); from++) {
+			int code = m.codeAt(from);
+			if (code == Occupancy.EMPTY) { continue; }
+			ChessPieceDescriptor d = Occupancy.descriptor(code);
+			if (d.getColor() != color) { continue; }
+			for (long targets = rules.get(d).targets(from, code, m); targets != 0; targets &= targets - 1) {
+				moves.add(Move.of(m, from, Long.numberOfTrailingZeros(targets)));
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * @return every coordinate on the board, indexed by square number
+	 */
+	static Coordinate[] squares(Board b) {
+		Coordinate[] squares = new Coordinate[b.getnSquares()];
+		for (int i = 0; i < squares.length; i++) { squares[i] = b.coordinateOf(i); }
+		return squares;
+	}
+
+	/**
+	 * @return the occupied squares, copied so that callers may change the board
+	 * 	while walking them
+	 */
+	static List<Map.Entry<Coordinate, Piece>> snapshot(Board b) {
+		return new ArrayList<Map.Entry<Coordinate, Piece>>(b.getPieces().entrySet());
+	}
+}
@@ -0,0 +1,154 @@
+package gpv.chess;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * A growable list of Moves held in a short array: no boxing and two bytes
+ * per move. Move generation, search, game history and storage formats all
+ * use it, and clear() lets one list be reused without allocating.
+ *
+ * @version Oct 19, 2026
+ */
+public class MoveList {
+
+	private short[] moves;
+	private int size;
+
+	public MoveList() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity the initial capacity
+	 */
+	public MoveList(int capacity) {
+		moves = new short[Math.max(1, capacity)];
+	}
+
+	/**
+	 * @param move a move to append
+	 */
+	public void add(int move) {
+		if (size == moves.length) { moves = Arrays.copyOf(moves, size * 2); }
+		moves[size++] = (short) move;
+	}
+
+	/**
+	 * @param i an index less than size()
+	 * @return the move at that index
+	 */
+	public int get(int i) {
+		if (i >= size) { throw new IndexOutOfBoundsException(i + " >= " + size); }
+		return moves[i] & 0xFFFF;
+	}
+
+	/**
+	 * @param i an index less than size()
+	 * @param move the move to store there
+	 */
+	public void set(int i, int move) {
+		if (i >= size) { throw new IndexOutOfBoundsException(i + " >= " + size); }
+		moves[i] = (short) move;
+	}
+
+	/**
+	 * Exchange two moves, e.g. to bring a good move to the front.
+	 */
+	public void swap(int i, int j) {
+		short m = moves[i];
+		moves[i] = moves[j];
+		moves[j] = m;
+	}
+
+	/**
+	 * @return the last move, which is removed
+	 */
+	public int removeLast() {
+		if (size == 0) { throw new IndexOutOfBoundsException("empty"); }
+		return moves[--size] & 0xFFFF;
+	}
+
+	/**
+	 * @param move a move
+	 * @return the index of the first move with the same squares, or -1
+	 */
+	public int indexOf(int move) {
+		for (int i = 0; i < size; i++) {
+			if (Move.squares(moves[i]) == Move.squares(move)) { return i; }
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the number of moves
+	 */
+	public int size() { return size; }
+
+	/**
+	 * @return true if there are no moves
+	 */
+	public boolean isEmpty() { return size == 0; }
+
+	/**
+	 * Remove every move, keeping the capacity.
+	 */
+	public void clear() { size = 0; }
+
+	/**
+	 * Replace the contents with another list's.
+	 * @param other the list to copy
+	 */
+	public void copyFrom(MoveList other) {
+		if (moves.length < other.size) { moves = new short[other.size]; }
+		System.arraycopy(other.moves, 0, moves, 0, other.size);
+		size = other.size;
+	}
+
+	/**
+	 * @return the moves as an int array
+	 */
+	public int[] toArray() {
+		int[] a = new int[size];
+		for (int i = 0; i < size; i++) { a[i] = moves[i] & 0xFFFF; }
+		return a;
+	}
+
+	/**
+	 * Write the list as a count followed by one short per move.
+	 * @param out the stream
+	 * @throws IOException if the stream fails
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeShort(size);
+		for (int i = 0; i < size; i++) { out.writeShort(moves[i]); }
+	}
+
+	/**
+	 * Replace the contents with a list written by writeTo.
+	 * @param in the stream
+	 * @throws IOException if the stream fails
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		clear();
+		int n = in.readUnsignedShort();
+		for (int i = 0; i < n; i++) { add(in.readUnsignedShort()); }
+	}
+
+	/**
+	 * @return the moves as square names
+	 */
+	public String toString(int columns) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) { sb.append(' '); }
+			sb.append(Move.toString(get(i), columns));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toString(8);
+	}
+}
@@ -0,0 +1,137 @@
+package gpv.chess;
+
+import java.util.concurrent.atomic.LongAdder;
+import gpv.util.LatencyHistogram;
+
+/**
+ * Counters for ChessPiece.canMove: how often each PieceName had a move
+ * accepted or rejected (by MoveRejection), and a latency histogram per
+ * PieceName. Counters are striped LongAdders so that many threads can
+ * record at once without contending on one cache line.
+ * <br/>
+ * Metrics are off by default. While disabled, canMove only pays for one
+ * volatile read; no clock is read and nothing is recorded.
+ * <br/>
+ * Latency buckets are those of LatencyHistogram: bucket i holds calls that
+ * took [2^i, 2^(i+1)) nanoseconds, bucket 0 also holds calls under 1ns.
+ *
+ * @version Oct 19, 2026
+ */
+public final class MoveMetrics {
+
+	public static final int BUCKETS = LatencyHistogram.BUCKETS;
+
+	private static volatile boolean enabled = false;
+
+	private static final LongAdder[][] outcomes =
+			new LongAdder[PieceName.values().length][MoveRejection.values().length];
+	private static final LongAdder[][] latency =
+			new LongAdder[PieceName.values().length][BUCKETS];
+
+	static {
+		for (LongAdder[] row : outcomes) { fill(row); }
+		for (LongAdder[] row : latency) { fill(row); }
+	}
+
+	private MoveMetrics() { }
+
+	/**
+	 * @return whether canMove is currently recording metrics
+	 */
+	public static boolean isEnabled() { return enabled; }
+
+	/**
+	 * Turn recording on or off. Counts already recorded are kept.
+	 * @param on true to record
+	 */
+	public static void setEnabled(boolean on) { enabled = on; }
+
+	/**
+	 * Record one canMove call.
+	 * @param name the name of the moving piece
+	 * @param result the outcome of the call
+	 * @param nanos how long the call took
+	 */
+	static void record(PieceName name, MoveRejection result, long nanos)
+	{
+		outcomes[name.ordinal()][result.ordinal()].increment();
+		latency[name.ordinal()][LatencyHistogram.bucket(nanos)].increment();
+	}
+
+	/**
+	 * @param name the piece name
+	 * @param result the outcome, NONE for accepted moves
+	 * @return the number of recorded canMove calls with that outcome
+	 */
+	public static long count(PieceName name, MoveRejection result)
+	{
+		return outcomes[name.ordinal()][result.ordinal()].sum();
+	}
+
+	/**
+	 * @param result the outcome, NONE for accepted moves
+	 * @return the number of recorded canMove calls with that outcome for any piece
+	 */
+	public static long count(MoveRejection result)
+	{
+		long total = 0;
+		for (LongAdder[] row : outcomes) { total += row[result.ordinal()].sum(); }
+		return total;
+	}
+
+	/**
+	 * @param name the piece name
+	 * @return a snapshot of the latency histogram, indexed by bucket
+	 */
+	public static long[] histogram(PieceName name)
+	{
+		long[] snapshot = new long[BUCKETS];
+		LongAdder[] row = latency[name.ordinal()];
+		for (int i = 0; i < BUCKETS; i++) { snapshot[i] = row[i].sum(); }
+		return snapshot;
+	}
+
+	/**
+	 * Estimate a latency percentile from the histogram.
+	 * @param name the piece name
+	 * @param percentile between 0 and 100
+	 * @return the upper bound, in nanoseconds, of the bucket holding the
+	 * 	percentile, or 0 if nothing was recorded
+	 */
+	public static long percentile(PieceName name, double percentile)
+	{
+		return LatencyHistogram.of(histogram(name)).percentile(percentile);
+	}
+
+	/**
+	 * Clear all counters.
+	 */
+	public static void reset()
+	{
+		for (LongAdder[] row : outcomes) { for (LongAdder a : row) { a.reset(); } }
+		for (LongAdder[] row : latency) { for (LongAdder a : row) { a.reset(); } }
+	}
+
+	/**
+	 * @return a readable table of counts and p50/p99 latency per piece
+	 */
+	public static String report()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (PieceName name : PieceName.values()) {
+			sb.append(name);
+			for (MoveRejection r : MoveRejection.values()) {
+				long n = count(name, r);
+				if (n > 0) { sb.append(' ').append(r).append('=').append(n); }
+			}
+			sb.append(" p50<").append(percentile(name, 50)).append("ns")
+				.append(" p99<").append(percentile(name, 99)).append("ns\n");
+		}
+		return sb.toString();
+	}
+
+	private static void fill(LongAdder[] row)
+	{
+		for (int i = 0; i < row.length; i++) { row[i] = new LongAdder(); }
+	}
+}
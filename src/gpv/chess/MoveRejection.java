@@ -0,0 +1,20 @@
+package gpv.chess;
+
+/**
+ * The reason a call to canMove rejected a move, one value per check that
+ * canMove performs. NONE means the move was accepted.
+ *
+ * @version Oct 19, 2026
+ */
+public enum MoveRejection {
+
+	NONE,
+	OUT_OF_BOUNDS,		// 'to' (or, for fairy pieces, 'from') is off the board
+	UNKNOWN_PATTERN,	// from/to do not form a known Pattern
+	PATTERN_MISMATCH,	// the piece may not move in that Pattern
+	OBSTRUCTED,			// the path or the target square is blocked
+	PAWN_CAPTURE,		// pawn moved diagonally without capturing
+	PAWN_DOUBLE_STEP,	// pawn moved more than one square after it has moved
+	PAWN_DIRECTION,		// pawn moved backwards
+	KING_RANGE			// king moved more than one square
+}
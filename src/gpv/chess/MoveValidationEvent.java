@@ -0,0 +1,36 @@
+package gpv.chess;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one call to ChessPiece.canMove.
+ *
+ * @version Oct 19, 2026
+ */
+@Name("gpv.chess.MoveValidation")
+@Label("Move Validation")
+@Category({"GPV", "Chess"})
+@Threshold("0 ns")
+@Description("ChessPiece.canMove")
+public class MoveValidationEvent extends Event {
+
+	@Label("Piece")
+	String piece;
+
+	@Label("From")
+	String from;
+
+	@Label("To")
+	String to;
+
+	@Label("Pattern")
+	String pattern;
+
+	@Label("Path Length")
+	@Description("Squares from 'from' to 'to' along the move")
+	int pathLength;
+
+	@Label("Result")
+	@Description("MoveRejection, NONE when the move was accepted")
+	String result;
+}
@@ -35,39 +35,11 @@ public class Movement {
 	
 	
 	/**
-	 * @return the whether or not the Pattern & ChessPiece match
+	 * @return the whether or not the Pattern & ChessPiece match,
+	 * according to the piece's MovementSpec
 	 */
 	private boolean patternPieceMatch() {
-		if(this.pattern== Pattern.KNIGHT && this.piece.getName()==PieceName.KNIGHT) { return true;}
-		
-		if(this.pattern== Pattern.DIAGONAL)
-		{
-			if((this.piece.getName()==PieceName.PAWN) || (this.piece.getName()==PieceName.BISHOP) ||
-					(this.piece.getName()==PieceName.QUEEN) || (this.piece.getName()==PieceName.KING))
-			{
-				return true;
-			}
-		}
-		
-		if(this.pattern== Pattern.HORIZONTAL)
-		{
-			if((this.piece.getName()==PieceName.ROOK) || (this.piece.getName()==PieceName.QUEEN) ||
-					(this.piece.getName()==PieceName.KING))
-			{
-				return true;
-			}
-		}
-		
-		if(this.pattern== Pattern.VERTICAL)
-		{
-			if((this.piece.getName()==PieceName.PAWN) || (this.piece.getName()==PieceName.ROOK) ||
-					(this.piece.getName()==PieceName.QUEEN) || (this.piece.getName()==PieceName.KING))
-			{
-				return true;
-			}
-		}
-		
-		return false;
+		return this.piece.getDescriptor().getMovementSpec().uses(this.pattern);
 	}
 	
 	
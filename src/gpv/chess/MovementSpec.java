@@ -0,0 +1,217 @@
+package gpv.chess;
+
+import java.util.*;
+
+/**
+ * A declarative description of how a piece moves: a list of Steps, each a
+ * direction (dRow, dCol) that the piece may repeat between minRange and
+ * maxRange times, with an optional restriction to moves or captures and to
+ * pieces that have or have not moved yet. A leaper is a step with range 1,
+ * a rider is a step with unlimited range; every square between 'from' and
+ * 'to' must be empty, except for leapers, which jump.
+ * <br/>
+ * Every ChessPieceDescriptor carries the spec for its piece (see
+ * forPiece). The specs of the six standard pieces accept exactly the moves
+ * ChessPiece.canMove accepts, including its pawn rules, so they double as a
+ * description of the reference behavior. Specs are compiled into square
+ * tables by CompiledMovement.
+ *
+ * @version Oct 19, 2026
+ */
+public final class MovementSpec {
+
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	/**
+	 * Whether a step may land on an empty square, on an enemy piece, or both.
+	 */
+	public enum Mode { MOVE_OR_CAPTURE, MOVE_ONLY, CAPTURE_ONLY }
+
+	/**
+	 * Whether a step depends on the piece having moved before.
+	 */
+	public enum Condition { ALWAYS, UNMOVED, MOVED }
+
+	/**
+	 * One direction of movement, with its range and restrictions.
+	 */
+	public static final class Step {
+		private final int dRow, dCol, minRange, maxRange;
+		private final Mode mode;
+		private final Condition condition;
+
+		Step(int dRow, int dCol, int minRange, int maxRange, Mode mode, Condition condition) {
+			if (dRow == 0 && dCol == 0) { throw new IllegalArgumentException("a step must move"); }
+			if (minRange < 1 || maxRange < minRange) {
+				throw new IllegalArgumentException("bad range " + minRange + ".." + maxRange);
+			}
+			this.dRow = dRow;
+			this.dCol = dCol;
+			this.minRange = minRange;
+			this.maxRange = maxRange;
+			this.mode = mode;
+			this.condition = condition;
+		}
+
+		public int getdRow() { return dRow; }
+		public int getdColumn() { return dCol; }
+		public int getMinRange() { return minRange; }
+		public int getMaxRange() { return maxRange; }
+		public Mode getMode() { return mode; }
+		public Condition getCondition() { return condition; }
+
+		/**
+		 * @return the Pattern this step moves in, UNKNOWN if it has none
+		 */
+		public Pattern getPattern() {
+			int r = Math.abs(dRow), c = Math.abs(dCol);
+			if (r == 0) { return Pattern.HORIZONTAL; }
+			if (c == 0) { return Pattern.VERTICAL; }
+			if (r == c) { return Pattern.DIAGONAL; }
+			if (r + c == 3) { return Pattern.KNIGHT; }
+			return Pattern.UNKNOWN;
+		}
+
+		@Override
+		public String toString() {
+			return "(" + dRow + "," + dCol + ")x" + minRange + ".."
+					+ (maxRange == UNLIMITED ? "" : String.valueOf(maxRange))
+					+ (mode == Mode.MOVE_OR_CAPTURE ? "" : " " + mode)
+					+ (condition == Condition.ALWAYS ? "" : " " + condition);
+		}
+	}
+
+	private final List<Step> steps;
+	private final EnumSet<Pattern> patterns = EnumSet.noneOf(Pattern.class);
+
+	private MovementSpec(List<Step> steps) {
+		this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+		for (Step s : steps) { patterns.add(s.getPattern()); }
+	}
+
+	/**
+	 * @return the steps, in the order they were added
+	 */
+	public List<Step> getSteps() { return steps; }
+
+	/**
+	 * @param pattern a pattern
+	 * @return true if at least one step moves in that pattern
+	 */
+	public boolean uses(Pattern pattern) { return patterns.contains(pattern); }
+
+	@Override
+	public String toString() { return steps.toString(); }
+
+	/**
+	 * @return a builder for a new spec
+	 */
+	public static Builder builder() { return new Builder(); }
+
+	/**
+	 * Collects steps for a MovementSpec. The symmetric helpers add every
+	 * distinct reflection and rotation of a direction.
+	 */
+	public static final class Builder {
+		private final List<Step> steps = new ArrayList<>();
+
+		private Builder() { }
+
+		/**
+		 * Jump to every (±a, ±b) and (±b, ±a) offset.
+		 */
+		public Builder leaper(int a, int b) { return symmetric(a, b, 1, 1); }
+
+		/**
+		 * Slide any distance along every (±a, ±b) and (±b, ±a) direction.
+		 */
+		public Builder rider(int a, int b) { return symmetric(a, b, 1, UNLIMITED); }
+
+		/**
+		 * Slide at most maxRange steps along every (±a, ±b) and (±b, ±a) direction.
+		 */
+		public Builder rider(int a, int b, int maxRange) { return symmetric(a, b, 1, maxRange); }
+
+		/**
+		 * Add one direction with explicit restrictions.
+		 */
+		public Builder step(int dRow, int dCol, int minRange, int maxRange, Mode mode, Condition condition) {
+			steps.add(new Step(dRow, dCol, minRange, maxRange, mode, condition));
+			return this;
+		}
+
+		/**
+		 * Add every step of another spec.
+		 */
+		public Builder add(MovementSpec other) {
+			steps.addAll(other.steps);
+			return this;
+		}
+
+		public MovementSpec build() { return new MovementSpec(steps); }
+
+		private Builder symmetric(int a, int b, int minRange, int maxRange) {
+			Set<Long> seen = new HashSet<>();
+			int[][] bases = { { a, b }, { b, a } };
+			for (int[] base : bases) {
+				for (int sr = -1; sr <= 1; sr += 2) {
+					for (int sc = -1; sc <= 1; sc += 2) {
+						int dr = base[0] * sr, dc = base[1] * sc;
+						if (seen.add(((long) dr << 32) | (dc & 0xFFFFFFFFL))) {
+							step(dr, dc, minRange, maxRange, Mode.MOVE_OR_CAPTURE, Condition.ALWAYS);
+						}
+					}
+				}
+			}
+			return this;
+		}
+	}
+
+	public static final MovementSpec ROOK = builder().rider(1, 0).build();
+	public static final MovementSpec BISHOP = builder().rider(1, 1).build();
+	public static final MovementSpec QUEEN = builder().add(ROOK).add(BISHOP).build();
+	public static final MovementSpec KING = builder().rider(1, 0, 1).rider(1, 1, 1).build();
+	public static final MovementSpec KNIGHT = builder().leaper(1, 2).build();
+	public static final MovementSpec ARCHBISHOP = builder().add(BISHOP).add(KNIGHT).build();
+	public static final MovementSpec CHANCELLOR = builder().add(ROOK).add(KNIGHT).build();
+	public static final MovementSpec CAMEL = builder().leaper(1, 3).build();
+	public static final MovementSpec WHITE_PAWN = pawn(1);
+	public static final MovementSpec BLACK_PAWN = pawn(-1);
+
+	/**
+	 * The pawn as canMove has it: one square forward, or before its first
+	 * move any distance forward or at least two squares backward; diagonal
+	 * captures at any distance.
+	 */
+	private static MovementSpec pawn(int forward) {
+		return builder()
+				.step(forward, 0, 1, UNLIMITED, Mode.MOVE_OR_CAPTURE, Condition.UNMOVED)
+				.step(-forward, 0, 2, UNLIMITED, Mode.MOVE_OR_CAPTURE, Condition.UNMOVED)
+				.step(forward, 0, 1, 1, Mode.MOVE_OR_CAPTURE, Condition.MOVED)
+				.step(1, 1, 1, UNLIMITED, Mode.CAPTURE_ONLY, Condition.ALWAYS)
+				.step(1, -1, 1, UNLIMITED, Mode.CAPTURE_ONLY, Condition.ALWAYS)
+				.step(-1, 1, 1, UNLIMITED, Mode.CAPTURE_ONLY, Condition.ALWAYS)
+				.step(-1, -1, 1, UNLIMITED, Mode.CAPTURE_ONLY, Condition.ALWAYS)
+				.build();
+	}
+
+	/**
+	 * @param color the color of the piece, which decides where forward is
+	 * @param name the piece
+	 * @return the spec for that piece
+	 */
+	public static MovementSpec forPiece(PlayerColor color, PieceName name) {
+		switch (name) {
+			case PAWN: return color == PlayerColor.WHITE ? WHITE_PAWN : BLACK_PAWN;
+			case ROOK: return ROOK;
+			case KNIGHT: return KNIGHT;
+			case BISHOP: return BISHOP;
+			case QUEEN: return QUEEN;
+			case KING: return KING;
+			case ARCHBISHOP: return ARCHBISHOP;
+			case CHANCELLOR: return CHANCELLOR;
+			case CAMEL: return CAMEL;
+			default: throw new IllegalArgumentException("no movement for " + name);
+		}
+	}
+}
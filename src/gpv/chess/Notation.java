@@ -0,0 +1,37 @@
+package gpv.chess;
+
+/**
+ * Algebraic square names ("a1" .. "h8") for boards of up to 26 columns and 9
+ * rows. Column 1 is file 'a' and row 1 is rank '1'; square numbers are as in
+ * Board.squareIndex.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Notation {
+
+	private Notation() { }
+
+	/**
+	 * @param name a square name such as "e2"
+	 * @param columns the number of columns on the board
+	 * @return the square number
+	 */
+	public static int square(String name, int columns) {
+		if (name.length() != 2) { throw new IllegalArgumentException("bad square " + name); }
+		int column = name.charAt(0) - 'a';
+		int row = name.charAt(1) - '1';
+		if (column < 0 || column >= columns || row < 0 || row > 8) {
+			throw new IllegalArgumentException("bad square " + name);
+		}
+		return row * columns + column;
+	}
+
+	/**
+	 * @param square a square number
+	 * @param columns the number of columns on the board
+	 * @return the square name
+	 */
+	public static String name(int square, int columns) {
+		return "" + (char) ('a' + square % columns) + (char) ('1' + square / columns);
+	}
+}
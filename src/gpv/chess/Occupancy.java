@@ -0,0 +1,63 @@
+package gpv.chess;
+
+import gpv.util.Board;
+
+/**
+ * What stands on each square, as an int per square index so that move tables
+ * can be walked without Coordinates or Map lookups. A code is EMPTY or the
+ * descriptor's ordinal plus one, with the MOVED bit set once the piece has
+ * moved.
+ *
+ * @version Oct 19, 2026
+ */
+public interface Occupancy {
+
+	int EMPTY = 0;
+	int MOVED = 0x100;
+
+	/**
+	 * @param square a square index, see Board.squareIndex
+	 * @return the code of the piece on it, or EMPTY
+	 */
+	int codeAt(int square);
+
+	/**
+	 * @param p a piece, or null
+	 * @return its code
+	 */
+	static int code(ChessPiece p) {
+		if (p == null) { return EMPTY; }
+		return (p.getDescriptor().ordinal() + 1) | (p.hasMoved() ? MOVED : 0);
+	}
+
+	/**
+	 * @param code a non-empty code
+	 * @return the descriptor of the piece
+	 */
+	static ChessPieceDescriptor descriptor(int code) {
+		return ChessPieceDescriptor.ofOrdinal((code & (MOVED - 1)) - 1);
+	}
+
+	/**
+	 * @param code a non-empty code
+	 * @return true if the piece has moved
+	 */
+	static boolean hasMoved(int code) { return (code & MOVED) != 0; }
+
+	/**
+	 * @param a a non-empty code
+	 * @param b a non-empty code
+	 * @return true if the two pieces have the same color
+	 */
+	static boolean sameColor(int a, int b) {
+		return descriptor(a).getColor() == descriptor(b).getColor();
+	}
+
+	/**
+	 * @param b a board
+	 * @return a view that reads the board on every call
+	 */
+	static Occupancy of(Board b) {
+		return square -> code((ChessPiece) b.getPieceAt(b.coordinateOf(square)));
+	}
+}
@@ -0,0 +1,29 @@
+package gpv.chess;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one obstruction scan in ChessPiece.obstructionFree.
+ *
+ * @version Oct 19, 2026
+ */
+@Name("gpv.chess.PathScan")
+@Label("Path Scan")
+@Category({"GPV", "Chess"})
+@Threshold("0 ns")
+@Description("ChessPiece.obstructionFree")
+public class PathScanEvent extends Event {
+
+	@Label("Piece")
+	String piece;
+
+	@Label("Pattern")
+	String pattern;
+
+	@Label("Path Length")
+	@Description("Squares from 'from' to 'to' along the move")
+	int pathLength;
+
+	@Label("Obstruction Free")
+	boolean result;
+}
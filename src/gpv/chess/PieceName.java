@@ -14,9 +14,33 @@ package gpv.chess;
 
 /**
  * A simple enumeration of chess piece names. Mainly used in the ChessPieceDescriptor
+ * The last three are fairy pieces used by variants: the archbishop moves as
+ * a bishop or a knight, the chancellor as a rook or a knight and the camel
+ * leaps (1,3).
  * @version Feb 23, 2020
  */
 public enum PieceName
 {
-	PAWN, ROOK, KNIGHT, BISHOP, QUEEN, KING;
+	PAWN, ROOK, KNIGHT, BISHOP, QUEEN, KING,
+	ARCHBISHOP(false), CHANCELLOR(false), CAMEL(false);
+	
+	private final boolean standard;
+	
+	private PieceName()
+	{
+		this(true);
+	}
+	
+	private PieceName(boolean standard)
+	{
+		this.standard = standard;
+	}
+	
+	/**
+	 * @return true for the six pieces of ordinary chess
+	 */
+	public boolean isStandard()
+	{
+		return standard;
+	}
 }
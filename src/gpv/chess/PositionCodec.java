@@ -0,0 +1,109 @@
+package gpv.chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import gpv.Piece;
+import gpv.util.*;
+
+/**
+ * Packs a Board of ChessPieces into bytes and back. The layout is:
+ * <pre>
+ * byte  rows
+ * byte  columns
+ * byte  number of pieces
+ * then per piece:
+ * byte  square (see Board.squareIndex)
+ * byte  descriptor ordinal, with 0x80 set if the piece has moved
+ * </pre>
+ * Boards of up to 256 squares can be packed.
+ * <br/>
+ * Reading reuses the target Board and a fixed set of ChessPieces, one per
+ * descriptor and moved flag, so unpacking allocates nothing but Coordinates.
+ * Those pieces are shared between squares and must not be mutated.
+ *
+ * @version Oct 19, 2026
+ */
+public class PositionCodec {
+
+	public static final int MOVED = 0x80;
+	public static final int MAX_SQUARES = 256;
+
+	private final ChessPiece[][] pieces;
+
+	public PositionCodec() {
+		ChessPieceDescriptor[] descriptors = ChessPieceDescriptor.values();
+		pieces = new ChessPiece[descriptors.length][2];
+		for (ChessPieceDescriptor d : descriptors) {
+			pieces[d.ordinal()][0] = new ChessPiece(d);
+			pieces[d.ordinal()][1] = new ChessPiece(d);
+			pieces[d.ordinal()][1].setHasMoved();
+		}
+	}
+
+	/**
+	 * @param b the board
+	 * @return the number of bytes write(b, ...) produces
+	 */
+	public static int encodedSize(Board b) {
+		return 3 + 2 * b.getPieces().size();
+	}
+
+	/**
+	 * Pack b into out.
+	 * @param b the board
+	 * @param out the buffer, which must have encodedSize(b) bytes remaining
+	 */
+	public static void write(Board b, ByteBuffer out) {
+		if (b.getnSquares() > MAX_SQUARES) {
+			throw new IllegalArgumentException("board too large to pack: " + b.getnSquares() + " squares");
+		}
+		out.put((byte) b.getnRows());
+		out.put((byte) b.getnColumns());
+		out.put((byte) b.getPieces().size());
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			out.put((byte) b.squareIndex(e.getKey()));
+			out.put((byte) pieceCode((ChessPiece) e.getValue()));
+		}
+	}
+
+	/**
+	 * @param p a piece
+	 * @return the byte that describes p in a packed position
+	 */
+	public static int pieceCode(ChessPiece p) {
+		return p.getDescriptor().ordinal() | (p.hasMoved() ? MOVED : 0);
+	}
+
+	/**
+	 * @param code a byte from a packed position
+	 * @return the shared piece for that byte
+	 */
+	public ChessPiece pieceFor(int code) {
+		int ordinal = code & ~MOVED & 0xFF;
+		if (ordinal >= pieces.length) {
+			throw new IllegalArgumentException("unknown piece code " + code);
+		}
+		return pieces[ordinal][(code & MOVED) != 0 ? 1 : 0];
+	}
+
+	/**
+	 * Unpack a position from in onto b, replacing b's contents and dimensions.
+	 * @param in the buffer, positioned at a packed position
+	 * @param b the board to fill
+	 * @throws BufferUnderflowException if in holds only part of a position
+	 */
+	public void read(ByteBuffer in, Board b) {
+		int rows = in.get() & 0xFF;
+		int columns = in.get() & 0xFF;
+		int count = in.get() & 0xFF;
+		b.setnRows(rows);
+		b.setnColumns(columns);
+		b.reset(Collections.<SquareInitializer>emptyList());
+		for (int i = 0; i < count; i++) {
+			int square = in.get() & 0xFF;
+			int code = in.get() & 0xFF;
+			b.putPieceAt(pieceFor(code), b.coordinateOf(square));
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package gpv.chess;
+
+/**
+ * The ZobristHash keys of the positions of a game, one per ply, in a ring of
+ * longs, with the halfmove clock: the number of plies since the last
+ * irreversible move. A position from before an irreversible move (a
+ * capture, a pawn move, or a piece's first move, which sets its moved flag)
+ * can never occur again, so repetitions are counted by scanning back over
+ * the clock's window only, and over every second ply of it, where the same
+ * side is to move.
+ * <br/>
+ * The ring holds capacity plies; a window longer than that is cut to the
+ * ring, which does not matter once capacity is more than FIFTY_MOVES,
+ * because the game is drawn by then. Push and pop are allocation-free,
+ * so a search can follow its line of play with them.
+ *
+ * @version Oct 19, 2026
+ */
+public final class PositionHistory {
+
+	/**
+	 * The halfmove clock at which the fifty-move rule draws the game.
+	 */
+	public static final int FIFTY_MOVES = 100;
+
+	private final long[] keys;
+	private final int[] clocks;
+	private final int mask;
+	private int ply;
+
+	public PositionHistory() { this(256); }
+
+	/**
+	 * @param capacity the number of plies kept, rounded up to a power of two
+	 */
+	public PositionHistory(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		keys = new long[size];
+		clocks = new int[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Start again from one position.
+	 * @param key the key of the position
+	 */
+	public void reset(long key) {
+		ply = 0;
+		keys[0] = key;
+		clocks[0] = 0;
+	}
+
+	/**
+	 * Record the position after a move.
+	 * @param key the key of the new position
+	 * @param irreversible true if the move was a capture, a pawn move or the
+	 * 	first move of a piece
+	 */
+	public void push(long key, boolean irreversible) {
+		int clock = irreversible ? 0 : clocks[ply & mask] + 1;
+		ply++;
+		keys[ply & mask] = key;
+		clocks[ply & mask] = clock;
+	}
+
+	/**
+	 * Forget the last position, going back to the one before it.
+	 */
+	public void pop() {
+		if (ply == 0) { throw new IllegalStateException("no move to take back"); }
+		ply--;
+	}
+
+	/**
+	 * @return the key of the current position
+	 */
+	public long key() { return keys[ply & mask]; }
+
+	/**
+	 * @return the plies since the last irreversible move
+	 */
+	public int halfmoveClock() { return clocks[ply & mask]; }
+
+	/**
+	 * @return the number of plies pushed since the last reset
+	 */
+	public int getPly() { return ply; }
+
+	/**
+	 * @return how often the current position has occurred, counting itself
+	 */
+	public int repetitions() {
+		long key = keys[ply & mask];
+		int window = Math.min(Math.min(halfmoveClock(), ply), mask);
+		int count = 1;
+		for (int back = 2; back <= window; back += 2) {
+			if (keys[(ply - back) & mask] == key) { count++; }
+		}
+		return count;
+	}
+
+	/**
+	 * @param n a number of occurrences, 3 for the threefold repetition rule
+	 * @return true if the current position has occurred at least n times
+	 */
+	public boolean isRepetition(int n) {
+		return repetitions() >= n;
+	}
+
+	/**
+	 * @return true if the fifty-move rule draws the game
+	 */
+	public boolean isFiftyMoveDraw() {
+		return halfmoveClock() >= FIFTY_MOVES;
+	}
+}
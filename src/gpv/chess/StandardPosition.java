@@ -0,0 +1,51 @@
+package gpv.chess;
+
+import static gpv.chess.ChessPieceDescriptor.*;
+import static gpv.util.Coordinate.makeCoordinate;
+import static gpv.util.SquareInitializer.makeSquareInitializer;
+import java.util.*;
+import gpv.util.*;
+
+/**
+ * The starting position of a standard game of chess on an 8x8 board.
+ * White starts on rows 1 and 2 and moves towards row 8. Column 1 is the
+ * queen-side rook's file.
+ *
+ * @version Oct 19, 2026
+ */
+public final class StandardPosition {
+
+	public static final int ROWS = 8;
+	public static final int COLUMNS = 8;
+
+	private static final ChessPieceDescriptor[] WHITE_BACK_RANK = {
+		WHITEROOK, WHITEKNIGHT, WHITEBISHOP, WHITEQUEEN, WHITEKING, WHITEBISHOP, WHITEKNIGHT, WHITEROOK
+	};
+	private static final ChessPieceDescriptor[] BLACK_BACK_RANK = {
+		BLACKROOK, BLACKKNIGHT, BLACKBISHOP, BLACKQUEEN, BLACKKING, BLACKBISHOP, BLACKKNIGHT, BLACKROOK
+	};
+
+	private StandardPosition() { }
+
+	/**
+	 * @param factory makes the pieces; every square gets a new piece
+	 * @return the initializers for the 32 occupied squares
+	 */
+	public static List<SquareInitializer> initializers(ChessPieceFactory factory) {
+		List<SquareInitializer> initializers = new ArrayList<SquareInitializer>(32);
+		for (int column = 1; column <= COLUMNS; column++) {
+			initializers.add(makeSquareInitializer(factory.makePiece(WHITE_BACK_RANK[column - 1]), makeCoordinate(1, column)));
+			initializers.add(makeSquareInitializer(factory.makePiece(WHITEPAWN), makeCoordinate(2, column)));
+			initializers.add(makeSquareInitializer(factory.makePiece(BLACKPAWN), makeCoordinate(7, column)));
+			initializers.add(makeSquareInitializer(factory.makePiece(BLACK_BACK_RANK[column - 1]), makeCoordinate(8, column)));
+		}
+		return initializers;
+	}
+
+	/**
+	 * @return a new board set up in the starting position
+	 */
+	public static Board newBoard() {
+		return new Board(ROWS, COLUMNS, initializers(new ChessPieceFactory()));
+	}
+}
@@ -0,0 +1,154 @@
+package gpv.chess;
+
+import java.util.Arrays;
+import gpv.util.*;
+import static gpv.chess.Occupancy.EMPTY;
+
+/**
+ * Static exchange evaluation: the material won or lost by a capture once
+ * both sides have made every profitable recapture on the same square, each
+ * time with their least valuable attacker. Either side may stop capturing
+ * when continuing would lose material.
+ * <br/>
+ * The board is copied into a Mailbox once per call. The pieces that
+ * could ever reach the square are collected in one pass; a piece blocked by
+ * another attacker (a rook behind a rook, a bishop behind a pawn) becomes
+ * active as soon as the piece in front has captured and left its square, so
+ * x-rays need no extra work. The Board itself is never changed. Moves are
+ * the ones the compiled MovementSpecs allow, which are the ones canMove
+ * allows.
+ * <br/>
+ * An instance reuses its buffers, so it must not be shared between threads.
+ *
+ * @version Oct 19, 2026
+ */
+public final class StaticExchange {
+
+	/**
+	 * Values by PieceName ordinal. The king is worth more than everything
+	 * else together, since losing it loses the game.
+	 */
+	public static final int[] DEFAULT_VALUES = { 100, 500, 320, 330, 900, 20000, 875, 925, 300 };
+
+	private final int[] values;
+	private final Mailbox mailbox = new Mailbox();
+	private int[] candidates = new int[32];
+	private int[] gain = new int[33];
+	private int count;
+	private CompiledRules rules;
+
+	public StaticExchange() { this(DEFAULT_VALUES); }
+
+	/**
+	 * @param values piece values indexed by PieceName ordinal
+	 */
+	public StaticExchange(int[] values) {
+		if (values.length != PieceName.values().length) {
+			throw new IllegalArgumentException("expected a value for each of " + Arrays.toString(PieceName.values()));
+		}
+		this.values = values.clone();
+	}
+
+	/**
+	 * The result of capturing from 'from' on 'to', followed by the best
+	 * sequence of recaptures. The capture itself is assumed to be legal.
+	 * @param b the board
+	 * @param from the square of the capturing piece
+	 * @param to the square of the captured piece
+	 * @return the material balance for the capturing side, positive if it wins
+	 */
+	public int evaluate(Board b, Coordinate from, Coordinate to) {
+		int target = load(b, b.squareIndex(to));
+		return exchange(target, b.squareIndex(from));
+	}
+
+	/**
+	 * What a side can win on one square, starting with its least valuable
+	 * attacker.
+	 * @param b the board
+	 * @param square the square of an enemy piece
+	 * @param side the side that captures first
+	 * @return the material the side wins, or 0 if it cannot win anything
+	 */
+	public int evaluate(Board b, Coordinate square, PlayerColor side) {
+		int target = load(b, b.squareIndex(square));
+		if (mailbox.codeAt(target) == EMPTY) { return 0; }
+		int attacker = leastValuableAttacker(target, side);
+		return attacker < 0 ? 0 : Math.max(0, exchange(target, attacker));
+	}
+
+	/**
+	 * @param name a piece name
+	 * @return the value used for it
+	 */
+	public int value(PieceName name) { return values[name.ordinal()]; }
+
+	/**
+	 * Copy the board and collect every piece that could reach the target.
+	 * @return the target square
+	 */
+	private int load(Board b, int target) {
+		rules = CompiledRules.forBoard(b);
+		mailbox.load(b);
+		count = 0;
+		for (Coordinate c : b.getPieces().keySet()) {
+			int square = b.squareIndex(c);
+			if (square == target) { continue; }
+			if (rules.get(Occupancy.descriptor(mailbox.codeAt(square))).reaches(square, target)) {
+				if (count == candidates.length) { candidates = Arrays.copyOf(candidates, count * 2); }
+				candidates[count++] = square;
+			}
+		}
+		if (gain.length < count + 1) { gain = new int[count + 1]; }
+		return target;
+	}
+
+	/**
+	 * Play out the captures on the copied board, then let each side stop
+	 * where it is best for it, working back from the last capture.
+	 */
+	private int exchange(int target, int attacker) {
+		int depth = 0;
+		gain[0] = valueOf(mailbox.codeAt(target));
+		PlayerColor side = Occupancy.descriptor(mailbox.codeAt(attacker)).getColor();
+		while (true) {
+			int onTarget = valueOf(mailbox.codeAt(attacker));
+			mailbox.set(target, mailbox.codeAt(attacker) | Occupancy.MOVED);
+			mailbox.set(attacker, EMPTY);
+			side = side.opponent();
+			attacker = leastValuableAttacker(target, side);
+			if (attacker < 0) { break; }
+			depth++;
+			gain[depth] = onTarget - gain[depth - 1];
+		}
+		while (depth > 0) {
+			gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+			depth--;
+		}
+		return gain[0];
+	}
+
+	/**
+	 * @return the square of the cheapest piece of the side that attacks the
+	 * 	target now, or -1 if there is none
+	 */
+	private int leastValuableAttacker(int target, PlayerColor side) {
+		int best = -1, bestValue = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			int square = candidates[i], code = mailbox.codeAt(square);
+			if (code == EMPTY) { continue; }
+			ChessPieceDescriptor d = Occupancy.descriptor(code);
+			if (d.getColor() != side) { continue; }
+			int v = values[d.getName().ordinal()];
+			if (v < bestValue && rules.get(d).attacks(square, target, code, mailbox)) {
+				best = square;
+				bestValue = v;
+			}
+		}
+		return best;
+	}
+
+	private int valueOf(int code) {
+		return values[Occupancy.descriptor(code).getName().ordinal()];
+	}
+}
@@ -0,0 +1,73 @@
+package gpv.chess;
+
+import java.util.*;
+import gpv.Piece;
+import gpv.util.*;
+
+/**
+ * 64-bit Zobrist keys for positions on boards of up to 256 squares. A key is
+ * the exclusive-or of one random number per (descriptor, moved flag, square)
+ * of every piece on the board, plus one for black to move. The moved flag is
+ * part of the key because canMove treats moved and unmoved pieces
+ * differently.
+ * <br/>
+ * The random numbers come from fixed seeds, so keys are stable across runs
+ * and can be stored in files. Black to move is drawn first and each
+ * descriptor's numbers come from a seed of its own, made from its name, so
+ * adding or reordering descriptors leaves the keys of existing pieces alone.
+ *
+ * @version Oct 19, 2026
+ */
+public final class ZobristHash {
+
+	public static final int MAX_SQUARES = 256;
+
+	private static final long[][] PIECE_KEYS;
+	private static final long BLACK_TO_MOVE;
+
+	private static final long SEED = 0x5EED_2026L;
+
+	static {
+		BLACK_TO_MOVE = new Random(SEED).nextLong();
+		ChessPieceDescriptor[] descriptors = ChessPieceDescriptor.values();
+		PIECE_KEYS = new long[descriptors.length * 2][MAX_SQUARES];
+		for (ChessPieceDescriptor d : descriptors) {
+			Random r = new Random(SEED ^ (long) d.name().hashCode() << 16);
+			for (int moved = 0; moved < 2; moved++) {
+				long[] row = PIECE_KEYS[d.ordinal() * 2 + moved];
+				for (int i = 0; i < row.length; i++) { row[i] = r.nextLong(); }
+			}
+		}
+	}
+
+	private ZobristHash() { }
+
+	/**
+	 * @param b the board
+	 * @param toMove the side to move
+	 * @return the key of the position
+	 */
+	public static long hash(Board b, PlayerColor toMove) {
+		long key = toMove == PlayerColor.BLACK ? BLACK_TO_MOVE : 0L;
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			key ^= pieceKey((ChessPiece) e.getValue(), b.squareIndex(e.getKey()));
+		}
+		return key;
+	}
+
+	/**
+	 * @param p a piece
+	 * @param square its square number
+	 * @return the key contribution of the piece on that square
+	 */
+	public static long pieceKey(ChessPiece p, int square) {
+		return PIECE_KEYS[p.getDescriptor().ordinal() * 2 + (p.hasMoved() ? 1 : 0)][square];
+	}
+
+	/**
+	 * @return the key contribution of black being to move
+	 */
+	public static long blackToMove() {
+		return BLACK_TO_MOVE;
+	}
+}
@@ -0,0 +1,230 @@
+package gpv.chess.analysis;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import gpv.chess.*;
+import gpv.chess.engine.*;
+import gpv.chess.eval.EvaluationTable;
+import gpv.util.*;
+
+/**
+ * Live analysis of one position at a time on a background thread. The
+ * search deepens one ply at a time until maxDepth or until it is cancelled,
+ * and each depth it finishes is sent to the listener as a Result with the
+ * score and the best line, so the evaluation refines while the user looks.
+ * <br/>
+ * analyze with a new position re-roots the session: the running search is
+ * told to stop, which takes at most 1024 more positions, and a search of the
+ * new position starts as soon as it has. The session keeps one Searcher and
+ * one TranspositionTable for its whole life, so positions the last search
+ * already visited, which after a move from the old root are most of the new
+ * tree, are answered from the table and the first depths come back at once.
+ * ponder analyzes the position after an expected move so that the table is
+ * warm when the move is played.
+ * <br/>
+ * The session copies each position it is given, so the caller's board is
+ * never touched. Listeners are called on the session's thread; a listener
+ * may call analyze or cancel, which then do not wait for the search they are
+ * called from to stop.
+ *
+ * @version Oct 19, 2026
+ */
+public class AnalysisSession implements Closeable {
+
+	/**
+	 * One finished depth.
+	 */
+	public static class Result {
+		public final int depth, score;
+		public final int[] line;
+		public final long nodes, nanos;
+		private final int columns;
+
+		Result(int depth, int score, int[] line, long nodes, long nanos, int columns) {
+			this.depth = depth;
+			this.score = score;
+			this.line = line;
+			this.nodes = nodes;
+			this.nanos = nanos;
+			this.columns = columns;
+		}
+
+		/**
+		 * @return the first move of the line, or Move.NONE if there is no move
+		 */
+		public int bestMove() { return line.length == 0 ? Move.NONE : line[0]; }
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("depth ").append(depth).append(" score ").append(score)
+				.append(" nodes ").append(nodes).append(" time ").append(nanos / 1000000).append("ms line");
+			for (int move : line) { sb.append(' ').append(Move.toString(move, columns)); }
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Receives the results of one analysis.
+	 */
+	public interface Listener {
+		/**
+		 * @param result a depth just finished, deeper than any before it
+		 */
+		void update(Result result);
+
+		/**
+		 * The analysis is over.
+		 * @param last the deepest result, or null if no depth finished
+		 * @param cancelled true if it was stopped before maxDepth
+		 */
+		default void finished(Result last, boolean cancelled) { }
+	}
+
+	private final Searcher searcher;
+	private final TranspositionTable table;
+	private final PositionCodec codec = new PositionCodec();
+	private final ExecutorService executor;
+	private volatile Thread worker;
+	private Task current;
+
+	/**
+	 * @param evaluation the evaluation the search uses
+	 * @param maxDepth the deepest search
+	 * @param tableBits log2 of the slots of the transposition table
+	 */
+	public AnalysisSession(EvaluationTable evaluation, int maxDepth, int tableBits) {
+		table = new TranspositionTable(tableBits);
+		searcher = new Searcher(evaluation, maxDepth).setTable(table);
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "analysis");
+			t.setDaemon(true);
+			worker = t;
+			return t;
+		});
+	}
+
+	/**
+	 * Stop any analysis and start on a new position.
+	 * @param b the position, which is copied
+	 * @param toMove the side to move
+	 * @param listener receives the results
+	 */
+	public void analyze(Board b, PlayerColor toMove, Listener listener) {
+		Task task = new Task(copy(b), toMove, listener);
+		synchronized (this) {
+			if (current != null) { current.cancelled = true; }
+			current = task;
+			task.future = executor.submit(task);	// runs once the stopped search returns
+		}
+	}
+
+	/**
+	 * Stop any analysis and start on the position after a move.
+	 * @param b the position before the move, which is copied
+	 * @param toMove the side making the move
+	 * @param move the move expected
+	 * @param listener receives the results
+	 */
+	public void ponder(Board b, PlayerColor toMove, int move, Listener listener) {
+		Board after = copy(b);
+		Coordinate from = after.coordinateOf(Move.from(move)), to = after.coordinateOf(Move.to(move));
+		ChessPiece piece = (ChessPiece) after.removePieceAt(from);
+		if (piece == null) { throw new IllegalArgumentException("no piece to move at " + from); }
+		after.removePieceAt(to);
+		after.putPieceAt(codec.pieceFor(PositionCodec.pieceCode(piece) | PositionCodec.MOVED), to);
+		analyze(after, toMove.opponent(), listener);
+	}
+
+	/**
+	 * Stop the analysis, if any, and wait for its thread to leave the search;
+	 * once this returns, the listener hears nothing more but finished.
+	 */
+	public void cancel() {
+		Task task;
+		synchronized (this) {
+			task = current;
+			if (task == null) { return; }
+			current = null;
+			task.cancelled = true;
+		}
+		if (Thread.currentThread() == worker) { return; }
+		try {
+			task.future.get();	// a task that has not started returns at once
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("analysis failed", e.getCause());
+		}
+	}
+
+	/**
+	 * @return true if a search is running or about to
+	 */
+	public synchronized boolean isRunning() {
+		return current != null && !current.future.isDone();
+	}
+
+	/**
+	 * @return the table the session's searches share
+	 */
+	public TranspositionTable getTable() { return table; }
+
+	/**
+	 * Stop the analysis and the thread.
+	 */
+	@Override
+	public void close() {
+		cancel();
+		executor.shutdown();
+	}
+
+	private Board copy(Board b) {
+		ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.encodedSize(b));
+		PositionCodec.write(b, buffer);
+		buffer.flip();
+		Board copy = new Board(b.getnRows(), b.getnColumns());
+		codec.read(buffer, copy);
+		return copy;
+	}
+
+	/**
+	 * One analysis, run on the session's thread.
+	 */
+	private class Task implements Runnable {
+		final Board board;
+		final PlayerColor toMove;
+		final Listener listener;
+		volatile boolean cancelled;
+		Future<?> future;
+		Result last;
+
+		Task(Board board, PlayerColor toMove, Listener listener) {
+			this.board = board;
+			this.toMove = toMove;
+			this.listener = listener;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				listener.finished(null, true);
+				return;
+			}
+			long start = System.nanoTime(), nodes = searcher.getNodes();
+			int columns = board.getnColumns();
+			searcher.setStopCondition(() -> cancelled).setListener((depth, score, line, total) -> {
+				if (cancelled) { return; }
+				last = new Result(depth, score, line, total - nodes, System.nanoTime() - start, columns);
+				listener.update(last);
+			});
+			try {
+				searcher.chooseMove(board, toMove);
+			} finally {
+				searcher.setListener(null).setStopCondition(null);
+			}
+			listener.finished(last, cancelled);
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package gpv.chess.analysis;
+
+import java.util.*;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * One line of an EPD test suite, parsed into a reusable holder. A line is a
+ * FEN piece placement, the side to move, the castling rights and the en
+ * passant square, followed by operations such as
+ * <pre>
+ * bm Qxf7+; am Kh1; id "WAC.001";
+ * </pre>
+ * Ranks are listed from the last row down to row 1 and files from column 1;
+ * any board of up to 9 rows and 26 columns can be described. Besides
+ * PNBRQK the letters A, C and L stand for the archbishop, chancellor and
+ * camel. A pawn on its starting row, and a king or rook allowed to castle,
+ * has not moved; other pawns, kings and rooks have. The moved flag makes no
+ * difference to any other piece, so those are loaded as unmoved.
+ * <br/>
+ * load puts the position on a Board through reset, using pieces shared by
+ * every load of this instance, so the pieces must not be changed; Searcher
+ * leaves them alone. Moves in bm and am are matched against the moves
+ * MoveGenerator finds, in standard algebraic notation ("Nf3", "exd5",
+ * "R1e2", "O-O") or as coordinates ("g1f3").
+ *
+ * @version Oct 19, 2026
+ */
+public final class EpdPosition {
+
+	private static final String LETTERS = "PRNBQKACL";	// by PieceName ordinal
+
+	private final ChessPiece[] unmoved = new ChessPiece[ChessPieceDescriptor.values().length];
+	private final ChessPiece[] moved = new ChessPiece[ChessPieceDescriptor.values().length];
+	private final List<SquareInitializer> initializers = new ArrayList<SquareInitializer>(64);
+	private final List<String> bestMoves = new ArrayList<String>();
+	private final List<String> avoidMoves = new ArrayList<String>();
+	private final MoveList legal = new MoveList();
+	private ChessPieceDescriptor[] squares = new ChessPieceDescriptor[64];
+	private boolean[] hasMoved = new boolean[64];
+	private int rows, columns;
+	private PlayerColor toMove;
+	private String id;
+
+	public EpdPosition() {
+		for (ChessPieceDescriptor d : ChessPieceDescriptor.values()) {
+			unmoved[d.ordinal()] = new ChessPiece(d);
+			moved[d.ordinal()] = new ChessPiece(d);
+			moved[d.ordinal()].setHasMoved();
+		}
+	}
+
+	/**
+	 * Parse a line, replacing the previous position.
+	 * @param line an EPD line
+	 * @return false if the line is blank or a comment starting with '#'
+	 * @throws IllegalArgumentException if the line is not a valid position
+	 */
+	public boolean parse(String line) {
+		line = line.trim();
+		if (line.isEmpty() || line.charAt(0) == '#') { return false; }
+		String[] fields = line.split("\\s+", 5);
+		if (fields.length < 4) { throw new IllegalArgumentException("expected 4 fields: " + line); }
+		parsePlacement(fields[0]);
+		if (fields[1].equals("w")) { toMove = PlayerColor.WHITE; }
+		else if (fields[1].equals("b")) { toMove = PlayerColor.BLACK; }
+		else { throw new IllegalArgumentException("bad side to move " + fields[1]); }
+		parseCastling(fields[2]);
+		id = null;
+		bestMoves.clear();
+		avoidMoves.clear();
+		if (fields.length == 5) { parseOperations(fields[4]); }
+		return true;
+	}
+
+	/**
+	 * Set up a board in the parsed position, resizing it if needed.
+	 * @param b the board
+	 */
+	public void load(Board b) {
+		initializers.clear();
+		for (int square = 0; square < rows * columns; square++) {
+			ChessPieceDescriptor d = squares[square];
+			if (d == null) { continue; }
+			ChessPiece p = (hasMoved[square] ? moved : unmoved)[d.ordinal()];
+			initializers.add(SquareInitializer.makeSquareInitializer(p,
+					Coordinate.makeCoordinate(square / columns + 1, square % columns + 1)));
+		}
+		b.setnRows(rows);
+		b.setnColumns(columns);
+		b.reset(initializers);
+	}
+
+	/**
+	 * The first four EPD fields of a position: placement, side to move,
+	 * castling rights for each unmoved king and unmoved rook in a corner of
+	 * its row, and no en passant square.
+	 * @param b the board
+	 * @param toMove the side to move
+	 * @return the fields, separated by spaces
+	 */
+	public static String format(Board b, PlayerColor toMove) {
+		int rows = b.getnRows(), columns = b.getnColumns();
+		StringBuilder sb = new StringBuilder();
+		for (int row = rows; row >= 1; row--) {
+			int empty = 0;
+			for (int column = 1; column <= columns; column++) {
+				ChessPiece p = (ChessPiece) b.getPieceAt(Coordinate.makeCoordinate(row, column));
+				if (p == null) {
+					empty++;
+					continue;
+				}
+				while (empty > 0) {
+					sb.append((char) ('0' + Math.min(empty, 9)));
+					empty -= Math.min(empty, 9);
+				}
+				char letter = LETTERS.charAt(p.getName().ordinal());
+				sb.append(p.getColor() == PlayerColor.WHITE ? letter : Character.toLowerCase(letter));
+			}
+			while (empty > 0) {
+				sb.append((char) ('0' + Math.min(empty, 9)));
+				empty -= Math.min(empty, 9);
+			}
+			if (row > 1) { sb.append('/'); }
+		}
+		sb.append(toMove == PlayerColor.WHITE ? " w " : " b ");
+		int length = sb.length();
+		castling(b, PlayerColor.WHITE, 1, sb);
+		castling(b, PlayerColor.BLACK, rows, sb);
+		if (sb.length() == length) { sb.append('-'); }
+		return sb.append(" -").toString();
+	}
+
+	private static void castling(Board b, PlayerColor color, int row, StringBuilder sb) {
+		boolean king = false;
+		for (int column = 1; column <= b.getnColumns(); column++) {
+			ChessPiece p = (ChessPiece) b.getPieceAt(Coordinate.makeCoordinate(row, column));
+			king |= p != null && p.getColor() == color && p.getName() == PieceName.KING && !p.hasMoved();
+		}
+		if (!king) { return; }
+		String rights = "";
+		ChessPiece kingSide = (ChessPiece) b.getPieceAt(Coordinate.makeCoordinate(row, b.getnColumns()));
+		ChessPiece queenSide = (ChessPiece) b.getPieceAt(Coordinate.makeCoordinate(row, 1));
+		if (kingSide != null && kingSide.getColor() == color && kingSide.getName() == PieceName.ROOK && !kingSide.hasMoved()) {
+			rights += "K";
+		}
+		if (queenSide != null && queenSide.getColor() == color && queenSide.getName() == PieceName.ROOK && !queenSide.hasMoved()) {
+			rights += "Q";
+		}
+		sb.append(color == PlayerColor.WHITE ? rights : rights.toLowerCase());
+	}
+
+	/**
+	 * @return the side to move
+	 */
+	public PlayerColor getToMove() { return toMove; }
+
+	/**
+	 * @return the id operation, or null if there is none
+	 */
+	public String getId() { return id; }
+
+	public int getRows() { return rows; }
+
+	public int getColumns() { return columns; }
+
+	/**
+	 * @return the moves of the bm operation, as written
+	 */
+	public List<String> getBestMoves() { return Collections.unmodifiableList(bestMoves); }
+
+	/**
+	 * @return the moves of the am operation, as written
+	 */
+	public List<String> getAvoidMoves() { return Collections.unmodifiableList(avoidMoves); }
+
+	/**
+	 * Score a move against bm and am: it must be one of the best moves, or
+	 * if there are none, not one of the moves to avoid.
+	 * @param b the board, loaded with this position
+	 * @param move a packed Move
+	 * @return true if it solves the position, false if not, null if the
+	 * 	position has neither bm nor am
+	 */
+	public Boolean solvedBy(Board b, int move) {
+		if (bestMoves.isEmpty() && avoidMoves.isEmpty()) { return null; }
+		MoveGenerator.generate(b, toMove, legal);
+		if (!bestMoves.isEmpty()) { return matchesAny(bestMoves, move); }
+		return !matchesAny(avoidMoves, move);
+	}
+
+	/**
+	 * Find the move a written move stands for.
+	 * @param b the board, loaded with this position
+	 * @param text a move in algebraic or coordinate notation
+	 * @return the packed Move, or Move.NONE if no accepted move matches or
+	 * 	more than one does
+	 */
+	public int resolve(Board b, String text) {
+		MoveGenerator.generate(b, toMove, legal);
+		return resolve(legal, text);
+	}
+
+	private boolean matchesAny(List<String> texts, int move) {
+		for (String text : texts) {
+			int m = resolve(legal, text);
+			if (m != Move.NONE && Move.squares(m) == Move.squares(move)) { return true; }
+		}
+		return false;
+	}
+
+	private int resolve(MoveList moves, String text) {
+		String san = text.replaceAll("[+#!?]", "");
+		int eq = san.indexOf('=');
+		if (eq >= 0) { san = san.substring(0, eq); }	// there is no choice of promotion piece
+		if (san.equals("O-O") || san.equals("0-0") || san.equals("O-O-O") || san.equals("0-0-0")) {
+			return castle(moves, san.length() > 3 ? -1 : 1);
+		}
+		if (san.length() == 4 && Character.isLowerCase(san.charAt(0)) && Character.isDigit(san.charAt(1))
+				&& Character.isLowerCase(san.charAt(2))) {
+			try {
+				int from = Notation.square(san.substring(0, 2), columns), to = Notation.square(san.substring(2), columns);
+				int i = moves.indexOf(Move.make(from, to, 0));
+				if (i >= 0) { return moves.get(i); }
+			} catch (IllegalArgumentException e) {
+				// not coordinates after all
+			}
+		}
+		if (san.length() < 2) { return Move.NONE; }
+		PieceName name = PieceName.PAWN;
+		int start = 0;
+		if (Character.isUpperCase(san.charAt(0))) {
+			if (LETTERS.indexOf(san.charAt(0)) < 0) { return Move.NONE; }
+			name = nameOf(san.charAt(0));
+			start = 1;
+		}
+		int to;
+		try {
+			to = Notation.square(san.substring(san.length() - 2), columns);
+		} catch (IllegalArgumentException e) {
+			return Move.NONE;
+		}
+		int fromColumn = -1, fromRow = -1;
+		for (char c : san.substring(start, san.length() - 2).toCharArray()) {
+			if (c == 'x') { continue; }	// a capture, not the x file
+			if (c >= 'a' && c <= 'z') { fromColumn = c - 'a'; }
+			else if (c >= '1' && c <= '9') { fromRow = c - '1'; }
+		}
+		int found = Move.NONE;
+		for (int i = 0; i < moves.size(); i++) {
+			int m = moves.get(i), from = Move.from(m);
+			if (Move.to(m) != to || squares[from].getName() != name) { continue; }
+			if (fromColumn >= 0 && from % columns != fromColumn) { continue; }
+			if (fromRow >= 0 && from / columns != fromRow) { continue; }
+			if (found != Move.NONE) { return Move.NONE; }
+			found = m;
+		}
+		return found;
+	}
+
+	/**
+	 * @return the king move two or more columns towards direction, or Move.NONE
+	 */
+	private int castle(MoveList moves, int direction) {
+		for (int i = 0; i < moves.size(); i++) {
+			int m = moves.get(i), from = Move.from(m);
+			int dc = Move.to(m) % columns - from % columns;
+			if (squares[from].getName() == PieceName.KING && dc * direction >= 2) { return m; }
+		}
+		return Move.NONE;
+	}
+
+	private void parsePlacement(String placement) {
+		String[] ranks = placement.split("/");
+		rows = ranks.length;
+		columns = 0;
+		for (int i = 0; i < ranks[0].length(); i++) {
+			char c = ranks[0].charAt(i);
+			columns += Character.isDigit(c) ? c - '0' : 1;
+		}
+		if (rows > 9 || columns > 26 || rows * columns > Move.MAX_SQUARES) {
+			throw new IllegalArgumentException("board too large: " + placement);
+		}
+		if (squares.length < rows * columns) {
+			squares = new ChessPieceDescriptor[rows * columns];
+			hasMoved = new boolean[rows * columns];
+		}
+		Arrays.fill(squares, null);
+		for (int r = 0; r < rows; r++) {
+			int row = rows - 1 - r, column = 0;
+			for (int i = 0; i < ranks[r].length(); i++) {
+				char c = ranks[r].charAt(i);
+				if (Character.isDigit(c)) {
+					column += c - '0';
+					continue;
+				}
+				if (column >= columns || LETTERS.indexOf(Character.toUpperCase(c)) < 0) {
+					throw new IllegalArgumentException("bad rank " + ranks[r]);
+				}
+				PlayerColor color = Character.isUpperCase(c) ? PlayerColor.WHITE : PlayerColor.BLACK;
+				PieceName name = nameOf(Character.toUpperCase(c));
+				int square = row * columns + column++;
+				squares[square] = descriptor(color, name);
+				if (name == PieceName.PAWN) { hasMoved[square] = row != (color == PlayerColor.WHITE ? 1 : rows - 2); }
+				else { hasMoved[square] = name == PieceName.KING || name == PieceName.ROOK; }
+			}
+			if (column != columns) { throw new IllegalArgumentException("bad rank " + ranks[r]); }
+		}
+	}
+
+	/**
+	 * Mark the king and the rook in a corner of its home row as unmoved for
+	 * each castling right.
+	 */
+	private void parseCastling(String rights) {
+		if (rights.equals("-")) { return; }
+		for (char c : rights.toCharArray()) {
+			PlayerColor color = Character.isUpperCase(c) ? PlayerColor.WHITE : PlayerColor.BLACK;
+			int row = color == PlayerColor.WHITE ? 0 : rows - 1;
+			char side = Character.toUpperCase(c);
+			if (side != 'K' && side != 'Q') { throw new IllegalArgumentException("bad castling rights " + rights); }
+			int rook = row * columns + (side == 'K' ? columns - 1 : 0);
+			if (squares[rook] == descriptor(color, PieceName.ROOK)) { hasMoved[rook] = false; }
+			for (int square = row * columns; square < (row + 1) * columns; square++) {
+				if (squares[square] == descriptor(color, PieceName.KING)) { hasMoved[square] = false; }
+			}
+		}
+	}
+
+	private void parseOperations(String operations) {
+		for (String op : operations.split(";")) {
+			op = op.trim();
+			if (op.isEmpty()) { continue; }
+			int space = op.indexOf(' ');
+			String code = space < 0 ? op : op.substring(0, space);
+			String operand = space < 0 ? "" : op.substring(space + 1).trim();
+			if (code.equals("id")) { id = operand.replace("\"", ""); }
+			else if (code.equals("bm")) { bestMoves.addAll(Arrays.asList(operand.split("\\s+"))); }
+			else if (code.equals("am")) { avoidMoves.addAll(Arrays.asList(operand.split("\\s+"))); }
+		}
+	}
+
+	private static PieceName nameOf(char letter) {
+		return PieceName.values()[LETTERS.indexOf(letter)];
+	}
+
+	private static ChessPieceDescriptor descriptor(PlayerColor color, PieceName name) {
+		for (ChessPieceDescriptor d : ChessPieceDescriptor.values()) {
+			if (d.getColor() == color && d.getName() == name) { return d; }
+		}
+		throw new IllegalArgumentException(color + " " + name);
+	}
+}
@@ -0,0 +1,341 @@
+package gpv.chess.analysis;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import gpv.chess.*;
+import gpv.chess.engine.Searcher;
+import gpv.chess.eval.EvaluationTable;
+import gpv.chess.game.*;
+import gpv.util.*;
+
+/**
+ * Finds puzzles in game archives. Every game of a ResultLog is replayed
+ * through Game.move, and so through ChessPiece.canMove, on a pool of
+ * threads. Each position passes a cheap filter first, on a Mailbox that
+ * follows the board:
+ * <ul>
+ * <li>the side to move has a capture that StaticExchange says wins at least
+ * minGain, or</li>
+ * <li>the king of the side to move is attacked.</li>
+ * </ul>
+ * A capture counts only if it wins at least margin more than the next best
+ * capture, and a position where the king of the other side can be taken is
+ * already decided and never a candidate. The positions that pass are
+ * scored by Searcher.scoreMoves at one ply, and those where one move still
+ * stands out are scored again at verifyDepth plies. A position is a puzzle
+ * if one move scores at least margin more than every other move: a forced
+ * king capture (MATE), or a single move that wins or saves material
+ * (ONLY_MOVE).
+ * <br/>
+ * Puzzles are written as they are found, as EPD lines that SuiteRunner can
+ * read back:
+ * <pre>
+ * placement side castling - bm e2e4; id "game/ply"; c0 "MATE 999996";
+ * </pre>
+ * The calling thread reads the archive one game at a time into a bounded
+ * queue, so memory does not grow with the archive. The report shows what
+ * share of positions reached each stage, and the time spent in them.
+ * <br/>
+ * Run with <code>java gpv.chess.analysis.PuzzleMiner games.log [puzzles.epd] [threads] [depth]</code>.
+ *
+ * @version Oct 19, 2026
+ */
+public class PuzzleMiner {
+
+	/**
+	 * The figures of one run.
+	 */
+	public static class Report {
+		public final long games, positions, candidates, deepSearches, puzzles, rejectedMoves;
+		public final long filterNanos, verifyNanos, nanos;
+
+		Report(long games, long positions, long candidates, long deepSearches, long puzzles, long rejectedMoves,
+				long filterNanos, long verifyNanos, long nanos) {
+			this.games = games;
+			this.positions = positions;
+			this.candidates = candidates;
+			this.deepSearches = deepSearches;
+			this.puzzles = puzzles;
+			this.rejectedMoves = rejectedMoves;
+			this.filterNanos = filterNanos;
+			this.verifyNanos = verifyNanos;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return the share of positions that passed the static filter
+		 */
+		public double candidateRatio() {
+			return positions == 0 ? 0 : (double) candidates / positions;
+		}
+
+		/**
+		 * @return the share of positions that reached the deep search
+		 */
+		public double deepRatio() {
+			return positions == 0 ? 0 : (double) deepSearches / positions;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games, %d positions, %d candidates (%.2f%%), %d deep searches (%.2f%%), "
+					+ "%d puzzles, %d rejected moves; replay and filter %.2fs, search %.2fs (thread time); "
+					+ "%.2fs wall: %.0f positions/s%n",
+					games, positions, candidates, candidateRatio() * 100, deepSearches, deepRatio() * 100,
+					puzzles, rejectedMoves,
+					filterNanos / 1e9, verifyNanos / 1e9, nanos / 1e9, positions * 1e9 / nanos);
+		}
+	}
+
+	private final EvaluationTable table;
+	private int minGain = 200;
+	private int margin = 200;
+	private int verifyDepth = 3;
+
+	/**
+	 * @param table the evaluation the verifying searches use
+	 */
+	public PuzzleMiner(EvaluationTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * @param gain the least StaticExchange gain of a capture that makes a position a candidate
+	 * @return this miner
+	 */
+	public PuzzleMiner setMinGain(int gain) {
+		this.minGain = gain;
+		return this;
+	}
+
+	/**
+	 * @param margin how much better than every other move the best move must score
+	 * @return this miner
+	 */
+	public PuzzleMiner setMargin(int margin) {
+		this.margin = margin;
+		return this;
+	}
+
+	/**
+	 * @param depth the depth of the verifying search, in plies
+	 * @return this miner
+	 */
+	public PuzzleMiner setVerifyDepth(int depth) {
+		this.verifyDepth = depth;
+		return this;
+	}
+
+	/**
+	 * Mine every game of an archive.
+	 * @param archive a ResultLog
+	 * @param puzzles where puzzles are written, one EPD line each
+	 * @param threads the number of worker threads
+	 * @return the totals
+	 * @throws IOException if the archive cannot be read or the puzzles written
+	 * @throws InterruptedException if interrupted while feeding or waiting for the workers
+	 */
+	public Report run(Path archive, Writer puzzles, int threads) throws IOException, InterruptedException {
+		BlockingQueue<Optional<ResultLog.Entry>> queue = new ArrayBlockingQueue<Optional<ResultLog.Entry>>(threads * 4);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Worker>> done = new ArrayList<Future<Worker>>();
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			Worker w = new Worker(queue, puzzles);
+			done.add(pool.submit(w::run, w));
+		}
+		pool.shutdown();
+		try (ResultLog.Reader in = new ResultLog.Reader(archive)) {
+			for (ResultLog.Entry e = in.next(); e != null; e = in.next()) { queue.put(Optional.of(e)); }
+		} finally {
+			for (int t = 0; t < threads; t++) { queue.put(Optional.<ResultLog.Entry>empty()); }
+		}
+		long games = 0, positions = 0, candidates = 0, deep = 0, found = 0, rejected = 0, filterNanos = 0, verifyNanos = 0;
+		for (Future<Worker> f : done) {
+			Worker w;
+			try {
+				w = f.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException) { throw ((UncheckedIOException) cause).getCause(); }
+				throw new IllegalStateException("mining thread failed", cause);
+			}
+			games += w.games;
+			positions += w.positions;
+			candidates += w.candidates;
+			deep += w.deepSearches;
+			found += w.puzzles;
+			rejected += w.rejectedMoves;
+			filterNanos += w.filterNanos;
+			verifyNanos += w.verifyNanos;
+		}
+		synchronized (puzzles) { puzzles.flush(); }
+		return new Report(games, positions, candidates, deep, found, rejected, filterNanos, verifyNanos,
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * The state of one thread.
+	 */
+	private class Worker {
+		final BlockingQueue<Optional<ResultLog.Entry>> queue;
+		final Writer out;
+		final Board board = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		final Mailbox mailbox = new Mailbox();
+		final Mobility mobility = new Mobility();
+		final StaticExchange exchange = new StaticExchange();
+		final Searcher shallow = new Searcher(table, 1);
+		final Searcher searcher = new Searcher(table, verifyDepth);
+		final MoveList captures = new MoveList();
+		final MoveList scored = new MoveList();
+		final Coordinate[] squares = new Coordinate[board.getnSquares()];
+		long games, positions, candidates, deepSearches, puzzles, rejectedMoves, filterNanos, verifyNanos;
+		IOException failure;
+
+		Worker(BlockingQueue<Optional<ResultLog.Entry>> queue, Writer out) {
+			this.queue = queue;
+			this.out = out;
+			for (int i = 0; i < squares.length; i++) { squares[i] = board.coordinateOf(i); }
+		}
+
+		/**
+		 * Mine games until an empty entry. After a failed write the worker
+		 * only drains the queue, so that the reader never waits on a full
+		 * queue.
+		 */
+		void run() {
+			try {
+				for (Optional<ResultLog.Entry> e = queue.take(); e.isPresent(); e = queue.take()) {
+					if (failure != null) { continue; }
+					try {
+						mine(e.get());
+					} catch (IOException x) {
+						failure = x;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) { throw new UncheckedIOException(failure); }
+		}
+
+		void mine(ResultLog.Entry entry) throws IOException {
+			games++;
+			long start = System.nanoTime();
+			Game game = new Game(entry.id, board);
+			mailbox.attach(board);
+			try {
+				for (int ply = 0; ply < entry.moves.size(); ply++) {
+					positions++;
+					if (isCandidate(game.getToMove())) {
+						candidates++;
+						long verify = System.nanoTime();
+						filterNanos += verify - start;
+						verify(entry.id, ply, game.getToMove());
+						start = System.nanoTime();
+						verifyNanos += start - verify;
+					}
+					if (!game.move(entry.moves.get(ply))) {
+						rejectedMoves++;
+						break;
+					}
+				}
+			} finally {
+				mailbox.detach(board);
+			}
+			filterNanos += System.nanoTime() - start;
+		}
+
+		/**
+		 * The cheap filter.
+		 */
+		boolean isCandidate(PlayerColor side) {
+			int king = -1;
+			for (int square = 0; square < mailbox.getSquares() && king < 0; square++) {
+				int code = mailbox.codeAt(square);
+				if (code != Occupancy.EMPTY && Occupancy.descriptor(code).getName() == PieceName.KING
+						&& Occupancy.descriptor(code).getColor() == side) {
+					king = square;
+				}
+			}
+			MoveGenerator.generate(mailbox, side, captures);
+			int best = 0, second = 0;
+			for (int i = 0; i < captures.size(); i++) {
+				int move = captures.get(i);
+				if (!Move.isCapture(move)) { continue; }
+				PieceName victim = Occupancy.descriptor(mailbox.codeAt(Move.to(move))).getName();
+				if (victim == PieceName.KING) { return false; }	// already won
+				if (exchange.value(victim) <= second) { continue; }	// an exchange never wins more than the victim
+				int gain = exchange.evaluate(board, squares[Move.from(move)], squares[Move.to(move)]);
+				if (gain > best) {
+					second = best;
+					best = gain;
+				} else if (gain > second) {
+					second = gain;
+				}
+			}
+			if (best >= minGain && best - second >= margin) { return true; }
+			return king >= 0 && mobility.attackers(mailbox, king, side.opponent()) > 0;
+		}
+
+		/**
+		 * Confirm a candidate with a one-ply search, then with the deep
+		 * search; write the position if one move stands out in both.
+		 */
+		void verify(long id, int ply, PlayerColor side) throws IOException {
+			if (standsOut(shallow.scoreMoves(board, side, scored)) < 0) { return; }
+			deepSearches++;
+			int[] scores = searcher.scoreMoves(board, side, scored);
+			int best = standsOut(scores);
+			if (best < 0) { return; }
+			puzzles++;
+			int move = scored.get(best);
+			String kind = scores[best] >= Searcher.WIN - verifyDepth ? "MATE" : "ONLY_MOVE";
+			String line = EpdPosition.format(board, side) + " bm "
+					+ Move.toString(move, board.getnColumns())
+					+ "; id \"" + id + "/" + ply + "\"; c0 \"" + kind + " " + scores[best] + "\";\n";
+			synchronized (out) {
+				out.append(line);
+			}
+		}
+
+		/**
+		 * @return the index of the move that scores at least margin more than
+		 * 	every other move, or -1 if there is none
+		 */
+		int standsOut(int[] scores) {
+			if (scores.length == 0) { return -1; }
+			int best = 0;
+			for (int i = 1; i < scores.length; i++) {
+				if (scores[i] > scores[best]) { best = i; }
+			}
+			for (int i = 0; i < scores.length; i++) {
+				if (i != best && scores[i] > scores[best] - margin) { return -1; }
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * @param args the archive, and optionally the puzzle file, thread count
+	 * 	and verification depth
+	 * @throws Exception if a file cannot be read or written, or the run is interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("usage: PuzzleMiner games.log [puzzles.epd] [threads] [depth]");
+			System.exit(2);
+		}
+		Path archive = Paths.get(args[0]);
+		Path out = Paths.get(args.length > 1 ? args[1] : "puzzles.epd");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		PuzzleMiner miner = new PuzzleMiner(EvaluationTable.standard())
+				.setVerifyDepth(args.length > 3 ? Integer.parseInt(args[3]) : 3);
+		try (Writer puzzles = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			System.out.print(miner.run(archive, puzzles, threads));
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package gpv.chess.analysis;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import gpv.chess.*;
+import gpv.chess.engine.Searcher;
+import gpv.chess.eval.EvaluationTable;
+import gpv.util.*;
+
+/**
+ * Runs an EPD test suite through Searcher on a pool of threads. The calling
+ * thread reads the suite a line at a time into a bounded queue; each worker
+ * keeps one EpdPosition, one Board and one Searcher for the whole run, so
+ * memory depends on the number of threads and not on the size of the suite.
+ * Every position is searched to at most maxDepth plies within a node and a
+ * time budget.
+ * <br/>
+ * Results are appended to the output as positions finish, in the order they
+ * finish, one tab-separated line each:
+ * <pre>
+ * line  id  result  move  depth  nodes  micros
+ * </pre>
+ * where result is solved, failed, unscored (no bm or am) or error, and the
+ * move is in coordinate notation.
+ * <br/>
+ * Run with <code>java gpv.chess.analysis.SuiteRunner suite.epd [results] [threads] [millis] [depth]</code>.
+ *
+ * @version Oct 19, 2026
+ */
+public class SuiteRunner {
+
+	/**
+	 * The figures of one run.
+	 */
+	public static class Report {
+		public final long positions, solved, failed, unscored, errors;
+		public final long nodes, nanos;
+
+		Report(long positions, long solved, long failed, long unscored, long errors, long nodes, long nanos) {
+			this.positions = positions;
+			this.solved = solved;
+			this.failed = failed;
+			this.unscored = unscored;
+			this.errors = errors;
+			this.nodes = nodes;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return nodes searched per second of wall time
+		 */
+		public double nodesPerSecond() {
+			return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d positions: %d solved, %d failed, %d unscored, %d errors; "
+					+ "%d nodes in %.2fs: %.0f nodes/s%n",
+					positions, solved, failed, unscored, errors, nodes, nanos / 1e9, nodesPerSecond());
+		}
+	}
+
+	private static final String[] END = new String[0];
+
+	private final EvaluationTable table;
+	private int maxDepth = 4;
+	private long maxNodes;
+	private long maxMillis = 1000;
+
+	/**
+	 * @param table the evaluation the searchers use
+	 */
+	public SuiteRunner(EvaluationTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * @param depth the deepest search, in plies
+	 * @return this runner
+	 */
+	public SuiteRunner setMaxDepth(int depth) {
+		this.maxDepth = depth;
+		return this;
+	}
+
+	/**
+	 * @param nodes the most nodes per position, 0 for no limit
+	 * @return this runner
+	 */
+	public SuiteRunner setMaxNodes(long nodes) {
+		this.maxNodes = nodes;
+		return this;
+	}
+
+	/**
+	 * @param millis the most time per position, 0 for no limit
+	 * @return this runner
+	 */
+	public SuiteRunner setMaxMillis(long millis) {
+		this.maxMillis = millis;
+		return this;
+	}
+
+	/**
+	 * Analyze every position of a suite.
+	 * @param suite the EPD file
+	 * @param results where result lines are written
+	 * @param threads the number of worker threads
+	 * @return the totals
+	 * @throws IOException if the suite cannot be read or the results written
+	 * @throws InterruptedException if interrupted while feeding or waiting for the workers
+	 */
+	public Report run(Path suite, Writer results, int threads) throws IOException, InterruptedException {
+		BlockingQueue<String[]> queue = new ArrayBlockingQueue<String[]>(threads * 4);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Worker>> done = new ArrayList<Future<Worker>>();
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			Worker w = new Worker(queue, results);
+			done.add(pool.submit(w::run, w));
+		}
+		pool.shutdown();
+		try (BufferedReader in = Files.newBufferedReader(suite, StandardCharsets.UTF_8)) {
+			long number = 0;
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				queue.put(new String[] { Long.toString(++number), line });
+			}
+		} finally {
+			for (int t = 0; t < threads; t++) { queue.put(END); }
+		}
+		long positions = 0, solved = 0, failed = 0, unscored = 0, errors = 0, nodes = 0;
+		for (Future<Worker> f : done) {
+			Worker w;
+			try {
+				w = f.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException) { throw ((UncheckedIOException) cause).getCause(); }
+				throw new IllegalStateException("analysis thread failed", cause);
+			}
+			positions += w.positions;
+			solved += w.solved;
+			failed += w.failed;
+			unscored += w.unscored;
+			errors += w.errors;
+			nodes += w.searcher.getNodes();
+		}
+		synchronized (results) { results.flush(); }
+		return new Report(positions, solved, failed, unscored, errors, nodes, System.nanoTime() - start);
+	}
+
+	/**
+	 * The state of one thread.
+	 */
+	private class Worker {
+		final BlockingQueue<String[]> queue;
+		final Writer results;
+		final EpdPosition position = new EpdPosition();
+		final Board board = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		final Searcher searcher = new Searcher(table, maxDepth)
+				.setLimits(maxNodes, TimeUnit.MILLISECONDS.toNanos(maxMillis));
+		final StringBuilder line = new StringBuilder();
+		long positions, solved, failed, unscored, errors;
+		IOException failure;
+
+		Worker(BlockingQueue<String[]> queue, Writer results) {
+			this.queue = queue;
+			this.results = results;
+		}
+
+		/**
+		 * Analyze positions until END. After a failed write the worker only
+		 * drains the queue, so that the reader never waits on a full queue.
+		 */
+		void run() {
+			try {
+				for (String[] task = queue.take(); task != END; task = queue.take()) {
+					if (failure != null) { continue; }
+					try {
+						analyze(task[0], task[1]);
+					} catch (IOException e) {
+						failure = e;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) { throw new UncheckedIOException(failure); }
+		}
+
+		void analyze(String number, String epd) throws IOException {
+			line.setLength(0);
+			line.append(number).append('\t');
+			int move;
+			Boolean result;
+			long nodes = searcher.getNodes(), start = System.nanoTime();
+			try {
+				if (!position.parse(epd)) { return; }
+			} catch (IllegalArgumentException e) {
+				positions++;
+				errors++;
+				write(line.append("-\terror\t").append(e.getMessage()));
+				return;
+			}
+			positions++;
+			try {
+				position.load(board);
+				move = searcher.chooseMove(board, position.getToMove());
+				result = move == Move.NONE ? Boolean.FALSE : position.solvedBy(board, move);
+			} catch (RuntimeException e) {
+				errors++;
+				write(line.append("-\terror\t").append(e));
+				return;
+			}
+			long micros = (System.nanoTime() - start) / 1000;
+			if (result == null) { unscored++; }
+			else if (result) { solved++; }
+			else { failed++; }
+			int columns = position.getColumns();
+			line.append(position.getId() == null ? "-" : position.getId()).append('\t')
+				.append(result == null ? "unscored" : result ? "solved" : "failed").append('\t')
+				.append(move == Move.NONE ? "-" : Move.toString(move, columns)).append('\t')
+				.append(searcher.getCompletedDepth()).append('\t')
+				.append(searcher.getNodes() - nodes).append('\t')
+				.append(micros);
+			write(line);
+		}
+
+		void write(CharSequence text) throws IOException {
+			synchronized (results) {
+				results.append(text).append('\n');
+				if (positions % 64 == 0) { results.flush(); }
+			}
+		}
+	}
+
+	/**
+	 * @param args the suite, and optionally the results file, thread count,
+	 * 	milliseconds per position and maximum depth
+	 * @throws Exception if a file cannot be read or written, or the run is interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("usage: SuiteRunner suite.epd [results] [threads] [millis] [depth]");
+			System.exit(2);
+		}
+		Path suite = Paths.get(args[0]);
+		Path out = Paths.get(args.length > 1 ? args[1] : "results.tsv");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		SuiteRunner runner = new SuiteRunner(EvaluationTable.standard())
+				.setMaxMillis(args.length > 3 ? Long.parseLong(args[3]) : 1000)
+				.setMaxDepth(args.length > 4 ? Integer.parseInt(args[4]) : 4);
+		try (Writer results = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			System.out.print(runner.run(suite, results, threads));
+		}
+	}
+}
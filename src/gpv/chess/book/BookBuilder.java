@@ -0,0 +1,331 @@
+package gpv.chess.book;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+import gpv.util.Board;
+
+/**
+ * Streams games into an OpeningBook. Each game is replayed from the standard
+ * position, with every move checked by canMove, and contributes one record
+ * per ply up to a ply limit: the position key, the move played and the
+ * game's outcome for the side that played it.
+ * <br/>
+ * Records are buffered in primitive arrays. Each full buffer is sorted,
+ * combined by (key, move) and written to a temporary run file in the book's
+ * entry format. build() then merges the runs with a k-way merge into the
+ * final book. The builder's memory is bounded by the run size no matter how
+ * many games are added.
+ *
+ * @version Oct 19, 2026
+ */
+public class BookBuilder implements Closeable {
+
+	public static final int WHITE_WINS = 1;
+	public static final int DRAW = 0;
+	public static final int BLACK_WINS = -1;
+
+	private static final int WIN = 0, DRAWN = 1, LOSS = 2;
+
+	private final Path tempDir;
+	private final boolean ownsTempDir;
+	private final int maxPly;
+	private final long[] keys;
+	private final int[] data;	// move << 2 | outcome for the mover
+	private int n = 0;
+	private final List<Path> runs = new ArrayList<Path>();
+	private long skipped;
+
+	/**
+	 * A builder with one-million-record runs that keeps the first 24 plies.
+	 * @throws IOException if the temporary directory cannot be created
+	 */
+	public BookBuilder() throws IOException {
+		this(1 << 20, 24);
+	}
+
+	/**
+	 * A builder with its runs in a temporary directory of its own, which
+	 * close deletes.
+	 * @param runSize records per run
+	 * @param maxPly the number of plies of each game to keep
+	 * @throws IOException if the temporary directory cannot be created
+	 */
+	public BookBuilder(int runSize, int maxPly) throws IOException {
+		this(Files.createTempDirectory("book"), true, runSize, maxPly);
+	}
+
+	/**
+	 * @param tempDir where run files go
+	 * @param runSize records per run
+	 * @param maxPly the number of plies of each game to keep
+	 */
+	public BookBuilder(Path tempDir, int runSize, int maxPly) {
+		this(tempDir, false, runSize, maxPly);
+	}
+
+	private BookBuilder(Path tempDir, boolean ownsTempDir, int runSize, int maxPly) {
+		this.tempDir = tempDir;
+		this.ownsTempDir = ownsTempDir;
+		this.maxPly = maxPly;
+		keys = new long[runSize];
+		data = new int[runSize];
+	}
+
+	/**
+	 * Add one game. Replay stops at the first move canMove rejects.
+	 * @param moves the moves of the game
+	 * @param result WHITE_WINS, DRAW or BLACK_WINS
+	 * @return the number of plies added
+	 * @throws IOException if a run cannot be written
+	 */
+	public int addGame(MoveList moves, int result) throws IOException {
+		Game g = new Game(0);
+		Board b = g.getBoard();
+		int ply = 0;
+		for (; ply < moves.size() && ply < maxPly; ply++) {
+			PlayerColor mover = g.getToMove();
+			long key = ZobristHash.hash(b, mover);
+			int m = Move.squares(moves.get(ply));
+			if (!g.move(m)) { break; }
+			int outcome = result == DRAW ? DRAWN
+					: (result == WHITE_WINS) == (mover == PlayerColor.WHITE) ? WIN : LOSS;
+			add(key, m << 2 | outcome);
+		}
+		return ply;
+	}
+
+	/**
+	 * Add one game written as square-name moves and a result, for example
+	 * <code>e2e4 e7e5 g1f3 1-0</code>. The result is "1-0", "0-1" or "1/2-1/2".
+	 * A line with a four-character token that is not a move is skipped and
+	 * counted.
+	 * @param line the game
+	 * @return the number of plies added
+	 * @throws IOException if a run cannot be written
+	 */
+	public int addGame(String line) throws IOException {
+		String[] tokens = line.trim().split("\\s+");
+		if (tokens.length == 0 || tokens[0].isEmpty()) { return 0; }
+		String last = tokens[tokens.length - 1];
+		int result = "1-0".equals(last) ? WHITE_WINS : "0-1".equals(last) ? BLACK_WINS : DRAW;
+		MoveList moves = new MoveList(tokens.length);
+		try {
+			for (String t : tokens) {
+				if (t.length() != 4) { break; }
+				moves.add(Move.make(Notation.square(t.substring(0, 2), 8), Notation.square(t.substring(2), 8), 0));
+			}
+		} catch (IllegalArgumentException e) {
+			skipped++;
+			return 0;
+		}
+		return addGame(moves, result);
+	}
+
+	/**
+	 * @return the number of lines addGame skipped as malformed
+	 */
+	public long getSkippedLines() { return skipped; }
+
+	private void add(long key, int value) throws IOException {
+		if (n == keys.length) { flushRun(); }
+		keys[n] = key;
+		data[n] = value;
+		n++;
+	}
+
+	/**
+	 * Sort the buffer and write it as a run of combined entries.
+	 */
+	private void flushRun() throws IOException {
+		if (n == 0) { return; }
+		sort(0, n - 1);
+		Path run = tempDir.resolve("run-" + runs.size());
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			int i = 0;
+			while (i < n) {
+				long key = keys[i];
+				int move = data[i] >>> 2;
+				int[] counts = new int[3];
+				for (; i < n && keys[i] == key && data[i] >>> 2 == move; i++) { counts[data[i] & 3]++; }
+				writeEntry(out, key, move, counts[WIN], counts[DRAWN], counts[LOSS]);
+			}
+		}
+		runs.add(run);
+		n = 0;
+	}
+
+	/**
+	 * Merge every run into a book file.
+	 * @param book the file to write
+	 * @return the number of entries written
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public long build(Path book) throws IOException {
+		flushRun();
+		PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>();
+		long count = 0;
+		try {
+			for (Path run : runs) {
+				RunReader r = new RunReader(run);
+				if (r.next()) { queue.add(r); } else { r.close(); }
+			}
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(book)))) {
+				out.writeInt(OpeningBook.MAGIC);
+				out.writeInt(OpeningBook.ENTRY);
+				out.writeLong(0);
+				while (!queue.isEmpty()) {
+					RunReader r = queue.poll();
+					long key = r.key;
+					int move = r.move;
+					long wins = r.wins, draws = r.draws, losses = r.losses;
+					advance(r, queue);
+					while (!queue.isEmpty() && queue.peek().key == key && queue.peek().move == move) {
+						r = queue.poll();
+						wins += r.wins;
+						draws += r.draws;
+						losses += r.losses;
+						advance(r, queue);
+					}
+					writeEntry(out, key, move, clamp(wins), clamp(draws), clamp(losses));
+					count++;
+				}
+			}
+		} finally {
+			for (RunReader r : queue) { r.close(); }
+		}
+		try (FileChannel channel = FileChannel.open(book, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(8).putLong(0, count);
+			channel.write(header, 8);
+		}
+		for (Path run : runs) { Files.deleteIfExists(run); }
+		runs.clear();
+		return count;
+	}
+
+	/**
+	 * Delete any run files left behind, and the temporary directory if the
+	 * builder created it.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Path run : runs) { Files.deleteIfExists(run); }
+		runs.clear();
+		if (ownsTempDir) { Files.deleteIfExists(tempDir); }
+	}
+
+	private static void advance(RunReader r, PriorityQueue<RunReader> queue) throws IOException {
+		if (r.next()) { queue.add(r); } else { r.close(); }
+	}
+
+	private static void writeEntry(DataOutputStream out, long key, int move, int wins, int draws, int losses) throws IOException {
+		long games = (long) wins + draws + losses;
+		out.writeLong(key);
+		out.writeShort(move);
+		out.writeShort((int) Math.min(games, 0xFFFF));
+		out.writeInt(wins);
+		out.writeInt(draws);
+		out.writeInt(losses);
+	}
+
+	private static int clamp(long n) {
+		return (int) Math.min(n, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Quicksort the buffer by key, then move.
+	 */
+	private void sort(int low, int high) {
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			long pk = keys[mid];
+			int pm = data[mid] >>> 2;
+			int i = low, j = high;
+			while (i <= j) {
+				while (compare(i, pk, pm) < 0) { i++; }
+				while (compare(j, pk, pm) > 0) { j--; }
+				if (i <= j) { swap(i++, j--); }
+			}
+			// recurse into the smaller half to bound the stack
+			if (j - low < high - i) {
+				sort(low, j);
+				low = i;
+			} else {
+				sort(i, high);
+				high = j;
+			}
+		}
+	}
+
+	private int compare(int i, long key, int move) {
+		int c = Long.compare(keys[i], key);
+		return c != 0 ? c : Integer.compare(data[i] >>> 2, move);
+	}
+
+	private void swap(int i, int j) {
+		long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+		int d = data[i]; data[i] = data[j]; data[j] = d;
+	}
+
+	/**
+	 * Reads one run, one entry at a time.
+	 */
+	private static final class RunReader implements Comparable<RunReader>, Closeable {
+		private final DataInputStream in;
+		long key;
+		int move, wins, draws, losses;
+
+		RunReader(Path run) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+		}
+
+		boolean next() throws IOException {
+			try {
+				key = in.readLong();
+				move = in.readShort() & 0xFFFF;
+				in.readShort();
+				wins = in.readInt();
+				draws = in.readInt();
+				losses = in.readInt();
+				return true;
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public int compareTo(RunReader o) {
+			int c = Long.compare(key, o.key);
+			return c != 0 ? c : Integer.compare(move, o.move);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Build a book from a text file with one game per line.
+	 * @param args games file, book file, optional ply limit
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+		try (BookBuilder builder = new BookBuilder(1 << 20, maxPly);
+				BufferedReader in = Files.newBufferedReader(Paths.get(args[0]))) {
+			long games = 0, plies = 0;
+			for (String line; (line = in.readLine()) != null; ) {
+				plies += builder.addGame(line);
+				games++;
+			}
+			long entries = builder.build(Paths.get(args[1]));
+			System.out.println(games + " games (" + builder.getSkippedLines() + " malformed, skipped), " + plies
+					+ " plies, " + entries + " book entries");
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package gpv.chess.book;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import gpv.chess.*;
+import gpv.chess.game.*;
+import gpv.util.Board;
+
+/**
+ * The tree of positions of many games, with transpositions merged: a
+ * position reached by different move orders is one node with several
+ * parents. Reversible moves can bring a game back to a position it has
+ * already passed, so the graph may also have cycles. Games are replayed from
+ * the standard position, with every move checked by canMove, up to a ply
+ * limit. Every node counts the games that reached it and their results;
+ * every edge counts the games that played its move. A game counts once at a
+ * node or edge however often it passes it.
+ * <br/>
+ * Nodes are found by ZobristHash key, which includes the side to move and
+ * the moved flags. The nodes are split by key over shards, each an
+ * open-addressing table with its nodes and edges in primitive arrays and
+ * its own lock, so that games can be added from many threads at once. An
+ * edge belongs to the shard of its parent node and links to the next edge of
+ * the same parent; a node has as many edges as distinct moves were played
+ * from it, which is few, so they are searched in order.
+ * <br/>
+ * A node handle is (index in shard) &lt;&lt; SHARD_BITS | shard. export
+ * writes the tree with dense node numbers:
+ * <pre>
+ * int  MAGIC, int nodes, long edges
+ * per node: long key, int games, int white wins, int draws, int black wins,
+ *           short edge count, then per edge: short move, int child, int games
+ * </pre>
+ *
+ * @version Oct 19, 2026
+ */
+public class GameTree {
+
+	public static final int MAGIC = 0x47545245;	// "GTRE"
+	public static final int SHARD_BITS = 6;
+	private static final int SHARDS = 1 << SHARD_BITS;
+
+	/**
+	 * Receives the edges of a node.
+	 */
+	public interface EdgeVisitor {
+		void edge(int move, int child, int games);
+	}
+
+	private final Shard[] shards = new Shard[SHARDS];
+	private final int maxPly;
+	private final ThreadLocal<Board> boards = ThreadLocal.withInitial(
+			() -> new Board(StandardPosition.ROWS, StandardPosition.COLUMNS));
+
+	/**
+	 * @param maxPly the number of plies of each game to add
+	 */
+	public GameTree(int maxPly) {
+		this.maxPly = maxPly;
+		for (int i = 0; i < SHARDS; i++) { shards[i] = new Shard(); }
+	}
+
+	/**
+	 * Add one game; may be called from several threads at once. Replay stops
+	 * at the first move canMove rejects.
+	 * @param moves the moves of the game
+	 * @param result its result
+	 * @return the number of plies added
+	 */
+	public int addGame(MoveList moves, Game.Status result) {
+		Game g = new Game(0, boards.get());
+		int plies = Math.min(moves.size(), maxPly);
+		long[] keys = new long[plies + 1];	// the positions this game has reached, in order
+		long key = g.getPositions().key();
+		keys[0] = key;
+		int node = visit(key, result, true);
+		int ply = 0;
+		for (; ply < plies; ply++) {
+			int m = Move.squares(moves.get(ply));
+			if (!g.move(m)) { break; }
+			long childKey = g.getPositions().key();
+			keys[ply + 1] = childKey;
+			int child = visit(childKey, result, indexOf(keys, ply + 1, childKey) < 0);
+			boolean newEdge = true;
+			for (int i = indexOf(keys, ply, key); i >= 0 && newEdge; i = indexOf(keys, i, key)) {
+				newEdge = Move.squares(moves.get(i)) != m;
+			}
+			Shard s = shardOf(key);
+			synchronized (s) { s.addEdge(node, m, child, newEdge); }
+			key = childKey;
+			node = child;
+		}
+		return ply;
+	}
+
+	/**
+	 * @return the last index below n at which keys holds key, or -1
+	 */
+	private static int indexOf(long[] keys, int n, long key) {
+		for (int i = n - 1; i >= 0; i--) {
+			if (keys[i] == key) { return i; }
+		}
+		return -1;
+	}
+
+	/**
+	 * Add every game of a ResultLog on a pool of threads. The calling thread
+	 * reads the log into a bounded queue.
+	 * @param archive the log
+	 * @param threads the number of threads
+	 * @return the number of games added
+	 * @throws IOException if the log cannot be read
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public long addGames(Path archive, int threads) throws IOException, InterruptedException {
+		BlockingQueue<Optional<ResultLog.Entry>> queue = new ArrayBlockingQueue<Optional<ResultLog.Entry>>(threads * 16);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Long>> done = new ArrayList<Future<Long>>();
+		for (int t = 0; t < threads; t++) {
+			done.add(pool.submit(() -> {
+				long games = 0;
+				for (Optional<ResultLog.Entry> e = queue.take(); e.isPresent(); e = queue.take()) {
+					addGame(e.get().moves, e.get().status);
+					games++;
+				}
+				return games;
+			}));
+		}
+		pool.shutdown();
+		try (ResultLog.Reader in = new ResultLog.Reader(archive)) {
+			for (ResultLog.Entry e = in.next(); e != null; e = in.next()) { queue.put(Optional.of(e)); }
+		} finally {
+			for (int t = 0; t < threads; t++) { queue.put(Optional.<ResultLog.Entry>empty()); }
+		}
+		long games = 0;
+		for (Future<Long> f : done) {
+			try {
+				games += f.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("ingesting thread failed", e.getCause());
+			}
+		}
+		return games;
+	}
+
+	/**
+	 * @param key a ZobristHash key
+	 * @return the handle of its node, or -1 if no game reached it
+	 */
+	public int find(long key) {
+		Shard s = shardOf(key);
+		synchronized (s) {
+			int i = s.find(key);
+			return i < 0 ? -1 : i << SHARD_BITS | shardIndex(key);
+		}
+	}
+
+	/**
+	 * @param node a node handle
+	 * @return the number of times games reached the node
+	 */
+	public int getGames(int node) {
+		Shard s = shards[node & (SHARDS - 1)];
+		synchronized (s) { return s.games[node >>> SHARD_BITS]; }
+	}
+
+	/**
+	 * @param node a node handle
+	 * @return { white wins, draws, black wins } of the games that reached it
+	 */
+	public int[] getResults(int node) {
+		Shard s = shards[node & (SHARDS - 1)];
+		int i = node >>> SHARD_BITS;
+		synchronized (s) { return new int[] { s.whiteWins[i], s.draws[i], s.blackWins[i] }; }
+	}
+
+	/**
+	 * @param node a node handle
+	 * @param visitor receives each move played from the node, in the order
+	 * 	first played, with the handle of the node it leads to
+	 */
+	public void forEachEdge(int node, EdgeVisitor visitor) {
+		Shard s = shards[node & (SHARDS - 1)];
+		synchronized (s) {
+			for (int e = s.firstEdge[node >>> SHARD_BITS]; e >= 0; e = s.edgeNext[e]) {
+				visitor.edge(s.edgeMove[e], s.edgeChild[e], s.edgeGames[e]);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of distinct positions
+	 */
+	public long nodeCount() {
+		long n = 0;
+		for (Shard s : shards) {
+			synchronized (s) { n += s.nodes; }
+		}
+		return n;
+	}
+
+	/**
+	 * @return the number of distinct (position, move) pairs
+	 */
+	public long edgeCount() {
+		long n = 0;
+		for (Shard s : shards) {
+			synchronized (s) { n += s.edges; }
+		}
+		return n;
+	}
+
+	/**
+	 * Write the tree; no games may be added meanwhile.
+	 * @param file the file to write
+	 * @throws IOException if it cannot be written
+	 */
+	public void export(Path file) throws IOException {
+		long[] base = new long[SHARDS];
+		long nodes = 0;
+		for (int i = 0; i < SHARDS; i++) {
+			base[i] = nodes;
+			nodes += shards[i].nodes;
+		}
+		if (nodes > Integer.MAX_VALUE) { throw new IllegalStateException("too many nodes to export: " + nodes); }
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt((int) nodes);
+			out.writeLong(edgeCount());
+			for (Shard s : shards) {
+				synchronized (s) {
+					for (int i = 0; i < s.nodes; i++) {
+						out.writeLong(s.nodeKeys[i]);
+						out.writeInt(s.games[i]);
+						out.writeInt(s.whiteWins[i]);
+						out.writeInt(s.draws[i]);
+						out.writeInt(s.blackWins[i]);
+						int degree = 0;
+						for (int e = s.firstEdge[i]; e >= 0; e = s.edgeNext[e]) { degree++; }
+						out.writeShort(degree);
+						for (int e = s.firstEdge[i]; e >= 0; e = s.edgeNext[e]) {
+							int child = s.edgeChild[e];
+							out.writeShort(s.edgeMove[e]);
+							out.writeInt((int) (base[child & (SHARDS - 1)] + (child >>> SHARD_BITS)));
+							out.writeInt(s.edgeGames[e]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find or add the node of a position a game reached.
+	 * @param count whether to count the game there, false if it was already
+	 *        counted on an earlier visit
+	 * @return the node handle
+	 */
+	private int visit(long key, Game.Status result, boolean count) {
+		Shard s = shardOf(key);
+		synchronized (s) {
+			int i = s.findOrAdd(key);
+			if (!count) { return i << SHARD_BITS | shardIndex(key); }
+			s.games[i]++;
+			if (result == Game.Status.WHITE_WINS) { s.whiteWins[i]++; }
+			else if (result == Game.Status.BLACK_WINS) { s.blackWins[i]++; }
+			else if (result == Game.Status.DRAWN) { s.draws[i]++; }
+			return i << SHARD_BITS | shardIndex(key);
+		}
+	}
+
+	private Shard shardOf(long key) { return shards[shardIndex(key)]; }
+
+	private static int shardIndex(long key) { return (int) (key >>> (64 - SHARD_BITS)); }
+
+	/**
+	 * The nodes whose keys start with one shard number, and their edges.
+	 * Every access holds the shard's lock.
+	 */
+	private static final class Shard {
+		int[] slots = new int[1 << 10];	// node index + 1, 0 for empty
+		long[] nodeKeys = new long[1 << 9];
+		int[] games = new int[1 << 9], whiteWins = new int[1 << 9], draws = new int[1 << 9],
+				blackWins = new int[1 << 9], firstEdge = new int[1 << 9];
+		int nodes;
+		int[] edgeMove = new int[1 << 9], edgeChild = new int[1 << 9], edgeGames = new int[1 << 9],
+				edgeNext = new int[1 << 9];
+		int edges;
+
+		int find(long key) {
+			for (int slot = hash(key); ; slot = (slot + 1) & (slots.length - 1)) {
+				int i = slots[slot] - 1;
+				if (i < 0) { return -1; }
+				if (nodeKeys[i] == key) { return i; }
+			}
+		}
+
+		int findOrAdd(long key) {
+			int slot = hash(key);
+			for (; slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+				if (nodeKeys[slots[slot] - 1] == key) { return slots[slot] - 1; }
+			}
+			if (nodes == nodeKeys.length) {
+				int n = nodes * 2;
+				nodeKeys = Arrays.copyOf(nodeKeys, n);
+				games = Arrays.copyOf(games, n);
+				whiteWins = Arrays.copyOf(whiteWins, n);
+				draws = Arrays.copyOf(draws, n);
+				blackWins = Arrays.copyOf(blackWins, n);
+				firstEdge = Arrays.copyOf(firstEdge, n);
+			}
+			int i = nodes++;
+			nodeKeys[i] = key;
+			firstEdge[i] = -1;
+			slots[slot] = i + 1;
+			if (nodes * 2 > slots.length) { rehash(); }
+			return i;
+		}
+
+		void addEdge(int parent, int move, int child, boolean count) {
+			int i = parent >>> SHARD_BITS;
+			int last = -1;
+			for (int e = firstEdge[i]; e >= 0; e = edgeNext[e]) {
+				if (edgeMove[e] == move) {
+					if (count) { edgeGames[e]++; }
+					return;
+				}
+				last = e;
+			}
+			if (edges == edgeMove.length) {
+				int n = edges * 2;
+				edgeMove = Arrays.copyOf(edgeMove, n);
+				edgeChild = Arrays.copyOf(edgeChild, n);
+				edgeGames = Arrays.copyOf(edgeGames, n);
+				edgeNext = Arrays.copyOf(edgeNext, n);
+			}
+			int e = edges++;
+			edgeMove[e] = move;
+			edgeChild[e] = child;
+			edgeGames[e] = 1;
+			edgeNext[e] = -1;
+			if (last < 0) { firstEdge[i] = e; }
+			else { edgeNext[last] = e; }
+		}
+
+		private void rehash() {
+			slots = new int[slots.length * 2];
+			for (int i = 0; i < nodes; i++) {
+				int slot = hash(nodeKeys[i]);
+				while (slots[slot] != 0) { slot = (slot + 1) & (slots.length - 1); }
+				slots[slot] = i + 1;
+			}
+		}
+
+		private int hash(long key) {
+			return (int) key & (slots.length - 1);	// the high bits chose the shard
+		}
+	}
+}
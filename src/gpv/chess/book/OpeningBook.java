@@ -0,0 +1,129 @@
+package gpv.chess.book;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import gpv.chess.*;
+import gpv.util.Board;
+
+/**
+ * A memory-mapped opening book. The file is a 16-byte header (MAGIC, entry
+ * size, entry count as a long) followed by fixed-size entries sorted by
+ * position key and then move:
+ * <pre>
+ * long   position key, see ZobristHash
+ * short  move, see Move; flags are not stored
+ * short  weight, the number of games, saturating at 65535
+ * int    games won by the side to move
+ * int    games drawn
+ * int    games lost by the side to move
+ * </pre>
+ * Lookups binary-search the mapped file, so opening a book reads only its
+ * header and a lookup touches about log2(entries) pages.
+ *
+ * @version Oct 19, 2026
+ */
+public class OpeningBook {
+
+	public static final int MAGIC = 0x47424B31;	// "GBK1"
+	public static final int HEADER = 16;
+	public static final int ENTRY = 24;
+
+	private final ByteBuffer entries;
+	private final int count;
+
+	/**
+	 * One book move with its statistics.
+	 */
+	public static class BookMove {
+		public final int move;
+		public final int weight;
+		public final int wins;
+		public final int draws;
+		public final int losses;
+
+		BookMove(int move, int weight, int wins, int draws, int losses) {
+			this.move = move;
+			this.weight = weight;
+			this.wins = wins;
+			this.draws = draws;
+			this.losses = losses;
+		}
+
+		@Override
+		public String toString() {
+			return Move.toString(move, 8) + " w" + weight + " +" + wins + "=" + draws + "-" + losses;
+		}
+	}
+
+	private OpeningBook(ByteBuffer entries, int count) {
+		this.entries = entries;
+		this.count = count;
+	}
+
+	/**
+	 * Map a book file.
+	 * @param file the book
+	 * @return the book
+	 * @throws IOException if the file cannot be mapped or is not a book
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (channel.size() < HEADER || map.getInt(0) != MAGIC || map.getInt(4) != ENTRY) {
+				throw new IOException(file + " is not an opening book");
+			}
+			long count = map.getLong(8);
+			if (HEADER + count * ENTRY != channel.size()) { throw new IOException(file + " is truncated"); }
+			map.position(HEADER);
+			return new OpeningBook(map.slice(), (int) count);
+		}
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() { return count; }
+
+	/**
+	 * @param key a position key
+	 * @return the index of the first entry for the key, or -1 if there is none
+	 */
+	public int find(long key) {
+		int low = 0, high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (key(mid) < key) { low = mid + 1; } else { high = mid; }
+		}
+		return low < count && key(low) == key ? low : -1;
+	}
+
+	/**
+	 * @param b the board
+	 * @param toMove the side to move
+	 * @return the book moves for the position, most played first
+	 */
+	public List<BookMove> lookup(Board b, PlayerColor toMove) {
+		long key = ZobristHash.hash(b, toMove);
+		List<BookMove> moves = new ArrayList<BookMove>();
+		for (int i = find(key); i >= 0 && i < count && key(i) == key; i++) {
+			moves.add(new BookMove(move(i), weight(i), wins(i), draws(i), losses(i)));
+		}
+		Collections.sort(moves, (x, y) -> y.weight - x.weight);
+		return moves;
+	}
+
+	public long key(int i) { return entries.getLong(i * ENTRY); }
+
+	public int move(int i) { return entries.getShort(i * ENTRY + 8) & 0xFFFF; }
+
+	public int weight(int i) { return entries.getShort(i * ENTRY + 10) & 0xFFFF; }
+
+	public int wins(int i) { return entries.getInt(i * ENTRY + 12); }
+
+	public int draws(int i) { return entries.getInt(i * ENTRY + 16); }
+
+	public int losses(int i) { return entries.getInt(i * ENTRY + 20); }
+}
@@ -0,0 +1,21 @@
+package gpv.chess.engine;
+
+import gpv.chess.PlayerColor;
+import gpv.util.Board;
+
+/**
+ * Something that picks moves. An engine may change the board while it
+ * thinks but must leave it as it found it. Engines keep search state, so an
+ * instance is used by one thread at a time.
+ *
+ * @version Oct 19, 2026
+ */
+public interface Engine {
+
+	/**
+	 * @param b the position
+	 * @param toMove the side to move
+	 * @return a packed Move that canMove accepts, or Move.NONE if there is none
+	 */
+	int chooseMove(Board b, PlayerColor toMove);
+}
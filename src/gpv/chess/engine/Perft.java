@@ -0,0 +1,107 @@
+package gpv.chess.engine;
+
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Counts the leaves of the move tree to a fixed depth, for checking the move
+ * generator and for timing it. The moves are those of MoveGenerator, which
+ * canMove accepts; a move that captures a king ends the game, so it is a
+ * leaf whatever the depth left.
+ * <br/>
+ * Moves are made and unmade on the caller's board as in Searcher, with a
+ * Mailbox listening to the board, and the board ends up as it started. An
+ * instance reuses its move lists, so it must not be shared between threads.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Perft {
+
+	private final Mailbox mailbox = new Mailbox();
+	private final ChessPiece[] movedPieces;
+	private MoveList[] moves = new MoveList[0];
+	private Coordinate[] squares = new Coordinate[0];
+	private long nodes;
+
+	public Perft() {
+		ChessPieceDescriptor[] descriptors = ChessPieceDescriptor.values();
+		movedPieces = new ChessPiece[descriptors.length];
+		for (ChessPieceDescriptor d : descriptors) {
+			movedPieces[d.ordinal()] = new ChessPiece(d);
+			movedPieces[d.ordinal()].setHasMoved();
+		}
+	}
+
+	/**
+	 * @param b the position
+	 * @param toMove the side to move
+	 * @param depth the number of plies
+	 * @return the number of leaves at depth, counting games that end sooner once
+	 */
+	public long count(Board b, PlayerColor toMove, int depth) {
+		return divide(b, toMove, depth, null);
+	}
+
+	/**
+	 * Count the leaves below each root move.
+	 * @param b the position
+	 * @param toMove the side to move
+	 * @param depth the number of plies, at least 1
+	 * @param counts receives the count of each root move, in the order of
+	 * 	MoveGenerator, or null
+	 * @return the total
+	 */
+	public long divide(Board b, PlayerColor toMove, int depth, long[] counts) {
+		if (depth == 0) { return 1; }
+		if (squares.length != b.getnSquares()) {
+			squares = new Coordinate[b.getnSquares()];
+			for (int i = 0; i < squares.length; i++) { squares[i] = b.coordinateOf(i); }
+		}
+		if (moves.length < depth) {
+			moves = new MoveList[depth];
+			for (int i = 0; i < depth; i++) { moves[i] = new MoveList(); }
+		}
+		mailbox.attach(b);
+		try {
+			MoveList list = MoveGenerator.generate(mailbox, toMove, moves[depth - 1]);
+			long total = 0;
+			for (int i = 0; i < list.size(); i++) {
+				long n = play(b, toMove, list.get(i), depth);
+				if (counts != null) { counts[i] = n; }
+				total += n;
+			}
+			return total;
+		} finally {
+			mailbox.detach(b);
+		}
+	}
+
+	/**
+	 * @return the number of positions visited since the instance was made
+	 */
+	public long getNodes() { return nodes; }
+
+	private long search(Board b, PlayerColor side, int depth) {
+		nodes++;
+		if (depth == 0) { return 1; }
+		MoveList list = MoveGenerator.generate(mailbox, side, moves[depth - 1]);
+		long total = 0;
+		for (int i = 0; i < list.size(); i++) { total += play(b, side, list.get(i), depth); }
+		return total;
+	}
+
+	/**
+	 * Make a move, count below it and unmake it.
+	 */
+	private long play(Board b, PlayerColor side, int move, int depth) {
+		Coordinate from = squares[Move.from(move)], to = squares[Move.to(move)];
+		ChessPiece piece = (ChessPiece) b.removePieceAt(from);
+		ChessPiece captured = (ChessPiece) b.removePieceAt(to);
+		b.putPieceAt(piece.hasMoved() ? piece : movedPieces[piece.getDescriptor().ordinal()], to);
+		long n = captured != null && captured.getName() == PieceName.KING ? 1 : search(b, side.opponent(), depth - 1);
+		b.removePieceAt(to);
+		b.putPieceAt(piece, from);
+		if (captured != null) { b.putPieceAt(captured, to); }
+		return n;
+	}
+}
@@ -0,0 +1,30 @@
+package gpv.chess.engine;
+
+import java.util.Random;
+import gpv.chess.*;
+import gpv.util.Board;
+
+/**
+ * Plays a uniformly random move among those canMove accepts. Useful as a
+ * baseline opponent.
+ *
+ * @version Oct 19, 2026
+ */
+public class RandomEngine implements Engine {
+
+	private final Random random;
+	private final MoveList moves = new MoveList();
+
+	/**
+	 * @param seed the seed of the moves
+	 */
+	public RandomEngine(long seed) {
+		this.random = new Random(seed);
+	}
+
+	@Override
+	public int chooseMove(Board b, PlayerColor toMove) {
+		MoveGenerator.generate(b, toMove, moves);
+		return moves.isEmpty() ? Move.NONE : moves.get(random.nextInt(moves.size()));
+	}
+}
@@ -0,0 +1,351 @@
+package gpv.chess.engine;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import gpv.chess.*;
+import gpv.chess.eval.*;
+import gpv.util.*;
+
+/**
+ * A fixed-depth alpha-beta search over the moves canMove accepts, scored by
+ * an IncrementalEvaluator that follows the board while it searches. Moves
+ * come from the Mailbox generator, which a Mailbox listening to the board
+ * keeps fed.
+ * Captures are searched first. Capturing the king ends the game, so it
+ * scores as a win at once; a side with no moves scores a draw.
+ * <br/>
+ * Moves are made and unmade on the caller's board. A piece's moved flag
+ * cannot be cleared, so a piece that moves for the first time during the
+ * search is replaced by a shared moved piece of the same descriptor and put
+ * back when the move is unmade; the board ends up holding exactly the
+ * pieces it started with.
+ * <br/>
+ * The line being searched is kept in a PositionHistory, and a position that
+ * repeats one earlier on the line scores as a draw. Positions from before
+ * the root are not known.
+ * <br/>
+ * With limits set, chooseMove deepens one ply at a time up to depth,
+ * searching the best move of the last depth first, and stops when the node
+ * or time budget runs out. It then answers with the best move of the
+ * deepest search that finished, or of the unfinished one if not even depth
+ * 1 did. A stop condition, polled with the budget, ends the search the same
+ * way from another thread.
+ * <br/>
+ * With a TranspositionTable, every position is looked up before it is
+ * searched: a deep enough result is used as it is, and otherwise its best
+ * move is searched first. Scores of won positions are stored relative to the
+ * position rather than the root, so they stay right when the table is used
+ * from another root. A DepthListener hears the score and principal
+ * variation of every depth that finishes.
+ *
+ * @version Oct 19, 2026
+ */
+public class Searcher implements Engine {
+
+	public static final int WIN = 1000000;
+
+	/**
+	 * Hears about each iteration of deepening that finishes.
+	 */
+	public interface DepthListener {
+		/**
+		 * @param depth the depth finished
+		 * @param score the score of the root for the side to move
+		 * @param line the principal variation, best move first
+		 * @param nodes the positions visited so far
+		 */
+		void depthCompleted(int depth, int score, int[] line, long nodes);
+	}
+
+	private static final BooleanSupplier NEVER = () -> false;
+	private static final int MAX_PLY = 256;
+
+	private final int depth;
+	private final IncrementalEvaluator evaluator;
+	private final Mailbox mailbox = new Mailbox();
+	private final PositionHistory line = new PositionHistory();
+	private final ChessPiece[] movedPieces;
+	private MoveList[] moves;
+	private Coordinate[] squares = new Coordinate[0];
+	private long nodes;
+	private long maxNodes, maxNanos;
+	private long nodeLimit, deadline;
+	private boolean stopped;
+	private int completedDepth;
+	private TranspositionTable table;
+	private DepthListener listener;
+	private BooleanSupplier stopCondition = NEVER;
+	private final int[][] pv;
+	private final int[] pvLength;
+
+	/**
+	 * @param table the evaluation terms
+	 * @param depth the number of plies to search, at least 1
+	 */
+	public Searcher(EvaluationTable table, int depth) {
+		this.depth = Math.max(1, depth);
+		this.evaluator = new IncrementalEvaluator(table);
+		ChessPieceDescriptor[] descriptors = ChessPieceDescriptor.values();
+		movedPieces = new ChessPiece[descriptors.length];
+		for (ChessPieceDescriptor d : descriptors) {
+			movedPieces[d.ordinal()] = new ChessPiece(d);
+			movedPieces[d.ordinal()].setHasMoved();
+		}
+		moves = new MoveList[this.depth + 1];
+		for (int i = 0; i < moves.length; i++) { moves[i] = new MoveList(); }
+		pv = new int[this.depth + 2][this.depth + 2];
+		pvLength = new int[this.depth + 2];
+	}
+
+	@Override
+	public int chooseMove(Board b, PlayerColor toMove) {
+		attach(b, toMove);
+		try {
+			boolean limited = maxNodes > 0 || maxNanos > 0 || listener != null;
+			nodeLimit = maxNodes > 0 ? nodes + maxNodes : Long.MAX_VALUE;
+			deadline = maxNanos > 0 ? System.nanoTime() + maxNanos : Long.MAX_VALUE;
+			stopped = false;
+			completedDepth = 0;
+			int best = Move.NONE;
+			long root = line.key();
+			if (table != null) { best = TranspositionTable.move(table.probe(root)); }
+			for (int d = limited ? 1 : depth; d <= depth && !stopped; d++) {
+				MoveList list = ordered(toMove, 0, best);
+				int bestAtDepth = Move.NONE, alpha = -WIN - 1;
+				for (int i = 0; i < list.size() && !stopped; i++) {
+					int move = list.get(i);
+					int score = scoreMove(b, toMove, move, d, alpha, WIN + 1, 0);
+					if (score > alpha && !stopped) {
+						alpha = score;
+						bestAtDepth = move;
+						extendLine(0, move);
+					}
+				}
+				if (!stopped || best == Move.NONE) {
+					best = bestAtDepth != Move.NONE || list.isEmpty() ? bestAtDepth : list.get(0);
+				}
+				if (!stopped) {
+					completedDepth = d;
+					if (table != null && bestAtDepth != Move.NONE) {
+						table.store(root, d, alpha, TranspositionTable.EXACT, bestAtDepth);
+					}
+					if (listener != null) {
+						int[] principal = bestAtDepth == Move.NONE ? new int[0] : Arrays.copyOf(pv[0], pvLength[0]);
+						listener.depthCompleted(d, list.isEmpty() ? 0 : alpha, principal, nodes);
+					}
+				}
+			}
+			return best;
+		} finally {
+			detach(b);
+		}
+	}
+
+	/**
+	 * Score every move of a side with a full window, so that each score is
+	 * exact to the searcher's depth and not just good enough to be cut off.
+	 * This costs more than chooseMove; it is meant for checking that one move
+	 * stands out. The limits do not apply.
+	 * @param b the position
+	 * @param toMove the side to move
+	 * @param list receives the moves, captures first
+	 * @return the score of each move in list for toMove
+	 */
+	public int[] scoreMoves(Board b, PlayerColor toMove, MoveList list) {
+		attach(b, toMove);
+		try {
+			nodeLimit = Long.MAX_VALUE;
+			deadline = Long.MAX_VALUE;
+			stopped = false;
+			list.copyFrom(ordered(toMove, 0, Move.NONE));
+			int[] scores = new int[list.size()];
+			for (int i = 0; i < list.size(); i++) {
+				scores[i] = scoreMove(b, toMove, list.get(i), depth, -WIN - 1, WIN + 1, 0);
+			}
+			completedDepth = depth;
+			return scores;
+		} finally {
+			detach(b);
+		}
+	}
+
+	/**
+	 * Limit each chooseMove. The search still goes no deeper than depth.
+	 * @param maxNodes the most positions to visit, 0 for no limit
+	 * @param maxNanos the most time to take, 0 for no limit
+	 * @return this searcher
+	 */
+	public Searcher setLimits(long maxNodes, long maxNanos) {
+		this.maxNodes = Math.max(0, maxNodes);
+		this.maxNanos = Math.max(0, maxNanos);
+		return this;
+	}
+
+	/**
+	 * @param table where searched positions are remembered, or null for none
+	 * @return this searcher
+	 */
+	public Searcher setTable(TranspositionTable table) {
+		this.table = table;
+		return this;
+	}
+
+	/**
+	 * Deepen one ply at a time, as with limits, and report each depth.
+	 * @param listener told about every depth chooseMove finishes, or null
+	 * @return this searcher
+	 */
+	public Searcher setListener(DepthListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * @param condition polled every 1024 positions, possibly set from
+	 * 	another thread; chooseMove stops once it is true
+	 * @return this searcher
+	 */
+	public Searcher setStopCondition(BooleanSupplier condition) {
+		this.stopCondition = condition == null ? NEVER : condition;
+		return this;
+	}
+
+	/**
+	 * @return the depth of the deepest search the last chooseMove finished
+	 */
+	public int getCompletedDepth() { return completedDepth; }
+
+	/**
+	 * @return the number of positions visited since the searcher was made
+	 */
+	public long getNodes() { return nodes; }
+
+	private void attach(Board b, PlayerColor toMove) {
+		if (squares.length != b.getnSquares()) {
+			squares = new Coordinate[b.getnSquares()];
+			for (int i = 0; i < squares.length; i++) { squares[i] = b.coordinateOf(i); }
+		}
+		evaluator.attach(b);
+		mailbox.attach(b);
+		line.reset(ZobristHash.hash(b, toMove));
+	}
+
+	private void detach(Board b) {
+		mailbox.detach(b);
+		evaluator.detach(b);
+	}
+
+	private int search(Board b, PlayerColor side, int remaining, int alpha, int beta, int ply) {
+		nodes++;
+		pvLength[ply] = 0;
+		if (stopped || (nodes & 1023) == 0
+				&& (nodes >= nodeLimit || System.nanoTime() >= deadline || stopCondition.getAsBoolean())) {
+			stopped = true;
+			return 0;
+		}
+		if (remaining == 0) { return evaluator.evaluate(side); }
+		int hashMove = Move.NONE;
+		if (table != null) {
+			long entry = table.probe(line.key());
+			if (entry != 0) {
+				hashMove = TranspositionTable.move(entry);
+				int score = fromTable(TranspositionTable.score(entry), ply), bound = TranspositionTable.bound(entry);
+				if (TranspositionTable.depth(entry) >= remaining && (bound == TranspositionTable.EXACT
+						|| bound == TranspositionTable.LOWER && score >= beta
+						|| bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+		MoveList list = ordered(side, ply, hashMove);
+		if (list.isEmpty()) { return 0; }
+		int original = alpha, best = Move.NONE;
+		for (int i = 0; i < list.size() && !stopped; i++) {
+			int move = list.get(i);
+			int score = scoreMove(b, side, move, remaining, alpha, beta, ply);
+			if (score >= beta) {
+				remember(remaining, score, TranspositionTable.LOWER, move, ply);
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+				best = move;
+				extendLine(ply, move);
+			}
+		}
+		remember(remaining, alpha, alpha > original ? TranspositionTable.EXACT : TranspositionTable.UPPER, best, ply);
+		return alpha;
+	}
+
+	/**
+	 * Store the result of a finished search of the current position.
+	 */
+	private void remember(int remaining, int score, int bound, int move, int ply) {
+		if (table == null || stopped) { return; }
+		if (score > WIN - MAX_PLY) { score += ply; }
+		else if (score < -WIN + MAX_PLY) { score -= ply; }
+		table.store(line.key(), remaining, score, bound, move);
+	}
+
+	/**
+	 * @return a stored score as seen from ply plies below the root
+	 */
+	private static int fromTable(int score, int ply) {
+		if (score > WIN - MAX_PLY) { return score - ply; }
+		if (score < -WIN + MAX_PLY) { return score + ply; }
+		return score;
+	}
+
+	/**
+	 * The line from ply is move, then the line found below it.
+	 */
+	private void extendLine(int ply, int move) {
+		pv[ply][0] = move;
+		System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+
+	/**
+	 * Make a move, search the reply and unmake it.
+	 * @return the score of the move for side
+	 */
+	private int scoreMove(Board b, PlayerColor side, int move, int remaining, int alpha, int beta, int ply) {
+		pvLength[ply + 1] = 0;
+		Coordinate from = squares[Move.from(move)], to = squares[Move.to(move)];
+		ChessPiece piece = (ChessPiece) b.removePieceAt(from);
+		ChessPiece captured = (ChessPiece) b.removePieceAt(to);
+		ChessPiece placed = piece.hasMoved() ? piece : movedPieces[piece.getDescriptor().ordinal()];
+		b.putPieceAt(placed, to);
+		long key = line.key() ^ ZobristHash.pieceKey(piece, Move.from(move))
+				^ ZobristHash.pieceKey(placed, Move.to(move)) ^ ZobristHash.blackToMove();
+		if (captured != null) { key ^= ZobristHash.pieceKey(captured, Move.to(move)); }
+		line.push(key, captured != null || placed != piece || piece.getName() == PieceName.PAWN);
+		int score;
+		if (captured != null && captured.getName() == PieceName.KING) {
+			score = WIN - ply;
+		} else if (line.isRepetition(2)) {
+			score = 0;
+		} else {
+			score = -search(b, side.opponent(), remaining - 1, -beta, -alpha, ply + 1);
+		}
+		line.pop();
+		b.removePieceAt(to);
+		b.putPieceAt(piece, from);
+		if (captured != null) { b.putPieceAt(captured, to); }
+		return score;
+	}
+
+	/**
+	 * @return the moves of side, first the move given if there is one, then captures
+	 */
+	private MoveList ordered(PlayerColor side, int ply, int first) {
+		MoveList list = MoveGenerator.generate(mailbox, side, moves[ply]);
+		int captures = 0;
+		for (int i = 0; i < list.size(); i++) {
+			if (Move.isCapture(list.get(i))) { list.swap(i, captures++); }
+		}
+		int i = first == Move.NONE ? -1 : list.indexOf(first);
+		if (i > 0) { list.swap(0, i); }
+		return list;
+	}
+}
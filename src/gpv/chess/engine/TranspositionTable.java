@@ -0,0 +1,93 @@
+package gpv.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * What a Searcher learned about positions it has searched, by ZobristHash
+ * key: the score, how deep it was searched, whether the score is exact or
+ * only a bound, and the best move found. A searcher probes the table before
+ * searching a position and stores the result after, so a position reached
+ * again, by a transposition, by the next iteration of deepening or after the
+ * root has moved on, costs no more than a lookup or at least starts from its
+ * best move.
+ * <br/>
+ * The table is one slot per key bucket in two parallel long[]s, the key and
+ * the packed entry
+ * <pre>
+ * int score, short move, byte depth, byte bound
+ * </pre>
+ * A store replaces the slot unless it holds a deeper search of the same key.
+ * The table is not thread-safe; it may be handed from one searcher to
+ * another as long as only one uses it at a time.
+ *
+ * @version Oct 19, 2026
+ */
+public final class TranspositionTable {
+
+	public static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+	private final long[] keys;
+	private final long[] entries;
+	private final int mask;
+	private long stored, hits;
+
+	/**
+	 * @param bits log2 of the number of slots; each takes 16 bytes
+	 */
+	public TranspositionTable(int bits) {
+		keys = new long[1 << bits];
+		entries = new long[1 << bits];
+		mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * @param key a ZobristHash key
+	 * @return the packed entry for the key, or 0 if there is none
+	 */
+	public long probe(long key) {
+		int slot = (int) key & mask;
+		if (keys[slot] != key || entries[slot] == 0) { return 0; }
+		hits++;
+		return entries[slot];
+	}
+
+	/**
+	 * @param key a ZobristHash key
+	 * @param depth the plies searched below the position
+	 * @param score its score for the side to move
+	 * @param bound EXACT, or LOWER or UPPER if the search was cut off
+	 * @param move the best move found, or Move.NONE
+	 */
+	public void store(long key, int depth, int score, int bound, int move) {
+		int slot = (int) key & mask;
+		if (keys[slot] == key && depth(entries[slot]) > depth) { return; }
+		keys[slot] = key;
+		entries[slot] = (long) score << 32 | (move & 0xFFFFL) << 16 | (depth & 0xFF) << 8 | bound;
+		stored++;
+	}
+
+	/**
+	 * Forget every position.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(entries, 0);
+	}
+
+	/**
+	 * @return the number of slots
+	 */
+	public int capacity() { return keys.length; }
+
+	public long getStored() { return stored; }
+
+	public long getHits() { return hits; }
+
+	public static int score(long entry) { return (int) (entry >> 32); }
+
+	public static int move(long entry) { return (int) (entry >>> 16) & 0xFFFF; }
+
+	public static int depth(long entry) { return (int) (entry >>> 8) & 0xFF; }
+
+	public static int bound(long entry) { return (int) entry & 0xFF; }
+}
@@ -0,0 +1,206 @@
+package gpv.chess.eval;
+
+import gpv.chess.*;
+
+/**
+ * The per-descriptor terms of a static evaluation: material value, game-phase
+ * weight and a middlegame and endgame bonus for every square. Scores are in
+ * centipawns from white's point of view; the table stores black's terms
+ * negated so that an evaluator only has to add them up.
+ * <br/>
+ * Square arrays are indexed by Board.squareIndex. Variants configure their own
+ * pieces with set(); standard() gives a table for ordinary chess on 8x8.
+ *
+ * @version Oct 19, 2026
+ */
+public class EvaluationTable {
+
+	private final int squares;
+	private final int[] material;
+	private final int[] phase;
+	private final int[][] midgame;
+	private final int[][] endgame;
+	private int maxPhase = 1;
+
+	/**
+	 * A table in which every piece is worth nothing.
+	 * @param squares the number of squares on the board
+	 */
+	public EvaluationTable(int squares) {
+		int n = ChessPieceDescriptor.values().length;
+		this.squares = squares;
+		material = new int[n];
+		phase = new int[n];
+		midgame = new int[n][squares];
+		endgame = new int[n][squares];
+	}
+
+	/**
+	 * Configure one descriptor.
+	 * @param d the descriptor
+	 * @param value material value in centipawns
+	 * @param phaseWeight how much the piece counts towards the middlegame
+	 * @param midgameBonus per-square middlegame bonus, indexed by square
+	 * @param endgameBonus per-square endgame bonus, indexed by square
+	 * @return this table
+	 */
+	public EvaluationTable set(ChessPieceDescriptor d, int value, int phaseWeight,
+			int[] midgameBonus, int[] endgameBonus) {
+		if (midgameBonus.length != squares || endgameBonus.length != squares) {
+			throw new IllegalArgumentException("expected " + squares + " squares for " + d);
+		}
+		int sign = d.getColor() == PlayerColor.WHITE ? 1 : -1;
+		material[d.ordinal()] = value;
+		phase[d.ordinal()] = phaseWeight;
+		for (int i = 0; i < squares; i++) {
+			midgame[d.ordinal()][i] = sign * (value + midgameBonus[i]);
+			endgame[d.ordinal()][i] = sign * (value + endgameBonus[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * @param maxPhase the phase of a full middlegame; evaluation is all
+	 * 	middlegame at or above it and all endgame at 0
+	 * @return this table
+	 */
+	public EvaluationTable setMaxPhase(int maxPhase) {
+		this.maxPhase = Math.max(1, maxPhase);
+		return this;
+	}
+
+	/**
+	 * @return the number of squares
+	 */
+	public int getSquares() { return squares; }
+
+	/**
+	 * @return the phase of a full middlegame
+	 */
+	public int getMaxPhase() { return maxPhase; }
+
+	/**
+	 * @param d a descriptor
+	 * @return its material value
+	 */
+	public int getMaterial(ChessPieceDescriptor d) { return material[d.ordinal()]; }
+
+	/**
+	 * @param d a descriptor
+	 * @return its phase weight
+	 */
+	public int getPhaseWeight(ChessPieceDescriptor d) { return phase[d.ordinal()]; }
+
+	/**
+	 * @return the signed middlegame score of the descriptor with this ordinal on this square
+	 */
+	int midgame(int ordinal, int square) { return midgame[ordinal][square]; }
+
+	/**
+	 * @return the signed endgame score of the descriptor with this ordinal on this square
+	 */
+	int endgame(int ordinal, int square) { return endgame[ordinal][square]; }
+
+	// Piece-square tables of the "simplified evaluation function", as seen by
+	// white with row 8 first.
+	private static final int[] PAWN = {
+		  0,  0,  0,  0,  0,  0,  0,  0,
+		 50, 50, 50, 50, 50, 50, 50, 50,
+		 10, 10, 20, 30, 30, 20, 10, 10,
+		  5,  5, 10, 25, 25, 10,  5,  5,
+		  0,  0,  0, 20, 20,  0,  0,  0,
+		  5, -5,-10,  0,  0,-10, -5,  5,
+		  5, 10, 10,-20,-20, 10, 10,  5,
+		  0,  0,  0,  0,  0,  0,  0,  0 };
+	private static final int[] KNIGHT = {
+		-50,-40,-30,-30,-30,-30,-40,-50,
+		-40,-20,  0,  0,  0,  0,-20,-40,
+		-30,  0, 10, 15, 15, 10,  0,-30,
+		-30,  5, 15, 20, 20, 15,  5,-30,
+		-30,  0, 15, 20, 20, 15,  0,-30,
+		-30,  5, 10, 15, 15, 10,  5,-30,
+		-40,-20,  0,  5,  5,  0,-20,-40,
+		-50,-40,-30,-30,-30,-30,-40,-50 };
+	private static final int[] BISHOP = {
+		-20,-10,-10,-10,-10,-10,-10,-20,
+		-10,  0,  0,  0,  0,  0,  0,-10,
+		-10,  0,  5, 10, 10,  5,  0,-10,
+		-10,  5,  5, 10, 10,  5,  5,-10,
+		-10,  0, 10, 10, 10, 10,  0,-10,
+		-10, 10, 10, 10, 10, 10, 10,-10,
+		-10,  5,  0,  0,  0,  0,  5,-10,
+		-20,-10,-10,-10,-10,-10,-10,-20 };
+	private static final int[] ROOK = {
+		  0,  0,  0,  0,  0,  0,  0,  0,
+		  5, 10, 10, 10, 10, 10, 10,  5,
+		 -5,  0,  0,  0,  0,  0,  0, -5,
+		 -5,  0,  0,  0,  0,  0,  0, -5,
+		 -5,  0,  0,  0,  0,  0,  0, -5,
+		 -5,  0,  0,  0,  0,  0,  0, -5,
+		 -5,  0,  0,  0,  0,  0,  0, -5,
+		  0,  0,  0,  5,  5,  0,  0,  0 };
+	private static final int[] QUEEN = {
+		-20,-10,-10, -5, -5,-10,-10,-20,
+		-10,  0,  0,  0,  0,  0,  0,-10,
+		-10,  0,  5,  5,  5,  5,  0,-10,
+		 -5,  0,  5,  5,  5,  5,  0, -5,
+		  0,  0,  5,  5,  5,  5,  0, -5,
+		-10,  5,  5,  5,  5,  5,  0,-10,
+		-10,  0,  5,  0,  0,  0,  0,-10,
+		-20,-10,-10, -5, -5,-10,-10,-20 };
+	private static final int[] KING_MIDGAME = {
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-20,-30,-30,-40,-40,-30,-30,-20,
+		-10,-20,-20,-20,-20,-20,-20,-10,
+		 20, 20,  0,  0,  0,  0, 20, 20,
+		 20, 30, 10,  0,  0, 10, 30, 20 };
+	private static final int[] KING_ENDGAME = {
+		-50,-40,-30,-20,-20,-30,-40,-50,
+		-30,-20,-10,  0,  0,-10,-20,-30,
+		-30,-10, 20, 30, 30, 20,-10,-30,
+		-30,-10, 30, 40, 40, 30,-10,-30,
+		-30,-10, 30, 40, 40, 30,-10,-30,
+		-30,-10, 20, 30, 30, 20,-10,-30,
+		-30,-30,  0,  0,  0,  0,-30,-30,
+		-50,-30,-30,-30,-30,-30,-30,-50 };
+
+	/**
+	 * @return a table for standard chess on an 8x8 board
+	 */
+	public static EvaluationTable standard() {
+		EvaluationTable t = new EvaluationTable(64);
+		for (PlayerColor color : PlayerColor.values()) {
+			t.set(descriptor(color, PieceName.PAWN), 100, 0, squares(PAWN, color), squares(PAWN, color));
+			t.set(descriptor(color, PieceName.KNIGHT), 320, 1, squares(KNIGHT, color), squares(KNIGHT, color));
+			t.set(descriptor(color, PieceName.BISHOP), 330, 1, squares(BISHOP, color), squares(BISHOP, color));
+			t.set(descriptor(color, PieceName.ROOK), 500, 2, squares(ROOK, color), squares(ROOK, color));
+			t.set(descriptor(color, PieceName.QUEEN), 900, 4, squares(QUEEN, color), squares(QUEEN, color));
+			t.set(descriptor(color, PieceName.KING), 0, 0, squares(KING_MIDGAME, color), squares(KING_ENDGAME, color));
+		}
+		return t.setMaxPhase(24);
+	}
+
+	/**
+	 * @return the table re-indexed by square number for the given color
+	 */
+	private static int[] squares(int[] whiteRow8First, PlayerColor color) {
+		int[] bySquare = new int[64];
+		for (int row = 1; row <= 8; row++) {
+			int tableRow = color == PlayerColor.WHITE ? 8 - row : row - 1;
+			for (int column = 1; column <= 8; column++) {
+				bySquare[(row - 1) * 8 + column - 1] = whiteRow8First[tableRow * 8 + column - 1];
+			}
+		}
+		return bySquare;
+	}
+
+	static ChessPieceDescriptor descriptor(PlayerColor color, PieceName name) {
+		for (ChessPieceDescriptor d : ChessPieceDescriptor.values()) {
+			if (d.getColor() == color && d.getName() == name) { return d; }
+		}
+		throw new IllegalArgumentException("no descriptor for " + color + " " + name);
+	}
+}
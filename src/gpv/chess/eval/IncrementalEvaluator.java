@@ -0,0 +1,128 @@
+package gpv.chess.eval;
+
+import gpv.Piece;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * A static evaluation kept up to date as a Board changes. The evaluator
+ * listens to the board and adds or subtracts one table entry per placed or
+ * removed piece, so the running material, phase and piece-square sums are
+ * always current and evaluate() is O(1).
+ * <br/>
+ * The score is a taper between the middlegame and endgame sums by the
+ * current phase, in centipawns from white's point of view.
+ *
+ * @version Oct 19, 2026
+ */
+public class IncrementalEvaluator implements BoardListener {
+
+	private final EvaluationTable table;
+	private int midgame;
+	private int endgame;
+	private int phase;
+	private final int[] material = new int[PlayerColor.values().length];
+
+	/**
+	 * @param table the evaluation terms
+	 */
+	public IncrementalEvaluator(EvaluationTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Start following a board, initializing the sums from its current contents.
+	 * @param b the board
+	 */
+	public void attach(Board b) {
+		recompute(b);
+		b.addBoardListener(this);
+	}
+
+	/**
+	 * Stop following a board.
+	 * @param b the board
+	 */
+	public void detach(Board b) {
+		b.removeBoardListener(this);
+	}
+
+	/**
+	 * Throw away the running sums and rebuild them by scanning the board.
+	 * @param b the board
+	 */
+	public void recompute(Board b) {
+		boardCleared(b);
+		for (java.util.Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			piecePlaced(b, e.getValue(), e.getKey());
+		}
+	}
+
+	/**
+	 * @return the score in centipawns, positive when white is better
+	 */
+	public int evaluate() {
+		int max = table.getMaxPhase();
+		int p = Math.min(phase, max);
+		return (midgame * p + endgame * (max - p)) / max;
+	}
+
+	/**
+	 * @param side the side to score for
+	 * @return the score in centipawns, positive when side is better
+	 */
+	public int evaluate(PlayerColor side) {
+		return side == PlayerColor.WHITE ? evaluate() : -evaluate();
+	}
+
+	/**
+	 * @return the current game phase, from 0 (bare endgame) upwards
+	 */
+	public int getPhase() { return phase; }
+
+	/**
+	 * @param color a side
+	 * @return the total material value of that side's pieces
+	 */
+	public int getMaterial(PlayerColor color) { return material[color.ordinal()]; }
+
+	/**
+	 * @return the middlegame sum
+	 */
+	public int getMidgame() { return midgame; }
+
+	/**
+	 * @return the endgame sum
+	 */
+	public int getEndgame() { return endgame; }
+
+	@Override
+	public void piecePlaced(Board b, Piece p, Coordinate c) {
+		update(b, p, c, 1);
+	}
+
+	@Override
+	public void pieceRemoved(Board b, Piece p, Coordinate c) {
+		update(b, p, c, -1);
+	}
+
+	@Override
+	public void boardCleared(Board b) {
+		midgame = 0;
+		endgame = 0;
+		phase = 0;
+		material[0] = 0;
+		material[1] = 0;
+	}
+
+	private void update(Board b, Piece p, Coordinate c, int sign) {
+		if (!(p instanceof ChessPiece) || !b.validateBoundaries(c)) { return; }
+		ChessPieceDescriptor d = ((ChessPiece) p).getDescriptor();
+		int square = b.squareIndex(c);
+		if (square >= table.getSquares()) { return; }
+		midgame += sign * table.midgame(d.ordinal(), square);
+		endgame += sign * table.endgame(d.ordinal(), square);
+		phase += sign * table.getPhaseWeight(d);
+		material[d.getColor().ordinal()] += sign * table.getMaterial(d);
+	}
+}
@@ -0,0 +1,164 @@
+package gpv.chess.eval;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Random;
+import gpv.chess.ChessPieceDescriptor;
+
+/**
+ * The weights of a small two-layer evaluation network in the style of NNUE.
+ * The first layer is a feature transformer: one int16 column of hidden
+ * weights per (descriptor, square) feature, summed into an accumulator (see
+ * NnueAccumulator). The second layer maps the accumulator, clipped to
+ * [0, 127], through int8 weights to a single int32 output, which is divided
+ * by the scale to give centipawns from white's point of view.
+ * <br/>
+ * The file layout, all big-endian:
+ * <pre>
+ * int     MAGIC
+ * int     descriptors, the number of ChessPieceDescriptors when saved
+ * int     squares
+ * int     hidden size
+ * int     output scale
+ * int     output bias
+ * short[] hidden bias, hidden size entries
+ * short[] feature weights, (descriptors * squares) columns of hidden size
+ * byte[]  output weights, hidden size entries
+ * </pre>
+ * A file saved with a different number of descriptors is rejected, since
+ * its feature columns would no longer line up with the descriptors'
+ * ordinals; so are files in the older GPV1 layout, which did not record it.
+ *
+ * @version Oct 19, 2026
+ */
+public class NnueNetwork {
+
+	public static final int MAGIC = 0x47505632;	// "GPV2"
+	static final int HEADER = 24;
+	static final int CLIP = 127;
+
+	final int squares;
+	final int hidden;
+	final int scale;
+	final int outputBias;
+	final short[] hiddenBias;
+	final short[] featureWeights;
+	final byte[] outputWeights;
+
+	NnueNetwork(int squares, int hidden, int scale, int outputBias,
+			short[] hiddenBias, short[] featureWeights, byte[] outputWeights) {
+		this.squares = squares;
+		this.hidden = hidden;
+		this.scale = scale;
+		this.outputBias = outputBias;
+		this.hiddenBias = hiddenBias;
+		this.featureWeights = featureWeights;
+		this.outputWeights = outputWeights;
+	}
+
+	/**
+	 * @return the number of input features
+	 */
+	public int getFeatures() { return ChessPieceDescriptor.values().length * squares; }
+
+	/**
+	 * @return the size of the hidden layer
+	 */
+	public int getHidden() { return hidden; }
+
+	/**
+	 * @return the number of squares the network was built for
+	 */
+	public int getSquares() { return squares; }
+
+	/**
+	 * @param d a descriptor
+	 * @param square a square number
+	 * @return the feature index, whose weights start at feature * hidden
+	 */
+	int feature(ChessPieceDescriptor d, int square) {
+		return d.ordinal() * squares + square;
+	}
+
+	/**
+	 * Memory-map a network file and copy its weights into the heap arrays the
+	 * evaluator works on.
+	 * @param file the network
+	 * @return the network
+	 * @throws IOException if the file cannot be read or is not a network
+	 */
+	public static NnueNetwork load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is not a network file");
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (map.getInt() != MAGIC) { throw new IOException(file + " is not a network file"); }
+			int descriptors = map.getInt();
+			int squares = map.getInt();
+			int hidden = map.getInt();
+			int scale = map.getInt();
+			int outputBias = map.getInt();
+			if (descriptors != ChessPieceDescriptor.values().length) {
+				throw new IOException(file + " was saved for " + descriptors + " descriptors, not "
+						+ ChessPieceDescriptor.values().length);
+			}
+			if (squares <= 0 || hidden <= 0 || scale <= 0) {
+				throw new IOException(file + " has a bad header: squares " + squares + ", hidden " + hidden
+						+ ", scale " + scale);
+			}
+			long features = (long) descriptors * squares;
+			if (channel.size() != HEADER + 2 * (hidden + features * hidden) + hidden) {
+				throw new IOException(file + " is " + channel.size() + " bytes, not the size its header gives");
+			}
+			short[] bias = new short[hidden];
+			short[] weights = new short[(int) features * hidden];
+			byte[] output = new byte[hidden];
+			ShortBuffer shorts = map.asShortBuffer();
+			shorts.get(bias);
+			shorts.get(weights);
+			map.position(map.position() + 2 * (bias.length + weights.length));
+			map.get(output);
+			return new NnueNetwork(squares, hidden, scale, outputBias, bias, weights, output);
+		}
+	}
+
+	/**
+	 * Write this network in the format load reads.
+	 * @param file the file to create or replace
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path file) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(HEADER + 2 * (hiddenBias.length + featureWeights.length) + outputWeights.length);
+		b.putInt(MAGIC).putInt(ChessPieceDescriptor.values().length).putInt(squares).putInt(hidden).putInt(scale).putInt(outputBias);
+		b.asShortBuffer().put(hiddenBias).put(featureWeights);
+		b.position(b.position() + 2 * (hiddenBias.length + featureWeights.length));
+		b.put(outputWeights);
+		b.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (b.hasRemaining()) { channel.write(b); }
+		}
+	}
+
+	/**
+	 * A network with small random weights, for benchmarks and tests.
+	 * @param squares the number of squares
+	 * @param hidden the hidden layer size
+	 * @param seed the random seed
+	 * @return the network
+	 */
+	public static NnueNetwork random(int squares, int hidden, long seed) {
+		Random r = new Random(seed);
+		int features = ChessPieceDescriptor.values().length * squares;
+		short[] bias = new short[hidden];
+		short[] weights = new short[features * hidden];
+		byte[] output = new byte[hidden];
+		for (int i = 0; i < hidden; i++) { bias[i] = (short) r.nextInt(64); }
+		for (int i = 0; i < weights.length; i++) { weights[i] = (short) (r.nextInt(33) - 16); }
+		for (int i = 0; i < hidden; i++) { output[i] = (byte) (r.nextInt(65) - 32); }
+		return new NnueNetwork(squares, hidden, 64, 0, bias, weights, output);
+	}
+}
@@ -0,0 +1,130 @@
+package gpv.chess.fuzz;
+
+import java.util.*;
+import gpv.Piece;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Checks AttackBatch against ChessPiece.canMove and times it against the
+ * per-board loop it replaces, which loads each position into a Mailbox and
+ * asks CompiledMovement.attacks about every (piece, square) pair. Positions
+ * come from RandomPositions with every kind of piece, so the fairy pieces and
+ * this variant's pawns are covered too.
+ * <br/>
+ * Run with <code>java gpv.chess.fuzz.AttackBenchmark [positions] [batch] [seed]</code>;
+ * the defaults are 100000 positions in batches of 1024 with seed 38.
+ *
+ * @version Oct 19, 2026
+ */
+public class AttackBenchmark {
+
+	private static final PlayerColor[] SIDES = PlayerColor.values();
+
+	/**
+	 * The reference: a square is attacked if some piece of the side could
+	 * move there by canMove with an enemy piece standing on it.
+	 * @param b an 8x8 board, left as it was
+	 * @param side the attacking side
+	 * @return the attacked squares as a bit set
+	 */
+	public static long referenceAttacks(Board b, PlayerColor side) {
+		ChessPieceDescriptor enemy = side == PlayerColor.WHITE
+				? ChessPieceDescriptor.BLACKPAWN : ChessPieceDescriptor.WHITEPAWN;
+		ChessPieceFactory factory = new ChessPieceFactory();
+		List<Map.Entry<Coordinate, Piece>> pieces = new ArrayList<Map.Entry<Coordinate, Piece>>(b.getPieces().entrySet());
+		long set = 0;
+		for (int to = 0; to < b.getnSquares(); to++) {
+			Coordinate target = b.coordinateOf(to);
+			Piece held = b.getPieceAt(target);
+			b.putPieceAt(factory.makePiece(enemy), target);
+			for (Map.Entry<Coordinate, Piece> e : pieces) {
+				ChessPiece p = (ChessPiece) e.getValue();
+				if (p.getColor() == side && !e.getKey().equals(target) && p.canMove(e.getKey(), target, b)) {
+					set |= 1L << to;
+					break;
+				}
+			}
+			if (held == null) { b.removePieceAt(target); }
+			else { b.putPieceAt(held, target); }
+		}
+		return set;
+	}
+
+	/**
+	 * The per-board loop: every square a side attacks, from compiled tables.
+	 * @param m a loaded 8x8 mailbox
+	 * @param side the attacking side
+	 * @return the attacked squares as a bit set
+	 */
+	public static long perBoardAttacks(Mailbox m, PlayerColor side) {
+		CompiledRules rules = CompiledRules.STANDARD;
+		long set = 0;
+		for (int from = 0; from < 64; from++) {
+			int code = m.codeAt(from);
+			if (code == Occupancy.EMPTY) { continue; }
+			ChessPieceDescriptor d = Occupancy.descriptor(code);
+			if (d.getColor() != side) { continue; }
+			CompiledMovement movement = rules.get(d);
+			for (int to = 0; to < 64; to++) {
+				if (to != from && movement.attacks(from, to, code, m)) { set |= 1L << to; }
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * @param args the number of positions, the batch size and the seed
+	 */
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 38;
+		RandomPositions positions = new RandomPositions(seed, 8, 8, ChessPieceDescriptor.values(), 32);
+		Board[] boards = new Board[count];
+		for (int i = 0; i < count; i++) { boards[i] = positions.board(positions.position(i)); }
+
+		AttackBatch batch = new AttackBatch(batchSize);
+		long[] out = new long[batchSize];
+		int checked = Math.min(count, 1000), wrong = 0;
+		for (int i = 0; i < checked; i++) {
+			batch.clear();
+			batch.add(boards[i]);
+			for (PlayerColor side : SIDES) {
+				batch.attacks(side, out);
+				if (out[0] != referenceAttacks(boards[i], side)) { wrong++; }
+			}
+		}
+		System.out.printf("%d positions checked against canMove: %d wrong%n", checked, wrong);
+
+		Mailbox mailbox = new Mailbox();
+		long sink = 0;
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			for (Board b : boards) {
+				mailbox.load(b);
+				for (PlayerColor side : SIDES) { sink += perBoardAttacks(mailbox, side); }
+			}
+			long loop = System.nanoTime() - start;
+
+			long loading = 0, kernels = 0;
+			for (int first = 0; first < count; first += batchSize) {
+				start = System.nanoTime();
+				batch.clear();
+				for (int i = first; i < Math.min(count, first + batchSize); i++) { batch.add(boards[i]); }
+				long loaded = System.nanoTime();
+				for (PlayerColor side : SIDES) {
+					batch.attacks(side, out);
+					for (int i = 0; i < batch.size(); i++) { sink += out[i]; }
+				}
+				loading += loaded - start;
+				kernels += System.nanoTime() - loaded;
+			}
+			System.out.printf("round %d: per-board loop %.0f ns/position; batch %.0f ns/position to load, "
+					+ "%.1f ns/position in kernels%n", round + 1, (double) loop / count,
+					(double) loading / count, (double) kernels / count);
+		}
+		if (sink == 42) { System.out.println(); }
+		if (wrong > 0) { System.exit(1); }
+	}
+}
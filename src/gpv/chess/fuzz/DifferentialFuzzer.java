@@ -0,0 +1,310 @@
+package gpv.chess.fuzz;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Checks that faster representations of the board agree with the reference
+ * ChessPiece.canMove. Every thread takes the next position from a
+ * RandomPositions sequence and asks each representation about every (from,
+ * to) pair with a piece on 'from'. Any answer that differs from the
+ * reference is shrunk, by removing pieces one at a time for as long as the
+ * answers still differ, to a short SquareInitializer list that reproduces
+ * it. Time spent in each representation is measured, so a run also reports
+ * throughput.
+ * <br/>
+ * Run with <code>java gpv.chess.fuzz.DifferentialFuzzer [positions] [threads] [seed]</code>;
+ * the defaults are 100000 positions on every processor with seed 38.
+ *
+ * @version Oct 19, 2026
+ */
+public class DifferentialFuzzer {
+
+	/**
+	 * The most disagreements kept, shrunk, in a report; the rest are only counted.
+	 */
+	public static final int MAX_KEPT = 10;
+
+	/**
+	 * One (position, from, to) on which a representation and the reference
+	 * disagree, after shrinking.
+	 */
+	public static class Disagreement {
+		public final String representation;
+		public final long index;
+		public final List<SquareInitializer> position;
+		public final Coordinate from, to;
+		public final boolean expected;
+
+		Disagreement(String representation, long index, List<SquareInitializer> position,
+				Coordinate from, Coordinate to, boolean expected) {
+			this.representation = representation;
+			this.index = index;
+			this.position = Collections.unmodifiableList(position);
+			this.from = from;
+			this.to = to;
+			this.expected = expected;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(representation).append(" says ").append(!expected).append(" for ")
+				.append(from).append("->").append(to).append(" in position ").append(index).append(':');
+			for (SquareInitializer si : position) {
+				ChessPiece p = (ChessPiece) si.getPiece();
+				sb.append(' ').append(p.getDescriptor()).append(p.hasMoved() ? "*" : "").append('@').append(si.getSquare());
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * The figures of one run.
+	 */
+	public static class Report {
+		public final long positions;
+		public final String[] names;
+		public final long[] checks;
+		public final long[] nanos;
+		public final long[] disagreements;
+		public final List<Disagreement> kept;
+
+		Report(long positions, String[] names, long[] checks, long[] nanos, long[] disagreements,
+				List<Disagreement> kept) {
+			this.positions = positions;
+			this.names = names;
+			this.checks = checks;
+			this.nanos = nanos;
+			this.disagreements = disagreements;
+			this.kept = kept;
+		}
+
+		/**
+		 * @return the total number of disagreements with the reference
+		 */
+		public long totalDisagreements() {
+			long total = 0;
+			for (long n : disagreements) { total += n; }
+			return total;
+		}
+
+		/**
+		 * @param i a representation, 0 being the reference
+		 * @return checks per second of time spent in it
+		 */
+		public double checksPerSecond(int i) {
+			return nanos[i] == 0 ? 0 : checks[i] * 1e9 / nanos[i];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(positions).append(" positions\n");
+			for (int i = 0; i < names.length; i++) {
+				sb.append(String.format("%-18s %12d checks %14.0f checks/s %8d disagreements%n",
+						names[i], checks[i], checksPerSecond(i), disagreements[i]));
+			}
+			for (Disagreement d : kept) { sb.append(d).append('\n'); }
+			return sb.toString();
+		}
+	}
+
+	private final RandomPositions positions;
+	private final List<Supplier<Representation>> representations = new ArrayList<Supplier<Representation>>();
+
+	/**
+	 * @param positions where positions come from
+	 */
+	public DifferentialFuzzer(RandomPositions positions) {
+		this.positions = positions;
+		representations.add(Representations::reference);
+	}
+
+	/**
+	 * Add a representation to compare with the reference.
+	 * @param factory makes one instance per thread
+	 * @return this fuzzer
+	 */
+	public DifferentialFuzzer add(Supplier<Representation> factory) {
+		representations.add(factory);
+		return this;
+	}
+
+	/**
+	 * Fuzz positions 0 to count - 1.
+	 * @param count the number of positions
+	 * @param threads the number of threads
+	 * @return the results
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public Report run(long count, int threads) throws InterruptedException {
+		int n = representations.size();
+		String[] names = new String[n];
+		for (int i = 0; i < n; i++) { names[i] = representations.get(i).get().name(); }
+		long[] checks = new long[n], nanos = new long[n], disagreements = new long[n];
+		List<Disagreement> kept = new ArrayList<Disagreement>();
+		AtomicLong next = new AtomicLong();
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Worker>> done = new ArrayList<Future<Worker>>();
+		for (int t = 0; t < threads; t++) {
+			done.add(pool.submit(() -> new Worker().run(next, count)));
+		}
+		pool.shutdown();
+		for (Future<Worker> f : done) {
+			Worker w;
+			try {
+				w = f.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("fuzzing thread failed", e.getCause());
+			}
+			for (int i = 0; i < n; i++) {
+				checks[i] += w.checks[i];
+				nanos[i] += w.nanos[i];
+				disagreements[i] += w.disagreements[i];
+			}
+			for (Disagreement d : w.kept) {
+				if (kept.size() < MAX_KEPT) { kept.add(d); }
+			}
+		}
+		return new Report(count, names, checks, nanos, disagreements, kept);
+	}
+
+	/**
+	 * The state of one thread.
+	 */
+	private class Worker {
+		final Representation[] reps;
+		final long[] checks, nanos, disagreements;
+		final List<Disagreement> kept = new ArrayList<Disagreement>();
+		boolean[] expected = new boolean[0];
+
+		Worker() {
+			int n = representations.size();
+			reps = new Representation[n];
+			for (int i = 0; i < n; i++) { reps[i] = representations.get(i).get(); }
+			checks = new long[n];
+			nanos = new long[n];
+			disagreements = new long[n];
+		}
+
+		Worker run(AtomicLong next, long count) {
+			for (long index = next.getAndIncrement(); index < count; index = next.getAndIncrement()) {
+				fuzz(index);
+			}
+			return this;
+		}
+
+		/**
+		 * Ask every representation about every pair of one position.
+		 */
+		void fuzz(long index) {
+			List<SquareInitializer> position = positions.position(index);
+			Board b = positions.board(position);
+			int squares = b.getnSquares();
+			int[] from = occupied(b);
+			if (expected.length < from.length * squares) { expected = new boolean[from.length * squares]; }
+
+			for (int r = 0; r < reps.length; r++) {
+				Representation rep = reps[r];
+				long start = System.nanoTime();
+				rep.load(b);
+				if (r == 0) {
+					for (int i = 0; i < from.length; i++) {
+						for (int to = 0; to < squares; to++) { expected[i * squares + to] = rep.canMove(from[i], to); }
+					}
+					nanos[r] += System.nanoTime() - start;
+					checks[r] += (long) from.length * squares;
+					continue;
+				}
+				int firstWrong = -1, wrong = 0;
+				for (int i = 0; i < from.length; i++) {
+					for (int to = 0; to < squares; to++) {
+						if (rep.canMove(from[i], to) != expected[i * squares + to]) {
+							if (wrong++ == 0) { firstWrong = i * squares + to; }
+						}
+					}
+				}
+				nanos[r] += System.nanoTime() - start;
+				checks[r] += (long) from.length * squares;
+				if (wrong > 0) {
+					disagreements[r] += wrong;
+					if (kept.size() < MAX_KEPT) {
+						kept.add(shrink(r, index, position, b.coordinateOf(from[firstWrong / squares]),
+								b.coordinateOf(firstWrong % squares), expected[firstWrong]));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Remove pieces, other than the one that moves, while the
+		 * representation still disagrees with the reference.
+		 */
+		Disagreement shrink(int r, long index, List<SquareInitializer> position,
+				Coordinate from, Coordinate to, boolean expected) {
+			List<SquareInitializer> current = new ArrayList<SquareInitializer>(position);
+			boolean removed = true;
+			while (removed) {
+				removed = false;
+				for (int i = 0; i < current.size() && !removed; i++) {
+					if (current.get(i).getSquare().equals(from)) { continue; }
+					List<SquareInitializer> smaller = new ArrayList<SquareInitializer>(current);
+					smaller.remove(i);
+					if (disagrees(r, smaller, from, to)) {
+						current = smaller;
+						removed = true;
+					}
+				}
+			}
+			Board b = positions.board(current);
+			reps[0].load(b);
+			boolean reference = reps[0].canMove(b.squareIndex(from), b.squareIndex(to));
+			return new Disagreement(reps[r].name(), index, current, from, to, reference);
+		}
+
+		boolean disagrees(int r, List<SquareInitializer> position, Coordinate from, Coordinate to) {
+			Board b = positions.board(position);
+			int f = b.squareIndex(from), t = b.squareIndex(to);
+			reps[0].load(b);
+			boolean reference = reps[0].canMove(f, t);
+			reps[r].load(b);
+			return reps[r].canMove(f, t) != reference;
+		}
+	}
+
+	/**
+	 * @return the occupied squares of b in increasing order
+	 */
+	private static int[] occupied(Board b) {
+		int[] squares = new int[b.getPieces().size()];
+		int i = 0;
+		for (Coordinate c : b.getPieces().keySet()) { squares[i++] = b.squareIndex(c); }
+		Arrays.sort(squares);
+		return squares;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long count = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 38;
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(new RandomPositions(seed))
+				.add(Representations::compiledMailbox)
+				.add(Representations::compiledBoard)
+				.add(Representations::codecRoundTrip);
+		long start = System.nanoTime();
+		Report report = fuzzer.run(count, threads);
+		long nanos = System.nanoTime() - start;
+		System.out.print(report);
+		long total = 0;
+		for (long c : report.checks) { total += c; }
+		System.out.printf("%d checks in %.2fs on %d threads: %.0f checks/min%n",
+				total, nanos / 1e9, threads, total * 60e9 / nanos);
+		if (report.totalDisagreements() > 0) { System.exit(1); }
+	}
+}
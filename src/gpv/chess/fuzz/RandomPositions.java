@@ -0,0 +1,95 @@
+package gpv.chess.fuzz;
+
+import static gpv.util.SquareInitializer.makeSquareInitializer;
+import java.util.*;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Seeded random positions for fuzzing. Each position is a function of the
+ * generator's seed and the position's index alone, so any position of a run
+ * can be rebuilt from the two numbers without replaying the run. Positions
+ * are not legal chess positions: pieces are drawn from a pool of descriptors
+ * and dropped on distinct random squares, and each piece has moved or not at
+ * random.
+ *
+ * @version Oct 19, 2026
+ */
+public final class RandomPositions {
+
+	private final long seed;
+	private final int rows, columns;
+	private final ChessPieceDescriptor[] pool;
+	private final int maxPieces;
+	private final ChessPieceFactory factory = new ChessPieceFactory();
+
+	/**
+	 * @param seed the seed of the whole sequence
+	 * @param rows the number of rows
+	 * @param columns the number of columns
+	 * @param pool the descriptors to draw from
+	 * @param maxPieces the most pieces in a position
+	 */
+	public RandomPositions(long seed, int rows, int columns, ChessPieceDescriptor[] pool, int maxPieces) {
+		if (pool.length == 0) { throw new IllegalArgumentException("empty pool"); }
+		this.seed = seed;
+		this.rows = rows;
+		this.columns = columns;
+		this.pool = pool.clone();
+		this.maxPieces = Math.max(1, Math.min(maxPieces, rows * columns));
+	}
+
+	/**
+	 * Positions on an 8x8 board with up to 32 of the six standard pieces.
+	 * @param seed the seed of the whole sequence
+	 */
+	public RandomPositions(long seed) {
+		this(seed, 8, 8, standardPieces(), 32);
+	}
+
+	/**
+	 * @param index the position number
+	 * @return new pieces on distinct squares
+	 */
+	public List<SquareInitializer> position(long index) {
+		Random r = new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+		int squares = rows * columns;
+		int count = 1 + r.nextInt(maxPieces);
+		int[] order = new int[squares];
+		for (int i = 0; i < squares; i++) { order[i] = i; }
+		List<SquareInitializer> initializers = new ArrayList<SquareInitializer>(count);
+		for (int i = 0; i < count; i++) {
+			int j = i + r.nextInt(squares - i);
+			int square = order[j];
+			order[j] = order[i];
+			ChessPiece p = factory.makePiece(pool[r.nextInt(pool.length)]);
+			if (r.nextBoolean()) { p.setHasMoved(); }
+			initializers.add(makeSquareInitializer(p,
+					Coordinate.makeCoordinate(square / columns + 1, square % columns + 1)));
+		}
+		return initializers;
+	}
+
+	/**
+	 * @param initializers a position
+	 * @return a new board holding it
+	 */
+	public Board board(List<SquareInitializer> initializers) {
+		return new Board(rows, columns, initializers);
+	}
+
+	public int getRows() { return rows; }
+
+	public int getColumns() { return columns; }
+
+	/**
+	 * @return the twelve descriptors of ordinary chess
+	 */
+	public static ChessPieceDescriptor[] standardPieces() {
+		List<ChessPieceDescriptor> standard = new ArrayList<ChessPieceDescriptor>();
+		for (ChessPieceDescriptor d : ChessPieceDescriptor.values()) {
+			if (d.getName().isStandard()) { standard.add(d); }
+		}
+		return standard.toArray(new ChessPieceDescriptor[standard.size()]);
+	}
+}
@@ -0,0 +1,32 @@
+package gpv.chess.fuzz;
+
+import gpv.util.Board;
+
+/**
+ * One way of answering "may the piece on 'from' move to 'to'", to be
+ * compared against ChessPiece.canMove by the DifferentialFuzzer. An instance
+ * is used by one thread at a time: load is called once per position, then
+ * canMove for every (from, to) pair of it.
+ *
+ * @version Oct 19, 2026
+ */
+public interface Representation {
+
+	/**
+	 * @return a short name for reports
+	 */
+	String name();
+
+	/**
+	 * Prepare for questions about a position. The board must not be changed.
+	 * @param b the position
+	 */
+	void load(Board b);
+
+	/**
+	 * @param from the square index of an occupied square
+	 * @param to any square index
+	 * @return whether the piece on 'from' may move to 'to'
+	 */
+	boolean canMove(int from, int to);
+}
@@ -0,0 +1,107 @@
+package gpv.chess.fuzz;
+
+import java.nio.ByteBuffer;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * The representations the fuzzer knows about. reference() is the baseline
+ * all others are compared with.
+ *
+ * @version Oct 19, 2026
+ */
+public final class Representations {
+
+	private Representations() { }
+
+	/**
+	 * @return ChessPiece.canMove on the Board itself
+	 */
+	public static Representation reference() {
+		return new OnBoard("reference");
+	}
+
+	/**
+	 * @return the CompiledRules tables over a Mailbox copy of the board
+	 */
+	public static Representation compiledMailbox() {
+		return new Representation() {
+			private final Mailbox mailbox = new Mailbox();
+			private CompiledRules rules;
+
+			public String name() { return "compiled-mailbox"; }
+
+			public void load(Board b) {
+				mailbox.load(b);
+				rules = CompiledRules.forBoard(b);
+			}
+
+			public boolean canMove(int from, int to) {
+				return rules.check(mailbox.codeAt(from), from, to, mailbox) == MoveRejection.NONE;
+			}
+		};
+	}
+
+	/**
+	 * @return the CompiledRules tables reading the Board directly
+	 */
+	public static Representation compiledBoard() {
+		return new Representation() {
+			private Occupancy occupancy;
+			private CompiledRules rules;
+
+			public String name() { return "compiled-board"; }
+
+			public void load(Board b) {
+				occupancy = Occupancy.of(b);
+				rules = CompiledRules.forBoard(b);
+			}
+
+			public boolean canMove(int from, int to) {
+				return rules.check(occupancy.codeAt(from), from, to, occupancy) == MoveRejection.NONE;
+			}
+		};
+	}
+
+	/**
+	 * @return canMove on a board rebuilt from the PositionCodec encoding
+	 */
+	public static Representation codecRoundTrip() {
+		return new OnBoard("codec") {
+			private final PositionCodec codec = new PositionCodec();
+			private final Board copy = new Board(1, 1);
+			private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+			@Override
+			public void load(Board b) {
+				int size = PositionCodec.encodedSize(b);
+				if (buffer.capacity() < size) { buffer = ByteBuffer.allocate(size); }
+				buffer.clear();
+				PositionCodec.write(b, buffer);
+				buffer.flip();
+				codec.read(buffer, copy);
+				super.load(copy);
+			}
+		};
+	}
+
+	/**
+	 * canMove of the piece on the loaded board.
+	 */
+	private static class OnBoard implements Representation {
+		private final String name;
+		private Board board;
+
+		OnBoard(String name) { this.name = name; }
+
+		public String name() { return name; }
+
+		public void load(Board b) { board = b; }
+
+		public boolean canMove(int from, int to) {
+			Coordinate f = board.coordinateOf(from);
+			ChessPiece p = (ChessPiece) board.getPieceAt(f);
+			return p != null && p.canMove(f, board.coordinateOf(to), board);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package gpv.chess.game;
+
+import java.util.*;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * One game of chess: a Board in the standard starting position, the side to
+ * move and the result so far. Moves are validated with ChessPiece.canMove.
+ * A game is won by capturing the opposing king and drawn when the side to
+ * move has no move canMove accepts, when a position occurs for the third
+ * time, or after fifty moves by each side without a capture, a pawn move or
+ * a piece's first move. A PositionHistory of ZobristHash keys, updated with
+ * each move, keeps track of the last two.
+ * <br/>
+ * A Game is not thread-safe; GameActor serializes access to it.
+ *
+ * @version Oct 19, 2026
+ */
+public class Game {
+
+	public enum Status { ONGOING, WHITE_WINS, BLACK_WINS, DRAWN }
+
+	private final long id;
+	private final Board board;
+	private PlayerColor toMove = PlayerColor.WHITE;
+	private int ply = 0;
+	private Status status = Status.ONGOING;
+	private final MoveList history = new MoveList();
+	private final MoveList scratch = new MoveList();
+	private final PositionHistory positions = new PositionHistory();
+
+	private static final ChessPieceFactory FACTORY = new ChessPieceFactory();
+
+	/**
+	 * @param id the game id
+	 */
+	public Game(long id) {
+		this(id, new Board(StandardPosition.ROWS, StandardPosition.COLUMNS));
+	}
+
+	/**
+	 * Start a game on an existing board, so that one Board can be reused for
+	 * game after game. The board is reset to the starting position; its
+	 * listeners stay attached.
+	 * @param id the game id
+	 * @param board the board to play on
+	 */
+	public Game(long id, Board board) {
+		this.id = id;
+		this.board = board;
+		board.setnRows(StandardPosition.ROWS);
+		board.setnColumns(StandardPosition.COLUMNS);
+		board.reset(StandardPosition.initializers(FACTORY));
+		positions.reset(ZobristHash.hash(board, toMove));
+	}
+
+	/**
+	 * Make a move for the side to move.
+	 * @param from the square of the piece to move
+	 * @param to the target square
+	 * @return true if the move was made, false if it is not valid
+	 */
+	public boolean move(Coordinate from, Coordinate to) {
+		if (!board.validateBoundaries(from) || !board.validateBoundaries(to)) { return false; }
+		return move(Move.of(board, board.squareIndex(from), board.squareIndex(to)));
+	}
+
+	/**
+	 * Make a move for the side to move.
+	 * @param move the move; only its squares are used
+	 * @return true if the move was made, false if it is not valid
+	 */
+	public boolean move(int move) {
+		if (status != Status.ONGOING) { return false; }
+		Coordinate from = board.coordinateOf(Move.from(move));
+		Coordinate to = board.coordinateOf(Move.to(move));
+		ChessPiece p = (ChessPiece) board.getPieceAt(from);
+		if (p == null || p.getColor() != toMove || !p.canMove(from, to, board)) { return false; }
+		history.add(Move.of(board, Move.from(move), Move.to(move)));
+		long key = positions.key() ^ ZobristHash.pieceKey(p, Move.from(move)) ^ ZobristHash.blackToMove();
+		boolean irreversible = !p.hasMoved() || p.getName() == PieceName.PAWN;
+		ChessPiece captured = (ChessPiece) board.removePieceAt(to);
+		board.removePieceAt(from);
+		if (!p.hasMoved()) { p.setHasMoved(); }
+		board.putPieceAt(p, to);
+		key ^= ZobristHash.pieceKey(p, Move.to(move));
+		if (captured != null) {
+			key ^= ZobristHash.pieceKey(captured, Move.to(move));
+			irreversible = true;
+		}
+		positions.push(key, irreversible);
+		ply++;
+		if (captured != null && captured.getName() == PieceName.KING) {
+			status = toMove == PlayerColor.WHITE ? Status.WHITE_WINS : Status.BLACK_WINS;
+		} else if (positions.isRepetition(3) || positions.isFiftyMoveDraw()) {
+			status = Status.DRAWN;
+		}
+		toMove = toMove.opponent();
+		return true;
+	}
+
+	/**
+	 * Make a move chosen uniformly from the moves canMove accepts, or declare a
+	 * draw if there are none.
+	 * @param random the source of randomness
+	 * @return true if a move was made
+	 */
+	public boolean moveAtRandom(Random random) {
+		if (status != Status.ONGOING) { return false; }
+		MoveGenerator.generate(board, toMove, scratch);
+		if (scratch.isEmpty()) {
+			status = Status.DRAWN;
+			return false;
+		}
+		return move(scratch.get(random.nextInt(scratch.size())));
+	}
+
+	/**
+	 * End an unfinished game as a loss for the side to move, e.g. when its
+	 * player offers a move canMove rejects.
+	 */
+	public void resign() {
+		if (status == Status.ONGOING) {
+			status = toMove == PlayerColor.WHITE ? Status.BLACK_WINS : Status.WHITE_WINS;
+		}
+	}
+
+	/**
+	 * End an unfinished game as a draw, e.g. on a move limit.
+	 */
+	public void adjudicateDraw() {
+		if (status == Status.ONGOING) { status = Status.DRAWN; }
+	}
+
+	/**
+	 * @return the id
+	 */
+	public long getId() { return id; }
+
+	/**
+	 * @return the board; callers must not change it
+	 */
+	public Board getBoard() { return board; }
+
+	/**
+	 * @return the side to move
+	 */
+	public PlayerColor getToMove() { return toMove; }
+
+	/**
+	 * @return the number of moves made by both sides
+	 */
+	public int getPly() { return ply; }
+
+	/**
+	 * @return the moves made so far; callers must not change the list
+	 */
+	public MoveList getHistory() { return history; }
+
+	/**
+	 * @return the keys of the positions so far; callers must not change it
+	 */
+	public PositionHistory getPositions() { return positions; }
+
+	/**
+	 * @return the status
+	 */
+	public Status getStatus() { return status; }
+}
@@ -0,0 +1,101 @@
+package gpv.chess.game;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import gpv.util.Coordinate;
+
+/**
+ * An actor that owns one Game. Messages are functions of the game, queued in
+ * a lock-free mailbox and run one at a time on a shared executor, so the game
+ * needs no locks and an idle game holds no thread. At most BATCH messages run
+ * per turn before the actor yields the thread to other games. A message that
+ * throws is counted and skipped.
+ *
+ * @version Oct 19, 2026
+ */
+public class GameActor {
+
+	static final int BATCH = 16;
+
+	private final Game game;
+	private final Executor executor;
+	private final Queue<Consumer<Game>> mailbox = new ConcurrentLinkedQueue<Consumer<Game>>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final LongAdder failures = new LongAdder();
+
+	/**
+	 * @param game the game this actor owns
+	 * @param executor runs the actor's turns
+	 */
+	public GameActor(Game game, Executor executor) {
+		this.game = game;
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the id of the game
+	 */
+	public long getId() { return game.getId(); }
+
+	/**
+	 * @return the number of messages that threw
+	 */
+	public long getFailures() { return failures.sum(); }
+
+	/**
+	 * Queue a message. It runs after every message queued before it.
+	 * @param message the work to do with the game
+	 */
+	public void tell(Consumer<Game> message) {
+		mailbox.offer(message);
+		schedule();
+	}
+
+	/**
+	 * Queue a move.
+	 * @param from the square of the piece to move
+	 * @param to the target square
+	 * @return completes with whether the move was made
+	 */
+	public CompletableFuture<Boolean> move(final Coordinate from, final Coordinate to) {
+		return ask(g -> g.move(from, to));
+	}
+
+	/**
+	 * Queue a read of the game.
+	 * @param query runs on the actor's turn
+	 * @return completes with the query's result, or exceptionally with what it threw
+	 */
+	public <T> CompletableFuture<T> ask(final java.util.function.Function<Game, T> query) {
+		final CompletableFuture<T> reply = new CompletableFuture<T>();
+		tell(g -> {
+			try {
+				reply.complete(query.apply(g));
+			} catch (RuntimeException e) {
+				reply.completeExceptionally(e);
+			}
+		});
+		return reply;
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) { executor.execute(this::drain); }
+	}
+
+	private void drain() {
+		for (int i = 0; i < BATCH; i++) {
+			Consumer<Game> message = mailbox.poll();
+			if (message == null) { break; }
+			try {
+				message.accept(game);
+			} catch (RuntimeException e) {
+				failures.increment();	// a failing message must not stop the actor
+			}
+		}
+		scheduled.set(false);
+		if (!mailbox.isEmpty()) { schedule(); }
+	}
+}
@@ -0,0 +1,72 @@
+package gpv.chess.game;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts live games, each as a GameActor. All actors share one work-stealing
+ * pool sized to the machine, so the number of games is bounded by memory
+ * rather than by threads.
+ *
+ * @version Oct 19, 2026
+ */
+public class GameHost implements AutoCloseable {
+
+	private final ForkJoinPool executor;
+	private final ConcurrentHashMap<Long, GameActor> games = new ConcurrentHashMap<Long, GameActor>();
+	private final AtomicLong nextId = new AtomicLong();
+
+	public GameHost() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism the number of threads running actors
+	 */
+	public GameHost(int parallelism) {
+		executor = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+	}
+
+	/**
+	 * Start a new game in the standard position.
+	 * @return its actor
+	 */
+	public GameActor open() {
+		long id = nextId.getAndIncrement();
+		GameActor actor = new GameActor(new Game(id), executor);
+		games.put(id, actor);
+		return actor;
+	}
+
+	/**
+	 * @param id a game id
+	 * @return the game's actor, or null if there is no such game
+	 */
+	public GameActor get(long id) {
+		return games.get(id);
+	}
+
+	/**
+	 * Stop hosting a game. Messages already queued still run.
+	 * @param id a game id
+	 * @return the game's actor, or null if there was no such game
+	 */
+	public GameActor end(long id) {
+		return games.remove(id);
+	}
+
+	/**
+	 * @return the number of hosted games
+	 */
+	public int size() {
+		return games.size();
+	}
+
+	/**
+	 * Stop accepting work; queued messages are dropped.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,142 @@
+package gpv.chess.game;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Drives many concurrent games on a GameHost with random valid moves and
+ * reports moves per second, retained heap per game and garbage collection
+ * activity during the run.
+ * <br/>
+ * Run with <code>java gpv.chess.game.GameSimulator [games] [plies]</code>;
+ * the defaults are 100000 games of at most 40 plies each. Each game makes one
+ * move per actor message and then queues its next move, so all games advance
+ * concurrently. A game whose move throws ends there and is counted as
+ * failed.
+ *
+ * @version Oct 19, 2026
+ */
+public class GameSimulator {
+
+	/**
+	 * The figures of one run.
+	 */
+	public static class Report {
+		public final int games;
+		public final long moves;
+		public final long nanos;
+		public final long heapPerGame;
+		public final long gcCount;
+		public final long gcMillis;
+		public final long failed;
+
+		Report(int games, long moves, long nanos, long heapPerGame, long gcCount, long gcMillis, long failed) {
+			this.games = games;
+			this.moves = moves;
+			this.nanos = nanos;
+			this.heapPerGame = heapPerGame;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+			this.failed = failed;
+		}
+
+		/**
+		 * @return moves made per second
+		 */
+		public double movesPerSecond() {
+			return moves * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games, %d moves in %.2fs: %.0f moves/s, %d bytes heap/game, "
+					+ "%d GCs taking %dms (%.1f%% of wall time), %d games failed",
+					games, moves, nanos / 1e9, movesPerSecond(), heapPerGame, gcCount, gcMillis,
+					100.0 * gcMillis * 1e6 / nanos, failed);
+		}
+	}
+
+	/**
+	 * Play the games to completion or to the ply limit.
+	 * @param games the number of concurrent games
+	 * @param plies the most moves made in any one game
+	 * @return the run's figures
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public static Report simulate(int games, final int plies) throws InterruptedException {
+		try (GameHost host = new GameHost()) {
+			long before = usedHeap();
+			List<GameActor> actors = new ArrayList<GameActor>(games);
+			for (int i = 0; i < games; i++) { actors.add(host.open()); }
+			long heapPerGame = (usedHeap() - before) / Math.max(1, games);
+
+			final LongAdder moves = new LongAdder(), failed = new LongAdder();
+			final CountDownLatch done = new CountDownLatch(games);
+			long gcCount = gcCount();
+			long gcMillis = gcMillis();
+			long start = System.nanoTime();
+			for (final GameActor actor : actors) {
+				actor.tell(new Consumer<Game>() {
+					@Override
+					public void accept(Game g) {
+						boolean finished = true;
+						try {
+							if (g.getPly() < plies && g.moveAtRandom(ThreadLocalRandom.current())) {
+								moves.increment();
+							}
+							if (g.getStatus() == Game.Status.ONGOING && g.getPly() < plies) {
+								actor.tell(this);
+								finished = false;
+							} else {
+								g.adjudicateDraw();
+							}
+						} catch (RuntimeException e) {
+							failed.increment();
+							throw e;
+						} finally {
+							if (finished) { done.countDown(); }
+						}
+					}
+				});
+			}
+			done.await();
+			long elapsed = System.nanoTime() - start;
+			return new Report(games, moves.sum(), elapsed, heapPerGame,
+					gcCount() - gcCount, gcMillis() - gcMillis, failed.sum());
+		}
+	}
+
+	static long usedHeap() {
+		for (int i = 0; i < 3; i++) { System.gc(); }
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	static long gcCount() {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			n += Math.max(0, gc.getCollectionCount());
+		}
+		return n;
+	}
+
+	static long gcMillis() {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			n += Math.max(0, gc.getCollectionTime());
+		}
+		return n;
+	}
+
+	/**
+	 * @param args optional number of games and ply limit
+	 * @throws InterruptedException if interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int plies = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+		System.out.println(simulate(games, plies));
+	}
+}
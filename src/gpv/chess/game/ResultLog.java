@@ -0,0 +1,126 @@
+package gpv.chess.game;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import gpv.chess.MoveList;
+
+/**
+ * A compact binary log of finished games. After a four-byte magic number,
+ * each record is the game id (long), the white and black player numbers
+ * (one byte each), the Game.Status ordinal (one byte) and the moves as
+ * written by MoveList.writeTo: a count and two bytes per move.
+ * <br/>
+ * Records from many threads may be written at once; each write is atomic.
+ *
+ * @version Oct 19, 2026
+ */
+public class ResultLog implements Closeable {
+
+	public static final int MAGIC = 0x47505652;	// "GPVR"
+
+	/**
+	 * One logged game.
+	 */
+	public static class Entry {
+		public final long id;
+		public final int white, black;
+		public final Game.Status status;
+		public final MoveList moves;
+
+		Entry(long id, int white, int black, Game.Status status, MoveList moves) {
+			this.id = id;
+			this.white = white;
+			this.black = black;
+			this.status = status;
+			this.moves = moves;
+		}
+	}
+
+	private final DataOutputStream out;
+
+	/**
+	 * Create or truncate a log.
+	 * @param file the log file
+	 * @throws IOException if it cannot be written
+	 */
+	public ResultLog(Path file) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+		out.writeInt(MAGIC);
+	}
+
+	/**
+	 * Append one finished game.
+	 * @param game the game
+	 * @param white the number of the white player
+	 * @param black the number of the black player
+	 * @throws IOException if it cannot be written
+	 */
+	public synchronized void write(Game game, int white, int black) throws IOException {
+		out.writeLong(game.getId());
+		out.writeByte(white);
+		out.writeByte(black);
+		out.writeByte(game.getStatus().ordinal());
+		game.getHistory().writeTo(out);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Reads a log one record at a time, for logs too large to hold in memory.
+	 */
+	public static class Reader implements Closeable {
+		private final DataInputStream in;
+
+		/**
+		 * @param file a log written by this class
+		 * @throws IOException if it cannot be read or is not a result log
+		 */
+		public Reader(Path file) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+			if (in.readInt() != MAGIC) {
+				in.close();
+				throw new IOException(file + " is not a result log");
+			}
+		}
+
+		/**
+		 * @return the next record, or null at the end of the log
+		 * @throws IOException if it cannot be read
+		 */
+		public Entry next() throws IOException {
+			long id;
+			try {
+				id = in.readLong();
+			} catch (EOFException end) {
+				return null;
+			}
+			int white = in.readUnsignedByte(), black = in.readUnsignedByte();
+			Game.Status status = Game.Status.values()[in.readUnsignedByte()];
+			MoveList moves = new MoveList();
+			moves.readFrom(in);
+			return new Entry(id, white, black, status, moves);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * @param file a log written by this class
+	 * @return its records in the order they were written
+	 * @throws IOException if it cannot be read or is not a result log
+	 */
+	public static List<Entry> read(Path file) throws IOException {
+		List<Entry> entries = new ArrayList<Entry>();
+		try (Reader in = new Reader(file)) {
+			for (Entry e = in.next(); e != null; e = in.next()) { entries.add(e); }
+		}
+		return entries;
+	}
+}
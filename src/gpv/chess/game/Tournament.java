@@ -0,0 +1,266 @@
+package gpv.chess.game;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import gpv.chess.*;
+import gpv.chess.engine.*;
+import gpv.chess.eval.EvaluationTable;
+import gpv.util.*;
+
+/**
+ * Plays a round robin between engine configurations on a pool of threads.
+ * Every pair of players meets gamesPerPairing times with colors alternating;
+ * each game opens with a few random plies, seeded by the game number, so
+ * that deterministic engines do not repeat one game. Every thread keeps one
+ * Board and reuses it for all of its games, and every move goes through
+ * Game.move and so through ChessPiece.canMove: a player whose engine offers
+ * a move canMove rejects loses the game. Finished games are appended to a
+ * ResultLog.
+ * <br/>
+ * The report gives games per second, the latency distribution of engine
+ * moves, heap in use after the run and garbage collection activity.
+ * <br/>
+ * Run with <code>java gpv.chess.game.Tournament [gamesPerPairing] [threads] [log]</code>.
+ *
+ * @version Oct 19, 2026
+ */
+public class Tournament {
+
+	/**
+	 * The figures of one run.
+	 */
+	public static class Report {
+		public final String[] players;
+		public final int[] wins, draws, losses;
+		public final int games, illegalMoves;
+		public final long moves, nanos;
+		public final LatencyHistogram moveLatency;
+		public final long heapUsed, gcCount, gcMillis;
+
+		Report(String[] players, int[] wins, int[] draws, int[] losses, int games, int illegalMoves,
+				long moves, long nanos, LatencyHistogram moveLatency, long heapUsed, long gcCount, long gcMillis) {
+			this.players = players;
+			this.wins = wins;
+			this.draws = draws;
+			this.losses = losses;
+			this.games = games;
+			this.illegalMoves = illegalMoves;
+			this.moves = moves;
+			this.nanos = nanos;
+			this.moveLatency = moveLatency;
+			this.heapUsed = heapUsed;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+		}
+
+		/**
+		 * @return games finished per second
+		 */
+		public double gamesPerSecond() {
+			return games * 1e9 / nanos;
+		}
+
+		/**
+		 * @param player a player number
+		 * @return its points: one per win, half per draw
+		 */
+		public double score(int player) {
+			return wins[player] + draws[player] / 2.0;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("%d games, %d moves in %.2fs: %.1f games/s; move latency p50<%dus "
+					+ "p90<%dus p99<%dus; %d illegal moves; %d MB heap in use, %d GCs taking %dms%n",
+					games, moves, nanos / 1e9, gamesPerSecond(), moveLatency.percentile(50) / 1000,
+					moveLatency.percentile(90) / 1000, moveLatency.percentile(99) / 1000,
+					illegalMoves, heapUsed >> 20, gcCount, gcMillis));
+			for (int i = 0; i < players.length; i++) {
+				sb.append(String.format("%-12s +%d =%d -%d  %.1f%n", players[i], wins[i], draws[i], losses[i], score(i)));
+			}
+			return sb.toString();
+		}
+	}
+
+	private final List<String> names = new ArrayList<String>();
+	private final List<Supplier<Engine>> engines = new ArrayList<Supplier<Engine>>();
+	private int gamesPerPairing = 2;
+	private int maxPlies = 200;
+	private int randomPlies = 4;
+	private long seed = 39;
+
+	/**
+	 * Add a player.
+	 * @param name its name in the report
+	 * @param engine makes one engine per thread
+	 * @return this tournament
+	 */
+	public Tournament add(String name, Supplier<Engine> engine) {
+		if (names.size() == 255) { throw new IllegalStateException("at most 255 players"); }
+		names.add(name);
+		engines.add(engine);
+		return this;
+	}
+
+	/**
+	 * @param games how often each pair of players meets
+	 * @return this tournament
+	 */
+	public Tournament setGamesPerPairing(int games) {
+		this.gamesPerPairing = games;
+		return this;
+	}
+
+	/**
+	 * @param plies the length after which a game is drawn
+	 * @return this tournament
+	 */
+	public Tournament setMaxPlies(int plies) {
+		this.maxPlies = plies;
+		return this;
+	}
+
+	/**
+	 * @param plies the number of random moves each game opens with
+	 * @param seed the seed of the random moves
+	 * @return this tournament
+	 */
+	public Tournament setRandomOpening(int plies, long seed) {
+		this.randomPlies = plies;
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Play every game.
+	 * @param threads the number of threads
+	 * @param log where finished games are written
+	 * @return the results
+	 * @throws IOException if the log cannot be written
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public Report run(int threads, Path log) throws IOException, InterruptedException {
+		int n = names.size();
+		List<int[]> schedule = new ArrayList<int[]>();
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				for (int g = 0; g < gamesPerPairing; g++) {
+					schedule.add(g % 2 == 0 ? new int[] { i, j } : new int[] { j, i });
+				}
+			}
+		}
+		int[] wins = new int[n], draws = new int[n], losses = new int[n];
+		LatencyHistogram latency = new LatencyHistogram();
+		int illegal = 0;
+		long moves = 0;
+		AtomicInteger next = new AtomicInteger();
+		long gcCount = GameSimulator.gcCount(), gcMillis = GameSimulator.gcMillis();
+		long start = System.nanoTime();
+
+		try (ResultLog results = new ResultLog(log)) {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			List<Future<Worker>> done = new ArrayList<Future<Worker>>();
+			for (int t = 0; t < threads; t++) {
+				done.add(pool.submit(() -> new Worker(n).run(schedule, next, results)));
+			}
+			pool.shutdown();
+			for (Future<Worker> f : done) {
+				Worker w;
+				try {
+					w = f.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+					throw new IllegalStateException("tournament thread failed", e.getCause());
+				}
+				for (int i = 0; i < n; i++) {
+					wins[i] += w.wins[i];
+					draws[i] += w.draws[i];
+					losses[i] += w.losses[i];
+				}
+				latency.add(w.latency);
+				illegal += w.illegal;
+				moves += w.moves;
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		return new Report(names.toArray(new String[n]), wins, draws, losses, schedule.size(), illegal,
+				moves, nanos, latency, GameSimulator.usedHeap(),
+				GameSimulator.gcCount() - gcCount, GameSimulator.gcMillis() - gcMillis);
+	}
+
+	/**
+	 * The engines, board and counters of one thread.
+	 */
+	private class Worker {
+		final Engine[] players;
+		final Board board = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		final int[] wins, draws, losses;
+		final LatencyHistogram latency = new LatencyHistogram();
+		int illegal;
+		long moves;
+
+		Worker(int n) {
+			players = new Engine[n];
+			for (int i = 0; i < n; i++) { players[i] = engines.get(i).get(); }
+			wins = new int[n];
+			draws = new int[n];
+			losses = new int[n];
+		}
+
+		Worker run(List<int[]> schedule, AtomicInteger next, ResultLog results) throws IOException {
+			for (int index = next.getAndIncrement(); index < schedule.size(); index = next.getAndIncrement()) {
+				int white = schedule.get(index)[0], black = schedule.get(index)[1];
+				Game game = play(index, white, black);
+				results.write(game, white, black);
+				switch (game.getStatus()) {
+					case WHITE_WINS: wins[white]++; losses[black]++; break;
+					case BLACK_WINS: wins[black]++; losses[white]++; break;
+					default: draws[white]++; draws[black]++; break;
+				}
+			}
+			return this;
+		}
+
+		Game play(int index, int white, int black) {
+			Game game = new Game(index, board);
+			Random opening = new Random(seed ^ (index * 0x9E3779B97F4A7C15L));
+			for (int i = 0; i < randomPlies && game.moveAtRandom(opening); i++) { }
+			while (game.getStatus() == Game.Status.ONGOING && game.getPly() < maxPlies) {
+				Engine engine = players[game.getToMove() == PlayerColor.WHITE ? white : black];
+				long start = System.nanoTime();
+				int move = engine.chooseMove(board, game.getToMove());
+				latency.record(System.nanoTime() - start);
+				if (move == Move.NONE) { break; }
+				if (!game.move(move)) {
+					illegal++;
+					game.resign();
+				}
+				moves++;
+			}
+			game.adjudicateDraw();
+			return game;
+		}
+	}
+
+	/**
+	 * @param args optional games per pairing, thread count and log file
+	 * @throws Exception if the log cannot be written or the run is interrupted
+	 */
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		Path log = Paths.get(args.length > 2 ? args[2] : "tournament.log");
+		EvaluationTable table = EvaluationTable.standard();
+		Tournament t = new Tournament()
+				.add("random", () -> new RandomEngine(ThreadLocalRandom.current().nextLong()))
+				.add("depth1", () -> new Searcher(table, 1))
+				.add("depth2", () -> new Searcher(table, 2))
+				.setGamesPerPairing(games);
+		System.out.print(t.run(threads, log));
+	}
+}
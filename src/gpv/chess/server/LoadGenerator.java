@@ -0,0 +1,202 @@
+package gpv.chess.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import gpv.chess.StandardPosition;
+import gpv.util.*;
+
+/**
+ * A load generator for ValidationServer. Each connection runs on its own
+ * thread and keeps a fixed number of pipelined requests in flight: it writes
+ * a window of requests, then reads their responses, timing each request from
+ * the write of its window to the arrival of its response. Latencies go into
+ * a LatencyHistogram per connection, so percentiles are power-of-two bucket
+ * bounds.
+ * <br/>
+ * Run with
+ * <code>java gpv.chess.server.LoadGenerator [host port] [-c connections]
+ * [-n requests per connection] [-p pipeline depth] [-m moves per request]</code>.
+ * Without a host and port it starts a server in-process on a loopback port.
+ *
+ * @version Oct 19, 2026
+ */
+public class LoadGenerator {
+
+	private final InetSocketAddress address;
+	private int connections = 4;
+	private int requests = 50000;
+	private int pipeline = 32;
+	private int movesPerRequest = 32;
+
+	/**
+	 * @param address the server to load
+	 */
+	public LoadGenerator(InetSocketAddress address) {
+		this.address = address;
+	}
+
+	/**
+	 * The outcome of a run.
+	 */
+	public static class Result {
+		public final long requests;
+		public final long nanos;
+		public final LatencyHistogram latency;
+		public final long validMoves;
+
+		Result(long requests, long nanos, LatencyHistogram latency, long validMoves) {
+			this.requests = requests;
+			this.nanos = nanos;
+			this.latency = latency;
+			this.validMoves = validMoves;
+		}
+
+		/**
+		 * @return requests per second over the whole run
+		 */
+		public double requestsPerSecond() {
+			return requests * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d requests in %.2fs: %.0f req/s, p50<%.1fus, p99<%.1fus, %d valid moves",
+					requests, nanos / 1e9, requestsPerSecond(), latency.percentile(50) / 1e3,
+					latency.percentile(99) / 1e3, validMoves);
+		}
+	}
+
+	/**
+	 * Send every request and wait for every response.
+	 * @return latency and throughput figures
+	 * @throws Exception if a connection fails
+	 */
+	public Result run() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(connections);
+		List<Future<Long>> futures = new ArrayList<Future<Long>>();
+		List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+		long start = System.nanoTime();
+		for (int i = 0; i < connections; i++) {
+			final long seed = i;
+			final LatencyHistogram h = new LatencyHistogram();
+			histograms.add(h);
+			futures.add(pool.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws IOException {
+					return drive(seed, h);
+				}
+			}));
+		}
+		LatencyHistogram latency = new LatencyHistogram();
+		long valid = 0;
+		for (int i = 0; i < connections; i++) {
+			valid += futures.get(i).get();
+			latency.add(histograms.get(i));
+		}
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+		return new Result(latency.count(), elapsed, latency, valid);
+	}
+
+	/**
+	 * One connection's worth of requests.
+	 * @param latency receives the latency of each request
+	 * @return the number of valid moves
+	 */
+	private long drive(long seed, LatencyHistogram latency) throws IOException {
+		Board board = StandardPosition.newBoard();
+		byte[] moves = randomMoves(board, new Random(seed));
+		long valid = 0;
+		int frame = 4 + 4 + gpv.chess.PositionCodec.encodedSize(board) + 2 + 2 * movesPerRequest;
+		ByteBuffer out = ByteBuffer.allocate(frame * pipeline);
+		ByteBuffer in = ByteBuffer.allocate(ValidationProtocol.responseSize(movesPerRequest) * pipeline);
+		try (SocketChannel channel = SocketChannel.open(address)) {
+			channel.socket().setTcpNoDelay(true);
+			for (int sent = 0; sent < requests; ) {
+				int window = Math.min(pipeline, requests - sent);
+				out.clear();
+				for (int i = 0; i < window; i++) {
+					ValidationProtocol.writeRequest(out, sent + i, board, moves, movesPerRequest);
+				}
+				out.flip();
+				long t0 = System.nanoTime();
+				while (out.hasRemaining()) { channel.write(out); }
+				in.clear();
+				int received = 0;
+				while (received < window) {
+					if (channel.read(in) < 0) { throw new IOException("server closed the connection"); }
+					in.flip();
+					while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+						in.getInt();
+						in.getInt();	// responses come back in order, so the id is not needed
+						int count = in.getShort() & 0xFFFF;
+						for (int i = 0; i < ValidationProtocol.bitsetBytes(count); i++) {
+							valid += Integer.bitCount(in.get() & 0xFF);
+						}
+						latency.record(System.nanoTime() - t0);
+						received++;
+					}
+					in.compact();
+				}
+				sent += window;
+			}
+		}
+		return valid;
+	}
+
+	/**
+	 * @return movesPerRequest random from/to pairs, each from an occupied square
+	 */
+	private byte[] randomMoves(Board board, Random random) {
+		int[] occupied = new int[board.getPieces().size()];
+		int n = 0;
+		for (Coordinate c : board.getPieces().keySet()) { occupied[n++] = board.squareIndex(c); }
+		Arrays.sort(occupied);
+		byte[] moves = new byte[2 * movesPerRequest];
+		for (int i = 0; i < movesPerRequest; i++) {
+			moves[2 * i] = (byte) occupied[random.nextInt(n)];
+			moves[2 * i + 1] = (byte) random.nextInt(board.getnSquares());
+		}
+		return moves;
+	}
+
+	/**
+	 * @param args see the class comment
+	 * @throws Exception if the run fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String host = null;
+		int port = 0;
+		List<String> rest = new ArrayList<String>(Arrays.asList(args));
+		if (rest.size() >= 2 && !rest.get(0).startsWith("-")) {
+			host = rest.remove(0);
+			port = Integer.parseInt(rest.remove(0));
+		}
+		ValidationServer local = null;
+		if (host == null) {
+			local = new ValidationServer(0);
+			Thread t = new Thread(local, "validation-server");
+			t.setDaemon(true);
+			t.start();
+			host = "127.0.0.1";
+			port = local.getPort();
+		}
+		LoadGenerator g = new LoadGenerator(new InetSocketAddress(host, port));
+		for (int i = 0; i + 1 < rest.size(); i += 2) {
+			int value = Integer.parseInt(rest.get(i + 1));
+			switch (rest.get(i)) {
+				case "-c": g.connections = value; break;
+				case "-n": g.requests = value; break;
+				case "-p": g.pipeline = value; break;
+				case "-m": g.movesPerRequest = value; break;
+				default: throw new IllegalArgumentException("unknown option " + rest.get(i));
+			}
+		}
+		System.out.println(g.run());
+		if (local != null) { local.close(); }
+	}
+}
@@ -0,0 +1,438 @@
+package gpv.chess.server;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import gpv.chess.*;
+import gpv.chess.engine.Perft;
+import gpv.util.*;
+
+/**
+ * Splits perft and batch searches over worker processes on this machine.
+ * The coordinator listens on a loopback port, starts each PerftWorker with
+ * the coordinator's own java and the class path PerftWorker was loaded from,
+ * and keeps one connection per worker for its whole life.
+ * <br/>
+ * perft plays the first plies itself, until there are at least TASKS_PER_WORKER
+ * positions per worker, and sends each position, packed by PositionCodec,
+ * as one task; search sends each position of the batch as one task. Every
+ * connection has its own thread, which takes the next task as soon as its
+ * worker answers, so a slow worker simply does fewer tasks. Once no task is
+ * left to hand out, an idle worker takes a second copy of the task that has
+ * run longest and the first answer wins, so one slow worker cannot hold up
+ * the end of a batch. A worker that fails, closes its connection or takes
+ * longer than the task timeout is killed and its task goes back to the
+ * queue; a batch fails only when no worker is left.
+ * <br/>
+ * Run with <code>java gpv.chess.server.PerftCoordinator [workers] [depth]</code>
+ * to time a perft of the standard position in this process and on the
+ * workers.
+ *
+ * @version Oct 19, 2026
+ */
+public class PerftCoordinator implements Closeable {
+
+	public static final int TASKS_PER_WORKER = 16;
+	private static final int CONNECT_MILLIS = 30000;
+
+	/**
+	 * The figures of one batch.
+	 */
+	public static class Report {
+		public final long total;
+		public final long[] values;
+		public final long nodes, nanos;
+		public final int tasks, requeued, duplicated, lost;
+
+		Report(long total, long[] values, long nodes, long nanos, int tasks, int requeued, int duplicated, int lost) {
+			this.total = total;
+			this.values = values;
+			this.nodes = nodes;
+			this.nanos = nanos;
+			this.tasks = tasks;
+			this.requeued = requeued;
+			this.duplicated = duplicated;
+			this.lost = lost;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d tasks in %.2fs, %d positions: %d requeued, %d run twice, %d workers lost%n",
+					tasks, nanos / 1e9, nodes, requeued, duplicated, lost);
+		}
+	}
+
+	private final List<Connection> connections = new ArrayList<Connection>();
+	private final AtomicInteger live = new AtomicInteger();
+	private final PositionCodec codec = new PositionCodec();
+	private int timeoutMillis = 600000;
+
+	/**
+	 * Start the workers from the jar or directory PerftWorker was loaded from,
+	 * and wait for each to connect.
+	 * @param workers the number of worker processes
+	 * @throws IOException if a worker cannot be started or does not connect
+	 */
+	public PerftCoordinator(int workers) throws IOException {
+		this(workers, workerClassPath());
+	}
+
+	/**
+	 * Start the workers and wait for each to connect.
+	 * @param workers the number of worker processes
+	 * @param classPath the class path to start them with
+	 * @throws IOException if a worker cannot be started or does not connect
+	 */
+	public PerftCoordinator(int workers, String classPath) throws IOException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		Process[] processes = new Process[workers];
+		try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(CONNECT_MILLIS);
+			for (int i = 0; i < workers; i++) {
+				processes[i] = new ProcessBuilder(java, "-cp", classPath, PerftWorker.class.getName(),
+						"127.0.0.1", Integer.toString(server.getLocalPort()), Integer.toString(i))
+						.redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+			}
+			for (int i = 0; i < workers; i++) {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				socket.setSoTimeout(CONNECT_MILLIS);	// a worker that connects and says nothing
+				Connection c = new Connection(socket);
+				int number;
+				try {
+					number = c.in.readInt();
+				} catch (IOException e) {
+					socket.close();
+					throw e;
+				}
+				if (number < 0 || number >= workers || processes[number] == null) {
+					socket.close();
+					throw new IOException("unexpected worker " + number);
+				}
+				c.process = processes[number];
+				processes[number] = null;
+				connections.add(c);
+				live.incrementAndGet();
+			}
+		} catch (IOException e) {
+			for (Process p : processes) {
+				if (p != null) { p.destroyForcibly(); }
+			}
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the location PerftWorker was loaded from, or the class path
+	 * 	of this process if that is unknown
+	 */
+	private static String workerClassPath() {
+		CodeSource source = PerftWorker.class.getProtectionDomain().getCodeSource();
+		if (source == null || source.getLocation() == null) { return System.getProperty("java.class.path"); }
+		try {
+			return Paths.get(source.getLocation().toURI()).toString();
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return System.getProperty("java.class.path");
+		}
+	}
+
+	/**
+	 * @param millis how long a worker may take over one task before it is
+	 * 	given up for dead
+	 * @return this coordinator
+	 */
+	public PerftCoordinator setTaskTimeout(int millis) {
+		this.timeoutMillis = millis;
+		return this;
+	}
+
+	/**
+	 * @return the number of workers still connected
+	 */
+	public int getLiveWorkers() { return live.get(); }
+
+	/**
+	 * @param worker a worker number, in the order the workers connected
+	 * @return its process
+	 */
+	Process process(int worker) { return connections.get(worker).process; }
+
+	/**
+	 * Count the leaves of the move tree, as Perft does.
+	 * @param b the position, left as it was
+	 * @param toMove the side to move
+	 * @param depth the number of plies
+	 * @return the count in total, with the figures of the run
+	 * @throws IOException if every worker failed
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public Report perft(Board b, PlayerColor toMove, int depth) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		List<Board> positions = new ArrayList<Board>(Collections.singletonList(copy(b)));
+		List<PlayerColor> sides = new ArrayList<PlayerColor>(Collections.singletonList(toMove));
+		long ended = 0;
+		int remaining = depth;
+		while (remaining > 2 && positions.size() < TASKS_PER_WORKER * Math.max(1, live.get())) {
+			List<Board> next = new ArrayList<Board>();
+			List<PlayerColor> nextSides = new ArrayList<PlayerColor>();
+			for (int i = 0; i < positions.size(); i++) {
+				Board p = positions.get(i);
+				MoveList moves = MoveGenerator.generate(p, sides.get(i));
+				for (int m = 0; m < moves.size(); m++) {
+					Board child = copy(p);
+					if (play(child, moves.get(m))) {
+						ended++;
+					} else {
+						next.add(child);
+						nextSides.add(sides.get(i).opponent());
+					}
+				}
+			}
+			positions = next;
+			sides = nextSides;
+			remaining--;
+		}
+		if (remaining == depth) {
+			Perft local = new Perft();
+			long count = local.count(b, toMove, depth);
+			return new Report(count, new long[] { count }, local.getNodes(), System.nanoTime() - start, 0, 0, 0, 0);
+		}
+		byte[][] tasks = new byte[positions.size()][];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = PerftWorker.task(PerftWorker.PERFT, remaining, sides.get(i), positions.get(i));
+		}
+		Batch batch = run(tasks);
+		long total = ended;
+		for (long v : batch.values) { total += v; }
+		return batch.report(total, System.nanoTime() - start);
+	}
+
+	/**
+	 * Choose a move in each of many positions, as Searcher does at a fixed depth.
+	 * @param boards the positions, left as they were
+	 * @param toMove the side to move in each
+	 * @param depth the depth of each search
+	 * @return the move for each position in values
+	 * @throws IOException if every worker failed
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public Report search(Board[] boards, PlayerColor[] toMove, int depth) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		byte[][] tasks = new byte[boards.length][];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = PerftWorker.task(PerftWorker.SEARCH, depth, toMove[i], boards[i]);
+		}
+		return run(tasks).report(0, System.nanoTime() - start);
+	}
+
+	/**
+	 * Close the connections, which ends the workers, and kill any that linger.
+	 */
+	@Override
+	public void close() {
+		for (Connection c : connections) {
+			c.kill();
+			c.executor.shutdown();
+		}
+	}
+
+	/**
+	 * Hand out the tasks on every live connection and wait for all the answers.
+	 */
+	private Batch run(byte[][] tasks) throws IOException, InterruptedException {
+		Batch batch = new Batch(tasks);
+		for (Connection c : connections) {
+			if (c.alive) { c.executor.execute(() -> c.serve(batch)); }
+		}
+		synchronized (batch) {
+			while (batch.remaining > 0 && live.get() > 0) { batch.wait(); }
+			if (batch.remaining > 0) { throw new IOException("every worker failed; " + batch.remaining + " tasks left"); }
+		}
+		return batch;
+	}
+
+	/**
+	 * Make a move on a copy of a position.
+	 * @return true if it captured a king, which ends the game
+	 */
+	private boolean play(Board b, int move) {
+		Coordinate from = b.coordinateOf(Move.from(move)), to = b.coordinateOf(Move.to(move));
+		ChessPiece piece = (ChessPiece) b.removePieceAt(from);
+		ChessPiece captured = (ChessPiece) b.removePieceAt(to);
+		b.putPieceAt(codec.pieceFor(PositionCodec.pieceCode(piece) | PositionCodec.MOVED), to);
+		return captured != null && captured.getName() == PieceName.KING;
+	}
+
+	private Board copy(Board b) {
+		ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.encodedSize(b));
+		PositionCodec.write(b, buffer);
+		buffer.flip();
+		Board copy = new Board(b.getnRows(), b.getnColumns());
+		codec.read(buffer, copy);
+		return copy;
+	}
+
+	/**
+	 * The tasks of one call and what has become of them. Every access holds
+	 * the batch's lock.
+	 */
+	private class Batch {
+		final byte[][] tasks;
+		final long[] values;
+		final boolean[] done;
+		final int[] running;
+		final long[] started;
+		final ArrayDeque<Integer> pending = new ArrayDeque<Integer>();
+		int remaining, requeued, duplicated, lost;
+		long nodes;
+
+		Batch(byte[][] tasks) {
+			this.tasks = tasks;
+			values = new long[tasks.length];
+			done = new boolean[tasks.length];
+			running = new int[tasks.length];
+			started = new long[tasks.length];
+			remaining = tasks.length;
+			for (int i = 0; i < tasks.length; i++) { pending.add(i); }
+		}
+
+		/**
+		 * @return the next task to run, a copy of the longest running one if
+		 * 	none is waiting, or -1 when the batch is finished
+		 */
+		synchronized int take() throws InterruptedException {
+			while (remaining > 0) {
+				Integer next = pending.poll();
+				if (next != null) {
+					running[next]++;
+					started[next] = System.nanoTime();
+					return next;
+				}
+				int oldest = -1;
+				for (int i = 0; i < tasks.length; i++) {
+					if (!done[i] && running[i] == 1 && (oldest < 0 || started[i] < started[oldest])) { oldest = i; }
+				}
+				if (oldest >= 0) {
+					running[oldest]++;
+					duplicated++;
+					return oldest;
+				}
+				wait();
+			}
+			return -1;
+		}
+
+		synchronized void complete(int task, long value, long visited) {
+			running[task]--;
+			nodes += visited;
+			if (!done[task]) {
+				done[task] = true;
+				values[task] = value;
+				remaining--;
+			}
+			notifyAll();
+		}
+
+		synchronized void fail(int task) {
+			lost++;
+			if (task >= 0) {
+				running[task]--;
+				if (!done[task] && running[task] == 0) {
+					pending.addFirst(task);
+					requeued++;
+				}
+			}
+			notifyAll();
+		}
+
+		synchronized Report report(long total, long nanos) {
+			return new Report(total, values, nodes, nanos, tasks.length, requeued, duplicated, lost);
+		}
+	}
+
+	/**
+	 * One worker: its process, its connection and the thread that talks to it.
+	 */
+	private class Connection {
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+		final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "perft-connection");
+			t.setDaemon(true);
+			return t;
+		});
+		Process process;
+		volatile boolean alive = true;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		/**
+		 * Run tasks of the batch until it is finished or the worker fails.
+		 */
+		void serve(Batch batch) {
+			if (!alive) { return; }
+			int task = -1;
+			try {
+				socket.setSoTimeout(timeoutMillis);
+				for (task = batch.take(); task >= 0; task = batch.take()) {
+					PerftWorker.writeTask(out, task, batch.tasks[task]);
+					int length = in.readInt(), id = in.readInt();
+					if (length != PerftWorker.RESULT_LENGTH || id != task) {
+						throw new IOException("unexpected result " + id + " of length " + length);
+					}
+					long value = in.readLong(), visited = in.readLong();
+					batch.complete(task, value, visited);
+					task = -1;
+				}
+			} catch (IOException e) {
+				kill();
+				live.decrementAndGet();
+				batch.fail(task);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void kill() {
+			alive = false;
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// closing anyway
+			}
+			if (process != null) { process.destroyForcibly(); }
+		}
+	}
+
+	/**
+	 * @param args the number of workers and the depth
+	 * @throws Exception if the workers fail
+	 */
+	public static void main(String[] args) throws Exception {
+		int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		Board b = StandardPosition.newBoard();
+		long start = System.nanoTime();
+		long single = new Perft().count(b, PlayerColor.WHITE, depth);
+		long singleNanos = System.nanoTime() - start;
+		System.out.printf("one process: perft(%d) = %d in %.2fs%n", depth, single, singleNanos / 1e9);
+		try (PerftCoordinator coordinator = new PerftCoordinator(workers)) {
+			Report report = coordinator.perft(b, PlayerColor.WHITE, depth);
+			System.out.printf("%d workers: perft(%d) = %d in %.2fs, speedup %.2f%n",
+					workers, depth, report.total, report.nanos / 1e9, (double) singleNanos / report.nanos);
+			System.out.print(report);
+			if (report.total != single) { System.exit(1); }
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package gpv.chess.server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.*;
+import gpv.chess.*;
+import gpv.chess.engine.*;
+import gpv.chess.eval.EvaluationTable;
+import gpv.util.Board;
+
+/**
+ * A worker process for PerftCoordinator. It connects to the coordinator,
+ * says which worker it is, then answers tasks one at a time until the
+ * connection closes. All integers are big-endian.
+ * <pre>
+ * hello:    int worker number
+ *
+ * task:     int frame length, not counting this int
+ *           int task id, echoed in the result
+ *           byte kind, PERFT or SEARCH
+ *           byte depth
+ *           byte side to move, 0 for white
+ *           ...  position, see PositionCodec
+ *
+ * result:   int frame length, 20
+ *           int task id
+ *           long value, the leaf count or the best move
+ *           long positions visited
+ * </pre>
+ * Run by the coordinator as <code>java gpv.chess.server.PerftWorker host port number</code>.
+ *
+ * @version Oct 19, 2026
+ */
+public class PerftWorker {
+
+	public static final int PERFT = 1, SEARCH = 2;
+	public static final int RESULT_LENGTH = 20;
+
+	private final PositionCodec codec = new PositionCodec();
+	private final Board board = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+	private final Perft perft = new Perft();
+	private final Map<Integer, Searcher> searchers = new HashMap<Integer, Searcher>();
+
+	/**
+	 * Write a task frame.
+	 * @param out the stream to the worker
+	 * @param id the task id
+	 * @param body the task without its length and id, see task
+	 * @throws IOException if the stream fails
+	 */
+	public static void writeTask(DataOutputStream out, int id, byte[] body) throws IOException {
+		out.writeInt(4 + body.length);
+		out.writeInt(id);
+		out.write(body);
+		out.flush();
+	}
+
+	/**
+	 * @param kind PERFT or SEARCH
+	 * @param depth the depth
+	 * @param toMove the side to move
+	 * @param b the position
+	 * @return the body of a task frame
+	 */
+	public static byte[] task(int kind, int depth, PlayerColor toMove, Board b) {
+		ByteBuffer body = ByteBuffer.allocate(3 + PositionCodec.encodedSize(b));
+		body.put((byte) kind).put((byte) depth).put((byte) (toMove == PlayerColor.WHITE ? 0 : 1));
+		PositionCodec.write(b, body);
+		return body.array();
+	}
+
+	/**
+	 * Answer tasks until the coordinator closes the connection.
+	 * @param in from the coordinator
+	 * @param out to the coordinator
+	 * @throws IOException if the connection fails other than by closing
+	 */
+	public void serve(DataInputStream in, DataOutputStream out) throws IOException {
+		byte[] frame = new byte[0];
+		while (true) {
+			int length;
+			try {
+				length = in.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (length < 7 || length > ValidationProtocol.MAX_FRAME) { throw new IOException("bad task length " + length); }
+			if (frame.length < length) { frame = new byte[length]; }
+			in.readFully(frame, 0, length);
+			ByteBuffer task = ByteBuffer.wrap(frame, 0, length);
+			int id = task.getInt(), kind = task.get(), depth = task.get();
+			PlayerColor toMove = task.get() == 0 ? PlayerColor.WHITE : PlayerColor.BLACK;
+			codec.read(task, board);
+			long value, nodes;
+			if (kind == PERFT) {
+				nodes = perft.getNodes();
+				value = perft.count(board, toMove, depth);
+				nodes = perft.getNodes() - nodes;
+			} else if (kind == SEARCH) {
+				Searcher searcher = searchers.computeIfAbsent(depth, d -> new Searcher(EvaluationTable.standard(), d));
+				nodes = searcher.getNodes();
+				value = searcher.chooseMove(board, toMove);
+				nodes = searcher.getNodes() - nodes;
+			} else {
+				throw new IOException("unknown task kind " + kind);
+			}
+			out.writeInt(RESULT_LENGTH);
+			out.writeInt(id);
+			out.writeLong(value);
+			out.writeLong(nodes);
+			out.flush();
+		}
+	}
+
+	/**
+	 * @param args the coordinator's host and port, and this worker's number
+	 * @throws IOException if the connection fails
+	 */
+	public static void main(String[] args) throws IOException {
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeInt(Integer.parseInt(args[2]));
+			out.flush();
+			new PerftWorker().serve(in, out);
+		}
+	}
+}
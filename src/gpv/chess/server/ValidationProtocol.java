@@ -0,0 +1,111 @@
+package gpv.chess.server;
+
+import java.nio.ByteBuffer;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * The binary protocol spoken by ValidationServer. All integers are big-endian.
+ * Clients may pipeline: send any number of requests without waiting, and the
+ * server answers them in order on the same connection.
+ * <pre>
+ * request:
+ * int    frame length, not counting this int
+ * int    request id, echoed in the response
+ * ...    position, see PositionCodec
+ * short  number of moves
+ * then per move:
+ * byte   from square (see Board.squareIndex)
+ * byte   to square
+ *
+ * response:
+ * int    frame length, not counting this int
+ * int    request id
+ * short  number of moves
+ * byte[] result bitset, bit (i % 8) of byte (i / 8) set if move i is valid
+ * </pre>
+ * A move is valid if there is a piece on its from square and that piece's
+ * canMove accepts it.
+ *
+ * @version Oct 19, 2026
+ */
+public final class ValidationProtocol {
+
+	public static final int DEFAULT_PORT = 7878;
+	public static final int MAX_FRAME = 1 << 20;
+
+	private ValidationProtocol() { }
+
+	/**
+	 * @param moveCount the number of moves in a response
+	 * @return the number of bytes of the response frame, including its length
+	 */
+	public static int responseSize(int moveCount) {
+		return 4 + 4 + 2 + bitsetBytes(moveCount);
+	}
+
+	/**
+	 * @param moveCount the number of moves
+	 * @return the size of a result bitset
+	 */
+	public static int bitsetBytes(int moveCount) {
+		return (moveCount + 7) >>> 3;
+	}
+
+	/**
+	 * Write one request frame.
+	 * @param out the buffer to write to
+	 * @param id the request id
+	 * @param b the position
+	 * @param moves from/to square pairs, two bytes per move
+	 * @param moveCount the number of moves to send
+	 */
+	public static void writeRequest(ByteBuffer out, int id, Board b, byte[] moves, int moveCount) {
+		int length = 4 + PositionCodec.encodedSize(b) + 2 + 2 * moveCount;
+		out.putInt(length);
+		out.putInt(id);
+		PositionCodec.write(b, out);
+		out.putShort((short) moveCount);
+		out.put(moves, 0, 2 * moveCount);
+	}
+
+	/**
+	 * Read the body of a request (everything after the frame length) and write
+	 * the complete response frame.
+	 * @param in positioned at the request id, with its limit at the end of the frame
+	 * @param out receives the response
+	 * @param codec unpacks the position
+	 * @param board reused to hold the position
+	 * @throws IllegalArgumentException if the number of moves does not match the
+	 * 	bytes left in the frame; nothing is written to out
+	 * @throws java.nio.BufferUnderflowException if the frame ends inside the position
+	 */
+	public static void answer(ByteBuffer in, ByteBuffer out, PositionCodec codec, Board board) {
+		int id = in.getInt();
+		codec.read(in, board);
+		int moveCount = in.getShort() & 0xFFFF;
+		if (in.remaining() != 2 * moveCount) {
+			throw new IllegalArgumentException("frame holds " + in.remaining() + " move bytes, not " + 2 * moveCount);
+		}
+		out.putInt(responseSize(moveCount) - 4);
+		out.putInt(id);
+		out.putShort((short) moveCount);
+		int bits = 0;
+		for (int i = 0; i < moveCount; i++) {
+			int from = in.get() & 0xFF;
+			int to = in.get() & 0xFF;
+			if (isValid(board, from, to)) { bits |= 1 << (i & 7); }
+			if ((i & 7) == 7) {
+				out.put((byte) bits);
+				bits = 0;
+			}
+		}
+		if ((moveCount & 7) != 0) { out.put((byte) bits); }
+	}
+
+	private static boolean isValid(Board board, int from, int to) {
+		if (from >= board.getnSquares() || to >= board.getnSquares()) { return false; }
+		ChessPiece p = (ChessPiece) board.getPieceAt(board.coordinateOf(from));
+		return p != null && p.canMove(board.coordinateOf(from), board.coordinateOf(to), board);
+	}
+}
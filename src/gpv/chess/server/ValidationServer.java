@@ -0,0 +1,229 @@
+package gpv.chess.server;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import gpv.chess.PositionCodec;
+import gpv.util.Board;
+
+/**
+ * A move-validation server on a single non-blocking NIO selector thread.
+ * Each connection owns its buffers, a PositionCodec and a Board that every
+ * request on that connection reuses, so steady-state serving allocates only
+ * Coordinates. A connection whose client does not read its responses stops
+ * being read once OUT_LIMIT bytes of them are pending, and resumes when they
+ * drain. See ValidationProtocol for the wire format.
+ * <br/>
+ * Run with <code>java gpv.chess.server.ValidationServer [port]</code>.
+ *
+ * @version Oct 19, 2026
+ */
+public class ValidationServer implements Runnable, Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** Pending response bytes above which a connection's requests are not read */
+	static final int OUT_LIMIT = BUFFER_SIZE;
+
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private volatile boolean running = true;
+	private volatile int peakPending;
+
+	/**
+	 * Per-connection state.
+	 */
+	private static final class Connection {
+		ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+		ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+		final PositionCodec codec = new PositionCodec();
+		final Board board = new Board(8, 8);
+	}
+
+	/**
+	 * Bind to the loopback interface.
+	 * @param port the port, or 0 for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public ValidationServer(int port) throws IOException {
+		this(new InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), port));
+	}
+
+	/**
+	 * @param address the address to bind to
+	 * @throws IOException if the address cannot be bound
+	 */
+	public ValidationServer(InetSocketAddress address) throws IOException {
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(address);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * @return the port the server is listening on
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * @return the most response bytes any connection has held unsent, which
+	 * 	OUT_LIMIT bounds to within one response
+	 */
+	public int getPeakPending() {
+		return peakPending;
+	}
+
+	/**
+	 * Serve until close is called.
+	 */
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						if (!key.isValid()) { continue; }
+						if (key.isAcceptable()) { accept(); }
+						if (key.isValid() && key.isReadable()) { read(key); }
+						if (key.isValid() && key.isWritable()) { serve(key); }
+					} catch (IOException | RuntimeException e) {
+						drop(key);
+					}
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			// closed while selecting
+		} finally {
+			closeQuietly();
+		}
+	}
+
+	/**
+	 * Stop serving and close every connection.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) { return; }
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		channel.register(selector, SelectionKey.OP_READ, new Connection());
+	}
+
+	private void read(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Connection c = (Connection) key.attachment();
+		if (channel.read(c.in) < 0) {
+			drop(key);
+			return;
+		}
+		serve(key);
+	}
+
+	/**
+	 * Answer the complete requests read so far and send what the channel
+	 * takes, reading no more requests while OUT_LIMIT bytes are pending.
+	 */
+	private void serve(SelectionKey key) throws IOException {
+		SocketChannel channel = (SocketChannel) key.channel();
+		Connection c = (Connection) key.attachment();
+		boolean throttled;
+		do {
+			throttled = answer(c);
+			if (c.out.position() > peakPending) { peakPending = c.out.position(); }
+			c.out.flip();
+			channel.write(c.out);
+			c.out.compact();
+		} while (throttled && c.out.position() < OUT_LIMIT);
+		if (!throttled && !c.in.hasRemaining()) { c.in = grow(c.in, 2 * c.in.capacity()); }
+		key.interestOps(throttled ? SelectionKey.OP_WRITE
+				: c.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+	}
+
+	/**
+	 * @return true if it stopped with requests left because OUT_LIMIT bytes
+	 * 	of responses are pending
+	 */
+	private static boolean answer(Connection c) throws IOException {
+		c.in.flip();
+		boolean throttled = false;
+		while (c.in.remaining() >= 4) {
+			if (c.out.position() >= OUT_LIMIT) {
+				throttled = true;
+				break;
+			}
+			int length = c.in.getInt(c.in.position());
+			if (length < 0 || length > ValidationProtocol.MAX_FRAME) {
+				throw new IOException("bad frame length " + length);
+			}
+			if (c.in.remaining() < 4 + length) { break; }
+			int end = c.in.position() + 4 + length, limit = c.in.limit();
+			c.in.position(c.in.position() + 4).limit(end);
+			ensureWritable(c, ValidationProtocol.responseSize(length / 2));
+			ValidationProtocol.answer(c.in, c.out, c.codec, c.board);	// a bad frame drops the connection
+			c.in.limit(limit).position(end);
+		}
+		c.in.compact();
+		return throttled;
+	}
+
+	private static void ensureWritable(Connection c, int bytes) {
+		if (c.out.remaining() < bytes) { c.out = grow(c.out, c.out.position() + bytes); }
+	}
+
+	/**
+	 * @param b a buffer in write mode
+	 * @return a buffer of at least the given capacity holding the contents of b,
+	 * 	also in write mode
+	 */
+	private static ByteBuffer grow(ByteBuffer b, int capacity) {
+		ByteBuffer bigger = ByteBuffer.allocate(Math.max(capacity, b.capacity() * 2));
+		b.flip();
+		bigger.put(b);
+		return bigger;
+	}
+
+	private void drop(SelectionKey key) {
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			// already closed
+		}
+	}
+
+	private void closeQuietly() {
+		for (SelectionKey key : selector.keys()) { drop(key); }
+		try {
+			selector.close();
+			server.close();
+		} catch (IOException e) {
+			// nothing more to release
+		}
+	}
+
+	/**
+	 * Start a server on the given port, or ValidationProtocol.DEFAULT_PORT.
+	 * @param args optional port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : ValidationProtocol.DEFAULT_PORT;
+		ValidationServer s = new ValidationServer(port);
+		System.out.println("validation server listening on port " + s.getPort());
+		s.run();
+	}
+}
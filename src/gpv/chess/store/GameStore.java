@@ -0,0 +1,620 @@
+package gpv.chess.store;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+
+/**
+ * An append-only store of finished games. Games are appended as packed move
+ * sequences to numbered segment files; two MappedIndex files find them by
+ * game id and by the ZobristHash of their final position.
+ * <br/>
+ * A segment starts with an 8-byte header (SEGMENT_MAGIC, segment number)
+ * followed by records:
+ * <pre>
+ * int    payload length
+ * int    CRC32 of the payload
+ * long   game id
+ * long   final position hash
+ * byte   Game.Status ordinal, or TOMBSTONE for a deleted game
+ * short  move count
+ * short* the moves, see Move
+ * </pre>
+ * Appends are written at once but forced to disk only every syncEvery
+ * appends, on sync(), or by the background syncer, so a crash loses at
+ * most the last unsynced batch. On open the last segment is scanned and cut
+ * back to its last complete record, and records written after the index's
+ * watermark are indexed again. The index is flagged dirty on disk before
+ * its first change after a sync, since the operating system may write any
+ * changed page back before the records it refers to are forced; an index
+ * found dirty on open is rebuilt from every segment. Index entries that point into the cut tail
+ * are dropped; any other stale entry is harmless, because every lookup
+ * reads and checks the record it points at.
+ * <br/>
+ * Compaction rewrites sealed segments whose records are mostly dead
+ * (replaced by a later append of the same id, or deleted) and swaps the
+ * copy in with an atomic rename; a segment with nothing left to keep is
+ * deleted instead. Until the old entries are removed the index holds both
+ * locations, and whichever file is on disk verifies.
+ * <br/>
+ * All public methods are synchronized; background work takes the same lock
+ * one step at a time.
+ *
+ * @version Oct 19, 2026
+ */
+public class GameStore implements Closeable {
+
+	public static final int SEGMENT_MAGIC = 0x47505653;	// "GPVS"
+	public static final int SEGMENT_HEADER = 8;
+	public static final int RECORD_HEADER = 8;
+	public static final int TOMBSTONE = 0xFF;
+	public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+	private static final int PAYLOAD_FIXED = 8 + 8 + 1 + 2;
+	private static final int MAX_PAYLOAD = PAYLOAD_FIXED + 2 * 0xFFFF;
+
+	/**
+	 * One stored game.
+	 */
+	public static class Record {
+		public final long id;
+		public final long finalHash;
+		public final Game.Status status;
+		public final MoveList moves;
+
+		Record(long id, long finalHash, Game.Status status, MoveList moves) {
+			this.id = id;
+			this.finalHash = finalHash;
+			this.status = status;
+			this.moves = moves;
+		}
+	}
+
+	private final Path dir;
+	private final long segmentBytes;
+	private final int syncEvery;
+	private final TreeMap<Integer, FileChannel> segments = new TreeMap<Integer, FileChannel>();
+	private final MappedIndex byId;
+	private final MappedIndex byHash;
+	private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + MAX_PAYLOAD);
+	private final Object compacting = new Object();
+	private final CRC32 crc = new CRC32();
+	private final long[] candidates = new long[64];
+	private FileChannel active;
+	private int activeNumber;
+	private long end;
+	private int unsynced;
+	private boolean dirty;
+	private ScheduledExecutorService background;
+	private boolean closed;
+
+	/**
+	 * Open a store with 64MB segments that syncs every 64 appends.
+	 * @param dir the directory, created if missing
+	 * @return the store
+	 * @throws IOException if the files cannot be opened or recovered
+	 */
+	public static GameStore open(Path dir) throws IOException {
+		return new GameStore(dir, DEFAULT_SEGMENT_BYTES, 64);
+	}
+
+	/**
+	 * Open a store, recovering from an earlier crash if needed.
+	 * @param dir the directory, created if missing
+	 * @param segmentBytes the size at which a segment is sealed and a new one started;
+	 * 	a single record larger than this gets a segment of its own
+	 * @param syncEvery how many appends are forced to disk together
+	 * @throws IOException if the files cannot be opened or recovered
+	 */
+	public GameStore(Path dir, long segmentBytes, int syncEvery) throws IOException {
+		this.dir = Files.createDirectories(dir);
+		this.segmentBytes = segmentBytes;
+		this.syncEvery = Math.max(1, syncEvery);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "seg-*.*")) {
+			for (Path f : files) {
+				String name = f.getFileName().toString();
+				if (name.endsWith(".compact")) { Files.delete(f); }	// unfinished compaction
+				else if (name.endsWith(".dat")) {
+					int number = Integer.parseInt(name.substring(4, name.length() - 4));
+					segments.put(number, FileChannel.open(f, StandardOpenOption.READ, StandardOpenOption.WRITE));
+				}
+			}
+		}
+		MappedIndex id = MappedIndex.open(dir.resolve("id.idx"), 1 << 12);
+		MappedIndex hash = MappedIndex.open(dir.resolve("hash.idx"), 1 << 12);
+		if (id.isDirty() || hash.isDirty()) {
+			// changed after the last sync, perhaps for records that never reached the disk
+			id.close();
+			hash.close();
+			Files.delete(dir.resolve("id.idx"));
+			Files.delete(dir.resolve("hash.idx"));
+			id = MappedIndex.open(dir.resolve("id.idx"), 1 << 12);
+			hash = MappedIndex.open(dir.resolve("hash.idx"), 1 << 12);
+		}
+		byId = id;
+		byHash = hash;
+		markDirty();
+		if (segments.isEmpty()) {
+			startSegment(0);
+		} else {
+			activeNumber = segments.lastKey();
+			active = segments.get(activeNumber);
+			end = recover(active);
+			byId.removeValues(location(activeNumber, end), location(activeNumber + 1, 0));
+			byHash.removeValues(location(activeNumber, end), location(activeNumber + 1, 0));
+		}
+		reindex();
+	}
+
+	/**
+	 * Append a finished game, keyed by its id and its final position.
+	 * @param game the game
+	 * @return the location of the record
+	 * @throws IOException if it cannot be written
+	 */
+	public long append(Game game) throws IOException {
+		return append(game.getId(), game.getHistory(), game.getStatus(),
+				ZobristHash.hash(game.getBoard(), game.getToMove()));
+	}
+
+	/**
+	 * Append a game. A game appended again with the same id replaces the
+	 * earlier record.
+	 * @param id the game id
+	 * @param moves its moves
+	 * @param status its result
+	 * @param finalHash the ZobristHash of its final position
+	 * @return the location of the record
+	 * @throws IOException if it cannot be written
+	 */
+	public synchronized long append(long id, MoveList moves, Game.Status status, long finalHash) throws IOException {
+		if (moves.size() > 0xFFFF) { throw new IllegalArgumentException("too many moves: " + moves.size()); }
+		long location = write(id, finalHash, status.ordinal(), moves);
+		markDirty();
+		Record old = get(id);
+		if (old != null) { unindex(id, old.finalHash); }
+		byId.put(id, location);
+		byHash.put(finalHash, location);
+		syncIfDue();
+		return location;
+	}
+
+	/**
+	 * Delete a game.
+	 * @param id the game id
+	 * @return true if it was stored
+	 * @throws IOException if the deletion cannot be written
+	 */
+	public synchronized boolean delete(long id) throws IOException {
+		Record old = get(id);
+		if (old == null) { return false; }
+		write(id, old.finalHash, TOMBSTONE, new MoveList(0));
+		markDirty();
+		unindex(id, old.finalHash);
+		syncIfDue();
+		return true;
+	}
+
+	/**
+	 * @param id a game id
+	 * @return the game, or null if it is not stored
+	 * @throws IOException if it cannot be read
+	 */
+	public synchronized Record get(long id) throws IOException {
+		int n = Math.min(byId.get(id, candidates), candidates.length);
+		for (int i = n - 1; i >= 0; i--) {
+			Record r = read(candidates[i]);
+			if (r != null && r.id == id) { return r; }
+		}
+		return null;
+	}
+
+	/**
+	 * @param finalHash the ZobristHash of a position
+	 * @return every stored game that ended in it
+	 * @throws IOException if they cannot be read
+	 */
+	public synchronized List<Record> findByPosition(long finalHash) throws IOException {
+		long[] locations = new long[Math.max(1, byHash.get(finalHash, candidates))];
+		int n = byHash.get(finalHash, locations);
+		Arrays.sort(locations, 0, n);
+		List<Record> games = new ArrayList<Record>();
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && locations[i] == locations[i - 1]) { continue; }
+			Record r = read(locations[i]);
+			if (r != null && r.finalHash == finalHash && isCurrent(r.id, locations[i])) { games.add(r); }
+		}
+		return games;
+	}
+
+	/**
+	 * Force every append so far to disk and record it in the index watermark.
+	 * @throws IOException if the segment cannot be forced
+	 */
+	public synchronized void sync() throws IOException {
+		active.force(false);
+		// the entries reach the disk before the watermark that says they are there
+		byId.force();
+		byHash.force();
+		long watermark = location(activeNumber, end);
+		byId.setWatermark(watermark);
+		byHash.setWatermark(watermark);
+		byId.setDirty(false);
+		byHash.setDirty(false);
+		byId.force();
+		byHash.force();
+		dirty = false;
+		unsynced = 0;
+	}
+
+	/**
+	 * Compact every sealed segment in which at most half of the bytes belong
+	 * to live games and some record can be dropped. Only one compaction runs
+	 * at a time.
+	 * @return the number of segments compacted
+	 * @throws IOException if a segment cannot be rewritten
+	 */
+	public int compact() throws IOException {
+		int compacted = 0;
+		synchronized (compacting) {
+			for (int number : sealedSegments()) {
+				if (compactSegment(number, 0.5)) { compacted++; }
+			}
+		}
+		return compacted;
+	}
+
+	/**
+	 * Sync and compact on a background thread.
+	 * @param syncMillis the time between syncs, 0 for none
+	 * @param compactMillis the time between compactions, 0 for none
+	 */
+	public synchronized void startBackground(long syncMillis, long compactMillis) {
+		if (background != null) { throw new IllegalStateException("already started"); }
+		background = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "game-store " + dir.getFileName());
+			t.setDaemon(true);
+			return t;
+		});
+		if (syncMillis > 0) {
+			background.scheduleWithFixedDelay(this::syncQuietly, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+		}
+		if (compactMillis > 0) {
+			background.scheduleWithFixedDelay(this::compactQuietly, compactMillis, compactMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the number of segment files
+	 */
+	public synchronized int getSegmentCount() { return segments.size(); }
+
+	/**
+	 * @return the number of stored games
+	 */
+	public synchronized long size() { return byId.size(); }
+
+	@Override
+	public void close() throws IOException {
+		ScheduledExecutorService b;
+		synchronized (this) {
+			if (closed) { return; }
+			closed = true;
+			b = background;
+		}
+		if (b != null) {
+			b.shutdown();
+			try {
+				b.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			sync();
+			byId.close();
+			byHash.close();
+			for (FileChannel c : segments.values()) { c.close(); }
+		}
+	}
+
+	private void syncQuietly() {
+		try {
+			synchronized (this) {
+				if (!closed && unsynced > 0) { sync(); }
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void compactQuietly() {
+		try {
+			compact();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private synchronized List<Integer> sealedSegments() {
+		return closed ? Collections.<Integer>emptyList() : new ArrayList<Integer>(segments.headMap(activeNumber).keySet());
+	}
+
+	/**
+	 * Write one record at the end of the active segment.
+	 */
+	private long write(long id, long finalHash, int status, MoveList moves) throws IOException {
+		int payload = PAYLOAD_FIXED + 2 * moves.size();
+		if (end > SEGMENT_HEADER && end + RECORD_HEADER + payload > segmentBytes) {
+			sync();
+			startSegment(activeNumber + 1);
+		}
+		buffer.clear();
+		buffer.position(RECORD_HEADER);
+		buffer.putLong(id).putLong(finalHash).put((byte) status).putShort((short) moves.size());
+		for (int i = 0; i < moves.size(); i++) { buffer.putShort((short) moves.get(i)); }
+		crc.reset();
+		crc.update(buffer.array(), RECORD_HEADER, payload);
+		buffer.putInt(0, payload).putInt(4, (int) crc.getValue());
+		buffer.flip();
+		long location = location(activeNumber, end);
+		while (buffer.hasRemaining()) { end += active.write(buffer, end); }
+		unsynced++;
+		return location;
+	}
+
+	/**
+	 * Sync once syncEvery records are waiting. Called only after the index
+	 * holds the last record's changes, since the watermark sync records
+	 * tells reopening to skip every record before it.
+	 */
+	private void syncIfDue() throws IOException {
+		if (unsynced >= syncEvery) { sync(); }
+	}
+
+	/**
+	 * Flag the index dirty on disk before the first change after a sync.
+	 */
+	private void markDirty() {
+		if (dirty) { return; }
+		byId.setDirty(true);
+		byHash.setDirty(true);
+		byId.force();
+		byHash.force();
+		dirty = true;
+	}
+
+	/**
+	 * Read and check the record at a location.
+	 * @return the record, or null if there is no complete record there
+	 */
+	private Record read(long location) throws IOException {
+		FileChannel segment = segments.get(segmentOf(location));
+		if (segment == null) { return null; }
+		long offset = offsetOf(location);
+		if (offset + RECORD_HEADER > segment.size()) { return null; }
+		int payload = readRecord(segment, offset);
+		if (payload < 0) { return null; }
+		long id = buffer.getLong();
+		long hash = buffer.getLong();
+		int status = buffer.get() & 0xFF;
+		int count = buffer.getShort() & 0xFFFF;
+		if (status == TOMBSTONE || status >= Game.Status.values().length) { return null; }
+		MoveList moves = new MoveList(count);
+		for (int i = 0; i < count; i++) { moves.add(buffer.getShort() & 0xFFFF); }
+		return new Record(id, hash, Game.Status.values()[status], moves);
+	}
+
+	/**
+	 * Read the record at offset into the buffer, positioned at its payload.
+	 * @return the payload length, or -1 if the record is torn or corrupt
+	 */
+	private int readRecord(FileChannel segment, long offset) throws IOException {
+		buffer.clear().limit(RECORD_HEADER);
+		if (!readFully(segment, offset)) { return -1; }
+		int payload = buffer.getInt(0), checksum = buffer.getInt(4);
+		if (payload < PAYLOAD_FIXED || payload > MAX_PAYLOAD) { return -1; }
+		buffer.clear().limit(payload);
+		if (!readFully(segment, offset + RECORD_HEADER)) { return -1; }
+		crc.reset();
+		crc.update(buffer.array(), 0, payload);
+		if ((int) crc.getValue() != checksum || (buffer.getShort(17) & 0xFFFF) * 2 + PAYLOAD_FIXED != payload) {
+			return -1;
+		}
+		buffer.flip();
+		return payload;
+	}
+
+	private boolean readFully(FileChannel segment, long offset) throws IOException {
+		while (buffer.hasRemaining()) {
+			int n = segment.read(buffer, offset);
+			if (n < 0) { return false; }
+			offset += n;
+		}
+		return true;
+	}
+
+	/**
+	 * Cut a segment back to its last complete record.
+	 * @return the new end of the segment
+	 */
+	private long recover(FileChannel segment) throws IOException {
+		long offset = SEGMENT_HEADER;
+		while (offset < segment.size()) {
+			int payload = readRecord(segment, offset);
+			if (payload < 0) { break; }
+			offset += RECORD_HEADER + payload;
+		}
+		if (offset < segment.size()) {
+			segment.truncate(offset);
+			segment.force(true);
+		}
+		return offset;
+	}
+
+	/**
+	 * Index every record written after the watermark, in order.
+	 */
+	private void reindex() throws IOException {
+		long watermark = Math.min(byId.getWatermark(), byHash.getWatermark());
+		for (Map.Entry<Integer, FileChannel> e : segments.tailMap(segmentOf(watermark), true).entrySet()) {
+			FileChannel segment = e.getValue();
+			long offset = e.getKey() == segmentOf(watermark) ? Math.max(SEGMENT_HEADER, offsetOf(watermark)) : SEGMENT_HEADER;
+			long size = e.getKey() == activeNumber ? end : segment.size();
+			while (offset < size) {
+				int payload = readRecord(segment, offset);
+				if (payload < 0) { break; }
+				long id = buffer.getLong(), hash = buffer.getLong();
+				int status = buffer.get() & 0xFF;
+				long location = location(e.getKey(), offset);
+				Record old = get(id);
+				if (old != null) { unindex(id, old.finalHash); }
+				if (status != TOMBSTONE) {
+					byId.put(id, location);
+					byHash.put(hash, location);
+				}
+				offset += RECORD_HEADER + payload;
+			}
+		}
+		sync();
+	}
+
+	/**
+	 * Remove every index entry of a game id.
+	 */
+	private void unindex(long id, long finalHash) {
+		int n = Math.min(byId.get(id, candidates), candidates.length);
+		long[] locations = Arrays.copyOf(candidates, n);
+		for (long location : locations) {
+			byId.remove(id, location);
+			byHash.remove(finalHash, location);
+		}
+	}
+
+	private boolean isCurrent(long id, long location) {
+		int n = Math.min(byId.get(id, candidates), candidates.length);
+		for (int i = 0; i < n; i++) {
+			if (candidates[i] == location) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * Rewrite a sealed segment with only its live records and tombstones, if
+	 * at most maxLive of its bytes are live, or delete it if nothing in it is
+	 * left to keep. The store's lock is taken for one record at a time and
+	 * for the swap, so appends go on while the copy is written.
+	 */
+	private boolean compactSegment(int number, double maxLive) throws IOException {
+		Path target = segmentPath(number);
+		Path copy = target.resolveSibling(target.getFileName() + ".compact");
+		List<long[]> moved = new ArrayList<long[]>();	// id, hash, old location, new location
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + MAX_PAYLOAD);
+		FileChannel segment;
+		long size, live = 0, offset = SEGMENT_HEADER, outEnd = SEGMENT_HEADER;
+		synchronized (this) {
+			segment = segments.get(number);
+			if (closed || segment == null || number == activeNumber) { return false; }
+			size = segment.size();
+		}
+		try {
+			try (FileChannel out = FileChannel.open(copy, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				out.write(segmentHeader(number), 0);
+				while (offset < size) {
+					long location = location(number, offset), id, hash;
+					boolean tombstone, keep;
+					int payload;
+					synchronized (this) {
+						if (closed) { return false; }
+						payload = readRecord(segment, offset);
+						if (payload < 0) { break; }
+						id = buffer.getLong(0);
+						hash = buffer.getLong(8);
+						tombstone = (buffer.get(16) & 0xFF) == TOMBSTONE;
+						keep = tombstone || isCurrent(id, location);
+						if (keep) {
+							crc.reset();
+							crc.update(buffer.array(), 0, payload);
+							record.clear();
+							record.putInt(payload).putInt((int) crc.getValue()).put(buffer.array(), 0, payload).flip();
+						}
+					}
+					if (keep) {
+						long copied = location(number, outEnd);
+						while (record.hasRemaining()) { outEnd += out.write(record, outEnd); }
+						if (!tombstone) {
+							live += RECORD_HEADER + payload;
+							if (copied != location) { moved.add(new long[] { id, hash, location, copied }); }
+						}
+					}
+					offset += RECORD_HEADER + payload;
+				}
+				if (outEnd > SEGMENT_HEADER && (outEnd == size || live > maxLive * (size - SEGMENT_HEADER))) {
+					return false;	// nothing to drop, or too much still live
+				}
+				out.force(true);
+			}
+			synchronized (this) {
+				if (closed || segments.get(number) != segment) { return false; }
+				if (outEnd == SEGMENT_HEADER) {
+					// nothing live and no tombstones: the segment can simply go
+					segments.remove(number);
+					segment.close();
+					Files.delete(target);
+					return true;
+				}
+				List<long[]> current = new ArrayList<long[]>();
+				for (long[] m : moved) {
+					if (!isCurrent(m[0], m[2])) { continue; }	// replaced or deleted while copying
+					byId.put(m[0], m[3]);
+					byHash.put(m[1], m[3]);
+					current.add(m);
+				}
+				byId.force();
+				byHash.force();
+				segment.close();
+				Files.move(copy, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				segments.put(number, FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE));
+				for (long[] m : current) {
+					byId.remove(m[0], m[2]);
+					byHash.remove(m[1], m[2]);
+				}
+			}
+			return true;
+		} finally {
+			Files.deleteIfExists(copy);
+		}
+	}
+
+	private void startSegment(int number) throws IOException {
+		FileChannel c = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		c.write(segmentHeader(number), 0);
+		c.force(true);
+		segments.put(number, c);
+		active = c;
+		activeNumber = number;
+		end = SEGMENT_HEADER;
+	}
+
+	private static ByteBuffer segmentHeader(int number) {
+		ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+		header.putInt(SEGMENT_MAGIC).putInt(number).flip();
+		return header;
+	}
+
+	private Path segmentPath(int number) {
+		return dir.resolve(String.format("seg-%08d.dat", number));
+	}
+
+	private static long location(int segment, long offset) { return (long) segment << 32 | offset; }
+
+	private static int segmentOf(long location) { return (int) (location >>> 32); }
+
+	private static long offsetOf(long location) { return location & 0xFFFFFFFFL; }
+}
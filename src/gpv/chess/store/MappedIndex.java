@@ -0,0 +1,221 @@
+package gpv.chess.store;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * A memory-mapped multimap from long keys to non-zero long values: an
+ * open-addressing hash table with linear probing, kept at most half full.
+ * The file is a 64-byte header followed by 16-byte slots (key, value):
+ * <pre>
+ * int    MAGIC
+ * int    flags, DIRTY while the owner has changes that are not yet synced
+ * long   capacity, a power of two
+ * long   used slots, live or deleted
+ * long   live entries
+ * long   watermark, free for the owner to record how far the index is current
+ * </pre>
+ * A value of 0 marks an empty slot and -1 a deleted one. A key may appear
+ * with several values. Changes go to the mapping and reach the disk when
+ * the operating system writes the pages back or on force. When the used
+ * slots, live or deleted, reach half the capacity the live entries are
+ * rehashed into a new file sized for them, so deleted slots are reclaimed
+ * and a table of mostly deleted slots shrinks instead of doubling.
+ *
+ * @version Oct 19, 2026
+ */
+final class MappedIndex implements Closeable {
+
+	static final int MAGIC = 0x47494458;	// "GIDX"
+	static final int HEADER = 64;
+	static final int SLOT = 16;
+	static final int DIRTY = 1;
+	static final long MIN_CAPACITY = 16;
+	private static final long DELETED = -1;
+
+	private final Path file;
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	private long capacity;
+
+	private MappedIndex(Path file, FileChannel channel, MappedByteBuffer map) {
+		this.file = file;
+		this.channel = channel;
+		this.map = map;
+		this.capacity = map.getLong(8);
+	}
+
+	/**
+	 * Open an index, creating an empty one if the file does not exist.
+	 * @param file the index file
+	 * @param capacity the number of slots of a new index, a power of two
+	 * @return the index
+	 * @throws IOException if the file cannot be mapped or is not an index
+	 */
+	static MappedIndex open(Path file, long capacity) throws IOException {
+		boolean exists = Files.exists(file);
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (exists) {
+				if (channel.size() < HEADER) { throw new IOException(file + " is not an index"); }
+				MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+				capacity = header.getLong(8);
+				if (header.getInt(0) != MAGIC || Long.bitCount(capacity) != 1
+						|| channel.size() != HEADER + capacity * SLOT) {
+					throw new IOException(file + " is not an index");
+				}
+			} else if (Long.bitCount(capacity) != 1) {
+				throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + capacity * SLOT);
+			if (!exists) {
+				map.putInt(0, MAGIC);
+				map.putLong(8, capacity);
+			}
+			return new MappedIndex(file, channel, map);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Add an entry.
+	 * @param key the key
+	 * @param value a value other than 0 and -1
+	 * @throws IOException if the index has to grow and cannot
+	 */
+	void put(long key, long value) throws IOException {
+		if ((used() + 1) * 2 > capacity) { grow(); }
+		long slot = find(key, 0);
+		map.putLong(offset(slot), key);
+		map.putLong(offset(slot) + 8, value);
+		map.putLong(24, used() + 1);
+		map.putLong(32, size() + 1);
+	}
+
+	/**
+	 * Remove one entry.
+	 * @return true if it was there
+	 */
+	boolean remove(long key, long value) {
+		long slot = find(key, value);
+		if (slot < 0) { return false; }
+		map.putLong(offset(slot) + 8, DELETED);
+		map.putLong(32, size() - 1);
+		return true;
+	}
+
+	/**
+	 * Remove every entry whose value lies in [from, to).
+	 * @return the number removed
+	 */
+	long removeValues(long from, long to) {
+		long removed = 0;
+		for (long slot = 0; slot < capacity; slot++) {
+			long value = map.getLong(offset(slot) + 8);
+			if (value != 0 && value != DELETED && value >= from && value < to) {
+				map.putLong(offset(slot) + 8, DELETED);
+				removed++;
+			}
+		}
+		map.putLong(32, size() - removed);
+		return removed;
+	}
+
+	/**
+	 * @param key a key
+	 * @param values receives up to values.length of the key's values
+	 * @return the number of values the key has, which may exceed values.length
+	 */
+	int get(long key, long[] values) {
+		int n = 0;
+		for (long slot = hash(key); ; slot = (slot + 1) & (capacity - 1)) {
+			long value = map.getLong(offset(slot) + 8);
+			if (value == 0) { return n; }
+			if (value != DELETED && map.getLong(offset(slot)) == key) {
+				if (n < values.length) { values[n] = value; }
+				n++;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of live entries
+	 */
+	long size() { return map.getLong(32); }
+
+	long getWatermark() { return map.getLong(40); }
+
+	void setWatermark(long watermark) { map.putLong(40, watermark); }
+
+	boolean isDirty() { return (map.getInt(4) & DIRTY) != 0; }
+
+	void setDirty(boolean dirty) { map.putInt(4, dirty ? DIRTY : 0); }
+
+	/**
+	 * @return the number of slots
+	 */
+	long capacity() { return capacity; }
+
+	/**
+	 * Write the mapping to disk.
+	 */
+	void force() { map.force(); }
+
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	/**
+	 * @return the slot holding (key, value), or the first empty slot if value is 0,
+	 * 	or -1 if (key, value) is not there
+	 */
+	private long find(long key, long value) {
+		for (long slot = hash(key); ; slot = (slot + 1) & (capacity - 1)) {
+			long v = map.getLong(offset(slot) + 8);
+			if (v == 0) { return value == 0 ? slot : -1; }
+			if (value != 0 && v == value && map.getLong(offset(slot)) == key) { return slot; }
+		}
+	}
+
+	/**
+	 * Rehash the live entries into a file with room for twice as many again,
+	 * which is smaller than this one if most used slots are deleted, and swap
+	 * it in.
+	 */
+	private void grow() throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".grow");
+		Files.deleteIfExists(tmp);
+		long target = Math.max(MIN_CAPACITY, Long.highestOneBit((size() + 1) * 4 - 1) << 1);
+		try (MappedIndex bigger = open(tmp, target)) {
+			for (long slot = 0; slot < capacity; slot++) {
+				long value = map.getLong(offset(slot) + 8);
+				if (value != 0 && value != DELETED) { bigger.put(map.getLong(offset(slot)), value); }
+			}
+			bigger.setWatermark(getWatermark());
+			bigger.setDirty(isDirty());
+		}
+		channel.close();
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		capacity = map.getLong(8);
+	}
+
+	private long used() { return map.getLong(24); }
+
+	private long hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		return key & (capacity - 1);
+	}
+
+	private static int offset(long slot) { return (int) (HEADER + slot * SLOT); }
+}
@@ -0,0 +1,314 @@
+package gpv.chess.store;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import gpv.chess.PositionCodec;
+import gpv.util.Board;
+
+/**
+ * A cache of analysed positions held outside the Java heap, so that a large
+ * working set adds nothing for the garbage collector to trace. Each entry is
+ * a position packed by PositionCodec plus an opaque payload (a score, a best
+ * move, a depth), found by its ZobristHash key.
+ * <br/>
+ * All memory is allocated up front in direct buffers and never exceeds the
+ * byte budget: an index of 16-byte cells (key, slot + 1) with linear probing,
+ * kept at most three quarters full, and fixed-size slots of
+ * <pre>
+ * long   key
+ * short  packed position length
+ * short  payload length
+ * byte*  packed position, then payload
+ * </pre>
+ * with one reference byte per slot, set when the slot is read. When the
+ * slots are full, a new entry replaces one chosen by the clock algorithm:
+ * the hand skips, and clears, slots read since it last passed, so an entry
+ * that is never read is the first to go.
+ * <br/>
+ * Lookups run concurrently under an optimistic read of a StampedLock and
+ * retry under a read lock if a writer got in the way; puts and evictions
+ * take the write lock. Readers only use absolute gets, so the buffer
+ * position a writer moves does not disturb them, and the data copied out of
+ * a slot is only used once the read is known to be consistent.
+ *
+ * @version Oct 19, 2026
+ */
+public final class PositionCache {
+
+	private static final int INDEX_CELL = 16;
+	private static final int SLOT_HEADER = 12;
+	private static final int MAX_BUFFER = 1 << 30;
+
+	private final long budget;
+	private final int slotSize, maxEntry;
+	private final int slots, slotsPerBuffer;
+	private final long indexMask;
+	private final ByteBuffer[] index;
+	private final ByteBuffer[] data;
+	private final ByteBuffer references;
+	private final StampedLock lock = new StampedLock();
+	private final PositionCodec codec = new PositionCodec();
+	private final ThreadLocal<ByteBuffer> scratch;
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+	private int used, hand, count;
+
+	/**
+	 * @param budget the most bytes of memory to use, index included
+	 * @param maxEntry the largest packed position plus payload, in bytes
+	 */
+	public PositionCache(long budget, int maxEntry) {
+		if (maxEntry < 3 || maxEntry > 0xFFFF) { throw new IllegalArgumentException("bad entry size " + maxEntry); }
+		this.budget = budget;
+		this.maxEntry = maxEntry;
+		this.slotSize = (SLOT_HEADER + maxEntry + 7) & ~7;
+		// size for two index cells per slot, then round the index down to a power of two
+		long perSlot = 2 * INDEX_CELL + slotSize + 1;
+		long cells = Long.highestOneBit(Math.max(2, budget / perSlot * 2));
+		long slotCount = Math.min(cells * 3 / 4, (budget - cells * INDEX_CELL) / (slotSize + 1));
+		if (slotCount < 1) { throw new IllegalArgumentException("budget too small for one entry: " + budget); }
+		if (slotCount > Integer.MAX_VALUE - 1) { throw new IllegalArgumentException("budget too large: " + budget); }
+		slots = (int) slotCount;
+		indexMask = cells - 1;
+		index = allocate(cells * INDEX_CELL, INDEX_CELL);
+		slotsPerBuffer = MAX_BUFFER / slotSize;
+		data = allocate((long) slots * slotSize, slotSize);
+		references = ByteBuffer.allocateDirect(slots);
+		scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(slotSize));
+	}
+
+	/**
+	 * Store a position, replacing any entry with the same key.
+	 * @param key its ZobristHash key
+	 * @param b the position
+	 * @param payload the analysis to keep with it
+	 * @return false if the packed position and payload exceed maxEntry bytes
+	 */
+	public boolean put(long key, Board b, byte[] payload) {
+		int positionLength = PositionCodec.encodedSize(b);
+		if (positionLength + payload.length > maxEntry) { return false; }
+		long stamp = lock.writeLock();
+		try {
+			long cell = findCell(key);
+			int slot;
+			if (cell >= 0) {
+				slot = indexInt(cell + 8) - 1;
+			} else {
+				slot = freeSlot();
+				insert(key, slot);
+				count++;
+			}
+			ByteBuffer view = data[slot / slotsPerBuffer];
+			int offset = (slot % slotsPerBuffer) * slotSize;
+			view.putLong(offset, key);
+			view.putShort(offset + 8, (short) positionLength);
+			view.putShort(offset + 10, (short) payload.length);
+			view.position(offset + SLOT_HEADER);
+			PositionCodec.write(b, view);
+			view.put(payload);
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Look up a position.
+	 * @param key its ZobristHash key
+	 * @param b filled with the position on a hit, unless null
+	 * @param payload receives as much of the payload as fits
+	 * @return the length of the payload, or -1 on a miss
+	 */
+	public int get(long key, Board b, byte[] payload) {
+		ByteBuffer copy = scratch.get();
+		long stamp = lock.tryOptimisticRead();
+		boolean found = stamp != 0 && copyOut(key, copy);
+		if (stamp == 0 || !lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				found = copyOut(key, copy);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		if (!found) {
+			misses.increment();
+			return -1;
+		}
+		hits.increment();
+		int positionLength = copy.getShort(8) & 0xFFFF, payloadLength = copy.getShort(10) & 0xFFFF;
+		System.arraycopy(copy.array(), SLOT_HEADER + positionLength, payload, 0, Math.min(payloadLength, payload.length));
+		if (b != null) {
+			copy.limit(SLOT_HEADER + positionLength).position(SLOT_HEADER);
+			codec.read(copy, b);
+		}
+		return payloadLength;
+	}
+
+	/**
+	 * @param key a ZobristHash key
+	 * @return true if the cache holds the position
+	 */
+	public boolean contains(long key) {
+		long stamp = lock.tryOptimisticRead();
+		boolean found = stamp != 0 && findCell(key) >= 0;
+		if (stamp == 0 || !lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				found = findCell(key) >= 0;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return count;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @return the most entries the budget allows
+	 */
+	public int capacity() { return slots; }
+
+	/**
+	 * @return the bytes allocated, never more than the budget
+	 */
+	public long allocatedBytes() {
+		return (indexMask + 1) * INDEX_CELL + (long) slots * slotSize + slots;
+	}
+
+	public long getBudget() { return budget; }
+
+	public long getHits() { return hits.sum(); }
+
+	public long getMisses() { return misses.sum(); }
+
+	public long getEvictions() { return evictions.sum(); }
+
+	/**
+	 * Copy the slot of key, header included, into copy, and mark it read.
+	 * May see a half-written slot when called under an optimistic read, so
+	 * it checks every length before using it.
+	 * @return false if the key is not cached
+	 */
+	private boolean copyOut(long key, ByteBuffer copy) {
+		long cell = findCell(key);
+		if (cell < 0) { return false; }
+		int slot = indexInt(cell + 8) - 1;
+		if (slot < 0 || slot >= slots) { return false; }
+		ByteBuffer buffer = data[slot / slotsPerBuffer];
+		int offset = (slot % slotsPerBuffer) * slotSize;
+		int positionLength = buffer.getShort(offset + 8) & 0xFFFF, payloadLength = buffer.getShort(offset + 10) & 0xFFFF;
+		if (positionLength + payloadLength > maxEntry) { return false; }
+		copy.clear();
+		byte[] bytes = copy.array();
+		for (int i = 0, n = SLOT_HEADER + positionLength + payloadLength; i < n; i++) {
+			bytes[i] = buffer.get(offset + i);
+		}
+		references.put(slot, (byte) 1);	// a lost race only costs the entry a turn of the clock
+		return copy.getLong(0) == key;
+	}
+
+	/**
+	 * @return the cell holding key, or -1
+	 */
+	private long findCell(long key) {
+		for (long i = 0, cell = hash(key); i <= indexMask; i++, cell = (cell + 1) & indexMask) {
+			int slot = indexInt(cell * INDEX_CELL + 8);
+			if (slot == 0) { return -1; }
+			if (indexLong(cell * INDEX_CELL) == key) { return cell * INDEX_CELL; }
+		}
+		return -1;
+	}
+
+	private void insert(long key, int slot) {
+		long cell = hash(key);
+		while (indexInt(cell * INDEX_CELL + 8) != 0) { cell = (cell + 1) & indexMask; }
+		putIndexLong(cell * INDEX_CELL, key);
+		putIndexInt(cell * INDEX_CELL + 8, slot + 1);
+	}
+
+	/**
+	 * Empty a cell and move later cells of the same probe run back into the gap.
+	 */
+	private void remove(long position) {
+		long gap = position / INDEX_CELL;
+		for (long cell = (gap + 1) & indexMask; ; cell = (cell + 1) & indexMask) {
+			int slot = indexInt(cell * INDEX_CELL + 8);
+			if (slot == 0) { break; }
+			long key = indexLong(cell * INDEX_CELL);
+			long home = hash(key);
+			// move the cell back unless its home lies cyclically in (gap, cell]
+			if (((cell - home) & indexMask) >= ((cell - gap) & indexMask)) {
+				putIndexLong(gap * INDEX_CELL, key);
+				putIndexInt(gap * INDEX_CELL + 8, slot);
+				gap = cell;
+			}
+		}
+		putIndexInt(gap * INDEX_CELL + 8, 0);
+	}
+
+	/**
+	 * @return an unused slot, evicting an entry if there is none
+	 */
+	private int freeSlot() {
+		if (used < slots) { return used++; }
+		while (references.get(hand) != 0) {
+			references.put(hand, (byte) 0);
+			hand = hand + 1 == slots ? 0 : hand + 1;
+		}
+		int victim = hand;
+		hand = hand + 1 == slots ? 0 : hand + 1;
+		ByteBuffer buffer = data[victim / slotsPerBuffer];
+		remove(findCell(buffer.getLong((victim % slotsPerBuffer) * slotSize)));
+		count--;
+		evictions.increment();
+		return victim;
+	}
+
+	private long hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		return key & indexMask;
+	}
+
+	private long indexLong(long position) {
+		return index[(int) (position / MAX_BUFFER)].getLong((int) (position % MAX_BUFFER));
+	}
+
+	private int indexInt(long position) {
+		return index[(int) (position / MAX_BUFFER)].getInt((int) (position % MAX_BUFFER));
+	}
+
+	private void putIndexLong(long position, long value) {
+		index[(int) (position / MAX_BUFFER)].putLong((int) (position % MAX_BUFFER), value);
+	}
+
+	private void putIndexInt(long position, int value) {
+		index[(int) (position / MAX_BUFFER)].putInt((int) (position % MAX_BUFFER), value);
+	}
+
+	/**
+	 * Allocate bytes in direct buffers of at most MAX_BUFFER bytes, each a
+	 * whole number of units.
+	 */
+	private static ByteBuffer[] allocate(long bytes, int unit) {
+		long perBuffer = MAX_BUFFER / unit * (long) unit;
+		ByteBuffer[] buffers = new ByteBuffer[(int) ((bytes + perBuffer - 1) / perBuffer)];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = ByteBuffer.allocateDirect((int) Math.min(perBuffer, bytes - i * perBuffer));
+		}
+		return buffers;
+	}
+}
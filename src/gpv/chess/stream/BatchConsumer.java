@@ -0,0 +1,74 @@
+package gpv.chess.stream;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Follows an EventRing and hands every event to one EventHandler. Each poll
+ * handles all events published since the last one as a batch and then
+ * releases their slots with a single store, so a consumer that falls behind
+ * catches up in large cheap batches.
+ *
+ * @version Oct 19, 2026
+ */
+public final class BatchConsumer implements Runnable {
+
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 50000;
+
+	private final EventRing ring;
+	private final EventHandler handler;
+	final Sequence sequence;
+	private volatile boolean running = true;
+
+	BatchConsumer(EventRing ring, EventHandler handler, Sequence sequence) {
+		this.ring = ring;
+		this.handler = handler;
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Handle every event available now.
+	 * @return the number of events handled
+	 */
+	public int poll() {
+		long done = sequence.get();
+		long available = ring.getCursor();
+		if (available <= done) { return 0; }
+		for (long s = done + 1; s <= available; s++) {
+			handler.onEvent(ring.get(s), s, s == available);
+		}
+		sequence.setOrdered(available);
+		return (int) (available - done);
+	}
+
+	/**
+	 * Poll until halted, spinning briefly and then parking while the ring is
+	 * empty. If the handler throws, the consumer stops and the writer will
+	 * block once the ring is full, so handlers should deal with their own
+	 * failures.
+	 */
+	@Override
+	public void run() {
+		int idle = 0;
+		while (running) {
+			if (poll() > 0) {
+				idle = 0;
+			} else if (++idle < SPINS) {
+				Thread.yield();
+			} else {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		poll();
+	}
+
+	/**
+	 * Ask run to return after handling what has been published.
+	 */
+	public void halt() { running = false; }
+
+	/**
+	 * @return the sequence of the last event handled
+	 */
+	public long getSequence() { return sequence.get(); }
+}
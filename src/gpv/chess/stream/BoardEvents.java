@@ -0,0 +1,145 @@
+package gpv.chess.stream;
+
+import java.util.*;
+import gpv.Piece;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Board changes packed into one long each, and a BoardListener that
+ * publishes them to an EventRing. Layout, from the low bits:
+ * <ul>
+ * <li>bits 0-15: the square index (rows for CLEARED)</li>
+ * <li>bits 16-31: the Occupancy code of the piece (columns for CLEARED)</li>
+ * <li>bits 32-35: the type, PLACED, REMOVED or CLEARED</li>
+ * <li>bits 36-63: the id of the board, so that one ring can carry many boards</li>
+ * </ul>
+ * A stream of events replayed with apply from the board's first CLEARED
+ * event rebuilds the board exactly.
+ *
+ * @version Oct 19, 2026
+ */
+public final class BoardEvents {
+
+	public static final int PLACED = 1;
+	public static final int REMOVED = 2;
+	public static final int CLEARED = 3;
+	public static final int MAX_BOARD_ID = (1 << 28) - 1;
+
+	private static final ChessPiece[][] PIECES = new ChessPiece[ChessPieceDescriptor.values().length][2];
+
+	static {
+		for (ChessPieceDescriptor d : ChessPieceDescriptor.values()) {
+			PIECES[d.ordinal()][0] = new ChessPiece(d);
+			PIECES[d.ordinal()][1] = new ChessPiece(d);
+			PIECES[d.ordinal()][1].setHasMoved();
+		}
+	}
+
+	private BoardEvents() { }
+
+	public static long pack(int boardId, int type, int code, int square) {
+		return (long) boardId << 36 | (long) type << 32 | (code & 0xFFFFL) << 16 | (square & 0xFFFF);
+	}
+
+	public static int boardId(long event) { return (int) (event >>> 36); }
+
+	public static int type(long event) { return (int) (event >>> 32) & 0xF; }
+
+	public static int code(long event) { return (int) (event >>> 16) & 0xFFFF; }
+
+	public static int square(long event) { return (int) event & 0xFFFF; }
+
+	/**
+	 * Apply one event to a board. Pieces are shared per descriptor and moved
+	 * flag, so the board must not be used to make moves.
+	 * @param event the event
+	 * @param b the board
+	 */
+	public static void apply(long event, Board b) {
+		switch (type(event)) {
+			case CLEARED:
+				b.setnRows(square(event));
+				b.setnColumns(code(event));
+				b.reset(Collections.<SquareInitializer>emptyList());
+				break;
+			case PLACED:
+				b.putPieceAt(piece(code(event)), b.coordinateOf(square(event)));
+				break;
+			case REMOVED:
+				b.removePieceAt(b.coordinateOf(square(event)));
+				break;
+			default:
+				throw new IllegalArgumentException("unknown event type " + type(event));
+		}
+	}
+
+	/**
+	 * @param code an Occupancy code
+	 * @return the shared piece for it
+	 */
+	static ChessPiece piece(int code) {
+		return PIECES[Occupancy.descriptor(code).ordinal()][Occupancy.hasMoved(code) ? 1 : 0];
+	}
+
+	/**
+	 * Make a listener that publishes a board's changes. Attaching it
+	 * publishes a CLEARED event and a PLACED event per piece, so consumers
+	 * start from the board's current contents.
+	 * @param ring the ring; only the thread changing the board may publish to it
+	 * @param boardId the board's id, at most MAX_BOARD_ID
+	 * @return the listener
+	 */
+	public static Publisher publisher(EventRing ring, int boardId) {
+		if (boardId < 0 || boardId > MAX_BOARD_ID) { throw new IllegalArgumentException("bad board id " + boardId); }
+		return new Publisher(ring, boardId);
+	}
+
+	/**
+	 * Publishes the changes of one board.
+	 */
+	public static final class Publisher implements BoardListener {
+		private final EventRing ring;
+		private final int boardId;
+
+		private Publisher(EventRing ring, int boardId) {
+			this.ring = ring;
+			this.boardId = boardId;
+		}
+
+		/**
+		 * Publish the board's contents and follow its changes.
+		 * @param b the board
+		 */
+		public void attach(Board b) {
+			boardCleared(b);
+			for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+				piecePlaced(b, e.getValue(), e.getKey());
+			}
+			b.addBoardListener(this);
+		}
+
+		/**
+		 * Stop following a board.
+		 * @param b the board
+		 */
+		public void detach(Board b) {
+			b.removeBoardListener(this);
+		}
+
+		@Override
+		public void piecePlaced(Board b, Piece p, Coordinate c) {
+			ring.publish(pack(boardId, PLACED, Occupancy.code((ChessPiece) p), b.squareIndex(c)));
+		}
+
+		@Override
+		public void pieceRemoved(Board b, Piece p, Coordinate c) {
+			ring.publish(pack(boardId, REMOVED, Occupancy.code((ChessPiece) p), b.squareIndex(c)));
+		}
+
+		@Override
+		public void boardCleared(Board b) {
+			ring.publish(pack(boardId, CLEARED, b.getnColumns(), b.getnRows()));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package gpv.chess.stream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format of the spectator feed. Numbers are unsigned LEB128
+ * varints, so squares and Occupancy codes mostly take one or two bytes.
+ * <pre>
+ * keyframe: KEYFRAME version rows columns count (square code)*count
+ * delta:    DELTA fromVersion toVersion count (square code)*count
+ * </pre>
+ * A keyframe lists the occupied squares; a delta lists every square that
+ * changed after fromVersion with its code at toVersion, EMPTY (0) for a
+ * square that was emptied.
+ *
+ * @version Oct 19, 2026
+ */
+public final class DeltaCodec {
+
+	public static final byte KEYFRAME = 1;
+	public static final byte DELTA = 2;
+
+	private DeltaCodec() { }
+
+	static void putVarint(ByteBuffer out, long v) {
+		while ((v & ~0x7FL) != 0) {
+			out.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.put((byte) v);
+	}
+
+	static long getVarint(ByteBuffer in) {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			v |= (long) (b & 0x7F) << shift;
+			if (b >= 0) { return v; }
+		}
+		throw new IllegalArgumentException("varint too long");
+	}
+
+	/**
+	 * @return the most bytes a varint of v takes
+	 */
+	static int varintSize(long v) {
+		int n = 1;
+		while ((v & ~0x7FL) != 0) {
+			v >>>= 7;
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,212 @@
+package gpv.chess.stream;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import gpv.Piece;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * Follows a Board and keeps enough history to tell spectators what changed
+ * since the version they hold, instead of sending the whole board after
+ * every move. Every placed or removed piece advances the version by one and
+ * records its square in a journal; a piece that is marked as moved before
+ * being placed shows up as a change of code on its square. A diff walks the
+ * journal from the spectator's version and keeps each square only at its
+ * last change, so it costs O(changes since then).
+ * <br/>
+ * When a spectator's version has fallen out of the journal, or precedes a
+ * reset of the board, it gets a keyframe instead. writeFrame produces the
+ * broadcast stream: a delta since the previous frame, and every
+ * keyframeInterval frames a keyframe that late joiners can start from.
+ * <br/>
+ * Not thread-safe; call from the thread that changes the board.
+ *
+ * @version Oct 19, 2026
+ */
+public class DeltaTracker implements BoardListener {
+
+	private final int[] journal;	// square changed by each version, indexed by version & mask
+	private final int mask;
+	private final int keyframeInterval;
+	private int rows, columns;
+	private int[] cells = new int[0];
+	private long[] changedAt = new long[0];
+	private int[] scratch = new int[0];
+	private long version;
+	private long resetVersion;	// the oldest version a delta can start from
+	private long lastFrame;
+	private int framesSinceKeyframe;
+
+	/**
+	 * @param journalCapacity how many changes can be diffed, a power of two
+	 * @param keyframeInterval how many broadcast frames a keyframe is sent every
+	 */
+	public DeltaTracker(int journalCapacity, int keyframeInterval) {
+		if (journalCapacity < 1 || Integer.bitCount(journalCapacity) != 1) {
+			throw new IllegalArgumentException("journal capacity must be a power of two: " + journalCapacity);
+		}
+		journal = new int[journalCapacity];
+		mask = journalCapacity - 1;
+		this.keyframeInterval = Math.max(1, keyframeInterval);
+	}
+
+	/**
+	 * Copy the board and follow its changes.
+	 * @param b the board
+	 */
+	public void attach(Board b) {
+		boardCleared(b);
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			piecePlaced(b, e.getValue(), e.getKey());
+		}
+		b.addBoardListener(this);
+	}
+
+	/**
+	 * Stop following a board.
+	 * @param b the board
+	 */
+	public void detach(Board b) {
+		b.removeBoardListener(this);
+	}
+
+	/**
+	 * @return the current version
+	 */
+	public long getVersion() { return version; }
+
+	/**
+	 * @param since a version a spectator holds
+	 * @return true if a delta from it can be produced
+	 */
+	public boolean canDiff(long since) {
+		return since >= resetVersion && since <= version && version - since <= journal.length;
+	}
+
+	/**
+	 * The squares changed after a version, each once.
+	 * @param since a version for which canDiff holds
+	 * @param squares receives the squares; must hold every square of the board
+	 * @return the number of squares
+	 */
+	public int changedSince(long since, int[] squares) {
+		if (!canDiff(since)) { throw new IllegalArgumentException("cannot diff from version " + since); }
+		int n = 0;
+		for (long v = since + 1; v <= version; v++) {
+			int square = journal[(int) v & mask];
+			if (changedAt[square] == v) { squares[n++] = square; }
+		}
+		return n;
+	}
+
+	/**
+	 * Write a delta from a version to the current one.
+	 * @param since a version for which canDiff holds
+	 * @param out the buffer
+	 */
+	public void writeDelta(long since, ByteBuffer out) {
+		int[] squares = scratch;
+		int n = changedSince(since, squares);
+		out.put(DeltaCodec.DELTA);
+		DeltaCodec.putVarint(out, since);
+		DeltaCodec.putVarint(out, version);
+		DeltaCodec.putVarint(out, n);
+		for (int i = 0; i < n; i++) {
+			DeltaCodec.putVarint(out, squares[i]);
+			DeltaCodec.putVarint(out, cells[squares[i]]);
+		}
+	}
+
+	/**
+	 * Write the whole current board.
+	 * @param out the buffer
+	 */
+	public void writeKeyframe(ByteBuffer out) {
+		int count = 0;
+		for (int code : cells) {
+			if (code != Occupancy.EMPTY) { count++; }
+		}
+		out.put(DeltaCodec.KEYFRAME);
+		DeltaCodec.putVarint(out, version);
+		DeltaCodec.putVarint(out, rows);
+		DeltaCodec.putVarint(out, columns);
+		DeltaCodec.putVarint(out, count);
+		for (int square = 0; square < cells.length; square++) {
+			if (cells[square] != Occupancy.EMPTY) {
+				DeltaCodec.putVarint(out, square);
+				DeltaCodec.putVarint(out, cells[square]);
+			}
+		}
+	}
+
+	/**
+	 * Bring one spectator up to date: a delta if possible, otherwise a keyframe.
+	 * @param since the version the spectator holds, or -1 if it holds nothing
+	 * @param out the buffer
+	 * @return true if a delta was written
+	 */
+	public boolean writeUpdate(long since, ByteBuffer out) {
+		if (since >= 0 && canDiff(since)) {
+			writeDelta(since, out);
+			return true;
+		}
+		writeKeyframe(out);
+		return false;
+	}
+
+	/**
+	 * Write the next frame of the broadcast stream.
+	 * @param out the buffer
+	 * @return true if it is a keyframe
+	 */
+	public boolean writeFrame(ByteBuffer out) {
+		boolean keyframe = ++framesSinceKeyframe >= keyframeInterval || !canDiff(lastFrame);
+		if (keyframe) {
+			writeKeyframe(out);
+			framesSinceKeyframe = 0;
+		} else {
+			writeDelta(lastFrame, out);
+		}
+		lastFrame = version;
+		return keyframe;
+	}
+
+	/**
+	 * @return an upper bound on the bytes of any frame for this board
+	 */
+	public int maxFrameSize() {
+		return 1 + 4 * DeltaCodec.varintSize(Long.MAX_VALUE) + cells.length * 2 * DeltaCodec.varintSize(0xFFFF);
+	}
+
+	@Override
+	public void piecePlaced(Board b, Piece p, Coordinate c) {
+		changed(b.squareIndex(c), Occupancy.code((ChessPiece) p));
+	}
+
+	@Override
+	public void pieceRemoved(Board b, Piece p, Coordinate c) {
+		changed(b.squareIndex(c), Occupancy.EMPTY);
+	}
+
+	@Override
+	public void boardCleared(Board b) {
+		rows = b.getnRows();
+		columns = b.getnColumns();
+		if (cells.length != rows * columns) {
+			cells = new int[rows * columns];
+			changedAt = new long[rows * columns];
+			scratch = new int[rows * columns];
+		} else {
+			Arrays.fill(cells, Occupancy.EMPTY);
+		}
+		resetVersion = ++version;
+	}
+
+	private void changed(int square, int code) {
+		cells[square] = code;
+		version++;
+		journal[(int) version & mask] = square;
+		changedAt[square] = version;
+	}
+}
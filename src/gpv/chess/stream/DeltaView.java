@@ -0,0 +1,82 @@
+package gpv.chess.stream;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * A spectator's copy of a board, kept current by applying the frames of a
+ * DeltaTracker. A delta that does not start at the view's version is
+ * refused, and the spectator should ask for a keyframe.
+ *
+ * @version Oct 19, 2026
+ */
+public class DeltaView implements Occupancy {
+
+	private int rows, columns;
+	private int[] cells = new int[0];
+	private long version = -1;
+
+	/**
+	 * Apply one frame.
+	 * @param in the buffer, positioned at a frame; the frame is consumed
+	 * 	even if it is refused
+	 * @return false if the frame was a delta from another version
+	 */
+	public boolean apply(ByteBuffer in) {
+		byte type = in.get();
+		if (type == DeltaCodec.KEYFRAME) {
+			version = DeltaCodec.getVarint(in);
+			rows = (int) DeltaCodec.getVarint(in);
+			columns = (int) DeltaCodec.getVarint(in);
+			if (cells.length != rows * columns) { cells = new int[rows * columns]; }
+			else { Arrays.fill(cells, EMPTY); }
+			readSquares(in, true);
+			return true;
+		}
+		if (type != DeltaCodec.DELTA) { throw new IllegalArgumentException("unknown frame type " + type); }
+		long from = DeltaCodec.getVarint(in);
+		long to = DeltaCodec.getVarint(in);
+		boolean matches = from == version;
+		readSquares(in, matches);
+		if (matches) { version = to; }
+		return matches;
+	}
+
+	private void readSquares(ByteBuffer in, boolean store) {
+		int count = (int) DeltaCodec.getVarint(in);
+		for (int i = 0; i < count; i++) {
+			int square = (int) DeltaCodec.getVarint(in);
+			int code = (int) DeltaCodec.getVarint(in);
+			if (store) { cells[square] = code; }
+		}
+	}
+
+	/**
+	 * @return the version held, -1 before the first keyframe
+	 */
+	public long getVersion() { return version; }
+
+	@Override
+	public int codeAt(int square) { return cells[square]; }
+
+	public int getRows() { return rows; }
+
+	public int getColumns() { return columns; }
+
+	/**
+	 * Put the view's pieces on a board, replacing its contents. The pieces
+	 * are shared per descriptor and moved flag, so the board must not be
+	 * used to make moves.
+	 * @param b the board
+	 */
+	public void copyTo(Board b) {
+		b.setnRows(rows);
+		b.setnColumns(columns);
+		b.reset(Collections.<SquareInitializer>emptyList());
+		for (int square = 0; square < cells.length; square++) {
+			if (cells[square] != EMPTY) { b.putPieceAt(BoardEvents.piece(cells[square]), b.coordinateOf(square)); }
+		}
+	}
+}
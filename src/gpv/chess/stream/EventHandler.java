@@ -0,0 +1,17 @@
+package gpv.chess.stream;
+
+/**
+ * Receives the events of an EventRing, in order, on a consumer's thread.
+ *
+ * @version Oct 19, 2026
+ */
+public interface EventHandler {
+
+	/**
+	 * @param event the event
+	 * @param sequence its position in the ring's stream
+	 * @param endOfBatch true for the last event currently available, the
+	 * 	time to flush anything buffered
+	 */
+	void onEvent(long event, long sequence, boolean endOfBatch);
+}
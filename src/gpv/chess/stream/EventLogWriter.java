@@ -0,0 +1,105 @@
+package gpv.chess.stream;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * An EventHandler that appends events to a file, eight bytes each. Events
+ * are collected in a direct buffer and written when it fills up and at the
+ * end of every batch, so a busy ring costs one write call per batch rather
+ * than per event. With sync set the file is also forced to disk at the end
+ * of each batch.
+ * <br/>
+ * A failed write or force does not stop the consumer, which would leave the
+ * ring full and its writer parked: the writer keeps the first failure, and
+ * drops and counts every event after it.
+ *
+ * @version Oct 19, 2026
+ */
+public class EventLogWriter implements EventHandler, Closeable {
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final boolean sync;
+	private volatile IOException failure;
+	private volatile long dropped;
+
+	/**
+	 * @param file the log; created if missing, appended to otherwise
+	 * @param bufferEvents how many events to collect before writing
+	 * @param sync whether to force each batch to disk
+	 * @throws IOException if the file cannot be opened
+	 */
+	public EventLogWriter(Path file, int bufferEvents, boolean sync) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		buffer = ByteBuffer.allocateDirect(Math.max(1, bufferEvents) * 8);
+		this.sync = sync;
+	}
+
+	@Override
+	public void onEvent(long event, long sequence, boolean endOfBatch) {
+		if (failure != null) {
+			dropped++;	// only the consumer thread writes it
+			return;
+		}
+		buffer.putLong(event);
+		if (endOfBatch || !buffer.hasRemaining()) {
+			try {
+				flush(endOfBatch && sync);
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+	}
+
+	/**
+	 * @return the first write or force that failed, or null
+	 */
+	public IOException getFailure() { return failure; }
+
+	/**
+	 * @return the number of events not written because of the failure; with
+	 * 	sync set, events written but not forced before it are not counted
+	 */
+	public long getDropped() { return dropped; }
+
+	private void flush(boolean force) throws IOException {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) { channel.write(buffer); }
+		} finally {
+			dropped += (buffer.remaining() + 7) / 8;	// counting an event cut short
+			buffer.clear();
+		}
+		if (force) { channel.force(false); }
+	}
+
+	/**
+	 * Write what is buffered and close the file.
+	 * @throws IOException if that fails, or the failure that stopped the log
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (failure == null) { flush(sync); }
+		} finally {
+			channel.close();
+		}
+		if (failure != null) { throw failure; }
+	}
+
+	/**
+	 * @param file a log written by this class
+	 * @return its events
+	 * @throws IOException if it cannot be read
+	 */
+	public static long[] read(Path file) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+		long[] events = new long[bytes.remaining() / 8];
+		bytes.asLongBuffer().get(events);
+		return events;
+	}
+}
@@ -0,0 +1,102 @@
+package gpv.chess.stream;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A preallocated ring of long events with one writer and any number of
+ * consumers, after the LMAX Disruptor. The writer claims the next sequence,
+ * stores the event in the slot and publishes by advancing its cursor; each
+ * consumer follows the cursor with a sequence of its own and handles every
+ * event published since its last look in one batch. The writer only waits
+ * when it would overwrite a slot that the slowest consumer has not handled
+ * yet. Publishing neither allocates nor takes a lock.
+ * <br/>
+ * Only one thread may publish. Consumers should be added before publishing
+ * starts; a consumer added later only sees events published after it.
+ *
+ * @version Oct 19, 2026
+ */
+public final class EventRing {
+
+	private final long[] slots;
+	private final int mask;
+	private final Sequence cursor = new Sequence(-1);
+	private volatile Sequence[] gates = new Sequence[0];
+	private long cachedGate = -1;	// writer only
+
+	/**
+	 * @param capacity the number of slots, a power of two
+	 */
+	public EventRing(int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		slots = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Publish one event, waiting for the slowest consumer if the ring is full.
+	 * @param event the event
+	 * @return its sequence
+	 */
+	public long publish(long event) {
+		long next = cursor.get() + 1;
+		long wrap = next - slots.length;
+		if (wrap > cachedGate) {
+			long gate;
+			while (wrap > (gate = minimumGate(next - 1))) { LockSupport.parkNanos(1); }
+			cachedGate = gate;
+		}
+		slots[(int) next & mask] = event;
+		cursor.setOrdered(next);
+		return next;
+	}
+
+	/**
+	 * Add a consumer. Run it on a thread of its own, or call poll from
+	 * anywhere as long as only one thread does so at a time.
+	 * @param handler receives the events
+	 * @return the consumer
+	 */
+	public synchronized BatchConsumer addConsumer(EventHandler handler) {
+		BatchConsumer c = new BatchConsumer(this, handler, new Sequence(cursor.get()));
+		Sequence[] g = Arrays.copyOf(gates, gates.length + 1);
+		g[gates.length] = c.sequence;
+		gates = g;
+		return c;
+	}
+
+	/**
+	 * Stop waiting for a consumer; the writer may then overwrite events it
+	 * has not handled.
+	 * @param c the consumer
+	 */
+	public synchronized void removeConsumer(BatchConsumer c) {
+		Sequence[] g = new Sequence[gates.length];
+		int n = 0;
+		for (Sequence s : gates) {
+			if (s != c.sequence) { g[n++] = s; }
+		}
+		gates = Arrays.copyOf(g, n);
+	}
+
+	/**
+	 * @return the sequence of the last published event, -1 if none
+	 */
+	public long getCursor() { return cursor.get(); }
+
+	/**
+	 * @return the number of slots
+	 */
+	public int getCapacity() { return slots.length; }
+
+	long get(long sequence) { return slots[(int) sequence & mask]; }
+
+	private long minimumGate(long max) {
+		long min = max;
+		for (Sequence s : gates) { min = Math.min(min, s.get()); }
+		return min;
+	}
+}
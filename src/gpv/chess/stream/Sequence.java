@@ -0,0 +1,30 @@
+package gpv.chess.stream;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A counter owned by one thread and read by others, padded so that it sits
+ * on a cache line of its own; otherwise the producer's and the consumers'
+ * counters would share a line and every update would invalidate the others.
+ *
+ * @version Oct 19, 2026
+ */
+final class Sequence {
+
+	private static final AtomicLongFieldUpdater<Sequence> VALUE =
+			AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+	long p1, p2, p3, p4, p5, p6, p7;
+	private volatile long value;
+	long q1, q2, q3, q4, q5, q6, q7;
+
+	Sequence(long initial) { value = initial; }
+
+	long get() { return value; }
+
+	/**
+	 * Store without a full fence; earlier writes are still visible to any
+	 * thread that reads the new value.
+	 */
+	void setOrdered(long v) { VALUE.lazySet(this, v); }
+}
@@ -0,0 +1,175 @@
+package gpv.chess.tablebase;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import gpv.Piece;
+import gpv.chess.*;
+import gpv.util.*;
+
+/**
+ * A memory-mapped endgame table for a king and one piece against a lone king
+ * on an 8x8 board. Every position has one byte, at
+ * <pre>
+ * index = side to move * 2^18 + strong king square * 2^12 + strong piece square * 2^6 + lone king square
+ * </pre>
+ * with the strong side as white (side to move 0 = white) and squares numbered
+ * as by Board.squareIndex. A value is one of
+ * <ul>
+ * <li>DRAW;</li>
+ * <li>a win for the side to move, mate in distance(value) plies;</li>
+ * <li>a loss for the side to move, mated in distance(value) plies;</li>
+ * <li>ILLEGAL, for positions that cannot occur.</li>
+ * </ul>
+ * Probing reads the mapped file directly and allocates nothing. The file is a
+ * 16-byte header (MAGIC, material ordinal, size, reserved) followed by SIZE
+ * value bytes.
+ *
+ * @version Oct 19, 2026
+ */
+public class Tablebase {
+
+	/**
+	 * The supported material balances, named by their strong piece.
+	 */
+	public enum Material {
+		KQK(PieceName.QUEEN), KRK(PieceName.ROOK), KPK(PieceName.PAWN);
+
+		private final PieceName strong;
+
+		private Material(PieceName strong) { this.strong = strong; }
+
+		/**
+		 * @return the strong side's piece besides its king
+		 */
+		public PieceName getStrong() { return strong; }
+
+		/**
+		 * @return the file name the generator writes
+		 */
+		public String fileName() { return name().toLowerCase() + ".gtb"; }
+	}
+
+	public static final int MAGIC = 0x47544231;	// "GTB1"
+	public static final int SIZE = 2 * 64 * 64 * 64;
+	public static final int HEADER = 16;
+
+	public static final int DRAW = 0;
+	public static final int LOSS = 128;
+	public static final int ILLEGAL = 255;
+
+	private final Material material;
+	private final ByteBuffer values;
+
+	Tablebase(Material material, ByteBuffer values) {
+		this.material = material;
+		this.values = values;
+	}
+
+	/**
+	 * Map a table file.
+	 * @param file the file
+	 * @return the table
+	 * @throws IOException if the file cannot be mapped or is not a table
+	 */
+	public static Tablebase open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() != HEADER + SIZE) { throw new IOException(file + " has the wrong size"); }
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (map.getInt(0) != MAGIC || map.getInt(8) != SIZE) { throw new IOException(file + " is not a tablebase"); }
+			int ordinal = map.getInt(4);
+			if (ordinal < 0 || ordinal >= Material.values().length) { throw new IOException(file + " has unknown material"); }
+			map.position(HEADER);
+			return new Tablebase(Material.values()[ordinal], map.slice());
+		}
+	}
+
+	/**
+	 * @return the material this table covers
+	 */
+	public Material getMaterial() { return material; }
+
+	/**
+	 * @param strongToMove true if the strong side is to move
+	 * @param strongKing square of the strong side's king
+	 * @param strongPiece square of the strong side's other piece
+	 * @param loneKing square of the lone king
+	 * @return the value of the position
+	 */
+	public int probe(boolean strongToMove, int strongKing, int strongPiece, int loneKing) {
+		return values.get(index(strongToMove ? 0 : 1, strongKing, strongPiece, loneKing)) & 0xFF;
+	}
+
+	/**
+	 * @param index a position index
+	 * @return the value of the position
+	 */
+	public int probe(int index) {
+		return values.get(index) & 0xFF;
+	}
+
+	/**
+	 * Probe the position on an 8x8 board. Either color may be the strong side;
+	 * a black strong side is looked up with the board mirrored top to bottom.
+	 * @param b the board, holding exactly this table's material
+	 * @param toMove the side to move
+	 * @return the value, or ILLEGAL if the board does not hold this material
+	 */
+	public int probe(Board b, PlayerColor toMove) {
+		if (b.getnRows() != 8 || b.getnColumns() != 8 || b.getPieces().size() != 3) { return ILLEGAL; }
+		PlayerColor strong = null;
+		for (Piece p : b.getPieces().values()) {
+			if (((ChessPiece) p).getName() == material.getStrong()) { strong = ((ChessPiece) p).getColor(); }
+		}
+		if (strong == null) { return ILLEGAL; }
+		int strongKing = -1, strongPiece = -1, loneKing = -1;
+		for (Map.Entry<Coordinate, Piece> e : b.getPieces().entrySet()) {
+			ChessPiece p = (ChessPiece) e.getValue();
+			int square = b.squareIndex(e.getKey());
+			if (strong == PlayerColor.BLACK) { square = mirror(square); }
+			if (p.getColor() != strong && p.getName() == PieceName.KING) { loneKing = square; }
+			else if (p.getColor() == strong && p.getName() == PieceName.KING) { strongKing = square; }
+			else if (p.getColor() == strong && p.getName() == material.getStrong()) { strongPiece = square; }
+		}
+		if (strongKing < 0 || strongPiece < 0 || loneKing < 0) { return ILLEGAL; }
+		return probe(toMove == strong, strongKing, strongPiece, loneKing);
+	}
+
+	/**
+	 * @return the position index
+	 */
+	public static int index(int sideToMove, int strongKing, int strongPiece, int loneKing) {
+		return (sideToMove << 18) | (strongKing << 12) | (strongPiece << 6) | loneKing;
+	}
+
+	/**
+	 * @return the square with its row flipped
+	 */
+	static int mirror(int square) {
+		return (7 - (square >>> 3)) * 8 + (square & 7);
+	}
+
+	/**
+	 * @param value a probe result
+	 * @return true if the side to move wins
+	 */
+	public static boolean isWin(int value) { return value > DRAW && value < LOSS; }
+
+	/**
+	 * @param value a probe result
+	 * @return true if the side to move loses
+	 */
+	public static boolean isLoss(int value) { return value >= LOSS && value != ILLEGAL; }
+
+	/**
+	 * @param value a probe result
+	 * @return the number of plies to mate, for a win or loss
+	 */
+	public static int distance(int value) { return isLoss(value) ? value - LOSS : value; }
+
+	static int win(int plies) { return plies; }
+
+	static int loss(int plies) { return LOSS + plies; }
+}
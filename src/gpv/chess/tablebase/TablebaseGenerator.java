@@ -0,0 +1,334 @@
+package gpv.chess.tablebase;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import gpv.chess.*;
+import gpv.chess.tablebase.Tablebase.Material;
+import gpv.util.*;
+
+/**
+ * Builds a Tablebase by retrograde analysis, with ChessPiece.canMove as the
+ * only source of movement rules.
+ * <br/>
+ * The first pass visits every index once. It classifies the position as
+ * illegal, mated, stalemated or undecided, and records the successor index of
+ * every legal move in a compact per-chunk array. A move is legal if, after it,
+ * no enemy piece's canMove reaches the mover's king. Each later pass d
+ * resolves the undecided positions that are won in d plies (some successor
+ * was lost in d-1) or lost in d plies (every successor was won sooner). The
+ * passes stop when nothing changes, and whatever is left is a draw.
+ * <br/>
+ * Both phases run chunk by chunk on all cores. The working set is one byte
+ * per position, a one-bit-per-position bitset of undecided positions, and
+ * the successor arrays.
+ * <br/>
+ * canMove has no promotion. For KPK a pawn reaching the last row is promoted
+ * to a queen, and the game continues in a KQK table that must be supplied.
+ *
+ * @version Oct 19, 2026
+ */
+public class TablebaseGenerator {
+
+	static final int CHUNK_BITS = 12;
+	static final int CHUNK = 1 << CHUNK_BITS;
+
+	// successor codes that are not indices in this table
+	private static final int DRAWN_CHILD = -1;
+	private static final int PROMOTION_BASE = -2;
+
+	private final Material material;
+	private final Tablebase promotion;
+	private final byte[] values = new byte[Tablebase.SIZE];
+	private final long[] undecided = new long[Tablebase.SIZE / 64];
+	private final int[][] offsets = new int[Tablebase.SIZE / CHUNK][];
+	private final int[][] children = new int[Tablebase.SIZE / CHUNK][];
+
+	/**
+	 * @param material the table to build
+	 * @param promotion the KQK table, needed only for KPK
+	 */
+	public TablebaseGenerator(Material material, Tablebase promotion) {
+		if (material.getStrong() == PieceName.PAWN && (promotion == null || promotion.getMaterial() != Material.KQK)) {
+			throw new IllegalArgumentException(material + " needs the KQK table for promotions");
+		}
+		this.material = material;
+		this.promotion = promotion;
+	}
+
+	/**
+	 * Run the analysis.
+	 * @return the value of every position, indexed as in Tablebase
+	 */
+	public byte[] generate() {
+		ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(material));
+		IntStream.range(0, offsets.length).parallel().forEach(c -> classify(c, scratch.get()));
+		for (int d = 1; d < Tablebase.LOSS - 1; d++) {
+			final int plies = d;
+			long changed = IntStream.range(0, offsets.length).parallel().mapToLong(c -> resolve(c, plies)).sum();
+			if (changed == 0) { break; }
+		}
+		Arrays.fill(offsets, null);
+		Arrays.fill(children, null);
+		return values;
+	}
+
+	/**
+	 * Generate and write a table.
+	 * @param file the file to write
+	 * @return the table, mapped from the new file
+	 * @throws IOException if the file cannot be written
+	 */
+	public Tablebase write(Path file) throws IOException {
+		generate();
+		ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER);
+		header.putInt(Tablebase.MAGIC).putInt(material.ordinal()).putInt(Tablebase.SIZE).putInt(0).flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (header.hasRemaining()) { channel.write(header); }
+			ByteBuffer body = ByteBuffer.wrap(values);
+			while (body.hasRemaining()) { channel.write(body); }
+			channel.force(true);
+		}
+		return Tablebase.open(file);
+	}
+
+	/**
+	 * First pass over one chunk.
+	 */
+	private void classify(int chunk, Scratch s) {
+		int[] offset = new int[CHUNK + 1];
+		int[] kids = new int[CHUNK * 8];
+		int n = 0;
+		int base = chunk << CHUNK_BITS;
+		for (int i = 0; i < CHUNK; i++) {
+			offset[i] = n;
+			int index = base + i;
+			if (!s.setUp(index)) {
+				values[index] = (byte) Tablebase.ILLEGAL;
+				continue;
+			}
+			int before = n;
+			for (int t = 0; t < 64; t++) {
+				for (int mover = 0; mover < s.moverCount(); mover++) {
+					int child = s.successor(mover, t);
+					if (child == Scratch.NONE) { continue; }
+					if (n == kids.length) { kids = Arrays.copyOf(kids, kids.length * 2); }
+					kids[n++] = child;
+				}
+			}
+			if (n == before) {
+				values[index] = (byte) (s.inCheck() ? Tablebase.loss(0) : Tablebase.DRAW);
+			} else {
+				undecided[index >>> 6] |= 1L << index;
+			}
+		}
+		offset[CHUNK] = n;
+		offsets[chunk] = offset;
+		children[chunk] = Arrays.copyOf(kids, n);
+	}
+
+	/**
+	 * Pass d over one chunk.
+	 * @return the number of positions decided
+	 */
+	private long resolve(int chunk, int d) {
+		int[] offset = offsets[chunk];
+		int[] kids = children[chunk];
+		int base = chunk << CHUNK_BITS;
+		long changed = 0;
+		for (int i = 0; i < CHUNK; i++) {
+			int index = base + i;
+			if ((undecided[index >>> 6] & (1L << index)) == 0) { continue; }
+			boolean win = false;
+			boolean allLost = true;
+			for (int k = offset[i]; k < offset[i + 1]; k++) {
+				int v = childValue(kids[k]);
+				if (v == Tablebase.loss(d - 1)) { win = true; break; }
+				if (!(Tablebase.isWin(v) && Tablebase.distance(v) < d)) { allLost = false; }
+			}
+			if (win || allLost) {
+				values[index] = (byte) (win ? Tablebase.win(d) : Tablebase.loss(d));
+				changed++;
+			}
+		}
+		// clear the bits only after the chunk is done; other chunks read them
+		for (int i = 0; i < CHUNK; i++) {
+			int index = base + i;
+			if (values[index] != 0) { undecided[index >>> 6] &= ~(1L << index); }
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the value of a successor, DRAW when it is still undecided
+	 */
+	private int childValue(int child) {
+		if (child == DRAWN_CHILD) { return Tablebase.DRAW; }
+		if (child <= PROMOTION_BASE) { return promotion.probe(PROMOTION_BASE - child); }
+		return values[child] & 0xFF;
+	}
+
+	/**
+	 * One thread's board and pieces. Every piece other than an unmoved pawn is
+	 * marked as moved, so no castling rights are in play.
+	 */
+	private static final class Scratch {
+		static final int NONE = Integer.MIN_VALUE;
+
+		private final Material material;
+		private final Board board = new Board(8, 8);
+		private final ChessPiece whiteKing = moved(ChessPieceDescriptor.WHITEKING);
+		private final ChessPiece blackKing = moved(ChessPieceDescriptor.BLACKKING);
+		private final ChessPiece strong;
+		private final ChessPiece unmovedPawn = new ChessPiece(ChessPieceDescriptor.WHITEPAWN);
+		private final Coordinate[] squares = new Coordinate[64];
+		private int side, wk, sp, bk;
+
+		Scratch(Material material) {
+			this.material = material;
+			ChessPieceDescriptor d = material == Material.KQK ? ChessPieceDescriptor.WHITEQUEEN
+					: material == Material.KRK ? ChessPieceDescriptor.WHITEROOK : ChessPieceDescriptor.WHITEPAWN;
+			strong = moved(d);
+			for (int i = 0; i < 64; i++) { squares[i] = board.coordinateOf(i); }
+		}
+
+		private static ChessPiece moved(ChessPieceDescriptor d) {
+			ChessPiece p = new ChessPiece(d);
+			p.setHasMoved();
+			return p;
+		}
+
+		private boolean isPawn() { return material.getStrong() == PieceName.PAWN; }
+
+		private ChessPiece strongPiece(int square) {
+			return isPawn() && square >>> 3 == 1 ? unmovedPawn : strong;
+		}
+
+		/**
+		 * Put the position on the board.
+		 * @return false if the position is illegal
+		 */
+		boolean setUp(int index) {
+			side = index >>> 18;
+			wk = (index >>> 12) & 63;
+			sp = (index >>> 6) & 63;
+			bk = index & 63;
+			if (wk == sp || wk == bk || sp == bk) { return false; }
+			if (isPawn() && (sp >>> 3 == 0 || sp >>> 3 == 7)) { return false; }
+			board.reset(java.util.Collections.<SquareInitializer>emptyList());
+			board.putPieceAt(whiteKing, squares[wk]);
+			board.putPieceAt(strongPiece(sp), squares[sp]);
+			board.putPieceAt(blackKing, squares[bk]);
+			// the side that just moved may not have left its king attacked
+			return side == 0 ? !blackAttacked(bk) : !whiteAttacked(wk);
+		}
+
+		int moverCount() { return side == 0 ? 2 : 1; }
+
+		boolean inCheck() { return side == 0 ? whiteAttacked(wk) : blackAttacked(bk); }
+
+		/**
+		 * Try one move of the side to move.
+		 * @param mover 0 for the king, 1 for the strong piece
+		 * @param t the target square
+		 * @return the successor code, or NONE if the move is not legal
+		 */
+		int successor(int mover, int t) {
+			if (side == 1) {
+				if (!blackKing.canMove(squares[bk], squares[t], board)) { return NONE; }
+				if (t == sp) {
+					// capturing the last piece is a draw if the king is then safe
+					return kingAttackedAfter(blackKing, bk, t, wk, whiteKing) ? NONE : DRAWN_CHILD;
+				}
+				if (whiteAttackedIf(bk, t)) { return NONE; }
+				return Tablebase.index(0, wk, sp, t);
+			}
+			if (mover == 0) {
+				if (!whiteKing.canMove(squares[wk], squares[t], board)) { return NONE; }
+				if (blackAttacksSquare(t)) { return NONE; }
+				return Tablebase.index(1, t, sp, bk);
+			}
+			ChessPiece p = strongPiece(sp);
+			if (t == bk || !p.canMove(squares[sp], squares[t], board)) { return NONE; }
+			// the strong piece never shields the white king, so its moves are always legal
+			if (isPawn() && t >>> 3 == 7) { return PROMOTION_BASE - Tablebase.index(1, wk, t, bk); }
+			return Tablebase.index(1, wk, t, bk);
+		}
+
+		private boolean whiteAttacked(int square) {
+			return blackKing.canMove(squares[bk], squares[square], board);
+		}
+
+		private boolean blackAttacked(int square) {
+			return whiteKing.canMove(squares[wk], squares[square], board)
+					|| strongPiece(sp).canMove(squares[sp], squares[square], board);
+		}
+
+		/**
+		 * @return true if the black king on 'to' (having moved from 'from')
+		 * 	would be attacked by a white piece
+		 */
+		private boolean whiteAttackedIf(int from, int to) {
+			board.removePieceAt(squares[from]);
+			board.putPieceAt(blackKing, squares[to]);
+			boolean attacked = blackAttacked(to);
+			board.removePieceAt(squares[to]);
+			board.putPieceAt(blackKing, squares[from]);
+			return attacked;
+		}
+
+		/**
+		 * @return true if the white king would be attacked on 'square' by the black king
+		 */
+		private boolean blackAttacksSquare(int square) {
+			board.removePieceAt(squares[wk]);
+			board.putPieceAt(whiteKing, squares[square]);
+			boolean attacked = blackKing.canMove(squares[bk], squares[square], board);
+			board.removePieceAt(squares[square]);
+			board.putPieceAt(whiteKing, squares[wk]);
+			return attacked;
+		}
+
+		/**
+		 * @return true if the king capturing on 'to' would then be attacked by
+		 * 	the other king
+		 */
+		private boolean kingAttackedAfter(ChessPiece king, int from, int to, int otherSquare, ChessPiece other) {
+			ChessPiece captured = (ChessPiece) board.removePieceAt(squares[to]);
+			board.removePieceAt(squares[from]);
+			board.putPieceAt(king, squares[to]);
+			boolean attacked = other.canMove(squares[otherSquare], squares[to], board);
+			board.removePieceAt(squares[to]);
+			board.putPieceAt(king, squares[from]);
+			board.putPieceAt(captured, squares[to]);
+			return attacked;
+		}
+	}
+
+	/**
+	 * Generate KQK, KRK and KPK into a directory.
+	 * @param args the directory, default the current one
+	 * @throws IOException if a table cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		Path dir = Paths.get(args.length > 0 ? args[0] : ".");
+		Tablebase kqk = null;
+		for (Material m : Material.values()) {
+			long start = System.nanoTime();
+			Tablebase t = new TablebaseGenerator(m, kqk).write(dir.resolve(m.fileName()));
+			if (m == Material.KQK) { kqk = t; }
+			int wins = 0, draws = 0, longest = 0;
+			for (int i = 0; i < Tablebase.SIZE; i++) {
+				int v = t.probe(i);
+				if (Tablebase.isWin(v)) { wins++; longest = Math.max(longest, Tablebase.distance(v)); }
+				else if (v == Tablebase.DRAW) { draws++; }
+			}
+			System.out.printf("%s: %d wins, %d draws, longest mate %d plies, %.1fs%n",
+					m, wins, draws, longest, (System.nanoTime() - start) / 1e9);
+		}
+	}
+}
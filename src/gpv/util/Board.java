@@ -23,6 +23,8 @@ import gpv.Piece;
 public class Board
 {
 	Map<Coordinate, Piece> board;
+	private final Map<Coordinate, Piece> pieces;
+	private BoardListener[] listeners = new BoardListener[0];
 	public int nRows;
 	public int nColumns;
 	
@@ -36,6 +38,7 @@ public class Board
 		nRows = maxRows;
 		nColumns = maxColumns;
 		board = new HashMap<Coordinate, Piece>();
+		pieces = Collections.unmodifiableMap(board);
 	}
 	
 	/**
@@ -60,27 +63,116 @@ public class Board
 	}
 	
 	/**
-	 * Clear the board and re-initialize it with the specified configuration
+	 * @return a read-only view of the occupied squares and their pieces
+	 */
+	public Map<Coordinate, Piece> getPieces()
+	{
+		return pieces;
+	}
+	
+	/**
+	 * Clear the board and re-initialize it with the specified configuration.
+	 * A later initializer for the same square replaces the earlier piece.
 	 * @param initializers a configuration consisting of a list of 
 	 * 	SquareInitializers for those squares containing pieces.
 	 */
 	public void reset(List<SquareInitializer> initializers)
 	{
+		BoardMutationEvent event = new BoardMutationEvent();
+		event.begin();
 		board.clear();
+		for (BoardListener l : listeners) { l.boardCleared(this); }
 		for (SquareInitializer si : initializers) {
-			board.put(si.getSquare(), si.getPiece());
+			Piece previous = board.put(si.getSquare(), si.getPiece());
+			for (BoardListener l : listeners) {
+				if (previous != null) { l.pieceRemoved(this, previous, si.getSquare()); }
+				l.piecePlaced(this, si.getPiece(), si.getSquare());
+			}
+		}
+		if (event.isEnabled() && FlightRecording.shouldCommit(event)) {
+			event.operation = "reset";
+			event.piece = "";
+			event.square = "";
+			event.pieceCount = initializers.size();
+			event.commit();
 		}
 	}
 	
 	/**
 	 * Place a piece p at the given location
-	 * @param p the piece to place
+	 * @param p the piece to place, or null to empty the square
 	 * @param c the coordinate of the square
-	 * @return the piece that was placed
+	 * @return the piece that was previously on the square or null if none
 	 */
 	public Piece putPieceAt(Piece p, Coordinate c)
 	{
-		return board.put(c, p);
+		if (p == null) {
+			return removePieceAt(c);
+		}
+		BoardMutationEvent event = new BoardMutationEvent();
+		event.begin();
+		Piece previous = board.put(c, p);
+		for (BoardListener l : listeners) {
+			if (previous != null) { l.pieceRemoved(this, previous, c); }
+			l.piecePlaced(this, p, c);
+		}
+		if (event.isEnabled() && FlightRecording.shouldCommit(event)) {
+			event.operation = "putPieceAt";
+			event.piece = String.valueOf(p.getDescriptor());
+			event.square = String.valueOf(c);
+			event.pieceCount = 1;
+			event.commit();
+		}
+		return previous;
+	}
+
+	/**
+	 * Remove the piece, if any, at the given location
+	 * @param c the coordinate of the square
+	 * @return the piece that was removed or null if none
+	 */
+	public Piece removePieceAt(Coordinate c)
+	{
+		Piece previous = board.remove(c);
+		if (previous != null) {
+			for (BoardListener l : listeners) { l.pieceRemoved(this, previous, c); }
+		}
+		return previous;
+	}
+	
+	/**
+	 * Register a listener for every later change to this board.
+	 * @param l the listener
+	 */
+	public void addBoardListener(BoardListener l)
+	{
+		BoardListener[] more = Arrays.copyOf(listeners, listeners.length + 1);
+		more[listeners.length] = l;
+		listeners = more;
+	}
+	
+	/**
+	 * Stop notifying a listener.
+	 * @param l the listener
+	 */
+	public void removeBoardListener(BoardListener l)
+	{
+		List<BoardListener> rest = new ArrayList<BoardListener>(Arrays.asList(listeners));
+		rest.remove(l);
+		listeners = rest.toArray(new BoardListener[rest.size()]);
+	}
+	
+	/**
+	 * Find a registered listener by class.
+	 * @param type the class of the listener
+	 * @return the first registered listener of exactly that class, or null if none
+	 */
+	public <T extends BoardListener> T getBoardListener(Class<T> type)
+	{
+		for (BoardListener l : listeners) {
+			if (l.getClass() == type) { return type.cast(l); }
+		}
+		return null;
 	}
 
 	/**
@@ -112,7 +204,35 @@ public class Board
 	 */
 	public void setnColumns(int nColumns)
 	{
-		this.nRows = nColumns;
+		this.nColumns = nColumns;
+	}
+	
+	/**
+	 * Squares are numbered row by row from (1, 1), so square 0 is (1, 1) and
+	 * square nColumns is (2, 1).
+	 * @param c a coordinate on the board
+	 * @return the square number of c
+	 */
+	public int squareIndex(Coordinate c)
+	{
+		return (c.getRow() - 1) * nColumns + (c.getColumn() - 1);
+	}
+	
+	/**
+	 * @param square a square number, see squareIndex
+	 * @return the coordinate of the square
+	 */
+	public Coordinate coordinateOf(int square)
+	{
+		return Coordinate.makeCoordinate(square / nColumns + 1, square % nColumns + 1);
+	}
+	
+	/**
+	 * @return the number of squares on the board
+	 */
+	public int getnSquares()
+	{
+		return nRows * nColumns;
 	}
 	
 	/**
@@ -0,0 +1,38 @@
+package gpv.util;
+
+import gpv.Piece;
+
+/**
+ * Receives every change made to a Board, so that derived state (scores,
+ * hashes, event logs) can be kept up to date incrementally instead of being
+ * recomputed by scanning the board. Callbacks run synchronously on the thread
+ * that changed the board, after the change, and should be cheap.
+ *
+ * @version Oct 19, 2026
+ */
+public interface BoardListener
+{
+	/**
+	 * A piece was put on a square. If the square was occupied, pieceRemoved
+	 * was called for the old piece first.
+	 * @param b the board
+	 * @param p the piece
+	 * @param c the square
+	 */
+	void piecePlaced(Board b, Piece p, Coordinate c);
+	
+	/**
+	 * A piece was taken off a square.
+	 * @param b the board
+	 * @param p the piece
+	 * @param c the square
+	 */
+	void pieceRemoved(Board b, Piece p, Coordinate c);
+	
+	/**
+	 * Every piece was taken off the board by reset; piecePlaced follows for
+	 * each piece of the new configuration.
+	 * @param b the board
+	 */
+	void boardCleared(Board b);
+}
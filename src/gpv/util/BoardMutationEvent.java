@@ -0,0 +1,30 @@
+package gpv.util;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for a change to a Board: one reset or one putPieceAt.
+ *
+ * @version Oct 19, 2026
+ */
+@Name("gpv.util.BoardMutation")
+@Label("Board Mutation")
+@Category({"GPV", "Board"})
+@Threshold("0 ns")
+@Description("Board.reset or Board.putPieceAt")
+public class BoardMutationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Piece")
+	@Description("Descriptor of the placed piece; empty for reset")
+	String piece;
+
+	@Label("Square")
+	String square;
+
+	@Label("Piece Count")
+	@Description("Number of pieces written by this operation")
+	int pieceCount;
+}
@@ -0,0 +1,51 @@
+package gpv.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import jdk.jfr.Event;
+
+/**
+ * Decides which of the library's Java Flight Recorder events get committed.
+ * How slow an event must be is left to JFR: every event type carries a
+ * <code>@Threshold</code> of 0 ns, which a recording can raise per type,
+ * e.g. <code>gpv.chess.MoveValidation#threshold=100 us</code> in a .jfc file
+ * or <code>recording.enable("gpv.chess.MoveValidation").withThreshold(...)</code>.
+ * Of the events that pass the threshold, one in every sampleEvery is
+ * committed, so a busy recording can be thinned further.
+ * <br/>
+ * The sample is drawn from ThreadLocalRandom, so validating threads share no
+ * counter. The interval can be given as a system property at startup:
+ * <code>-Dgpv.jfr.sampleEvery=1000</code>. The default, 1, commits every
+ * event over the threshold, as a plain JFR event would. Events themselves
+ * are only filled in when JFR has the event type enabled.
+ *
+ * @version Oct 19, 2026
+ */
+public final class FlightRecording {
+
+	private static volatile long sampleEvery = Math.max(0L, Long.getLong("gpv.jfr.sampleEvery", 1L));
+
+	private FlightRecording() { }
+
+	/**
+	 * @param n commit one in every n events that pass the threshold, or none if n is 0
+	 */
+	public static void setSampleEvery(long n) { sampleEvery = Math.max(0L, n); }
+
+	/**
+	 * @return the sampling interval, 0 meaning none are committed
+	 */
+	public static long getSampleEvery() { return sampleEvery; }
+
+	/**
+	 * End an event and decide whether to commit it.
+	 * @param event an enabled event that has begun
+	 * @return true if JFR's threshold passes the event and it falls in the sample
+	 */
+	public static boolean shouldCommit(Event event)
+	{
+		event.end();
+		if (!event.shouldCommit()) { return false; }
+		long n = sampleEvery;
+		return n == 1 || n > 1 && ThreadLocalRandom.current().nextLong(n) == 0;
+	}
+}
@@ -0,0 +1,94 @@
+package gpv.util;
+
+/**
+ * A histogram of durations in power-of-two buckets: bucket i holds samples
+ * of [2^i, 2^(i+1)) nanoseconds, bucket 0 also holds samples under 1ns.
+ * Recording is an array increment, so a histogram is kept per thread and
+ * the histograms are added up at the end. Not thread-safe; counters that
+ * many threads share, such as MoveMetrics', keep their own striped counts
+ * per bucket and read them back through of(long[]).
+ *
+ * @version Oct 19, 2026
+ */
+public final class LatencyHistogram {
+
+	public static final int BUCKETS = 64;
+
+	private final long[] counts = new long[BUCKETS];
+	private long total;
+
+	/**
+	 * @param counts samples per bucket, at most BUCKETS of them
+	 * @return a histogram holding those counts
+	 */
+	public static LatencyHistogram of(long[] counts) {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int i = 0; i < counts.length; i++) {
+			h.counts[i] = counts[i];
+			h.total += counts[i];
+		}
+		return h;
+	}
+
+	/**
+	 * @param nanos a duration
+	 * @return the bucket that holds it
+	 */
+	public static int bucket(long nanos) {
+		return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+	}
+
+	/**
+	 * @param bucket a bucket
+	 * @return the least duration, in nanoseconds, above every sample in it
+	 */
+	public static long upperBound(int bucket) {
+		return bucket >= 62 ? Long.MAX_VALUE : 1L << (bucket + 1);
+	}
+
+	/**
+	 * @param nanos one duration
+	 */
+	public void record(long nanos) {
+		counts[bucket(nanos)]++;
+		total++;
+	}
+
+	/**
+	 * Add another histogram's samples to this one.
+	 * @param other the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) { counts[i] += other.counts[i]; }
+		total += other.total;
+	}
+
+	/**
+	 * @return the number of samples
+	 */
+	public long count() { return total; }
+
+	/**
+	 * @return a copy of the samples per bucket
+	 */
+	public long[] counts() { return counts.clone(); }
+
+	/**
+	 * The sample of rank ceil(count * percentile / 100), counting from 1, so
+	 * percentile 0 falls in the lowest bucket with a sample and 100 in the
+	 * highest.
+	 * @param percentile between 0 and 100
+	 * @return the upper bound, in nanoseconds, of the bucket holding the
+	 * 	percentile, or 0 if nothing was recorded
+	 */
+	public long percentile(double percentile) {
+		if (total == 0) { return 0; }
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) { return upperBound(i); }
+		}
+		return upperBound(BUCKETS - 1);
+	}
+}
@@ -375,5 +375,316 @@ class ChessPieceTests
 		assertFalse(wb.canMove(makeCoordinate(2,5), makeCoordinate(4,5), board)); //vertical
 	}
 
-}
+	
+	@Test
+	void checkMoveRejections()
+	{
+		ChessPiece wk = factory.makePiece(WHITEKING);
+		ChessPiece wp = factory.makePiece(WHITEPAWN);
+		ChessPiece wr = factory.makePiece(WHITEROOK);
+		board.putPieceAt(wk, makeCoordinate(2,5));
+		board.putPieceAt(wp, makeCoordinate(2,2));
+		board.putPieceAt(wr, makeCoordinate(5,5));
+		assertEquals(MoveRejection.NONE, wk.checkMove(makeCoordinate(2,5), makeCoordinate(3,5), board));
+		assertEquals(MoveRejection.OUT_OF_BOUNDS, wk.checkMove(makeCoordinate(2,5), makeCoordinate(9,5), board));
+		assertEquals(MoveRejection.UNKNOWN_PATTERN, wk.checkMove(makeCoordinate(2,5), makeCoordinate(5,6), board));
+		assertEquals(MoveRejection.PATTERN_MISMATCH, wk.checkMove(makeCoordinate(2,5), makeCoordinate(4,6), board));
+		assertEquals(MoveRejection.KING_RANGE, wk.checkMove(makeCoordinate(2,5), makeCoordinate(4,5), board));
+		assertEquals(MoveRejection.OBSTRUCTED, wr.checkMove(makeCoordinate(5,5), makeCoordinate(1,5), board));
+		assertEquals(MoveRejection.PAWN_CAPTURE, wp.checkMove(makeCoordinate(2,2), makeCoordinate(3,3), board));
+		assertEquals(MoveRejection.PAWN_DIRECTION, wp.checkMove(makeCoordinate(2,2), makeCoordinate(1,2), board));
+		wp.setHasMoved();
+		assertEquals(MoveRejection.PAWN_DOUBLE_STEP, wp.checkMove(makeCoordinate(2,2), makeCoordinate(4,2), board));
+	}
+	
+	@Test
+	void moveMetricsCountRejections()
+	{
+		ChessPiece wk = factory.makePiece(WHITEKING);
+		board.putPieceAt(wk, makeCoordinate(2,5));
+		MoveMetrics.reset();
+		MoveMetrics.setEnabled(false);
+		wk.canMove(makeCoordinate(2,5), makeCoordinate(4,5), board);
+		assertEquals(0, MoveMetrics.count(PieceName.KING, MoveRejection.KING_RANGE));
+		
+		MoveMetrics.setEnabled(true);
+		wk.canMove(makeCoordinate(2,5), makeCoordinate(4,5), board);
+		wk.canMove(makeCoordinate(2,5), makeCoordinate(3,5), board);
+		MoveMetrics.setEnabled(false);
+		assertEquals(1, MoveMetrics.count(PieceName.KING, MoveRejection.KING_RANGE));
+		assertEquals(1, MoveMetrics.count(PieceName.KING, MoveRejection.NONE));
+		long total = 0;
+		for (long n : MoveMetrics.histogram(PieceName.KING)) { total += n; }
+		assertEquals(2, total);
+		MoveMetrics.reset();
+	}
+	
+	@Test
+	void checkHorizontalMoveOfUnmovedPieces()
+	{
+		ChessPiece wr = factory.makePiece(WHITEROOK);
+		ChessPiece bk = factory.makePiece(BLACKKING);
+		ChessPiece wp = factory.makePiece(WHITEPAWN);
+		board.putPieceAt(wr, makeCoordinate(1,1));
+		board.putPieceAt(bk, makeCoordinate(1,8));
+		assertTrue(wr.canMove(makeCoordinate(1,1), makeCoordinate(1,4), board));
+		assertFalse(wr.canCastle(makeCoordinate(1,8), board));
+		board.putPieceAt(wp, makeCoordinate(1,5));
+		assertFalse(wr.canMove(makeCoordinate(1,1), makeCoordinate(1,8), board));
+	}
+	
+	@Test
+	void movePacking()
+	{
+		Board b = StandardPosition.newBoard();
+		int e2e4 = Move.of(b, b.squareIndex(makeCoordinate(2,5)), b.squareIndex(makeCoordinate(4,5)));
+		assertEquals(12, Move.from(e2e4));
+		assertEquals(28, Move.to(e2e4));
+		assertTrue(Move.isDoublePush(e2e4));
+		assertFalse(Move.isCapture(e2e4));
+		assertEquals("e2e4", Move.toString(e2e4, 8));
+		assertEquals(e2e4, Move.parse("e2e4", b));
+		assertTrue(e2e4 <= 0xFFFF);
+		int e2e7 = Move.parse("e2e7", b);
+		assertTrue(Move.isCapture(e2e7));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Move.make(64, 0, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Move.make(0, -1, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Move.of(b, 12, 72));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Move.of(b, -8, 12));
+	}
+	
+	@Test
+	void moveListGrowsAndRoundTrips() throws Exception
+	{
+		MoveList list = new MoveList(1);
+		for (int i = 0; i < 100; i++) { list.add(Move.make(i % 64, (i * 7) % 64, Move.PROMOTION)); }
+		assertEquals(100, list.size());
+		assertTrue(Move.isPromotion(list.get(99)));
+		java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+		list.writeTo(new java.io.DataOutputStream(bytes));
+		MoveList copy = new MoveList();
+		copy.readFrom(new java.io.DataInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray())));
+		assertArrayEquals(list.toArray(), copy.toArray());
+		assertEquals(list.get(99), copy.removeLast());
+		assertEquals(99, copy.size());
+	}
+	
+	@Test
+	void generatorAgreesWithCanMove()
+	{
+		Board b = StandardPosition.newBoard();
+		MoveList moves = MoveGenerator.generate(b, PlayerColor.WHITE);
+		int accepted = 0;
+		for (gpv.util.Coordinate from : b.getPieces().keySet()) {
+			ChessPiece p = (ChessPiece) b.getPieceAt(from);
+			if (p.getColor() != PlayerColor.WHITE) { continue; }
+			for (int to = 0; to < 64; to++) {
+				if (p.canMove(from, b.coordinateOf(to), b)) {
+					accepted++;
+					assertTrue(moves.indexOf(Move.make(b.squareIndex(from), to, 0)) >= 0);
+				}
+			}
+		}
+		assertEquals(accepted, moves.size());
+		MoveList fast = MoveGenerator.generate(new Mailbox(b), PlayerColor.WHITE, new MoveList());
+		assertEquals(moves.size(), fast.size());
+		for (int i = 0; i < fast.size(); i++) { assertTrue(moves.indexOf(fast.get(i)) >= 0); }
+	}
+	
+	@Test
+	void compiledRulesAgreeWithCanMove()
+	{
+		java.util.Random r = new java.util.Random(35);
+		ChessPieceDescriptor[] standard = { WHITEPAWN, WHITEROOK, WHITEKNIGHT, WHITEBISHOP, WHITEQUEEN,
+				WHITEKING, BLACKPAWN, BLACKROOK, BLACKKNIGHT, BLACKBISHOP, BLACKQUEEN, BLACKKING };
+		for (int position = 0; position < 20; position++) {
+			Board b = new Board(8, 8);
+			for (int i = 0; i < 12; i++) {
+				ChessPiece p = factory.makePiece(standard[r.nextInt(standard.length)]);
+				if (r.nextBoolean()) { p.setHasMoved(); }
+				b.putPieceAt(p, b.coordinateOf(r.nextInt(64)));
+			}
+			Occupancy occupancy = Occupancy.of(b);
+			for (gpv.util.Coordinate from : b.getPieces().keySet()) {
+				ChessPiece p = (ChessPiece) b.getPieceAt(from);
+				for (int to = 0; to < 64; to++) {
+					boolean compiled = CompiledRules.STANDARD.check(Occupancy.code(p),
+							b.squareIndex(from), to, occupancy) == MoveRejection.NONE;
+					assertEquals(p.canMove(from, b.coordinateOf(to), b), compiled);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void checkFairyPieces()
+	{
+		ChessPiece archbishop = factory.makePiece(WHITEARCHBISHOP);
+		ChessPiece chancellor = factory.makePiece(BLACKCHANCELLOR);
+		ChessPiece camel = factory.makePiece(WHITECAMEL);
+		board.putPieceAt(archbishop, makeCoordinate(4,4));
+		board.putPieceAt(chancellor, makeCoordinate(4,8));
+		board.putPieceAt(camel, makeCoordinate(1,1));
+		assertTrue(archbishop.canMove(makeCoordinate(4,4), makeCoordinate(6,5), board));
+		assertTrue(archbishop.canMove(makeCoordinate(4,4), makeCoordinate(7,7), board));
+		assertFalse(archbishop.canMove(makeCoordinate(4,4), makeCoordinate(4,6), board));
+		assertTrue(chancellor.canMove(makeCoordinate(4,8), makeCoordinate(4,4), board));
+		assertFalse(chancellor.canMove(makeCoordinate(4,8), makeCoordinate(4,3), board));
+		assertTrue(chancellor.canMove(makeCoordinate(4,8), makeCoordinate(2,7), board));
+		assertTrue(camel.canMove(makeCoordinate(1,1), makeCoordinate(2,4), board));
+		assertTrue(camel.canMove(makeCoordinate(1,1), makeCoordinate(4,2), board));
+		assertFalse(camel.canMove(makeCoordinate(1,1), makeCoordinate(2,3), board));
+		assertEquals(MoveRejection.OBSTRUCTED,
+				chancellor.checkMove(makeCoordinate(4,8), makeCoordinate(4,1), board));
+		assertEquals(MoveRejection.UNKNOWN_PATTERN,
+				camel.checkMove(makeCoordinate(1,1), makeCoordinate(3,2), board));
+		assertTrue(WHITEARCHBISHOP.getMovementSpec().uses(Pattern.KNIGHT));
+		assertFalse(WHITECAMEL.getMovementSpec().uses(Pattern.KNIGHT));
+		// the checks read the board as it changes, without listening to it
+		assertNull(board.getBoardListener(Mailbox.class));
+		board.removePieceAt(makeCoordinate(4,4));
+		assertTrue(chancellor.canMove(makeCoordinate(4,8), makeCoordinate(4,3), board));
+		board.putPieceAt(factory.makePiece(WHITEPAWN), makeCoordinate(4,5));
+		assertFalse(chancellor.canMove(makeCoordinate(4,8), makeCoordinate(4,3), board));
+		board.setnColumns(10);
+		board.removePieceAt(makeCoordinate(4,8));
+		board.putPieceAt(chancellor, makeCoordinate(8,10));
+		assertTrue(chancellor.canMove(makeCoordinate(8,10), makeCoordinate(4,10), board));
+		board.removePieceAt(makeCoordinate(8,10));
+		board.putPieceAt(chancellor, makeCoordinate(4,10));
+		assertTrue(chancellor.canMove(makeCoordinate(4,10), makeCoordinate(4,5), board));
+		assertFalse(chancellor.canMove(makeCoordinate(4,10), makeCoordinate(4,4), board));
+		assertNull(board.getBoardListener(Mailbox.class));
+		Mailbox attached = new Mailbox();
+		attached.attach(board);
+		assertSame(attached, Mailbox.of(board));
+		board.putPieceAt(factory.makePiece(WHITEPAWN), makeCoordinate(4,7));
+		assertFalse(chancellor.canMove(makeCoordinate(4,10), makeCoordinate(4,5), board));
+		attached.detach(board);
+	}
+	
+	@Test
+	void staticExchangeWithXRays()
+	{
+		ChessPiece front = factory.makePiece(WHITEROOK);
+		board.putPieceAt(factory.makePiece(WHITEROOK), makeCoordinate(1,1));
+		board.putPieceAt(front, makeCoordinate(2,1));
+		board.putPieceAt(factory.makePiece(BLACKPAWN), makeCoordinate(5,1));
+		board.putPieceAt(factory.makePiece(BLACKROOK), makeCoordinate(8,1));
+		StaticExchange see = new StaticExchange();
+		assertEquals(100, see.evaluate(board, makeCoordinate(2,1), makeCoordinate(5,1)));
+		board.removePieceAt(makeCoordinate(1,1));
+		assertEquals(-400, see.evaluate(board, makeCoordinate(2,1), makeCoordinate(5,1)));
+		assertEquals(0, see.evaluate(board, makeCoordinate(5,1), PlayerColor.WHITE));
+		assertEquals(front, board.getPieceAt(makeCoordinate(2,1)));
+	}
+	
+	@Test
+	void staticExchangeUsesLeastValuableAttacker()
+	{
+		ChessPiece knight = factory.makePiece(BLACKKNIGHT);
+		ChessPiece whitePawn = factory.makePiece(WHITEPAWN);
+		ChessPiece blackPawn = factory.makePiece(BLACKPAWN);
+		whitePawn.setHasMoved();
+		blackPawn.setHasMoved();
+		board.putPieceAt(knight, makeCoordinate(4,4));
+		board.putPieceAt(blackPawn, makeCoordinate(5,5));
+		board.putPieceAt(whitePawn, makeCoordinate(3,3));
+		StaticExchange see = new StaticExchange();
+		assertEquals(220, see.evaluate(board, makeCoordinate(4,4), PlayerColor.WHITE));
+		board.putPieceAt(factory.makePiece(WHITEQUEEN), makeCoordinate(1,1));
+		assertEquals(320, see.evaluate(board, makeCoordinate(4,4), PlayerColor.WHITE));
+		assertEquals(knight, board.getPieceAt(makeCoordinate(4,4)));
+	}
+	
+	@Test
+	void mobilityMatchesCanMove()
+	{
+		java.util.Random r = new java.util.Random(37);
+		ChessPieceDescriptor[] all = ChessPieceDescriptor.values();
+		Mobility mobility = new Mobility();
+		for (int position = 0; position < 20; position++) {
+			Board b = new Board(8, 8);
+			for (int i = 0; i < 14; i++) {
+				ChessPiece p = factory.makePiece(all[r.nextInt(all.length)]);
+				if (r.nextBoolean()) { p.setHasMoved(); }
+				b.putPieceAt(p, b.coordinateOf(r.nextInt(64)));
+			}
+			int[] white = new int[PieceName.values().length];
+			for (gpv.util.Coordinate from : b.getPieces().keySet()) {
+				ChessPiece p = (ChessPiece) b.getPieceAt(from);
+				int accepted = 0;
+				for (int to = 0; to < 64; to++) {
+					if (p.canMove(from, b.coordinateOf(to), b)) { accepted++; }
+				}
+				assertEquals(accepted, mobility.mobility(b, from));
+				if (p.getColor() == PlayerColor.WHITE) { white[p.getName().ordinal()] += accepted; }
+			}
+			assertArrayEquals(white, mobility.mobilityByName(b, PlayerColor.WHITE));
+		}
+		Board start = StandardPosition.newBoard();
+		assertEquals(MoveGenerator.generate(start, PlayerColor.BLACK).size(),
+				mobility.mobility(start, PlayerColor.BLACK));
+	}
+	
+	@Test
+	void attackersAndAttachedMailbox()
+	{
+		gpv.chess.game.Game game = new gpv.chess.game.Game(1);
+		Board b = game.getBoard();
+		Mailbox attached = new Mailbox();
+		attached.attach(b);
+		java.util.Random r = new java.util.Random(1);
+		for (int i = 0; i < 30 && game.moveAtRandom(r); i++) { }
+		Mailbox loaded = new Mailbox(b);
+		for (int square = 0; square < 64; square++) {
+			assertEquals(loaded.codeAt(square), attached.codeAt(square));
+		}
+		Mobility mobility = new Mobility();
+		board.putPieceAt(factory.makePiece(WHITEROOK), makeCoordinate(1,1));
+		board.putPieceAt(factory.makePiece(WHITEKNIGHT), makeCoordinate(2,3));
+		board.putPieceAt(factory.makePiece(WHITEROOK), makeCoordinate(4,1));
+		assertEquals(2, mobility.attackers(board, makeCoordinate(4,2), PlayerColor.WHITE));
+		assertEquals(3, mobility.attackers(board, makeCoordinate(3,1), PlayerColor.WHITE));
+		assertEquals(1, mobility.attackers(board, makeCoordinate(6,1), PlayerColor.WHITE));
+		assertEquals(0, mobility.attackers(board, makeCoordinate(3,1), PlayerColor.BLACK));
+	}
 
+	@Test
+	void positionCodecRoundTrip()
+	{
+		gpv.chess.game.Game game = new gpv.chess.game.Game(3);
+		java.util.Random r = new java.util.Random(3);
+		for (int i = 0; i < 20 && game.moveAtRandom(r); i++) { }
+		Board b = game.getBoard();
+		java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(PositionCodec.encodedSize(b) + 1);
+		PositionCodec.write(b, buffer);
+		assertEquals(PositionCodec.encodedSize(b), buffer.position());
+		buffer.put((byte) 42).flip();
+		board.putPieceAt(factory.makePiece(BLACKQUEEN), makeCoordinate(5,5));
+		new PositionCodec().read(buffer, board);
+		assertEquals(42, buffer.get());
+		assertEquals(b.getPieces().size(), board.getPieces().size());
+		for (int square = 0; square < 64; square++) {
+			ChessPiece expected = (ChessPiece) b.getPieceAt(b.coordinateOf(square));
+			ChessPiece actual = (ChessPiece) board.getPieceAt(board.coordinateOf(square));
+			if (expected == null) {
+				assertNull(actual);
+			} else {
+				assertEquals(expected.getDescriptor(), actual.getDescriptor());
+				assertEquals(expected.hasMoved(), actual.hasMoved());
+			}
+		}
+		buffer.position(0).limit(5);
+		Assertions.assertThrows(java.nio.BufferUnderflowException.class, () -> new PositionCodec().read(buffer, board));
+	}
+
+	@Test
+	void zobristKeysArePinned()
+	{
+		// keys are stored in books and game stores, so these must never change
+		assertEquals(0x5E67F00C0BF93EC7L, ZobristHash.blackToMove());
+		assertEquals(0x4A3801551B72D7BEL, ZobristHash.hash(StandardPosition.newBoard(), PlayerColor.WHITE));
+	}
+
+}
@@ -0,0 +1,228 @@
+package gpv.chess.analysis;
+
+import static org.junit.Assert.*;
+import java.io.StringWriter;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.engine.Searcher;
+import gpv.chess.eval.EvaluationTable;
+import gpv.util.*;
+
+/**
+ * Tests for EPD parsing, the suite runner and live analysis.
+ * @version Oct 19, 2026
+ */
+class AnalysisTests
+{
+	@Test
+	void parsesStartingPosition()
+	{
+		EpdPosition p = new EpdPosition();
+		assertTrue(p.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - bm e4 d4; id \"start\";"));
+		assertEquals("start", p.getId());
+		assertEquals(PlayerColor.WHITE, p.getToMove());
+		assertEquals(Arrays.asList("e4", "d4"), p.getBestMoves());
+		Board b = new Board(1, 1);
+		p.load(b);
+		Board expected = StandardPosition.newBoard();
+		assertEquals(expected.getPieces().size(), b.getPieces().size());
+		for (Coordinate c : expected.getPieces().keySet()) {
+			ChessPiece e = (ChessPiece) expected.getPieceAt(c), a = (ChessPiece) b.getPieceAt(c);
+			assertEquals(e.getDescriptor(), a.getDescriptor());
+			assertFalse(a.hasMoved());
+		}
+		assertEquals(Move.make(Notation.square("g1", 8), Notation.square("f3", 8), 0),
+				Move.squares(p.resolve(b, "Nf3")));
+		assertEquals(Move.make(Notation.square("e2", 8), Notation.square("e4", 8), 0),
+				Move.squares(p.resolve(b, "e2e4")));
+		assertEquals(Move.NONE, p.resolve(b, "Nd5"));
+		assertFalse(p.parse("   "));
+		assertFalse(p.parse("# a comment"));
+	}
+
+	@Test
+	void disambiguatesAndCaptures()
+	{
+		EpdPosition p = new EpdPosition();
+		p.parse("4k3/8/8/3p4/2N1P3/8/7K/R6R w - - bm exd5;");
+		Board b = new Board(1, 1);
+		p.load(b);
+		assertTrue(((ChessPiece) b.getPieceAt(Coordinate.makeCoordinate(1, 1))).hasMoved());
+		assertEquals(Notation.square("d5", 8), Move.to(p.resolve(b, "exd5")));
+		assertTrue(Move.isCapture(p.resolve(b, "exd5")));
+		assertEquals(Move.NONE, p.resolve(b, "Rd1+"));	// either rook
+		assertEquals(Notation.square("a1", 8), Move.from(p.resolve(b, "Rad1")));
+		assertTrue(p.solvedBy(b, p.resolve(b, "exd5")));
+		assertFalse(p.solvedBy(b, p.resolve(b, "Rad1")));
+	}
+
+	@Test
+	void suiteRunsWithinBudgets() throws Exception
+	{
+		Path suite = Files.createTempFile("suite", ".epd");
+		suite.toFile().deleteOnExit();
+		StringBuilder epd = new StringBuilder("# tactics\n");
+		for (int i = 0; i < 50; i++) {
+			epd.append("4k3/8/8/3q4/4P3/8/8/4K3 w - - bm exd5; id \"queen").append(i).append("\";\n");
+			epd.append("4k3/8/8/8/8/8/8/4K2R w K - am Kd1; id \"rook").append(i).append("\";\n");
+		}
+		epd.append("not a position\n");
+		Files.write(suite, epd.toString().getBytes("UTF-8"));
+		StringWriter out = new StringWriter();
+		SuiteRunner.Report r = new SuiteRunner(EvaluationTable.standard())
+				.setMaxDepth(3).setMaxNodes(5000).setMaxMillis(500)
+				.run(suite, out, 3);
+		assertEquals(101, r.positions);
+		assertEquals(1, r.errors);
+		assertEquals(100, r.solved + r.failed);
+		assertTrue(r.solved >= 50);
+		assertTrue(r.nodes > 0);
+		String[] lines = out.toString().split("\n");
+		assertEquals(101, lines.length);
+		for (String line : lines) {
+			assertTrue(line, line.split("\t").length >= 3);
+		}
+	}
+
+	@Test
+	void formatRoundTrips()
+	{
+		EpdPosition p = new EpdPosition();
+		String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -";
+		p.parse(start);
+		Board b = new Board(1, 1);
+		p.load(b);
+		assertEquals(start, EpdPosition.format(b, PlayerColor.WHITE));
+		p.parse("4k3/8/8/3p4/2N1P3/8/7K/R6R b - -");
+		p.load(b);
+		assertEquals("4k3/8/8/3p4/2N1P3/8/7K/R6R b - -", EpdPosition.format(b, PlayerColor.BLACK));
+	}
+
+	@Test
+	void minerSearchesOnlyCandidates() throws Exception
+	{
+		Path log = Files.createTempFile("archive", ".log");
+		log.toFile().deleteOnExit();
+		gpv.chess.game.Tournament.Report games = new gpv.chess.game.Tournament()
+				.add("a", () -> new gpv.chess.engine.RandomEngine(1))
+				.add("b", () -> new gpv.chess.engine.RandomEngine(2))
+				.setGamesPerPairing(10)
+				.setRandomOpening(0, 0)
+				.setMaxPlies(80)
+				.run(2, log);
+		StringWriter out = new StringWriter();
+		PuzzleMiner.Report r = new PuzzleMiner(EvaluationTable.standard()).setVerifyDepth(2).run(log, out, 2);
+		assertEquals(games.games, r.games);
+		assertEquals(games.moves, r.positions);
+		assertEquals(0, r.rejectedMoves);
+		assertTrue(r.candidates > 0);
+		assertTrue(r.candidates < r.positions);
+		assertTrue(r.deepSearches <= r.candidates);
+		assertTrue(r.puzzles <= r.deepSearches);
+		String[] lines = out.toString().isEmpty() ? new String[0] : out.toString().split("\n");
+		assertEquals(r.puzzles, lines.length);
+		EpdPosition p = new EpdPosition();
+		Board b = new Board(1, 1);
+		for (String line : lines) {
+			assertTrue(p.parse(line));
+			p.load(b);
+			assertTrue(line, p.solvedBy(b, p.resolve(b, p.getBestMoves().get(0))));
+		}
+	}
+
+	@Test
+	void sessionStreamsDeeperResults() throws Exception
+	{
+		Board b = StandardPosition.newBoard();
+		Recorder r = new Recorder();
+		try (AnalysisSession session = new AnalysisSession(EvaluationTable.standard(), 3, 16)) {
+			session.analyze(b, PlayerColor.WHITE, r);
+			assertTrue(r.done.await(60, TimeUnit.SECONDS));
+		}
+		assertFalse(r.cancelled);
+		assertEquals(3, r.results.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i + 1, r.results.get(i).depth);
+			assertTrue(r.results.get(i).line.length > 0);
+		}
+		AnalysisSession.Result last = r.results.get(2);
+		assertSame(last, r.last);
+		assertEquals(3, last.line.length);
+		int[] plain = new int[1];
+		new Searcher(EvaluationTable.standard(), 3)
+				.setListener((depth, score, line, nodes) -> plain[0] = score)
+				.chooseMove(b, PlayerColor.WHITE);
+		assertEquals(plain[0], last.score);
+		assertEquals(32, b.getPieces().size());
+		for (Object p : b.getPieces().values()) {
+			assertFalse(((ChessPiece) p).hasMoved());
+		}
+	}
+
+	@Test
+	void sessionCancelsAtOnce() throws Exception
+	{
+		Recorder r = new Recorder();
+		try (AnalysisSession session = new AnalysisSession(EvaluationTable.standard(), 40, 16)) {
+			session.analyze(StandardPosition.newBoard(), PlayerColor.WHITE, r);
+			assertTrue(r.first.await(60, TimeUnit.SECONDS));
+			long start = System.nanoTime();
+			session.cancel();
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+			assertFalse(session.isRunning());
+			assertEquals(0, r.done.getCount());
+			assertTrue(r.cancelled);
+			int seen = r.results.size();
+			Thread.sleep(50);
+			assertEquals(seen, r.results.size());
+		}
+	}
+
+	@Test
+	void rerootingReusesTable() throws Exception
+	{
+		Board b = StandardPosition.newBoard();
+		Recorder before = new Recorder(), after = new Recorder(), fresh = new Recorder();
+		try (AnalysisSession session = new AnalysisSession(EvaluationTable.standard(), 4, 18);
+				AnalysisSession cold = new AnalysisSession(EvaluationTable.standard(), 3, 18)) {
+			session.analyze(b, PlayerColor.WHITE, before);
+			assertTrue(before.done.await(60, TimeUnit.SECONDS));
+			int move = before.last.bestMove();
+			session.ponder(b, PlayerColor.WHITE, move, after);
+			assertTrue(after.done.await(60, TimeUnit.SECONDS));
+			Board moved = StandardPosition.newBoard();
+			new gpv.chess.game.Game(0, moved).move(Move.squares(move));
+			cold.analyze(moved, PlayerColor.BLACK, fresh);
+			assertTrue(fresh.done.await(60, TimeUnit.SECONDS));
+		}
+		assertEquals(fresh.results.get(2).score, after.results.get(2).score);
+		assertTrue(after.results.get(2).nodes < fresh.results.get(2).nodes);
+	}
+
+	/**
+	 * Collects what a session reports.
+	 */
+	private static class Recorder implements AnalysisSession.Listener
+	{
+		final List<AnalysisSession.Result> results = new CopyOnWriteArrayList<AnalysisSession.Result>();
+		final CountDownLatch first = new CountDownLatch(1), done = new CountDownLatch(1);
+		volatile AnalysisSession.Result last;
+		volatile boolean cancelled;
+
+		public void update(AnalysisSession.Result result)
+		{
+			results.add(result);
+			first.countDown();
+		}
+
+		public void finished(AnalysisSession.Result last, boolean cancelled)
+		{
+			this.last = last;
+			this.cancelled = cancelled;
+			done.countDown();
+		}
+	}
+}
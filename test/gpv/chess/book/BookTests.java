@@ -0,0 +1,179 @@
+package gpv.chess.book;
+
+import static gpv.util.Coordinate.makeCoordinate;
+import static org.junit.Assert.*;
+import java.nio.file.*;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+
+/**
+ * Tests for building and probing an opening book.
+ * @version Oct 19, 2026
+ */
+class BookTests
+{
+	private static OpeningBook book;
+	
+	@BeforeAll
+	public static void setupBeforeTests() throws Exception
+	{
+		Path dir = Files.createTempDirectory("booktest");
+		Path file = dir.resolve("book.bin");
+		file.toFile().deleteOnExit();
+		// a run size of 3 forces several runs and a real merge
+		try (BookBuilder builder = new BookBuilder(dir, 3, 10)) {
+			builder.addGame("e2e4 e7e5 1-0");
+			builder.addGame("e2e4 c7c5 0-1");
+			builder.addGame("d2d4 d7d5 1/2-1/2");
+			builder.addGame("e2e4 e7e5 1/2-1/2");
+			builder.addGame("e2f3 e7e5 1-0");	// invalid first move adds nothing
+			assertEquals(5, builder.build(file));
+		}
+		book = OpeningBook.open(file);
+	}
+	
+	@Test
+	void builderSkipsMalformedLinesAndRemovesItsDirectory() throws Exception
+	{
+		Path file = Files.createTempFile("book", ".bin");
+		file.toFile().deleteOnExit();
+		java.util.Set<Path> before = builderDirs();
+		try (BookBuilder builder = new BookBuilder(3, 10)) {
+			assertEquals(0, builder.addGame("e2e4 zz99 1-0"));
+			assertEquals(2, builder.addGame("e2e4 e7e5 1-0"));
+			assertEquals(1, builder.getSkippedLines());
+			assertEquals(2, builder.build(file));
+			assertEquals(before.size() + 1, builderDirs().size());
+		}
+		assertEquals(before, builderDirs());
+	}
+	
+	/**
+	 * @return the temporary directories BookBuilder has created and not deleted
+	 */
+	private static java.util.Set<Path> builderDirs() throws Exception
+	{
+		java.util.Set<Path> dirs = new java.util.HashSet<Path>();
+		try (DirectoryStream<Path> tmp = Files.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")), "book*")) {
+			for (Path p : tmp) {
+				if (Files.isDirectory(p) && p.getFileName().toString().matches("book-?\\d+")) { dirs.add(p); }
+			}
+		}
+		return dirs;
+	}
+	
+	@Test
+	void startingPositionMoves()
+	{
+		List<OpeningBook.BookMove> moves = book.lookup(StandardPosition.newBoard(), PlayerColor.WHITE);
+		assertEquals(2, moves.size());
+		OpeningBook.BookMove e4 = moves.get(0);
+		assertEquals(Move.make(Notation.square("e2", 8), Notation.square("e4", 8), 0), e4.move);
+		assertEquals(3, e4.weight);
+		assertEquals(1, e4.wins);
+		assertEquals(1, e4.draws);
+		assertEquals(1, e4.losses);
+	}
+	
+	@Test
+	void repliesAreScoredForTheSideToMove()
+	{
+		Game g = new Game(0);
+		g.move(makeCoordinate(2, 5), makeCoordinate(4, 5));
+		List<OpeningBook.BookMove> moves = book.lookup(g.getBoard(), PlayerColor.BLACK);
+		assertEquals(2, moves.size());
+		assertEquals(2, moves.get(0).weight);
+		assertEquals(1, moves.get(0).losses);
+		assertEquals(1, moves.get(1).wins);
+	}
+	
+	@Test
+	void unknownPositionHasNoMoves()
+	{
+		assertEquals(-1, book.find(12345L));
+		assertTrue(book.lookup(StandardPosition.newBoard(), PlayerColor.BLACK).isEmpty());
+	}
+	
+	@Test
+	void treeMergesTranspositions() throws Exception
+	{
+		GameTree tree = new GameTree(10);
+		assertEquals(4, tree.addGame(moves("g1f3 g8f6 b1c3 b8c6"), Game.Status.WHITE_WINS));
+		assertEquals(4, tree.addGame(moves("b1c3 b8c6 g1f3 g8f6"), Game.Status.DRAWN));
+		assertEquals(4, tree.addGame(moves("b1c3 g8f6 g1f3 b8c6"), Game.Status.BLACK_WINS));
+		int root = tree.find(ZobristHash.hash(StandardPosition.newBoard(), PlayerColor.WHITE));
+		assertEquals(3, tree.getGames(root));
+		assertArrayEquals(new int[] { 1, 1, 1 }, tree.getResults(root));
+		int[] rootMoves = new int[2];
+		tree.forEachEdge(root, (move, child, games) -> rootMoves[move == Move.squares(moves("b1c3").get(0)) ? 1 : 0] += games);
+		assertArrayEquals(new int[] { 1, 2 }, rootMoves);
+		Game g = new Game(0);
+		for (int i = 0; i < 4; i++) { g.move(moves("g1f3 g8f6 b1c3 b8c6").get(i)); }
+		int end = tree.find(g.getPositions().key());
+		assertEquals(3, tree.getGames(end));
+		// nodes by ply: 1, 2, 3, 2 (the first and third games meet), 1
+		assertEquals(1 + 2 + 3 + 2 + 1, tree.nodeCount());
+		assertEquals(2 + 3 + 3 + 2, tree.edgeCount());
+	}
+	
+	@Test
+	void repeatedPositionCountsOncePerGame() throws Exception
+	{
+		GameTree tree = new GameTree(10);
+		MoveList list = moves("g1f3 g8f6 f3g1 f6g8 g1f3 g8f6 f3g1");
+		assertEquals(7, tree.addGame(list, Game.Status.DRAWN));
+		Game g = new Game(0);
+		for (int i = 0; i < 2; i++) { g.move(list.get(i)); }
+		int repeated = tree.find(g.getPositions().key());
+		assertEquals(1, tree.getGames(repeated));
+		assertArrayEquals(new int[] { 0, 1, 0 }, tree.getResults(repeated));
+		int[] edgeGames = new int[1];
+		tree.forEachEdge(repeated, (move, child, games) -> edgeGames[0] += games);
+		assertEquals(1, edgeGames[0]);
+		// plies 6 and 7 reach the positions of plies 2 and 3 again
+		assertEquals(6, tree.nodeCount());
+		assertEquals(6, tree.edgeCount());
+	}
+	
+	@Test
+	void parallelIngestMatchesSerial() throws Exception
+	{
+		Path log = Files.createTempFile("games", ".log");
+		log.toFile().deleteOnExit();
+		new gpv.chess.game.Tournament()
+				.add("a", () -> new gpv.chess.engine.RandomEngine(3))
+				.add("b", () -> new gpv.chess.engine.RandomEngine(4))
+				.setGamesPerPairing(40)
+				.run(2, log);
+		GameTree parallel = new GameTree(12), serial = new GameTree(12);
+		assertEquals(40, parallel.addGames(log, 4));
+		for (gpv.chess.game.ResultLog.Entry e : gpv.chess.game.ResultLog.read(log)) {
+			serial.addGame(e.moves, e.status);
+		}
+		assertEquals(serial.nodeCount(), parallel.nodeCount());
+		assertEquals(serial.edgeCount(), parallel.edgeCount());
+		int root = serial.find(ZobristHash.hash(StandardPosition.newBoard(), PlayerColor.WHITE));
+		assertEquals(40, parallel.getGames(parallel.find(ZobristHash.hash(StandardPosition.newBoard(), PlayerColor.WHITE))));
+		assertArrayEquals(serial.getResults(root), parallel.getResults(root));
+		Path file = Files.createTempFile("tree", ".bin");
+		file.toFile().deleteOnExit();
+		parallel.export(file);
+		try (java.io.DataInputStream in = new java.io.DataInputStream(Files.newInputStream(file))) {
+			assertEquals(GameTree.MAGIC, in.readInt());
+			assertEquals(parallel.nodeCount(), in.readInt());
+			assertEquals(parallel.edgeCount(), in.readLong());
+		}
+		assertEquals(16 + parallel.nodeCount() * 26 + parallel.edgeCount() * 10, Files.size(file));
+	}
+	
+	private static MoveList moves(String text)
+	{
+		Game g = new Game(0);
+		for (String m : text.split(" ")) {
+			assertTrue(m, g.move(Move.parse(m, g.getBoard())));
+		}
+		return g.getHistory();
+	}
+}
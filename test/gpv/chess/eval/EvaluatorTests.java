@@ -0,0 +1,132 @@
+package gpv.chess.eval;
+
+import static gpv.chess.ChessPieceDescriptor.*;
+import static gpv.util.Coordinate.makeCoordinate;
+import static org.junit.Assert.*;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+import gpv.util.Board;
+
+/**
+ * Tests for the incrementally updated static evaluation.
+ * @version Oct 19, 2026
+ */
+class EvaluatorTests
+{
+	private static EvaluationTable table;
+	private IncrementalEvaluator evaluator;
+	
+	@BeforeAll
+	public static void setupBeforeTests()
+	{
+		table = EvaluationTable.standard();
+	}
+	
+	@BeforeEach
+	public void setup()
+	{
+		evaluator = new IncrementalEvaluator(table);
+	}
+	
+	@Test
+	void startingPositionIsBalanced()
+	{
+		Board b = StandardPosition.newBoard();
+		evaluator.attach(b);
+		assertEquals(0, evaluator.evaluate());
+		assertEquals(24, evaluator.getPhase());
+		assertEquals(evaluator.getMaterial(PlayerColor.WHITE), evaluator.getMaterial(PlayerColor.BLACK));
+	}
+	
+	@Test
+	void followsPlacementAndRemoval()
+	{
+		Board b = new Board(8, 8);
+		evaluator.attach(b);
+		b.putPieceAt(new ChessPiece(WHITEQUEEN), makeCoordinate(4, 4));
+		assertEquals(905, evaluator.evaluate());
+		b.putPieceAt(new ChessPiece(BLACKROOK), makeCoordinate(4, 4));	// replaces the queen
+		assertEquals(-500, evaluator.evaluate());
+		b.removePieceAt(makeCoordinate(4, 4));
+		assertEquals(0, evaluator.evaluate());
+		assertEquals(0, evaluator.getPhase());
+	}
+	
+	@Test
+	void runningTotalsMatchFullRecompute()
+	{
+		Game g = new Game(1);
+		evaluator.attach(g.getBoard());
+		IncrementalEvaluator fresh = new IncrementalEvaluator(table);
+		Random r = new Random(7);
+		for (int i = 0; i < 60 && g.moveAtRandom(r); i++) {
+			fresh.recompute(g.getBoard());
+			assertEquals(fresh.getMidgame(), evaluator.getMidgame());
+			assertEquals(fresh.getEndgame(), evaluator.getEndgame());
+			assertEquals(fresh.evaluate(), evaluator.evaluate());
+		}
+	}
+	
+	@Test
+	void nnueAccumulatorMatchesFullRecompute()
+	{
+		NnueNetwork net = NnueNetwork.random(64, 64, 3);
+		Game g = new Game(1);
+		NnueAccumulator acc = new NnueAccumulator(net);
+		acc.attach(g.getBoard());
+		NnueAccumulator fresh = new NnueAccumulator(net);
+		Random r = new Random(11);
+		for (int i = 0; i < 60 && g.moveAtRandom(r); i++) {
+			fresh.recompute(g.getBoard());
+			assertArrayEquals(fresh.getAccumulator(), acc.getAccumulator());
+			assertEquals(fresh.evaluate(), acc.evaluate());
+		}
+	}
+	
+	@Test
+	void nnueNetworkSurvivesSaveAndLoad() throws Exception
+	{
+		NnueNetwork net = NnueNetwork.random(64, 32, 5);
+		java.nio.file.Path file = java.nio.file.Files.createTempFile("net", ".nnue");
+		try {
+			net.save(file);
+			NnueNetwork loaded = NnueNetwork.load(file);
+			Board b = StandardPosition.newBoard();
+			NnueAccumulator a = new NnueAccumulator(net);
+			NnueAccumulator c = new NnueAccumulator(loaded);
+			a.recompute(b);
+			c.recompute(b);
+			assertArrayEquals(a.getAccumulator(), c.getAccumulator());
+			assertEquals(a.evaluate(), c.evaluate());
+		} finally {
+			java.nio.file.Files.delete(file);
+		}
+	}
+	
+	@Test
+	void nnueLoadRejectsBadHeaders() throws Exception
+	{
+		java.nio.file.Path file = java.nio.file.Files.createTempFile("net", ".nnue");
+		try {
+			// descriptors, squares, hidden and scale follow the magic number
+			int[][] corruptions = { { 4, 12 }, { 8, 0 }, { 12, -1 }, { 16, 0 }, { 8, 65 }, { 0, 0x47505631 } };
+			for (int[] c : corruptions) {
+				NnueNetwork.random(64, 8, 5).save(file);
+				try (java.io.RandomAccessFile f = new java.io.RandomAccessFile(file.toFile(), "rw")) {
+					f.seek(c[0]);
+					f.writeInt(c[1]);
+				}
+				Assertions.assertThrows(java.io.IOException.class, () -> NnueNetwork.load(file));
+			}
+			NnueNetwork.random(64, 8, 5).save(file);
+			try (java.io.RandomAccessFile f = new java.io.RandomAccessFile(file.toFile(), "rw")) {
+				f.setLength(f.length() - 1);
+			}
+			Assertions.assertThrows(java.io.IOException.class, () -> NnueNetwork.load(file));
+		} finally {
+			java.nio.file.Files.delete(file);
+		}
+	}
+}
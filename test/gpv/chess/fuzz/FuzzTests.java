@@ -0,0 +1,81 @@
+package gpv.chess.fuzz;
+
+import static org.junit.Assert.*;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.util.Board;
+
+/**
+ * Tests for the differential fuzzer and the batch attack kernels.
+ * @version Oct 19, 2026
+ */
+class FuzzTests
+{
+	@Test
+	void positionsAreReproducible()
+	{
+		RandomPositions positions = new RandomPositions(7);
+		Board a = positions.board(positions.position(42));
+		Board b = positions.board(positions.position(42));
+		assertEquals(a.getPieces().keySet(), b.getPieces().keySet());
+	}
+	
+	@Test
+	void fastPathsAgreeWithReference() throws Exception
+	{
+		DifferentialFuzzer.Report report = new DifferentialFuzzer(new RandomPositions(38))
+				.add(Representations::compiledMailbox)
+				.add(Representations::compiledBoard)
+				.add(Representations::codecRoundTrip)
+				.run(300, 2);
+		assertEquals(0, report.totalDisagreements());
+		assertEquals(4, report.names.length);
+		assertTrue(report.checks[0] > 0);
+		assertEquals(report.checks[0], report.checks[3]);
+	}
+	
+	@Test
+	void disagreementsAreShrunk() throws Exception
+	{
+		// sees only the moving piece and the target, so it misses every obstruction
+		DifferentialFuzzer.Report report = new DifferentialFuzzer(new RandomPositions(38))
+				.add(() -> new Representation() {
+					private Mailbox mailbox = new Mailbox();
+					public String name() { return "no-blockers"; }
+					public void load(Board b) { mailbox.load(b); }
+					public boolean canMove(int from, int to) {
+						Occupancy sparse = s -> s == from || s == to ? mailbox.codeAt(s) : Occupancy.EMPTY;
+						return CompiledRules.STANDARD.check(mailbox.codeAt(from), from, to, sparse) == MoveRejection.NONE;
+					}
+				})
+				.run(50, 1);
+		assertTrue(report.totalDisagreements() > 0);
+		DifferentialFuzzer.Disagreement d = report.kept.get(0);
+		assertEquals(2, d.position.size());
+		assertFalse(d.expected);
+	}
+	
+	@Test
+	void batchAttacksAgreeWithCanMove()
+	{
+		RandomPositions positions = new RandomPositions(39, 8, 8, ChessPieceDescriptor.values(), 24);
+		AttackBatch batch = new AttackBatch(64);
+		Board[] boards = new Board[64];
+		for (int i = 0; i < boards.length; i++) {
+			boards[i] = positions.board(positions.position(i));
+			batch.add(boards[i]);
+		}
+		long[] out = new long[64];
+		Mailbox mailbox = new Mailbox();
+		for (PlayerColor side : PlayerColor.values()) {
+			batch.attacks(side, out);
+			for (int i = 0; i < boards.length; i++) {
+				assertEquals(AttackBenchmark.referenceAttacks(boards[i], side), out[i]);
+				assertEquals(AttackBenchmark.perBoardAttacks(mailbox.load(boards[i]), side), out[i]);
+			}
+		}
+		batch.clear();
+		assertEquals(0, batch.size());
+		assertEquals(0, batch.occupied(0));
+	}
+}
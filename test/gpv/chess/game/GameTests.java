@@ -0,0 +1,171 @@
+package gpv.chess.game;
+
+import static gpv.util.Coordinate.makeCoordinate;
+import static org.junit.Assert.*;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+
+/**
+ * Tests for Game and its actor.
+ * @version Oct 19, 2026
+ */
+class GameTests
+{
+	@Test
+	void movesAlternateAndAreValidated()
+	{
+		Game g = new Game(1);
+		assertFalse(g.move(makeCoordinate(7,5), makeCoordinate(6,5)));	// black may not start
+		assertTrue(g.move(makeCoordinate(2,5), makeCoordinate(3,5)));
+		assertEquals(PlayerColor.BLACK, g.getToMove());
+		assertFalse(g.move(makeCoordinate(3,5), makeCoordinate(4,5)));	// white's piece
+		assertTrue(g.move(makeCoordinate(7,5), makeCoordinate(6,5)));
+		assertEquals(2, g.getPly());
+		assertTrue(((ChessPiece) g.getBoard().getPieceAt(makeCoordinate(3,5))).hasMoved());
+	}
+	
+	@Test
+	void randomGamesFinish()
+	{
+		Game g = new Game(2);
+		Random r = new Random(42);
+		while (g.getPly() < 300 && g.moveAtRandom(r)) { }
+		g.adjudicateDraw();
+		assertNotEquals(Game.Status.ONGOING, g.getStatus());
+	}
+	
+	@Test
+	void thirdRepetitionDraws()
+	{
+		Game g = new Game(3);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Game.Status.ONGOING, g.getStatus());
+			boolean out = i % 4 < 2;
+			int row = i % 2 == 0 ? 1 : 8, knightRow = i % 2 == 0 ? 3 : 6;
+			assertTrue(out ? g.move(makeCoordinate(row,7), makeCoordinate(knightRow,6))
+					: g.move(makeCoordinate(knightRow,6), makeCoordinate(row,7)));
+		}
+		assertEquals(3, g.getPositions().repetitions());
+		assertEquals(Game.Status.DRAWN, g.getStatus());
+		assertEquals(ZobristHash.hash(g.getBoard(), g.getToMove()), g.getPositions().key());
+	}
+	
+	@Test
+	void positionHistoryScansReversibleWindow()
+	{
+		PositionHistory h = new PositionHistory(8);
+		h.reset(1);
+		h.push(2, false);
+		h.push(1, false);
+		h.push(2, false);
+		h.push(1, false);
+		assertEquals(3, h.repetitions());
+		assertEquals(4, h.halfmoveClock());
+		h.push(3, true);
+		h.push(1, false);
+		assertEquals(1, h.repetitions());	// the earlier 1s are before the capture
+		h.pop();
+		h.pop();
+		assertEquals(3, h.repetitions());
+		h.reset(5);
+		for (int i = 0; i < PositionHistory.FIFTY_MOVES; i++) {
+			assertFalse(h.isFiftyMoveDraw());
+			h.push(i, false);
+		}
+		assertTrue(h.isFiftyMoveDraw());
+		assertEquals(1, h.repetitions());
+	}
+	
+	@Test
+	void offBoardMovesAreRejected()
+	{
+		Game g = new Game(1);
+		assertTrue(g.move(makeCoordinate(2,1), makeCoordinate(4,1)));
+		assertTrue(g.move(makeCoordinate(7,8), makeCoordinate(6,8)));
+		// row 1, column 9 is not a square; it must not wrap onto a2
+		assertFalse(g.move(makeCoordinate(1,1), makeCoordinate(1,9)));
+		assertFalse(g.move(makeCoordinate(1,1), makeCoordinate(0,1)));
+		assertFalse(g.move(makeCoordinate(0,1), makeCoordinate(3,1)));
+		assertNull(g.getBoard().getPieceAt(makeCoordinate(2,1)));
+		assertEquals(PieceName.ROOK, ((ChessPiece) g.getBoard().getPieceAt(makeCoordinate(1,1))).getName());
+		assertEquals(2, g.getPly());
+	}
+	
+	@Test
+	void actorRunsMessagesInOrder() throws Exception
+	{
+		try (GameHost host = new GameHost(2)) {
+			GameActor a = host.open();
+			a.move(makeCoordinate(2,1), makeCoordinate(3,1));
+			a.move(makeCoordinate(7,1), makeCoordinate(6,1));
+			assertEquals(2, (int) a.ask(Game::getPly).get());
+			assertEquals(a, host.get(a.getId()));
+		}
+	}
+	
+	@Test
+	void throwingQueryFailsItsFuture() throws Exception
+	{
+		try (GameHost host = new GameHost(1)) {
+			GameActor a = host.open();
+			java.util.concurrent.CompletableFuture<Integer> failed = a.ask(g -> { throw new IllegalStateException("query"); });
+			java.util.concurrent.ExecutionException e = Assertions.assertThrows(
+				java.util.concurrent.ExecutionException.class, () -> failed.get(5, java.util.concurrent.TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertTrue(a.move(makeCoordinate(2,1), makeCoordinate(3,1)).get(5, java.util.concurrent.TimeUnit.SECONDS));
+		}
+	}
+	
+	@Test
+	void throwingMessageIsCountedAndSkipped() throws Exception
+	{
+		try (GameHost host = new GameHost(1)) {
+			GameActor a = host.open();
+			a.tell(g -> { throw new IllegalStateException("message"); });
+			assertTrue(a.move(makeCoordinate(2,1), makeCoordinate(3,1)).get(5, java.util.concurrent.TimeUnit.SECONDS));
+			assertEquals(1, a.getFailures());
+		}
+	}
+	
+	@Test
+	void searcherLeavesBoardUnchangedAndTakesKing()
+	{
+		gpv.util.Board b = new gpv.util.Board(8, 8);
+		ChessPiece rook = new ChessPiece(ChessPieceDescriptor.WHITEROOK);
+		ChessPiece king = new ChessPiece(ChessPieceDescriptor.BLACKKING);
+		b.putPieceAt(rook, makeCoordinate(1,1));
+		b.putPieceAt(new ChessPiece(ChessPieceDescriptor.WHITEKING), makeCoordinate(1,5));
+		b.putPieceAt(king, makeCoordinate(6,1));
+		gpv.chess.engine.Searcher searcher =
+				new gpv.chess.engine.Searcher(gpv.chess.eval.EvaluationTable.standard(), 3);
+		int move = searcher.chooseMove(b, PlayerColor.WHITE);
+		assertEquals("a1a6", Move.toString(move, 8));
+		assertEquals(3, b.getPieces().size());
+		assertSame(rook, b.getPieceAt(makeCoordinate(1,1)));
+		assertSame(king, b.getPieceAt(makeCoordinate(6,1)));
+		assertFalse(rook.hasMoved());
+	}
+	
+	@Test
+	void tournamentLogsEveryGame() throws Exception
+	{
+		java.nio.file.Path log = java.nio.file.Files.createTempFile("tournament", ".log");
+		log.toFile().deleteOnExit();
+		Tournament.Report report = new Tournament()
+				.add("random", () -> new gpv.chess.engine.RandomEngine(1))
+				.add("search", () -> new gpv.chess.engine.Searcher(gpv.chess.eval.EvaluationTable.standard(), 1))
+				.setGamesPerPairing(4)
+				.setMaxPlies(60)
+				.run(2, log);
+		assertEquals(4, report.games);
+		assertEquals(0, report.illegalMoves);
+		assertEquals(8, report.wins[0] + report.draws[0] + report.losses[0] + report.wins[1] + report.draws[1] + report.losses[1]);
+		java.util.List<ResultLog.Entry> entries = ResultLog.read(log);
+		assertEquals(4, entries.size());
+		for (ResultLog.Entry e : entries) {
+			Game replay = new Game(e.id);
+			for (int i = 0; i < e.moves.size(); i++) { assertTrue(replay.move(e.moves.get(i))); }
+		}
+	}
+}
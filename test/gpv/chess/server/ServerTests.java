@@ -0,0 +1,222 @@
+package gpv.chess.server;
+
+import static org.junit.Assert.*;
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.engine.*;
+import gpv.chess.eval.EvaluationTable;
+import gpv.chess.game.Game;
+import gpv.util.Board;
+
+/**
+ * Tests for the validation protocol and server, and for distributed perft
+ * and search.
+ * @version Oct 19, 2026
+ */
+class ServerTests
+{
+	@Test
+	void workersAgreeWithOneProcess() throws Exception
+	{
+		Board b = StandardPosition.newBoard();
+		long expected = new Perft().count(b, PlayerColor.WHITE, 3);
+		Board[] boards = new Board[4];
+		PlayerColor[] sides = new PlayerColor[4];
+		for (int i = 0; i < boards.length; i++) {
+			Game g = new Game(i);
+			for (int ply = 0; ply < 2 + i; ply++) {
+				g.moveAtRandom(new Random(i * 31 + ply));
+			}
+			boards[i] = g.getBoard();
+			sides[i] = g.getToMove();
+		}
+		try (PerftCoordinator coordinator = new PerftCoordinator(2)) {
+			PerftCoordinator.Report report = coordinator.perft(b, PlayerColor.WHITE, 3);
+			assertEquals(expected, report.total);
+			assertTrue(report.tasks > 2);
+			assertEquals(0, report.lost);
+			report = coordinator.search(boards, sides, 2);
+			for (int i = 0; i < boards.length; i++) {
+				assertEquals(new Searcher(EvaluationTable.standard(), 2).chooseMove(boards[i], sides[i]), report.values[i]);
+			}
+		}
+		assertEquals(32, b.getPieces().size());
+	}
+
+	@Test
+	void lostWorkerTasksAreRequeued() throws Exception
+	{
+		Board b = StandardPosition.newBoard();
+		long expected = new Perft().count(b, PlayerColor.WHITE, 3);
+		try (PerftCoordinator coordinator = new PerftCoordinator(2)) {
+			Process p = coordinator.process(0);
+			p.destroyForcibly();
+			p.waitFor();
+			PerftCoordinator.Report report = coordinator.perft(b, PlayerColor.WHITE, 3);
+			assertEquals(expected, report.total);
+			assertEquals(1, report.lost);
+			assertEquals(1, coordinator.getLiveWorkers());
+			assertEquals(expected, coordinator.perft(b, PlayerColor.WHITE, 3).total);
+		}
+	}
+
+	@Test
+	void protocolAnswersEveryMove()
+	{
+		Board b = StandardPosition.newBoard();
+		byte[] moves = everyMoveFrom(b, 1, 2);
+		int count = moves.length / 2;
+		ByteBuffer request = ByteBuffer.allocate(4096);
+		ValidationProtocol.writeRequest(request, 17, b, moves, count);
+		request.flip();
+		assertEquals(request.remaining() - 4, request.getInt());
+		ByteBuffer response = ByteBuffer.allocate(ValidationProtocol.responseSize(count));
+		ValidationProtocol.answer(request, response, new PositionCodec(), new Board(8, 8));
+		assertFalse(request.hasRemaining());
+		assertFalse(response.hasRemaining());
+		response.flip();
+		checkResponse(response, 17, b, moves);
+	}
+
+	@Test
+	void protocolRejectsMoveCountOutsideFrame()
+	{
+		Board b = StandardPosition.newBoard();
+		byte[] moves = everyMoveFrom(b, 2, 1);
+		ByteBuffer request = ByteBuffer.allocate(4096);
+		ValidationProtocol.writeRequest(request, 1, b, moves, moves.length / 2);
+		int countAt = request.position() - moves.length - 2;
+		ByteBuffer response = ByteBuffer.allocate(4096);
+		for (int count : new int[] { moves.length / 2 + 1, moves.length / 2 - 1, 0xFFFF }) {
+			request.putShort(countAt, (short) count);
+			ByteBuffer frame = (ByteBuffer) request.duplicate().flip().position(4);
+			Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ValidationProtocol.answer(frame, response, new PositionCodec(), new Board(8, 8)));
+			assertEquals(0, response.position());
+		}
+	}
+
+	@Test
+	void serverAnswersPipelinedRequestsOverLoopback() throws Exception
+	{
+		Board start = StandardPosition.newBoard();
+		Game g = new Game(5);
+		for (int ply = 0; ply < 6; ply++) { g.moveAtRandom(new Random(ply)); }
+		Board later = g.getBoard();
+		byte[] first = everyMoveFrom(start, 1, 2), second = everyMoveFrom(later, 2, 1);
+		try (ValidationServer server = new ValidationServer(0)) {
+			Thread t = new Thread(server, "validation server");
+			t.start();
+			try (SocketChannel channel = SocketChannel.open(
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))) {
+				ByteBuffer out = ByteBuffer.allocate(8192);
+				ValidationProtocol.writeRequest(out, 1, start, first, first.length / 2);
+				ValidationProtocol.writeRequest(out, 2, later, second, second.length / 2);
+				out.flip();
+				while (out.hasRemaining()) { channel.write(out); }
+				ByteBuffer in = ByteBuffer.allocate(ValidationProtocol.responseSize(first.length / 2)
+					+ ValidationProtocol.responseSize(second.length / 2));
+				while (in.hasRemaining()) { assertTrue(channel.read(in) >= 0); }
+				in.flip();
+				checkResponse(in, 1, start, first);
+				checkResponse(in, 2, later, second);
+				out.clear();
+				ValidationProtocol.writeRequest(out, 3, start, first, first.length / 2);
+				out.putShort(out.position() - first.length - 2, (short) (first.length / 2 + 1)).flip();
+				while (out.hasRemaining()) { channel.write(out); }
+				in.clear();
+				assertEquals(-1, channel.read(in));
+			}
+			server.close();
+			t.join(5000);
+			assertFalse(t.isAlive());
+		}
+	}
+
+	@Test
+	void serverAnswersEveryRequestOfALateReader() throws Exception
+	{
+		Board start = StandardPosition.newBoard();
+		byte[] moves = java.util.Arrays.copyOfRange(everyMoveFrom(start, 2), 32, 48);	// a2 to the third row
+		ByteBuffer request = ByteBuffer.allocate(8192);
+		ValidationProtocol.writeRequest(request, 0, start, moves, moves.length / 2);
+		request.flip();
+		int count = 16 * ValidationServer.OUT_LIMIT / ValidationProtocol.responseSize(moves.length / 2);
+		try (ValidationServer server = new ValidationServer(0)) {
+			Thread t = new Thread(server, "validation server");
+			t.start();
+			try (SocketChannel channel = SocketChannel.open()) {
+				channel.setOption(java.net.StandardSocketOptions.SO_RCVBUF, 4096);	// so the responses back up into the server
+				channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+				Thread writer = new Thread(() -> {
+					try {
+						for (int id = 0; id < count; id++) {
+							ByteBuffer out = request.duplicate();
+							out.putInt(4, id);
+							while (out.hasRemaining()) { channel.write(out); }
+						}
+					} catch (java.io.IOException e) {
+						throw new java.io.UncheckedIOException(e);
+					}
+				}, "pipelining client");
+				writer.start();
+				Thread.sleep(500);	// let the responses pile up unread
+				ByteBuffer in = ByteBuffer.allocate(count * ValidationProtocol.responseSize(moves.length / 2));
+				while (in.hasRemaining()) { assertTrue(channel.read(in) >= 0); }
+				writer.join(5000);
+				assertFalse(writer.isAlive());
+				in.flip();
+				for (int id = 0; id < count; id++) { checkResponse(in, id, start, moves); }
+				assertTrue(server.getPeakPending() > 0);
+				assertTrue(server.getPeakPending() < ValidationServer.OUT_LIMIT + request.limit());
+			}
+			server.close();
+			t.join(5000);
+			assertFalse(t.isAlive());
+		}
+	}
+
+	/**
+	 * @return from/to pairs from every square of the given rows to every square
+	 */
+	private static byte[] everyMoveFrom(Board b, int... rows)
+	{
+		ByteArrayOutputStream moves = new ByteArrayOutputStream();
+		for (int row : rows) {
+			for (int column = 1; column <= b.getnColumns(); column++) {
+				for (int to = 0; to < b.getnSquares(); to++) {
+					moves.write(b.squareIndex(gpv.util.Coordinate.makeCoordinate(row, column)));
+					moves.write(to);
+				}
+			}
+		}
+		return moves.toByteArray();
+	}
+
+	/**
+	 * Read one response frame and check each bit against canMove.
+	 */
+	private static void checkResponse(ByteBuffer in, int id, Board b, byte[] moves)
+	{
+		int count = moves.length / 2;
+		assertEquals(ValidationProtocol.responseSize(count) - 4, in.getInt());
+		assertEquals(id, in.getInt());
+		assertEquals(count, in.getShort() & 0xFFFF);
+		byte[] bits = new byte[ValidationProtocol.bitsetBytes(count)];
+		in.get(bits);
+		int valid = 0;
+		for (int i = 0; i < count; i++) {
+			gpv.util.Coordinate from = b.coordinateOf(moves[2 * i] & 0xFF), to = b.coordinateOf(moves[2 * i + 1] & 0xFF);
+			ChessPiece p = (ChessPiece) b.getPieceAt(from);
+			boolean expected = p != null && p.canMove(from, to, b);
+			assertEquals(expected, (bits[i >> 3] & 1 << (i & 7)) != 0);
+			if (expected) { valid++; }
+		}
+		assertTrue(valid > 0);
+	}
+}
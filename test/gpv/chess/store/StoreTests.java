@@ -0,0 +1,364 @@
+package gpv.chess.store;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+import gpv.util.Board;
+
+/**
+ * Tests for the game store and the position cache.
+ * @version Oct 19, 2026
+ */
+class StoreTests
+{
+	@Test
+	void gamesRoundTrip() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(20, 42);
+		try (GameStore store = new GameStore(dir, 1 << 10, 4)) {
+			for (Game g : games) {
+				store.append(g);
+			}
+			assertTrue(store.getSegmentCount() > 1);
+		}
+		try (GameStore store = new GameStore(dir, 1 << 10, 4)) {
+			assertEquals(games.size(), store.size());
+			for (Game g : games) {
+				GameStore.Record r = store.get(g.getId());
+				assertEquals(g.getStatus(), r.status);
+				assertArrayEquals(g.getHistory().toArray(), r.moves.toArray());
+				long hash = ZobristHash.hash(g.getBoard(), g.getToMove());
+				assertEquals(hash, r.finalHash);
+				boolean found = false;
+				for (GameStore.Record p : store.findByPosition(hash)) {
+					found |= p.id == g.getId();
+				}
+				assertTrue(found);
+			}
+			assertNull(store.get(1000));
+		}
+	}
+
+	@Test
+	void tornTailIsCutOff() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(5, 43);
+		try (GameStore store = new GameStore(dir, 1 << 20, 1)) {
+			for (Game g : games) {
+				store.append(g);
+			}
+		}
+		Path segment = dir.resolve("seg-00000000.dat");
+		long size = Files.size(segment);
+		try (FileChannel c = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			c.truncate(size - 3);	// the last game was only partly written
+			c.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 }), c.size());
+		}
+		try (GameStore store = new GameStore(dir, 1 << 20, 1)) {
+			assertNull(store.get(games.get(4).getId()));
+			assertEquals(4, store.size());
+			assertNotNull(store.get(games.get(3).getId()));
+			store.append(games.get(4));
+		}
+		try (GameStore store = new GameStore(dir, 1 << 20, 1)) {
+			assertEquals(5, store.size());
+			assertArrayEquals(games.get(4).getHistory().toArray(), store.get(games.get(4).getId()).moves.toArray());
+		}
+	}
+
+	@Test
+	void missingIndexIsRebuilt() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(10, 44);
+		try (GameStore store = new GameStore(dir, 1 << 10, 100)) {
+			for (Game g : games) {
+				store.append(g);
+			}
+			store.delete(games.get(0).getId());
+		}
+		Files.delete(dir.resolve("id.idx"));
+		Files.delete(dir.resolve("hash.idx"));
+		try (GameStore store = new GameStore(dir, 1 << 10, 100)) {
+			assertEquals(9, store.size());
+			assertNull(store.get(games.get(0).getId()));
+			assertNotNull(store.get(games.get(9).getId()));
+		}
+	}
+
+	@Test
+	void compactionKeepsLiveGames() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(30, 45);
+		try (GameStore store = new GameStore(dir, 1 << 10, 8)) {
+			for (Game g : games) {
+				store.append(g);
+			}
+			for (int i = 0; i < games.size(); i++) {
+				if (i % 5 != 0) { store.delete(games.get(i).getId()); }
+			}
+			long before = bytes(dir);
+			assertTrue(store.compact() > 0);
+			assertTrue(bytes(dir) < before);
+			store.startBackground(10, 0);
+		}
+		try (GameStore store = new GameStore(dir, 1 << 10, 8)) {
+			assertEquals(6, store.size());
+			for (int i = 0; i < games.size(); i++) {
+				GameStore.Record r = store.get(games.get(i).getId());
+				if (i % 5 == 0) {
+					assertArrayEquals(games.get(i).getHistory().toArray(), r.moves.toArray());
+				} else {
+					assertNull(r);
+				}
+			}
+		}
+	}
+
+	@Test
+	void replacingOneGameStaysBounded() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		Game g = play(1, 47).get(0);
+		try (GameStore store = new GameStore(dir, 1 << 10, 64)) {
+			for (int i = 0; i < 5000; i++) {
+				store.append(7, g.getHistory(), g.getStatus(), i);
+			}
+			assertTrue(store.getSegmentCount() > 100);
+			assertTrue(store.compact() > 100);
+			assertEquals(0, store.compact());
+			assertTrue(store.getSegmentCount() <= 2);
+			assertEquals(1, store.size());
+			assertEquals(4999, store.get(7).finalHash);
+		}
+		assertTrue(Files.size(dir.resolve("id.idx")) <= MappedIndex.HEADER + (1 << 12) * MappedIndex.SLOT);
+		try (GameStore store = new GameStore(dir, 1 << 10, 64)) {
+			assertEquals(1, store.size());
+			assertEquals(4999, store.get(7).finalHash);
+			assertEquals(1, store.findByPosition(4999).size());
+		}
+	}
+	
+	@Test
+	void crashAfterSyncKeepsIndexedGames() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(7, 46);
+		try (CrashImages store = new CrashImages(dir, 3)) {
+			for (int i = 0; i < 5; i++) {
+				store.append(games.get(i));	// the third append syncs
+			}
+			store.delete(games.get(1).getId());	// and so does this
+			store.append(games.get(5));
+			store.append(games.get(6));
+		}
+		// reopen from what the disk held at each sync, as after a crash then
+		try (GameStore store = new GameStore(dir.resolve("sync-1"), 1 << 20, 3)) {
+			assertEquals(3, store.size());
+			Game third = games.get(2);
+			assertNotNull(store.get(third.getId()));
+			assertEquals(1, store.findByPosition(ZobristHash.hash(third.getBoard(), third.getToMove())).size());
+		}
+		try (GameStore store = new GameStore(dir.resolve("sync-2"), 1 << 20, 3)) {
+			assertEquals(4, store.size());
+			assertNull(store.get(games.get(1).getId()));
+			assertNotNull(store.get(games.get(4).getId()));
+		}
+	}
+	
+	@Test
+	void indexWrittenBackBeforeSyncKeepsReplacedGame() throws IOException
+	{
+		Path dir = Files.createTempDirectory("store");
+		List<Game> games = play(5, 48);
+		try (CrashImages store = new CrashImages(dir, 100)) {
+			for (Game g : games) {
+				store.append(g);
+			}
+			store.sync();
+			// replace a game; the system writes the index pages back, then
+			// crashes before the new record reaches the disk
+			store.append(games.get(2).getId(), games.get(0).getHistory(), games.get(0).getStatus(), 99);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.idx")) {
+				for (Path f : files) {
+					Files.copy(f, dir.resolve("sync-1").resolve(f.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+		try (GameStore store = new GameStore(dir.resolve("sync-1"), 1 << 20, 100)) {
+			assertEquals(5, store.size());
+			Game replaced = games.get(2);
+			GameStore.Record r = store.get(replaced.getId());
+			assertArrayEquals(replaced.getHistory().toArray(), r.moves.toArray());
+			assertEquals(1, store.findByPosition(ZobristHash.hash(replaced.getBoard(), replaced.getToMove())).size());
+			assertTrue(store.findByPosition(99).isEmpty());
+		}
+	}
+	
+	/**
+	 * A store that copies its files into sync-1, sync-2, ... right after each
+	 * sync, when the disk holds exactly what a crash would leave behind.
+	 */
+	private static class CrashImages extends GameStore
+	{
+		private final Path dir;
+		private int syncs;
+		
+		CrashImages(Path dir, int syncEvery) throws IOException
+		{
+			super(dir, 1 << 20, syncEvery);
+			this.dir = dir;
+		}
+		
+		@Override
+		public synchronized void sync() throws IOException
+		{
+			super.sync();
+			if (dir == null) { return; }	// still opening
+			Path image = Files.createDirectory(dir.resolve("sync-" + ++syncs));
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{dat,idx}")) {
+				for (Path f : files) { Files.copy(f, image.resolve(f.getFileName())); }
+			}
+		}
+	}
+	
+	@Test
+	void cacheFillsBoardOnHit()
+	{
+		PositionCache cache = new PositionCache(1 << 16, 128);
+		List<Game> games = play(10, 46);
+		for (Game g : games) {
+			long key = ZobristHash.hash(g.getBoard(), g.getToMove());
+			assertTrue(cache.put(key, g.getBoard(), new byte[] { (byte) g.getId(), 7 }));
+		}
+		Board b = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		byte[] payload = new byte[4];
+		for (Game g : games) {
+			long key = ZobristHash.hash(g.getBoard(), g.getToMove());
+			assertEquals(2, cache.get(key, b, payload));
+			assertEquals((byte) g.getId(), payload[0]);
+			assertEquals(key, ZobristHash.hash(b, g.getToMove()));
+		}
+		assertEquals(-1, cache.get(12345, b, payload));
+		assertFalse(cache.put(1, b, new byte[128]));
+		assertEquals(10, cache.size());
+		assertEquals(10, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void cacheKeepsPayloadsAboveShortRange()
+	{
+		PositionCache cache = new PositionCache(1 << 22, 40000);
+		Board b = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		new Game(0, b);
+		byte[] payload = new byte[35000];
+		new java.util.Random(47).nextBytes(payload);
+		assertTrue(cache.put(5, b, payload));
+		assertTrue(cache.contains(5));
+		byte[] out = new byte[payload.length];
+		assertEquals(payload.length, cache.get(5, null, out));
+		assertArrayEquals(payload, out);
+	}
+
+	@Test
+	void cacheEvictsWithinBudget()
+	{
+		PositionCache cache = new PositionCache(1 << 12, 128);
+		assertTrue(cache.allocatedBytes() <= 1 << 12);
+		int capacity = cache.capacity();
+		Board b = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		new Game(0, b);
+		byte[] payload = new byte[1];
+		cache.put(0, b, payload);
+		for (long key = 1; key < capacity * 4; key++) {
+			cache.put(key, b, payload);
+			cache.get(0, null, payload);	// keeps its reference bit set
+		}
+		assertEquals(capacity, cache.size());
+		assertTrue(cache.getEvictions() > 0);
+		assertTrue(cache.contains(0));
+		assertTrue(cache.contains(capacity * 4 - 1));
+		assertFalse(cache.contains(1));
+	}
+
+	@Test
+	void cacheServesConcurrentReaders() throws Exception
+	{
+		PositionCache cache = new PositionCache(1 << 14, 128);
+		List<Game> games = play(8, 47);
+		long[] keys = new long[games.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = ZobristHash.hash(games.get(i).getBoard(), games.get(i).getToMove());
+			cache.put(keys[i], games.get(i).getBoard(), new byte[] { (byte) i });
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		AtomicInteger wrong = new AtomicInteger();
+		List<Future<?>> done = new ArrayList<Future<?>>();
+		for (int t = 0; t < 4; t++) {
+			done.add(pool.submit(() -> {
+				Board b = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+				byte[] payload = new byte[1];
+				for (int n = 0; n < 20000; n++) {
+					int i = n % keys.length;
+					int length = cache.get(keys[i], b, payload);
+					if (length >= 0 && (length != 1 || payload[0] != i
+							|| ZobristHash.hash(b, games.get(i).getToMove()) != keys[i])) {
+						wrong.incrementAndGet();
+					}
+				}
+			}));
+		}
+		Board filler = new Board(StandardPosition.ROWS, StandardPosition.COLUMNS);
+		new Game(0, filler);
+		for (long key = 1; key < 2000; key++) {
+			cache.put(-key, filler, new byte[0]);	// a writer evicting other entries
+			for (int i = 0; i < keys.length; i++) {
+				if (!cache.contains(keys[i])) {
+					cache.put(keys[i], games.get(i).getBoard(), new byte[] { (byte) i });
+				}
+			}
+		}
+		for (Future<?> f : done) {
+			f.get();
+		}
+		pool.shutdown();
+		assertTrue(cache.size() <= cache.capacity());
+		assertEquals(0, wrong.get());
+		assertTrue(cache.getHits() > 0);
+	}
+
+	private static long bytes(Path dir) throws IOException
+	{
+		long total = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "seg-*.dat")) {
+			for (Path f : files) {
+				total += Files.size(f);
+			}
+		}
+		return total;
+	}
+
+	private static List<Game> play(int n, long seed)
+	{
+		Random r = new Random(seed);
+		List<Game> games = new ArrayList<Game>();
+		for (int i = 0; i < n; i++) {
+			Game g = new Game(i + 1);
+			for (int ply = 0; ply < 40 && g.moveAtRandom(r); ply++) { }
+			games.add(g);
+		}
+		return games;
+	}
+}
@@ -0,0 +1,134 @@
+package gpv.chess.stream;
+
+import static org.junit.Assert.*;
+import java.nio.file.*;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.game.Game;
+import gpv.util.Board;
+
+/**
+ * Tests for the board event ring.
+ * @version Oct 19, 2026
+ */
+class StreamTests
+{
+	@Test
+	void eventsPack()
+	{
+		long e = BoardEvents.pack(12345, BoardEvents.PLACED, 0x10C, 63);
+		assertEquals(12345, BoardEvents.boardId(e));
+		assertEquals(BoardEvents.PLACED, BoardEvents.type(e));
+		assertEquals(0x10C, BoardEvents.code(e));
+		assertEquals(63, BoardEvents.square(e));
+	}
+	
+	@Test
+	void consumersSeeEveryEventInOrder() throws Exception
+	{
+		EventRing ring = new EventRing(8);	// much smaller than a game, so the writer has to wait
+		Path file = Files.createTempFile("events", ".log");
+		file.toFile().deleteOnExit();
+		Board mirror = new Board(1, 1);
+		EventLogWriter writer = new EventLogWriter(file, 4, false);
+		BatchConsumer persist = ring.addConsumer(writer);
+		BatchConsumer broadcast = ring.addConsumer((event, sequence, endOfBatch) -> BoardEvents.apply(event, mirror));
+		Thread t1 = new Thread(persist), t2 = new Thread(broadcast);
+		t1.start();
+		t2.start();
+		
+		Game game = new Game(1);
+		BoardEvents.publisher(ring, 7).attach(game.getBoard());
+		Random r = new Random(40);
+		for (int i = 0; i < 100 && game.moveAtRandom(r); i++) { }
+		persist.halt();
+		broadcast.halt();
+		t1.join();
+		t2.join();
+		writer.close();
+		
+		assertEquals(ring.getCursor(), persist.getSequence());
+		assertEquals(ring.getCursor(), broadcast.getSequence());
+		assertSameBoard(game.getBoard(), mirror);
+		Board replayed = new Board(1, 1);
+		long[] events = EventLogWriter.read(file);
+		assertEquals(ring.getCursor() + 1, events.length);
+		for (long e : events) {
+			assertEquals(7, BoardEvents.boardId(e));
+			BoardEvents.apply(e, replayed);
+		}
+		assertSameBoard(game.getBoard(), replayed);
+	}
+	
+	@Test
+	void failedLogKeepsTheRingMoving() throws Exception
+	{
+		Path full = Paths.get("/dev/full");	// every write fails with no space left
+		if (!Files.isWritable(full)) { return; }
+		EventRing ring = new EventRing(8);
+		EventLogWriter writer = new EventLogWriter(full, 4, false);
+		BatchConsumer persist = ring.addConsumer(writer);
+		Thread t = new Thread(persist);
+		t.start();
+		for (int i = 0; i < 100; i++) { ring.publish(BoardEvents.pack(7, BoardEvents.PLACED, 0x10C, i % 64)); }
+		persist.halt();
+		t.join();
+		assertEquals(ring.getCursor(), persist.getSequence());
+		assertNotNull(writer.getFailure());
+		assertEquals(100, writer.getDropped());
+		Assertions.assertThrows(java.io.IOException.class, writer::close);
+	}
+	
+	@Test
+	void deltasCarryOnlyChangedSquares()
+	{
+		Game game = new Game(2);
+		DeltaTracker tracker = new DeltaTracker(64, 10);
+		tracker.attach(game.getBoard());
+		java.nio.ByteBuffer frame = java.nio.ByteBuffer.allocate(tracker.maxFrameSize());
+		DeltaView view = new DeltaView();
+		assertTrue(tracker.writeFrame(frame));	// the first frame is a keyframe
+		frame.flip();
+		assertTrue(view.apply(frame));
+		
+		Random r = new Random(41);
+		for (int i = 0; i < 25; i++) {
+			long before = tracker.getVersion();
+			if (!game.moveAtRandom(r)) { break; }
+			frame.clear();
+			boolean keyframe = tracker.writeFrame(frame);
+			assertEquals((i + 1) % 10 == 0, keyframe);
+			if (!keyframe) {
+				int[] squares = new int[64];
+				assertEquals(2, tracker.changedSince(before, squares));	// a move changes two squares
+			}
+			frame.flip();
+			assertTrue(view.apply(frame));
+			assertEquals(tracker.getVersion(), view.getVersion());
+			Board copy = new Board(1, 1);
+			view.copyTo(copy);
+			assertSameBoard(game.getBoard(), copy);
+		}
+		
+		// a spectator that missed frames is refused and then resynchronized
+		DeltaView late = new DeltaView();
+		frame.clear();
+		tracker.writeDelta(tracker.getVersion(), frame);
+		frame.flip();
+		assertFalse(late.apply(frame));
+		frame.clear();
+		assertFalse(tracker.writeUpdate(late.getVersion(), frame));
+		frame.flip();
+		assertTrue(late.apply(frame));
+		assertEquals(tracker.getVersion(), late.getVersion());
+		assertFalse(tracker.canDiff(0));
+	}
+	
+	private static void assertSameBoard(Board expected, Board actual)
+	{
+		Mailbox a = new Mailbox(expected), b = new Mailbox(actual);
+		assertEquals(a.getSquares(), b.getSquares());
+		for (int i = 0; i < a.getSquares(); i++) { assertEquals(a.codeAt(i), b.codeAt(i)); }
+	}
+}
@@ -0,0 +1,111 @@
+package gpv.chess.tablebase;
+
+import static gpv.chess.ChessPieceDescriptor.*;
+import static gpv.util.Coordinate.makeCoordinate;
+import static org.junit.Assert.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import gpv.chess.*;
+import gpv.chess.tablebase.Tablebase.Material;
+import gpv.util.Board;
+
+/**
+ * Tests for the KQK, KRK and KPK tables, generated once for the class.
+ * @version Oct 19, 2026
+ */
+class TablebaseTests
+{
+	private static Tablebase kqk, krk, kpk;
+	
+	@BeforeAll
+	public static void setupBeforeTests() throws Exception
+	{
+		kqk = generate(Material.KQK, null);
+		krk = generate(Material.KRK, null);
+		kpk = generate(Material.KPK, kqk);
+	}
+	
+	private static Tablebase generate(Material material, Tablebase promotion) throws Exception
+	{
+		Path file = Files.createTempFile(material.name().toLowerCase(), ".gtb");
+		file.toFile().deleteOnExit();
+		return new TablebaseGenerator(material, promotion).write(file);
+	}
+	
+	private static int longestWin(Tablebase t)
+	{
+		int longest = 0;
+		for (int i = 0; i < Tablebase.SIZE; i++) {
+			int v = t.probe(i);
+			if (Tablebase.isWin(v)) { longest = Math.max(longest, Tablebase.distance(v)); }
+		}
+		return longest;
+	}
+	
+	@Test
+	void mateAndMateInOne()
+	{
+		// white king g6, queen g7, black king h8, black to move: mated
+		assertEquals(Tablebase.loss(0), kqk.probe(false, 46, 54, 63));
+		// queen on a7 instead, white to move: Qg7 mates
+		assertEquals(Tablebase.win(1), kqk.probe(true, 46, 48, 63));
+	}
+	
+	@Test
+	void overlappingPiecesAreIllegal()
+	{
+		assertEquals(Tablebase.ILLEGAL, kqk.probe(true, 10, 10, 40));
+		// black king next to the white king with white to move
+		assertEquals(Tablebase.ILLEGAL, kqk.probe(true, 27, 0, 28));
+	}
+	
+	@Test
+	void longestMateIsTenMoves()
+	{
+		assertEquals(19, longestWin(kqk));
+	}
+	
+	@Test
+	void longestRookMateIsSixteenMoves()
+	{
+		assertEquals(31, longestWin(krk));
+		// white king a1, rook b2, black king c3, white to move is one of them
+		assertEquals(Tablebase.win(31), krk.probe(true, 0, 9, 18));
+		// white king g6, rook a8, black king h8, black to move: mated
+		assertEquals(Tablebase.loss(0), krk.probe(false, 46, 56, 63));
+	}
+	
+	/**
+	 * KPK follows this repository's pawn rules, not standard chess: an unmoved
+	 * pawn moves or captures forward any distance, and a moved pawn captures
+	 * forward one square as well as diagonally.
+	 */
+	@Test
+	void pawnProbesFollowThisRepositorysRules()
+	{
+		// the pawn on e2 attacks the king on e8 down the open file, so white
+		// cannot be to move, and black to move is in check
+		assertEquals(Tablebase.ILLEGAL, kpk.probe(true, 4, 12, 60));
+		assertEquals(Tablebase.loss(18), kpk.probe(false, 4, 12, 60));
+		// a2-a8 promotes in one move, then KQK takes over
+		assertEquals(Tablebase.win(1 + Tablebase.distance(kqk.probe(false, 4, 56, 63))), kpk.probe(true, 4, 8, 63));
+		assertEquals(Tablebase.win(15), kpk.probe(true, 4, 8, 63));
+		// king a6 and pawn a7 mate the king on a8; the pawn covers a8 and b8
+		assertEquals(Tablebase.loss(0), kpk.probe(false, 40, 48, 56));
+		// black to move takes the undefended pawn on e7; with white to move the
+		// pawn would be attacking the king in front of it
+		assertEquals(Tablebase.DRAW, kpk.probe(false, 4, 52, 60));
+		assertEquals(Tablebase.ILLEGAL, kpk.probe(true, 4, 52, 60));
+		assertEquals(47, longestWin(kpk));
+	}
+	
+	@Test
+	void probeFromBoardWithBlackAsStrongSide()
+	{
+		Board b = new Board(8, 8);
+		b.putPieceAt(new ChessPiece(BLACKKING), makeCoordinate(3, 7));
+		b.putPieceAt(new ChessPiece(BLACKQUEEN), makeCoordinate(2, 7));
+		b.putPieceAt(new ChessPiece(WHITEKING), makeCoordinate(1, 8));
+		assertEquals(Tablebase.loss(0), kqk.probe(b, PlayerColor.WHITE));
+	}
+}
@@ -15,12 +15,18 @@ package gpv.util;
 import static gpv.chess.ChessPieceDescriptor.*;
 import static gpv.util.Coordinate.makeCoordinate;
 import static gpv.util.SquareInitializer.makeSquareInitializer;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.*;
 import gpv.chess.*;
 
@@ -64,6 +70,22 @@ class BoardTests
 		assertNotNull(theBoard.getPieceAt(makeCoordinate(6, 0)));
 	}
 
+	@Test
+	void resetReportsReplacedPiece()
+	{
+		List<String> log = new ArrayList<String>();
+		theBoard.addBoardListener(new BoardListener() {
+			public void piecePlaced(Board b, gpv.Piece p, Coordinate c) { log.add("+" + p.getDescriptor()); }
+			public void pieceRemoved(Board b, gpv.Piece p, Coordinate c) { log.add("-" + p.getDescriptor()); }
+			public void boardCleared(Board b) { log.add("clear"); }
+		});
+		theBoard.reset(makeInitializers(
+				WHITEPAWN, 2, 1,
+				BLACKROOK, 2, 1));
+		assertEquals(Arrays.asList("clear", "+" + WHITEPAWN, "-" + WHITEPAWN, "+" + BLACKROOK), log);
+		assertEquals(1, theBoard.getPieces().size());
+	}
+
 	// Helper methods
 	private List<SquareInitializer> makeInitializers(Object... params)
 	{
@@ -91,4 +113,62 @@ class BoardTests
 		assertFalse(theBoard.validateBoundaries(makeCoordinate(10,5)));
 		assertFalse(theBoard.validateBoundaries(makeCoordinate(3,9)));
 	}
+	
+	@Test
+	void latencyHistogramPercentiles()
+	{
+		LatencyHistogram h = new LatencyHistogram();
+		assertEquals(0, h.percentile(50));
+		h.record(3);
+		for (int i = 0; i < 3; i++) { h.record(100); }
+		// percentile 0 is the lowest sample's bucket, not the empty bucket 0
+		assertEquals(4, h.percentile(0));
+		assertEquals(4, h.percentile(25));
+		assertEquals(128, h.percentile(50));
+		assertEquals(128, h.percentile(100));
+		LatencyHistogram copy = LatencyHistogram.of(h.counts());
+		copy.add(h);
+		assertEquals(8, copy.count());
+		assertEquals(4, copy.percentile(25));
+		assertEquals(128, copy.percentile(26));
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)));
+	}
+	
+	@Test
+	void flightEventsFollowThresholdAndSample() throws IOException
+	{
+		try {
+			assertEquals(200, recordMutations(Duration.ZERO, 1, 200));
+			assertEquals(0, recordMutations(Duration.ofHours(1), 1, 200));
+			assertEquals(0, recordMutations(Duration.ZERO, 0, 200));
+			long sampled = recordMutations(Duration.ZERO, 4, 2000);
+			assertTrue(sampled > 0 && sampled < 2000);
+		} finally {
+			FlightRecording.setSampleEvery(1);
+		}
+	}
+
+	/**
+	 * @return the number of board mutation events a recording kept out of n puts
+	 */
+	private long recordMutations(Duration threshold, long sampleEvery, int n) throws IOException
+	{
+		FlightRecording.setSampleEvery(sampleEvery);
+		Board b = new Board(8, 8);
+		ChessPiece p = factory.makePiece(WHITEPAWN);
+		Path file = Files.createTempFile("board", ".jfr");
+		try (Recording r = new Recording()) {
+			r.enable("gpv.util.BoardMutation").withThreshold(threshold);
+			r.start();
+			for (int i = 0; i < n; i++) {
+				b.putPieceAt(p, makeCoordinate(1 + i % 8, 1));
+			}
+			r.stop();
+			r.dump(file);
+		}
+		long count = RecordingFile.readAllEvents(file).stream()
+				.filter(e -> e.getEventType().getName().equals("gpv.util.BoardMutation")).count();
+		Files.delete(file);
+		return count;
+	}
 }